@@ -0,0 +1,180 @@
+package com.example.taskmanager.archive;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.event.TasksChangedInBulkEvent;
+import com.example.taskmanager.repository.ArchivedTaskRepository;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves the tasks that were completed more than {@code taskmanager.archive.completed-for} ago from the {@code tasks}
+ * table to {@code tasks_archive}, so the hot table and its indexes only grow with the open and recently completed
+ * tasks. The task service still finds archived tasks by ID.
+ *
+ * <p>Every {@code taskmanager.archive.interval} the archiver walks the completed tasks before the cutoff in
+ * {@code (updatedAt, id)} order, {@code taskmanager.archive.batch-size} at a time, and moves each batch in its own short
+ * transaction. A batch only locks the rows it deletes, and the archiver pauses for {@code taskmanager.archive.pause}
+ * between batches so it never competes with the request traffic for long. The walk resumes after the last batch's
+ * position rather than re-reading the head of the index, which still holds the entries of the rows just deleted until
+ * the table is vacuumed.</p>
+ *
+ * <p>A run can take long and mostly sleeps, so it runs on the archiver's own thread rather than on the scheduler's
+ * single shared one, where it would hold up the deadline ticks and every other scheduled job. A run that is due while
+ * the previous one is still going is skipped.</p>
+ *
+ * <p>A batch in which a task changed while it was being moved is rolled back, and the run ends; the next run picks the
+ * batch up again.</p>
+ *
+ * <p>Not available under the {@code memory} profile: the archive is a JPA table, which the storage engine cannot move
+ * tasks into atomically.</p>
+ */
+@Component
+@Profile("!memory")
+public class TaskArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiver.class);
+
+    static final String ARCHIVED_METRIC = "taskmanager.archive.tasks";
+
+    static final String BATCH_METRIC = "taskmanager.archive.batch";
+
+    static final String POSITION_METRIC = "taskmanager.archive.position";
+
+    /**
+     * The positions a batch read and the number of tasks it moved, fewer if some changed since they were read.
+     */
+    private record Batch(List<TaskCursor> read, int archived) {
+    }
+
+    /**
+     * Completion time of the last archived task in epoch seconds, how far the archive has caught up.
+     */
+    private final AtomicLong position = Metrics.gauge(POSITION_METRIC, new AtomicLong());
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    Clock clock = Clock.systemUTC();
+
+    @Value("${taskmanager.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${taskmanager.archive.completed-for:P90D}")
+    private Duration completedFor;
+
+    @Value("${taskmanager.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${taskmanager.archive.pause:PT0.1S}")
+    private Duration pause;
+
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Scheduled(fixedDelayString = "${taskmanager.archive.interval:PT1H}",
+            initialDelayString = "${taskmanager.archive.interval:PT1H}")
+    public void run() {
+        if (enabled && running.compareAndSet(false, true)) {
+            runner.execute(() -> {
+                try {
+                    archive();
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupts the pause between batches, the batch in flight commits or rolls back on its own
+        runner.shutdownNow();
+    }
+
+    /**
+     * Archives every task completed before the cutoff, batch by batch.
+     *
+     * @return the number of archived tasks.
+     */
+    public int archive() {
+        LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+        LocalDateTime cutoff = now.minus(completedFor);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        TaskCursor after = null;
+        int total = 0;
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                TaskCursor from = after;
+                Batch batch = transaction.execute(status -> archiveBatch(from, cutoff, now));
+                Metrics.timer(BATCH_METRIC).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (batch.read().isEmpty()) {
+                    break;
+                }
+                after = batch.read().get(batch.read().size() - 1);
+                total += batch.archived();
+                Metrics.counter(ARCHIVED_METRIC).increment(batch.archived());
+                position.set(after.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+                if (batch.read().size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.warn("Archiving stopped after {} tasks, resuming on the next run", total, ex);
+        }
+        if (total > 0) {
+            log.info("Archived {} tasks completed before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private Batch archiveBatch(TaskCursor after, LocalDateTime cutoff, LocalDateTime now) {
+        PageRequest page = PageRequest.ofSize(batchSize);
+        List<TaskCursor> read = after == null
+                ? archivedTaskRepository.findFirstArchivable(cutoff, page)
+                : archivedTaskRepository.findArchivableAfter(cutoff, after.getTimestamp(), after.getId(), page);
+        if (read.isEmpty()) {
+            return new Batch(read, 0);
+        }
+        int archived = archivedTaskRepository.archiveCompleted(read.stream().map(TaskCursor::getId).toList(), cutoff, now);
+        // The outbox records the change in this transaction, the statistics reconcile after it commits
+        eventPublisher.publishEvent(new TasksChangedInBulkEvent(archived));
+        return new Batch(read, archived);
+    }
+}
@@ -0,0 +1,508 @@
+package com.example.taskmanager.changes;
+
+import com.example.taskmanager.dto.ChangeBatch;
+import com.example.taskmanager.entity.ChangeRecord;
+import com.example.taskmanager.exception.ChangeFeedExpiredException;
+import com.example.taskmanager.repository.ChangeRecordRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The change feed: the outbox as an ordered, resumable stream of changes, served to any number of clients from
+ * memory.
+ *
+ * <p>A single relay thread tails the outbox by sequence number, woken up by every commit that wrote to it and
+ * otherwise every {@code taskmanager.changes.poll-interval}, and appends the new changes to a ring buffer of the last
+ * {@code taskmanager.changes.buffer-size} changes. Readers never lock: they binary search the ring and validate
+ * afterwards that the writer did not overwrite what they read. Clients that ask for changes older than the ring are
+ * served from the outbox table instead.</p>
+ *
+ * <p>Sequence numbers are taken before commit, so a transaction can commit after one that took a later number. When
+ * the relay finds a gap it waits up to {@code taskmanager.changes.gap-timeout} for the gap to fill before it moves
+ * past it. Rolled back transactions leave gaps that never fill and only delay the feed by the timeout. The numbers it
+ * moved past are looked up again every {@code taskmanager.changes.poll-interval} for
+ * {@code taskmanager.changes.gap-lookback}: a change found there belongs to a transaction that ran longer than the
+ * timeout, and is moved to a new sequence number, so it is published after the changes that committed before it
+ * rather than behind the position of clients that have read past it.</p>
+ *
+ * <p>Changes are kept for {@code taskmanager.changes.retention}; resuming from an older position fails with
+ * {@link ChangeFeedExpiredException} and the client has to reload.</p>
+ */
+@Component
+public class ChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private static final int RELAY_BATCH_SIZE = 500;
+
+    private static final int SEND_BATCH_SIZE = 100;
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    /**
+     * The most skipped sequence numbers looked up again, the oldest are given up beyond it.
+     */
+    private static final int MAX_SKIPPED = 10_000;
+
+    /**
+     * A connected Server-Sent Events client and the sequence number of the last change it was sent.
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Semaphore wakeUps = new Semaphore(0);
+
+    private AtomicReferenceArray<ChangeRecord> ring;
+
+    private int mask;
+
+    /**
+     * Number of changes ever appended to the ring. Written by the relay thread only.
+     */
+    private volatile long head;
+
+    /**
+     * Sequence number of the last change published, or the starting point while nothing has been published yet.
+     */
+    private volatile long lastSeq;
+
+    /**
+     * Sequence number of the oldest change in the ring, which is about to be evicted: readers use the ring for every
+     * published change after it.
+     */
+    private volatile long floorSeq;
+
+    /**
+     * Changes up to and including this sequence number have been purged.
+     */
+    private volatile long purgedThrough;
+
+    private Instant gapSince;
+
+    /**
+     * The sequence numbers the relay moved past without a change, and when. Used by the relay thread only.
+     */
+    private final NavigableMap<Long, Instant> skipped = new TreeMap<>();
+
+    private Instant lookedBackAt;
+
+    private volatile boolean running;
+
+    private Thread relay;
+
+    private ExecutorService fanOut;
+
+    Clock clock = Clock.systemUTC();
+
+    @Value("${taskmanager.changes.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${taskmanager.changes.poll-interval:PT1S}")
+    private Duration pollInterval;
+
+    @Value("${taskmanager.changes.gap-timeout:PT2S}")
+    private Duration gapTimeout;
+
+    @Value("${taskmanager.changes.gap-lookback:PT10M}")
+    private Duration gapLookback;
+
+    @Value("${taskmanager.changes.retention:P7D}")
+    private Duration retention;
+
+    @Value("${taskmanager.changes.fan-out-threads:4}")
+    private int fanOutThreads;
+
+    @Autowired
+    private ChangeRecordRepository changeRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        initialize();
+        AtomicInteger threads = new AtomicInteger();
+        fanOut = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-fan-out-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        relay = new Thread(this::relay, "change-feed-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    /**
+     * Sets up the ring, starting from the newest change in the outbox.
+     */
+    void initialize() {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+        ring = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+        lastSeq = changeRecordRepository.findMaxSeq().orElse(0L);
+        floorSeq = lastSeq;
+        purgedThrough = changeRecordRepository.findMinSeq().map(min -> min - 1).orElse(lastSeq);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (relay != null) {
+            relay.interrupt();
+        }
+        if (fanOut != null) {
+            fanOut.shutdownNow();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Asks the relay to look for new changes now, called after a transaction that wrote to the outbox commits.
+     */
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    /**
+     * Returns up to {@code limit} published changes after the given sequence number, oldest first.
+     *
+     * @throws ChangeFeedExpiredException If changes after the given sequence number have been purged.
+     */
+    public ChangeBatch changesAfter(long since, int limit) {
+        long last = lastSeq;
+        if (since < purgedThrough) {
+            throw new ChangeFeedExpiredException("Changes after " + since + " are no longer retained, "
+                    + "reload and resume from " + last);
+        }
+        if (since >= last) {
+            return new ChangeBatch(List.of(), last);
+        }
+        List<ChangeRecord> changes = readRing(since, limit);
+        if (changes == null) {
+            // Older than the ring, or overwritten while reading
+            changes = changeRecordRepository.findBetween(since, last, PageRequest.ofSize(limit));
+        }
+        return new ChangeBatch(changes, changes.isEmpty() ? last : changes.get(changes.size() - 1).getSeq());
+    }
+
+    /**
+     * Returns the sequence number of the last change published.
+     */
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of the changes after the given sequence number. Every event carries the
+     * sequence number as its ID, so a reconnecting client resumes with {@code Last-Event-ID}.
+     *
+     * @throws ChangeFeedExpiredException If changes after the given sequence number have been purged.
+     */
+    public SseEmitter subscribe(long since) {
+        if (since < purgedThrough) {
+            throw new ChangeFeedExpiredException("Changes after " + since + " are no longer retained, "
+                    + "reload and resume from " + lastSeq);
+        }
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Sends a comment to every subscriber, so connections that died without closing are noticed and dropped.
+     */
+    @Scheduled(fixedRateString = "${taskmanager.changes.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            fanOut.execute(() -> {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException ex) {
+                    drop(subscriber, ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes the changes older than the retention period that have already been published.
+     */
+    @Scheduled(fixedDelayString = "${taskmanager.changes.purge-interval:PT1H}")
+    public void purge() {
+        if (ring == null) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.ofInstant(clock.instant().minus(retention), ZoneOffset.UTC);
+        changeRecordRepository.findMaxSeqBefore(cutoff)
+                .map(max -> Math.min(max, lastSeq))
+                .filter(upTo -> upTo > purgedThrough)
+                .ifPresent(upTo -> {
+                    purgedThrough = upTo;
+                    int deleted = changeRecordRepository.deleteUpTo(upTo);
+                    log.debug("Purged {} changes up to {}", deleted, upTo);
+                });
+    }
+
+    private void relay() {
+        while (running) {
+            try {
+                wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+                poll();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.warn("Change feed relay failed, retrying", ex);
+            }
+        }
+    }
+
+    /**
+     * Appends the committed changes after the last published one to the ring, stopping at a gap that has not timed
+     * out yet, moves the changes that committed late to the end of the feed, and wakes up the subscribers.
+     */
+    void poll() {
+        boolean published = publishCommitted();
+        if (requeueLateChanges()) {
+            published |= publishCommitted();
+        }
+        if (published) {
+            subscribers.forEach(this::schedule);
+        }
+    }
+
+    private boolean publishCommitted() {
+        boolean published = false;
+        boolean more = true;
+        while (more) {
+            List<ChangeRecord> changes = changeRecordRepository.findAfter(lastSeq, PageRequest.ofSize(RELAY_BATCH_SIZE));
+            more = changes.size() == RELAY_BATCH_SIZE;
+            for (ChangeRecord change : changes) {
+                if (change.getSeq() != lastSeq + 1) {
+                    if (!gapTimedOut()) {
+                        more = false;
+                        break;
+                    }
+                    skip(lastSeq + 1, change.getSeq());
+                }
+                gapSince = null;
+                append(change);
+                published = true;
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Remembers the sequence numbers in {@code [from, to)}, whose transactions may still commit.
+     */
+    private void skip(long from, long to) {
+        Instant now = clock.instant();
+        for (long seq = Math.max(from, to - MAX_SKIPPED); seq < to; seq++) {
+            skipped.put(seq, now);
+        }
+        while (skipped.size() > MAX_SKIPPED) {
+            skipped.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Looks up the skipped sequence numbers again, and moves the changes that were committed there since to new
+     * sequence numbers after the published ones.
+     *
+     * @return true if a change was moved.
+     */
+    private boolean requeueLateChanges() {
+        Instant now = clock.instant();
+        if (skipped.isEmpty() || (lookedBackAt != null && lookedBackAt.plus(pollInterval).isAfter(now))) {
+            return false;
+        }
+        lookedBackAt = now;
+        Instant cutoff = now.minus(gapLookback);
+        skipped.values().removeIf(skippedAt -> skippedAt.isBefore(cutoff));
+
+        List<Long> seqs = new ArrayList<>(skipped.keySet());
+        List<ChangeRecord> late = new ArrayList<>();
+        for (int from = 0; from < seqs.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = seqs.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, seqs.size()));
+            late.addAll(changeRecordRepository.findBySeqIn(chunk));
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (ChangeRecord change : late) {
+            skipped.remove(change.getSeq());
+            ChangeRecord moved = transaction.execute(status -> {
+                changeRecordRepository.deleteById(change.getSeq());
+                return changeRecordRepository.save(requeued(change));
+            });
+            log.warn("Change {} committed after the feed moved past it, published again as {}", change.getSeq(),
+                    moved.getSeq());
+        }
+        return !late.isEmpty();
+    }
+
+    private static ChangeRecord requeued(ChangeRecord change) {
+        ChangeRecord copy = new ChangeRecord();
+        copy.setEntity(change.getEntity());
+        copy.setEntityId(change.getEntityId());
+        copy.setType(change.getType());
+        copy.setVersion(change.getVersion());
+        copy.setOccurredAt(change.getOccurredAt());
+        copy.setData(change.getData());
+        return copy;
+    }
+
+    private boolean gapTimedOut() {
+        Instant now = clock.instant();
+        if (gapSince == null) {
+            gapSince = now;
+        }
+        if (Duration.between(gapSince, now).compareTo(gapTimeout) < 0) {
+            return false;
+        }
+        log.debug("Change feed skipping gap after {}", lastSeq);
+        return true;
+    }
+
+    private void append(ChangeRecord change) {
+        long position = head;
+        ring.set((int) (position & mask), change);
+        // The next append overwrites the oldest slot, so readers only rely on the others
+        ChangeRecord oldest = ring.get((int) ((position + 1) & mask));
+        if (oldest != null) {
+            floorSeq = oldest.getSeq();
+        }
+        // Readers read lastSeq before head, so publish the change in the ring before announcing it
+        head = position + 1;
+        lastSeq = change.getSeq();
+    }
+
+    /**
+     * Reads the changes after {@code since} from the ring, or returns null if the ring does not reach back that far.
+     */
+    private List<ChangeRecord> readRing(long since, int limit) {
+        long end = head;
+        if (since < floorSeq) {
+            return null;
+        }
+        int capacity = mask + 1;
+        long low = Math.max(0, end - capacity + 1);
+        long high = end;
+        long lowestRead = end;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            lowestRead = Math.min(lowestRead, middle);
+            if (ring.get((int) (middle & mask)).getSeq() <= since) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<ChangeRecord> changes = new ArrayList<>();
+        for (long position = low; position < end && changes.size() < limit; position++) {
+            lowestRead = Math.min(lowestRead, position);
+            changes.add(ring.get((int) (position & mask)));
+        }
+        // The slot of position p is overwritten by the append of p + capacity, which may be in progress at head
+        if (lowestRead <= head - capacity) {
+            return null;
+        }
+        return changes;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            fanOut.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                List<ChangeRecord> changes = changesAfter(subscriber.cursor, SEND_BATCH_SIZE).getChanges();
+                if (changes.isEmpty()) {
+                    break;
+                }
+                for (ChangeRecord change : changes) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.getSeq()))
+                            .name(change.getEntity())
+                            .data(change, MediaType.APPLICATION_JSON));
+                    subscriber.cursor = change.getSeq();
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            drop(subscriber, ex);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A change published after the loop ran dry but before draining was reset would otherwise wait
+        if (subscriber.cursor < lastSeq && subscribers.contains(subscriber)) {
+            schedule(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception ex) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Dropping change feed subscriber: {}", ex.toString());
+            subscriber.emitter.completeWithError(ex);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.taskmanager.changes;
+
+import com.example.taskmanager.entity.ChangeRecord;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskDeadlineEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.event.TasksChangedInBulkEvent;
+import com.example.taskmanager.event.UserChangedEvent;
+import com.example.taskmanager.repository.ChangeRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the change events of the task and user services, and the reminders and overdue notices of the deadline
+ * scheduler, to the outbox.
+ *
+ * <p>The listeners are synchronous, so the outbox rows are inserted in the transaction that made the changes and commit
+ * or roll back with it. They are collected while the transaction runs and inserted in one JDBC batch just before it
+ * commits, so a bulk chunk of hundreds of tasks adds one round trip rather than one per task. Once the transaction
+ * commits, the {@link ChangeFeed} relay is woken up to publish them.</p>
+ */
+@Component
+public class ChangeOutbox {
+
+    @Autowired
+    private ChangeRecordRepository changeRecordRepository;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        TaskSnapshot current = event.getCurrent();
+        TaskSnapshot versioned = current != null ? current : event.getPrevious();
+        record(ChangeRecord.TASK, event.getTaskId(), event.getType().name(),
+                versioned != null ? versioned.getVersion() : null, current);
+    }
+
+    @EventListener
+    public void onTasksChangedInBulk(TasksChangedInBulkEvent event) {
+        if (event.getAffected() > 0) {
+            record(ChangeRecord.TASK, null, ChangeRecord.BULK, null, Map.of("affected", event.getAffected()));
+        }
+    }
+
+    /**
+     * Records a reminder or an overdue notice, so change feed clients see tasks become due like any other change. The
+     * scheduler publishes outside a transaction, so the row is inserted right away.
+     */
+    @EventListener
+    public void onTaskDeadline(TaskDeadlineEvent event) {
+        record(ChangeRecord.TASK, event.getTaskId(), event.getType().name(), null, event);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        record(ChangeRecord.USER, event.getUserId(), event.getType().name(), event.getVersion(), event.getCurrent());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true,
+            classes = {TaskChangedEvent.class, TasksChangedInBulkEvent.class, TaskDeadlineEvent.class, UserChangedEvent.class})
+    public void onCommit() {
+        changeFeed.wakeUp();
+    }
+
+    private void record(String entity, Long entityId, String type, Long version, Object data) {
+        ChangeRecord change = new ChangeRecord();
+        change.setEntity(entity);
+        change.setEntityId(entityId);
+        change.setType(type);
+        change.setVersion(version);
+        change.setOccurredAt(ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime());
+        try {
+            change.setData(data != null ? objectMapper.writeValueAsString(data) : null);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize " + entity + " " + entityId, ex);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changeRecordRepository.insertAll(List.of(change));
+            return;
+        }
+        pending().changes.add(change);
+    }
+
+    /**
+     * Returns the changes collected for the current transaction, registering them on the first one.
+     */
+    private Batch pending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Batch batch) {
+                return batch;
+            }
+        }
+        Batch batch = new Batch();
+        TransactionSynchronizationManager.registerSynchronization(batch);
+        return batch;
+    }
+
+    /**
+     * The changes of one transaction. Registered as a synchronization, so it is suspended and resumed with the
+     * transaction, and a nested transaction collects its own.
+     */
+    private final class Batch implements TransactionSynchronization {
+
+        private final List<ChangeRecord> changes = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            changeRecordRepository.insertAll(changes);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.taskmanager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-process caches.
+ *
+ * <p>Caches are bounded Caffeine caches (W-TinyLFU eviction with a TTL) that record hit, miss and eviction
+ * statistics, published through the actuator {@code cache.*} metrics. They are transaction aware: puts and
+ * evictions made inside a transaction are only applied once it commits, so a rolled back write never evicts
+ * or overwrites an entry.</p>
+ *
+ * <p>Eviction after commit does not keep a cache consistent on its own: a reader that loaded a row before a write
+ * committed can still put the old value after the write's eviction. Such a stale entry lives until it expires, so
+ * the TTL in {@code taskmanager.cache.users.spec} is kept short; it bounds how long a user change can go unseen.</p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS = "users";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${taskmanager.cache.users.spec}") String usersSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(USERS);
+        cacheManager.setCacheSpecification(usersSpec);
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.taskmanager.config;
+
+import com.example.taskmanager.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the read replicas listed in {@code taskmanager.datasource.replica-urls}, see
+ * {@link ReplicaRoutingDataSource}. Without replicas, the data source is Spring Boot's single connection pool.
+ *
+ * <p>The primary pool is configured as usual through {@code spring.datasource.*}. The replicas use the same
+ * credentials unless {@code taskmanager.datasource.replica-username} and {@code replica-password} are set, and each
+ * gets a pool of {@code taskmanager.datasource.replica-pool-size} connections, published as {@code hikaricp.*} metrics
+ * like the primary's.</p>
+ */
+@Configuration
+@ConditionalOnProperty("taskmanager.datasource.replica-urls")
+public class ReplicaDataSourceConfig {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 DataSourceProperties properties,
+                                 @Value("${taskmanager.datasource.replica-urls}") List<String> replicaUrls,
+                                 @Value("${taskmanager.datasource.replica-username:}") String username,
+                                 @Value("${taskmanager.datasource.replica-password:}") String password,
+                                 @Value("${taskmanager.datasource.replica-pool-size:10}") int poolSize,
+                                 @Value("${taskmanager.datasource.replica-max-lag:PT1S}") Duration maxLag,
+                                 @Value("${taskmanager.datasource.replica-lag-query}") String lagQuery) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i));
+            replica.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            replica.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replica.setReadOnly(true);
+            // Replicas that are down when the application starts are retried by the lag checks
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(replica.getPoolName(), replica);
+        }
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, lagQuery);
+        routingDataSource.checkReplicas();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${taskmanager.datasource.replica-check:PT5S}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas();
+        }
+    }
+}
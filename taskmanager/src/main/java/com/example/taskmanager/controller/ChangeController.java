@@ -0,0 +1,66 @@
+package com.example.taskmanager.controller;
+
+import com.example.taskmanager.dto.ChangeBatch;
+import com.example.taskmanager.exception.InvalidCursorException;
+import com.example.taskmanager.service.ChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * The change feed of tasks and users, so clients can follow changes instead of polling the listings.
+ *
+ * <p>A client first calls {@code GET /api/changes} without {@code since} to learn the current position, then loads
+ * its initial state, then follows the changes after that position, either by polling {@code GET /api/changes} or
+ * through the event stream.</p>
+ */
+@CrossOrigin(origins = "http://localhost:3000")
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    @Autowired
+    private ChangeService changeService;
+
+    /**
+     * Retrieves the changes after a position of the change feed.
+     *
+     * @param since The sequence number of the last change seen. If null, only the current position is returned.
+     * @param limit The maximum number of changes to return.
+     * @return ResponseEntity containing the changes and the position to resume from, and HTTP status 200 (OK),
+     * or HTTP status 410 (Gone) if the changes after {@code since} are no longer retained.
+     */
+    @GetMapping
+    public ResponseEntity<ChangeBatch> getChanges(@RequestParam(required = false) Long since,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        ChangeBatch changes = changeService.getChanges(since, limit);
+        return new ResponseEntity<>(changes, HttpStatus.OK);
+    }
+
+    /**
+     * Streams the changes after a position of the change feed as Server-Sent Events. Each event is named after the
+     * changed entity and carries its sequence number as the event ID, so a browser reconnecting with
+     * {@code Last-Event-ID} resumes where it stopped.
+     *
+     * @param since The sequence number of the last change seen. If null, only new changes are sent.
+     * @param lastEventId The ID of the last event received before a reconnect, which takes precedence over {@code since}.
+     * @return The event stream, or HTTP status 410 (Gone) if the changes after that position are no longer retained.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        if (lastEventId != null) {
+            try {
+                since = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException ex) {
+                throw new InvalidCursorException("Invalid " + LAST_EVENT_ID + ": " + lastEventId);
+            }
+        }
+        return changeService.streamChanges(since);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.taskmanager.controller;
+
+import com.example.taskmanager.exception.PreconditionFailedException;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Strong entity tags derived from the {@code @Version} of an entity.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Formats a version as a strong entity tag, or returns null if the entity has no version yet.
+     */
+    static String of(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * Returns response headers carrying the entity tag of the given version, if there is one.
+     */
+    static HttpHeaders headers(Long version) {
+        HttpHeaders headers = new HttpHeaders();
+        if (version != null) {
+            headers.setETag(of(version));
+        }
+        return headers;
+    }
+
+    /**
+     * Returns true if an {@code If-None-Match} header matches the given version.
+     */
+    static boolean matches(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null || version == null) {
+            return false;
+        }
+        String current = of(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            // Weak comparison is fine for GET, so a W/ prefix added by a proxy still matches
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the expected version from an {@code If-Match} header.
+     *
+     * @return the version, or null if the header is absent or {@code *}, meaning the update is unconditional.
+     * @throws PreconditionFailedException If the header is not a single strong tag produced by {@link #of}, as it
+     *                                     can then never match the current version.
+     */
+    static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ex) {
+                // Falls through to the precondition failure below
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.taskmanager.controller;
+
+/**
+ * Handling of the {@code Prefer} request header (RFC 7240).
+ */
+final class Preferences {
+
+    static final String PREFER = "Prefer";
+
+    static final String PREFERENCE_APPLIED = "Preference-Applied";
+
+    static final String RETURN_MINIMAL = "return=minimal";
+
+    private Preferences() {
+    }
+
+    /**
+     * Returns true if the client asked for no response body.
+     */
+    static boolean returnMinimal(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().equalsIgnoreCase(RETURN_MINIMAL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,14 +1,39 @@
 package com.example.taskmanager.controller;
 
+import com.example.taskmanager.dto.AffectedCount;
+import com.example.taskmanager.dto.BulkResult;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.ImportJob;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.dto.TaskTransition;
 import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.imports.TaskImportReader;
+import com.example.taskmanager.ratelimit.EndpointClass;
+import com.example.taskmanager.ratelimit.RateLimited;
 import com.example.taskmanager.service.TaskService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 @CrossOrigin(origins = "http://localhost:3000")
@@ -16,9 +41,20 @@ import java.util.TimeZone;
 @RequestMapping("/api/tasks")
 public class TaskController {
 
+    static final String NDJSON = "application/x-ndjson";
+
+    static final String MERGE_PATCH = "application/merge-patch+json";
+
+    static final String CSV = "text/csv";
+
+    private static final int EXPORT_FLUSH_INTERVAL = 100;
+
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Creates a new task.
      *
@@ -34,26 +70,212 @@ public class TaskController {
     }
 
     /**
-     * Retrieves all tasks.
+     * Creates or updates many tasks in one request. Items with an ID update that task, the others are created.
+     * Each item is validated and written independently, so one bad item does not reject the whole request.
+     *
+     * @param tasks The tasks to create or update.
+     * @param timezone The timezone for the tasks' timestamps. If null, the system default timezone will be used.
+     * @return ResponseEntity containing the outcome of every item and HTTP status 200 (OK).
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResult> bulkUpsertTasks(@RequestBody List<Task> tasks, @RequestParam(required = false) String timezone) {
+        TimeZone tz = timezone != null ? TimeZone.getTimeZone(timezone) : null;
+        BulkResult result = taskService.bulkUpsertTasks(tasks, tz);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Creates the tasks of a CSV upload. The first line names the columns, out of title, description, status,
+     * assigneeId, dueAt and timezone. The upload is read and committed in chunks while it arrives.
+     *
+     * <p>As soon as the import job is registered, before the upload is read, the response status and headers are
+     * sent: {@code 202 Accepted} with the {@code Location} of the job, where the progress can be followed meanwhile.
+     * The body, sent when the import ends, is the finished job. Rows that fail validation are reported in the job and
+     * do not stop the import; an upload that cannot be read to the end fails the job.</p>
+     *
+     * @param body     The CSV upload.
+     * @param response The response, committed once the job is registered.
+     * @return ResponseEntity containing the finished import job and HTTP status 202 (Accepted).
+     */
+    @PostMapping(value = "/imports", consumes = CSV)
+    @RateLimited(EndpointClass.WRITE)
+    public ResponseEntity<ImportJob> importTasksFromCsv(InputStream body, HttpServletResponse response) {
+        ImportJob job = taskService.importTasks(TaskImportReader.csv(body), started -> accept(started, response));
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Creates the tasks of a JSON array upload, in the format accepted by {@code POST /api/tasks}. The array is read
+     * and committed in chunks while it arrives, and answered like a CSV import.
+     *
+     * @param body     The JSON upload.
+     * @param response The response, committed once the job is registered.
+     * @return ResponseEntity containing the finished import job and HTTP status 202 (Accepted).
+     */
+    @PostMapping(value = "/imports", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @RateLimited(EndpointClass.WRITE)
+    public ResponseEntity<ImportJob> importTasksFromJson(InputStream body, HttpServletResponse response) throws IOException {
+        ImportJob job = taskService.importTasks(TaskImportReader.json(body, objectMapper), started -> accept(started, response));
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Sends {@code 202 Accepted} with the location of a registered import job before its upload is read.
+     */
+    private static void accept(ImportJob job, HttpServletResponse response) {
+        response.setStatus(HttpStatus.ACCEPTED.value());
+        response.setHeader(HttpHeaders.LOCATION, "/api/tasks/imports/" + job.getId());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try {
+            response.flushBuffer();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Retrieves the recent imports, most recently started first.
+     *
+     * @return ResponseEntity containing the import jobs and HTTP status 200 (OK).
+     */
+    @GetMapping("/imports")
+    @RateLimited(EndpointClass.LIST)
+    public ResponseEntity<List<ImportJob>> getImportJobs() {
+        List<ImportJob> jobs = taskService.getImportJobs();
+        return new ResponseEntity<>(jobs, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the progress of an import, as of its last committed chunk.
+     *
+     * @param id The ID of the import job.
+     * @return ResponseEntity containing the import job and HTTP status 200 (OK).
+     */
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String id) {
+        ImportJob job = taskService.getImportJob(id);
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves one page of tasks, ordered by creation time, optionally filtered.
      *
-     * @return ResponseEntity containing a list of all tasks and HTTP status 200 (OK).
+     * @param status Only return tasks with this status.
+     * @param assignee Only return tasks assigned to the user with this ID.
+     * @param createdFrom Only return tasks created at or after this UTC date-time.
+     * @param updatedSince Only return tasks updated at or after this UTC date-time.
+     * @param cursor The cursor returned with the previous page. If null, the first page is returned.
+     * @param limit The maximum number of tasks to return.
+     * @return ResponseEntity containing the page of tasks and the next cursor, and HTTP status 200 (OK).
      */
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks() {
-        List<Task> tasks = taskService.getAllTasks();
+    @RateLimited(EndpointClass.LIST)
+    public ResponseEntity<CursorPage<Task>> getAllTasks(@RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) Long assignee,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int limit) {
+        TaskFilter filter = new TaskFilter(status, assignee, createdFrom, updatedSince, null);
+        CursorPage<Task> tasks = taskService.getTasksPage(filter, cursor, limit);
         return new ResponseEntity<>(tasks, HttpStatus.OK);
     }
 
+    /**
+     * Searches tasks by the words in their title and description, best match first.
+     *
+     * @param q The words to search for. Every word must match.
+     * @param limit The maximum number of tasks to return.
+     * @return ResponseEntity containing the matching tasks and HTTP status 200 (OK).
+     */
+    @GetMapping("/search")
+    @RateLimited(EndpointClass.SEARCH)
+    public ResponseEntity<List<Task>> searchTasks(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        List<Task> tasks = taskService.searchTasks(q, limit);
+        return new ResponseEntity<>(tasks, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the number of tasks per status, overall and per assignee.
+     *
+     * @return ResponseEntity containing the task counts and HTTP status 200 (OK).
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<TaskStats> getTaskStats() {
+        TaskStats stats = taskService.getTaskStats();
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves one page of task summaries, ordered by creation time.
+     * Summaries carry the assignee's ID instead of the full user, for list views.
+     *
+     * @param cursor The cursor returned with the previous page. If null, the first page is returned.
+     * @param limit The maximum number of summaries to return.
+     * @return ResponseEntity containing the page of task summaries and the next cursor, and HTTP status 200 (OK).
+     */
+    @GetMapping("/summaries")
+    @RateLimited(EndpointClass.LIST)
+    public ResponseEntity<CursorPage<TaskSummary>> getTaskSummaries(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<TaskSummary> summaries = taskService.getTaskSummariesPage(cursor, limit);
+        return new ResponseEntity<>(summaries, HttpStatus.OK);
+    }
+
+    /**
+     * Exports every task as newline-delimited JSON, one task per line.
+     * The response is written while the tasks are read, so the first rows arrive before the scan completes.
+     *
+     * @return ResponseEntity streaming the tasks and HTTP status 200 (OK).
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    @RateLimited(EndpointClass.LIST)
+    public ResponseEntity<StreamingResponseBody> exportTasks() {
+        // Flushing is done in batches below rather than after every task
+        ObjectWriter writer = objectMapper.writerFor(Task.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                int[] written = {0};
+                taskService.exportTasks(task -> {
+                    try {
+                        writer.writeValue(generator, task);
+                        generator.writeRaw('\n');
+                        if (++written[0] % EXPORT_FLUSH_INTERVAL == 1) {
+                            generator.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(NDJSON));
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
     /**
      * Retrieves a task by its ID.
      *
      * @param id The ID of the task to retrieve.
-     * @return ResponseEntity containing the task with the given ID and HTTP status 200 (OK).
+     * @param ifNoneMatch The entity tag of the version the client already has, if any.
+     * @return ResponseEntity containing the task with the given ID and its ETag, and HTTP status 200 (OK),
+     * or HTTP status 304 (Not Modified) without a body if the client's version is current.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
+    public ResponseEntity<Task> getTaskById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // Compare against the version alone, read with a single-column query, so an unchanged task is neither
+            // loaded with its assignee nor serialized
+            Long version = taskService.getTaskVersion(id);
+            if (ETags.matches(ifNoneMatch, version)) {
+                return new ResponseEntity<>(ETags.headers(version), HttpStatus.NOT_MODIFIED);
+            }
+        }
         Task task = taskService.getTaskById(id);
-        return new ResponseEntity<>(task, HttpStatus.OK);
+        return new ResponseEntity<>(task, ETags.headers(task.getVersion()), HttpStatus.OK);
     }
 
     /**
@@ -62,13 +284,47 @@ public class TaskController {
      * @param id The ID of the task to update.
      * @param taskDetails The new task details.
      * @param timezone The timezone for the task's updated timestamp. If null, the system default timezone will be used.
-     * @return ResponseEntity containing the updated task and HTTP status 200 (OK).
+     * @param ifMatch The entity tag of the version the update is based on. If set, the update fails with
+     *                HTTP status 412 (Precondition Failed) when the task has been modified since.
+     * @return ResponseEntity containing the updated task and its new ETag, and HTTP status 200 (OK).
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task taskDetails, @RequestParam(required = false) String timezone) {
+    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task taskDetails, @RequestParam(required = false) String timezone,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         TimeZone tz = timezone != null ? TimeZone.getTimeZone(timezone) : null;
-        Task updatedTask = taskService.updateTask(id, taskDetails, tz);
-        return new ResponseEntity<>(updatedTask, HttpStatus.OK);
+        Long version = ETags.ifMatchVersion(ifMatch);
+        Task updatedTask = version != null
+                ? taskService.updateTaskIfVersion(id, taskDetails, tz, version)
+                : taskService.updateTask(id, taskDetails, tz);
+        return new ResponseEntity<>(updatedTask, ETags.headers(updatedTask.getVersion()), HttpStatus.OK);
+    }
+
+    /**
+     * Applies a JSON Merge Patch to a task: only the fields present in the body are changed, a null value clears a field.
+     * With {@code Prefer: return=minimal} the task is patched without being loaded and no body is returned.
+     *
+     * @param id The ID of the task to patch.
+     * @param patch The merge patch.
+     * @param ifMatch The entity tag of the version the patch is based on; if set, the patch fails with
+     *                HTTP status 412 (Precondition Failed) when the task has been modified since.
+     * @param prefer The {@code Prefer} header.
+     * @return ResponseEntity containing the patched task and its new ETag and HTTP status 200 (OK),
+     *         or HTTP status 204 (No Content) when a minimal response was requested.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Task> patchTask(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestHeader(value = Preferences.PREFER, required = false) String prefer) {
+        Long version = ETags.ifMatchVersion(ifMatch);
+        if (Preferences.returnMinimal(prefer)) {
+            taskService.patchTaskWithoutLoading(id, patch, version);
+            // The new version is only known if the patch was conditional
+            HttpHeaders headers = ETags.headers(version != null ? version + 1 : null);
+            headers.set(Preferences.PREFERENCE_APPLIED, Preferences.RETURN_MINIMAL);
+            return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
+        }
+        Task patchedTask = taskService.patchTask(id, patch, version);
+        return new ResponseEntity<>(patchedTask, ETags.headers(patchedTask.getVersion()), HttpStatus.OK);
     }
 
     /**
@@ -82,4 +338,32 @@ public class TaskController {
         taskService.deleteTask(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    /**
+     * Deletes every task matching the given criteria in one statement.
+     *
+     * @param status The status of the tasks to delete.
+     * @param assignee The ID of the user the tasks to delete are assigned to.
+     * @param before Only delete tasks last updated before this time.
+     * @return ResponseEntity containing the number of deleted tasks and HTTP status 200 (OK).
+     */
+    @DeleteMapping
+    public ResponseEntity<AffectedCount> deleteTasks(@RequestParam(required = false) String status,
+                                                     @RequestParam(required = false) Long assignee,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        int deleted = taskService.deleteTasks(new TaskFilter(status, assignee, null, null, before));
+        return new ResponseEntity<>(new AffectedCount(deleted), HttpStatus.OK);
+    }
+
+    /**
+     * Moves every task in one status, optionally of one assignee, to another status in one statement.
+     *
+     * @param transition The status to move from and to, and the optional assignee.
+     * @return ResponseEntity containing the number of moved tasks and HTTP status 200 (OK).
+     */
+    @PostMapping("/transition")
+    public ResponseEntity<AffectedCount> transitionTasks(@Valid @RequestBody TaskTransition transition) {
+        int updated = taskService.transitionTasks(transition);
+        return new ResponseEntity<>(new AffectedCount(updated), HttpStatus.OK);
+    }
 }
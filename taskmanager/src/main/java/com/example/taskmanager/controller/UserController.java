@@ -1,14 +1,23 @@
 package com.example.taskmanager.controller;
 
+import com.example.taskmanager.dto.AffectedCount;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.TaskSummary;
 import com.example.taskmanager.entity.User;
+import com.example.taskmanager.ratelimit.EndpointClass;
+import com.example.taskmanager.ratelimit.RateLimited;
+import com.example.taskmanager.service.TaskService;
 import com.example.taskmanager.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for managing User entities.
@@ -20,6 +29,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TaskService taskService;
+
     /**
      * Creates a new user.
      *
@@ -37,6 +49,7 @@ public class UserController {
      * @return ResponseEntity containing the list of users and status code 200 (OK)
      */
     @GetMapping
+    @RateLimited(EndpointClass.LIST)
     public ResponseEntity<List<User>> getAllUsers() {
         return new ResponseEntity<>(userService.getAllUsers(), HttpStatus.OK);
     }
@@ -45,11 +58,38 @@ public class UserController {
      * Retrieves a user by their ID.
      *
      * @param id the ID of the user to be retrieved
-     * @return ResponseEntity containing the user and status code 200 (OK)
+     * @param ifNoneMatch the entity tag of the version the client already has, if any
+     * @return ResponseEntity containing the user and its ETag and status code 200 (OK),
+     * or status code 304 (Not Modified) without a body if the client's version is current
      */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        return new ResponseEntity<>(userService.getUserById(id), HttpStatus.OK);
+    public ResponseEntity<User> getUserById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Usually served from the user cache, so an unchanged user costs no database access at all
+        User user = userService.getUserById(id);
+        if (ETags.matches(ifNoneMatch, user.getVersion())) {
+            return new ResponseEntity<>(ETags.headers(user.getVersion()), HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(user, ETags.headers(user.getVersion()), HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves one page of the tasks assigned to a user, most recently updated first.
+     * Summaries carry the assignee's ID instead of the full user, for list views.
+     *
+     * @param id the ID of the user
+     * @param status only return tasks with this status
+     * @param cursor the cursor returned with the previous page; if null, the first page is returned
+     * @param limit the maximum number of tasks to return
+     * @return ResponseEntity containing the page of task summaries and the next cursor and status code 200 (OK)
+     */
+    @GetMapping("/{id}/tasks")
+    @RateLimited(EndpointClass.LIST)
+    public ResponseEntity<CursorPage<TaskSummary>> getUserTasks(@PathVariable Long id,
+                                                                @RequestParam(required = false) String status,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "50") int limit) {
+        return new ResponseEntity<>(taskService.getUserTaskSummariesPage(id, status, cursor, limit), HttpStatus.OK);
     }
 
     /**
@@ -57,11 +97,58 @@ public class UserController {
      *
      * @param id the ID of the user to be updated
      * @param user the updated user information
-     * @return ResponseEntity containing the updated user and status code 200 (OK)
+     * @param ifMatch the entity tag of the version the update is based on; if set, the update fails with
+     *                status code 412 (Precondition Failed) when the user has been modified since
+     * @return ResponseEntity containing the updated user and its new ETag and status code 200 (OK)
      */
     @PutMapping("/{id}")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User user) {
-        return new ResponseEntity<>(userService.updateUser(id, user), HttpStatus.OK);
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User user,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = ETags.ifMatchVersion(ifMatch);
+        User updatedUser = version != null
+                ? userService.updateUserIfVersion(id, user, version)
+                : userService.updateUser(id, user);
+        return new ResponseEntity<>(updatedUser, ETags.headers(updatedUser.getVersion()), HttpStatus.OK);
+    }
+
+    /**
+     * Applies a JSON Merge Patch to a user: only the fields present in the body are changed.
+     * With {@code Prefer: return=minimal} the user is patched without being loaded and no body is returned.
+     *
+     * @param id the ID of the user to be patched
+     * @param patch the merge patch
+     * @param ifMatch the entity tag of the version the patch is based on; if set, the patch fails with
+     *                status code 412 (Precondition Failed) when the user has been modified since
+     * @param prefer the {@code Prefer} header
+     * @return ResponseEntity containing the patched user and its new ETag and status code 200 (OK),
+     *         or status code 204 (No Content) when a minimal response was requested
+     */
+    @PatchMapping(value = "/{id}", consumes = {TaskController.MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<User> patchUser(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestHeader(value = Preferences.PREFER, required = false) String prefer) {
+        Long version = ETags.ifMatchVersion(ifMatch);
+        if (Preferences.returnMinimal(prefer)) {
+            userService.patchUserWithoutLoading(id, patch, version);
+            HttpHeaders headers = ETags.headers(version != null ? version + 1 : null);
+            headers.set(Preferences.PREFERENCE_APPLIED, Preferences.RETURN_MINIMAL);
+            return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
+        }
+        User patchedUser = userService.patchUser(id, patch, version);
+        return new ResponseEntity<>(patchedUser, ETags.headers(patchedUser.getVersion()), HttpStatus.OK);
+    }
+
+    /**
+     * Offboards a user: deactivates them and moves their open tasks to another user in set-based chunks.
+     *
+     * @param id the ID of the user to be deactivated
+     * @param reassignTo the ID of the user to take over the open tasks; if null, the configured pool user
+     * @return ResponseEntity containing the number of reassigned tasks and status code 200 (OK)
+     */
+    @PostMapping("/{id}/deactivate")
+    public ResponseEntity<AffectedCount> deactivateUser(@PathVariable Long id,
+                                                        @RequestParam(required = false) Long reassignTo) {
+        return new ResponseEntity<>(new AffectedCount(userService.deactivateUser(id, reassignTo)), HttpStatus.OK);
     }
 
     /**
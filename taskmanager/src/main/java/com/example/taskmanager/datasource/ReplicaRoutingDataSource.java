@@ -0,0 +1,183 @@
+package com.example.taskmanager.datasource;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to read replicas and everything else to the primary.
+ *
+ * <p>The target is chosen when a connection is requested, from the read-only flag of the current Spring transaction,
+ * so this data source must sit behind a {@link LazyConnectionDataSourceProxy}: the transaction manager asks for a
+ * connection before it has published the flag, the proxy only fetches one at the first statement.</p>
+ *
+ * <p>A read-only transaction goes to the next replica, round robin, whose replication lag, measured by
+ * {@link #checkReplicas()}, is at most {@code maxLag}. If no replica qualifies, because they lag, are down or have not
+ * been checked yet, it falls back to the primary. Once a request has run a read-write transaction, its later read-only
+ * transactions also go to the primary, so it reads its own writes. Reads wrapped in {@link #onPrimary} always do.</p>
+ *
+ * <p>Each routing decision is counted in {@value #ROUTED_METRIC}, tagged with its target and the reason.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String ROUTED_METRIC = "taskmanager.datasource.routed";
+
+    static final String LAG_METRIC = "taskmanager.datasource.replica.lag";
+
+    private static final String WROTE = ReplicaRoutingDataSource.class.getName() + ".WROTE";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    /**
+     * A replica and the lag it had at the last check, NaN if it could not be checked.
+     */
+    static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile double lagSeconds = Double.NaN;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        String name() {
+            return name;
+        }
+
+        double lagSeconds() {
+            return lagSeconds;
+        }
+    }
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final double maxLagSeconds;
+
+    private final String lagQuery;
+
+    /**
+     * @param primary  the primary.
+     * @param replicas the replicas by name.
+     * @param maxLag   the largest lag at which a replica is still read from.
+     * @param lagQuery a query run on a replica that returns its lag in seconds.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, String lagQuery) {
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.lagQuery = lagQuery;
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Metrics.gauge(LAG_METRIC, Tags.of("replica", name), replica, Replica::lagSeconds);
+        });
+    }
+
+    /**
+     * Runs an action that reads from the primary even in read-only transactions. For reads whose result outlives the
+     * transaction, such as cache fills, which a lagging replica would fill with data an update has just replaced.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    private DataSource target() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                RequestAttributes request = RequestContextHolder.getRequestAttributes();
+                if (request != null) {
+                    request.setAttribute(WROTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+                }
+            }
+            return routed(primary, "primary", "write");
+        }
+        if (PRIMARY_ONLY.get() != null) {
+            return routed(primary, "primary", "pinned");
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(WROTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return routed(primary, "primary", "read-your-writes");
+        }
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            // NaN, for a replica that could not be checked, fails the comparison
+            if (replica.lagSeconds <= maxLagSeconds) {
+                return routed(replica.dataSource, replica.name, "read");
+            }
+        }
+        return routed(primary, "primary", "fallback");
+    }
+
+    private static DataSource routed(DataSource dataSource, String target, String reason) {
+        Metrics.counter(ROUTED_METRIC, "target", target, "reason", reason).increment();
+        return dataSource;
+    }
+
+    /**
+     * Measures the lag of every replica. A replica that cannot be reached is taken out of rotation until it can.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(lagQuery)) {
+                replica.lagSeconds = result.next() ? result.getDouble(1) : Double.NaN;
+            } catch (SQLException ex) {
+                if (!Double.isNaN(replica.lagSeconds)) {
+                    log.warn("Replica {} is unavailable, reading from the primary instead", replica.name, ex);
+                }
+                replica.lagSeconds = Double.NaN;
+            }
+        }
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.taskmanager.deadline;
+
+import com.example.taskmanager.datasource.ReplicaRoutingDataSource;
+import com.example.taskmanager.dto.TaskDue;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskDeadlineEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.event.TasksChangedInBulkEvent;
+import com.example.taskmanager.event.UserChangedEvent;
+import com.example.taskmanager.repository.TaskRepository;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes a {@link TaskDeadlineEvent} when an open task is {@code taskmanager.deadlines.reminder-lead} from its due
+ * date, and another when it becomes overdue, without ever polling the tasks table for due tasks.
+ *
+ * <p>Upcoming deadlines are kept in a {@link TimingWheel}, which only holds the deadlines before a horizon. The
+ * deadlines of the next {@code taskmanager.deadlines.window} are loaded from the index on {@code due_at} when the
+ * application is ready, and the following window is loaded whenever the current one is half way through. In between,
+ * the wheel follows the {@link TaskChangedEvent}s of committed transactions, so a changed, completed or deleted task
+ * costs one O(1) insert or cancel.</p>
+ *
+ * <p>Before the events of expired timers are published, the due dates of those tasks are read back in one query. Tasks
+ * that were completed or deleted by a set-based statement, and due dates that were changed without an event, are
+ * therefore never announced; the latter are rescheduled instead.</p>
+ *
+ * <p>A due date without a time zone of its own follows its assignee's, so an updated user, and a user who was handed
+ * the tasks of another, has the deadlines of all their open tasks in the window read again on the next tick and
+ * rescheduled, which moves a deadline that came closer as well as one that moved away.</p>
+ *
+ * <p>Due dates are always read from the primary, a lagging replica would schedule deadlines that were just changed or
+ * miss tasks that were just created.</p>
+ *
+ * <p>Only deadlines that pass while the application is running are announced.</p>
+ */
+@Component
+public class TaskDeadlineScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskDeadlineScheduler.class);
+
+    static final String FIRED_METRIC = "taskmanager.deadlines.fired";
+
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    /**
+     * The next deadline of a task: its reminder, then its due date.
+     */
+    private record Deadline(TaskDeadlineEvent.Type type, Instant due) {
+    }
+
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+
+    private final Set<Long> staleAssignees = ConcurrentHashMap.newKeySet();
+
+    private volatile TimingWheel<Deadline> wheel;
+
+    /**
+     * Deadlines before this instant are in the wheel, null until the first window is loaded.
+     */
+    private volatile Instant horizon;
+
+    private volatile boolean reload;
+
+    Clock clock = Clock.systemUTC();
+
+    @Value("${taskmanager.deadlines.tick:PT1S}")
+    private Duration tick;
+
+    @Value("${taskmanager.deadlines.window:PT12H}")
+    private Duration window;
+
+    @Value("${taskmanager.deadlines.reminder-lead:PT1H}")
+    private Duration reminderLead;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Instant now = clock.instant();
+        wheel = new TimingWheel<>(tick.toMillis(), now.toEpochMilli());
+        load(now, now.plus(window));
+    }
+
+    /**
+     * Keeps the wheel in step with a committed change of a task.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (wheel == null) {
+            return;
+        }
+        TaskSnapshot previous = event.getPrevious();
+        TaskSnapshot current = event.getCurrent();
+        if (event.getType() == TaskChangedEvent.Type.DELETED || (current != null && !isOpen(current))) {
+            cancel(event.getTaskId());
+        } else if (current == null) {
+            // The new due date was never read, look it up on the next tick
+            stale.add(event.getTaskId());
+        } else if (previous == null || !isOpen(previous) || !previous.getDue().equals(current.getDue())) {
+            schedule(current.getId(), current.getDue());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTasksChangedInBulk(TasksChangedInBulkEvent event) {
+        if (event.getAffected() > 0) {
+            // Completed and deleted tasks are caught when their timer expires, reopened ones need the window reloaded
+            reload = true;
+            if (event.getAssigneeId() != null) {
+                staleAssignees.add(event.getAssigneeId());
+            }
+        }
+    }
+
+    /**
+     * Reschedules the deadlines of a user whose time zone may have changed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserChanged(UserChangedEvent event) {
+        if (wheel != null && event.getType() == UserChangedEvent.Type.UPDATED) {
+            staleAssignees.add(event.getUserId());
+        }
+    }
+
+    /**
+     * Turns the wheel and publishes the events of the deadlines that passed.
+     */
+    @Scheduled(fixedRateString = "${taskmanager.deadlines.tick:PT1S}")
+    public void tick() {
+        TimingWheel<Deadline> current = wheel;
+        if (current == null) {
+            return;
+        }
+        for (Long assigneeId : staleAssignees) {
+            staleAssignees.remove(assigneeId);
+            reschedule(assigneeId);
+        }
+        List<TimingWheel.Timer<Deadline>> expired;
+        synchronized (current) {
+            expired = current.advance(clock.millis());
+        }
+        Set<Long> refresh = new LinkedHashSet<>();
+        for (Long id : stale) {
+            stale.remove(id);
+            refresh.add(id);
+        }
+        if (expired.isEmpty() && refresh.isEmpty()) {
+            return;
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(refresh);
+        expired.forEach(timer -> ids.add(timer.key()));
+        Map<Long, TaskDue> dues = findDue(ids);
+        for (TimingWheel.Timer<Deadline> timer : expired) {
+            TaskDue due = dues.get(timer.key());
+            if (due == null) {
+                continue;
+            }
+            Deadline deadline = timer.value();
+            if (!due.due().equals(deadline.due())) {
+                schedule(due.getId(), due.due());
+                continue;
+            }
+            publish(deadline.type(), due);
+            if (deadline.type() == TaskDeadlineEvent.Type.REMINDER) {
+                synchronized (current) {
+                    current.scheduleIfAbsent(due.getId(), deadline.due().toEpochMilli(),
+                            new Deadline(TaskDeadlineEvent.Type.OVERDUE, deadline.due()));
+                }
+            }
+        }
+        for (Long id : refresh) {
+            TaskDue due = dues.get(id);
+            if (due != null) {
+                schedule(id, due.due());
+            } else {
+                cancel(id);
+            }
+        }
+    }
+
+    /**
+     * Loads the next window of deadlines once the current one is half way through, and reloads the current window
+     * after set-based changes.
+     */
+    @Scheduled(fixedDelayString = "${taskmanager.deadlines.window-check:PT1M}")
+    public void extendWindow() {
+        Instant current = horizon;
+        if (current == null) {
+            return;
+        }
+        Instant now = clock.instant();
+        if (reload) {
+            reload = false;
+            load(now, current);
+        }
+        if (current.isBefore(now.plus(window.dividedBy(2)))) {
+            load(current, now.plus(window));
+        }
+    }
+
+    /**
+     * Returns the number of tasks with a pending timer.
+     */
+    int scheduled() {
+        TimingWheel<Deadline> current = wheel;
+        if (current == null) {
+            return 0;
+        }
+        synchronized (current) {
+            return current.size();
+        }
+    }
+
+    /**
+     * Adds the deadlines due in {@code [from, to)} that are not in the wheel yet.
+     */
+    private void load(Instant from, Instant to) {
+        // Move the horizon first, so a change committed while the window is read is scheduled by its own event
+        if (horizon == null || to.isAfter(horizon)) {
+            horizon = to;
+        }
+        Instant now = clock.instant();
+        TimingWheel<Deadline> current = wheel;
+        int loaded = 0;
+        List<TaskDue> dues = ReplicaRoutingDataSource.onPrimary(
+                () -> taskRepository.findDueBetween(localBefore(from), localAfter(to)));
+        for (TaskDue due : dues) {
+            Instant instant = due.due();
+            if (instant.isBefore(from) || !instant.isBefore(to) || !instant.isAfter(now)) {
+                continue;
+            }
+            Deadline deadline = next(instant, now);
+            synchronized (current) {
+                if (current.scheduleIfAbsent(due.getId(), fireAt(deadline).toEpochMilli(), deadline)) {
+                    loaded++;
+                }
+            }
+        }
+        log.debug("Loaded {} task deadlines due before {}", loaded, to);
+    }
+
+    /**
+     * Replaces the timers of the open tasks of one assignee due before the horizon, whether they exist or not.
+     */
+    private void reschedule(Long assigneeId) {
+        Instant now = clock.instant();
+        Instant limit = horizon;
+        if (limit == null) {
+            return;
+        }
+        List<TaskDue> dues = ReplicaRoutingDataSource.onPrimary(
+                () -> taskRepository.findDueOfAssigneeBetween(assigneeId, localBefore(now), localAfter(limit)));
+        for (TaskDue due : dues) {
+            schedule(due.getId(), due.due());
+        }
+    }
+
+    /**
+     * Due dates are wall-clock times in many time zones, so a range of instants is widened by the largest offset when
+     * it is looked up by {@code due_at}, and filtered exactly afterwards.
+     */
+    private static LocalDateTime localBefore(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC).minusSeconds(ZoneOffset.MAX.getTotalSeconds());
+    }
+
+    private static LocalDateTime localAfter(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC).plusSeconds(ZoneOffset.MAX.getTotalSeconds());
+    }
+
+    /**
+     * Schedules the next deadline of an open task, or cancels its timer if the due date has passed or lies beyond the
+     * horizon, where the window that reaches it will pick it up.
+     */
+    private void schedule(Long id, Instant due) {
+        Instant now = clock.instant();
+        Instant limit = horizon;
+        TimingWheel<Deadline> current = wheel;
+        synchronized (current) {
+            if (due.isAfter(now) && limit != null && due.isBefore(limit)) {
+                Deadline deadline = next(due, now);
+                current.schedule(id, fireAt(deadline).toEpochMilli(), deadline);
+            } else {
+                current.cancel(id);
+            }
+        }
+    }
+
+    private void cancel(Long id) {
+        TimingWheel<Deadline> current = wheel;
+        synchronized (current) {
+            current.cancel(id);
+        }
+    }
+
+    private Deadline next(Instant due, Instant now) {
+        return due.minus(reminderLead).isAfter(now)
+                ? new Deadline(TaskDeadlineEvent.Type.REMINDER, due)
+                : new Deadline(TaskDeadlineEvent.Type.OVERDUE, due);
+    }
+
+    private Instant fireAt(Deadline deadline) {
+        return deadline.type() == TaskDeadlineEvent.Type.REMINDER ? deadline.due().minus(reminderLead) : deadline.due();
+    }
+
+    private void publish(TaskDeadlineEvent.Type type, TaskDue due) {
+        Metrics.counter(FIRED_METRIC, "type", type.name()).increment();
+        eventPublisher.publishEvent(new TaskDeadlineEvent(type, due.getId(), due.getAssigneeId(), due.due()));
+    }
+
+    private Map<Long, TaskDue> findDue(Set<Long> ids) {
+        List<Long> pending = new ArrayList<>(ids);
+        Map<Long, TaskDue> dues = new HashMap<>();
+        for (int from = 0; from < pending.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = pending.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, pending.size()));
+            for (TaskDue due : ReplicaRoutingDataSource.onPrimary(() -> taskRepository.findDueByIdIn(chunk))) {
+                dues.put(due.getId(), due);
+            }
+        }
+        return dues;
+    }
+
+    private static boolean isOpen(TaskSnapshot snapshot) {
+        return snapshot.getDue() != null && !"Completed".equals(snapshot.getStatus());
+    }
+}
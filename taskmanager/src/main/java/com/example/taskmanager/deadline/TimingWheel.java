@@ -0,0 +1,214 @@
+package com.example.taskmanager.deadline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel of timers keyed by ID, after Varghese and Lauck.
+ *
+ * <p>Time is divided into ticks. The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots; a slot on level
+ * {@code n} covers {@code SLOTS^n} ticks, so the wheel spans {@code SLOTS^LEVELS} ticks, and timers further out wait
+ * in an overflow list. A timer is kept in the lowest level whose slot still separates it from the current tick, and
+ * moves down a level each time the wheel turns past a slot boundary above it, so every timer is moved at most
+ * {@value #LEVELS} times before it expires.</p>
+ *
+ * <p>Each slot is a doubly linked list and timers are also indexed by key, so scheduling and cancelling are O(1)
+ * and advancing costs O(1) per tick plus the timers that expire or move down. Scheduling a key that is already
+ * scheduled replaces its timer.</p>
+ *
+ * <p>Not thread-safe, callers synchronize.</p>
+ *
+ * @param <V> the value carried by each timer.
+ */
+final class TimingWheel<V> {
+
+    static final int SLOT_BITS = 6;
+
+    static final int SLOTS = 1 << SLOT_BITS;
+
+    static final int LEVELS = 4;
+
+    private static final int MASK = SLOTS - 1;
+
+    private static final int OVERFLOW = LEVELS;
+
+    /**
+     * A scheduled timer, linked into the list of its slot.
+     */
+    static final class Timer<V> {
+
+        private final long key;
+
+        private final long deadlineTick;
+
+        private final V value;
+
+        private int level;
+
+        private int slot;
+
+        private Timer<V> previous;
+
+        private Timer<V> next;
+
+        private Timer(long key, long deadlineTick, V value) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+
+        long key() {
+            return key;
+        }
+
+        V value() {
+            return value;
+        }
+    }
+
+    private final long tickMillis;
+
+    @SuppressWarnings("unchecked")
+    private final Timer<V>[][] slots = new Timer[LEVELS + 1][SLOTS];
+
+    private final Map<Long, Timer<V>> timers = new HashMap<>();
+
+    /**
+     * The last tick that has been processed. Timers at or before it expire on the next advance.
+     */
+    private long currentTick;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a timer that expires at the first tick at or after the given time, replacing the key's current timer.
+     * A time in the past expires on the next advance.
+     */
+    void schedule(long key, long deadlineMillis, V value) {
+        cancel(key);
+        Timer<V> timer = new Timer<>(key, Math.ceilDiv(deadlineMillis, tickMillis), value);
+        timers.put(key, timer);
+        // The current tick has already been processed
+        place(timer, currentTick + 1);
+    }
+
+    /**
+     * Schedules a timer unless the key already has one.
+     *
+     * @return whether the timer was scheduled.
+     */
+    boolean scheduleIfAbsent(long key, long deadlineMillis, V value) {
+        if (timers.containsKey(key)) {
+            return false;
+        }
+        schedule(key, deadlineMillis, value);
+        return true;
+    }
+
+    /**
+     * Removes the key's timer, if it has one.
+     *
+     * @return whether a timer was removed.
+     */
+    boolean cancel(long key) {
+        Timer<V> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    boolean contains(long key) {
+        return timers.containsKey(key);
+    }
+
+    int size() {
+        return timers.size();
+    }
+
+    /**
+     * Turns the wheel up to the given time and removes the timers that expired, in the order of their ticks.
+     */
+    List<Timer<V>> advance(long nowMillis) {
+        List<Timer<V>> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            long tick = ++currentTick;
+            // Move timers down from the higher levels whose slot boundary this tick crosses, top level first,
+            // so that timers cascading into a lower slot that is itself being emptied keep moving down
+            int level = 0;
+            while (level < LEVELS && (tick & ((1L << (SLOT_BITS * (level + 1))) - 1)) == 0) {
+                level++;
+            }
+            if (level == LEVELS) {
+                cascade(OVERFLOW, 0);
+            }
+            for (int l = Math.min(level, LEVELS - 1); l > 0; l--) {
+                cascade(l, (int) ((tick >>> (SLOT_BITS * l)) & MASK));
+            }
+            int slot = (int) (tick & MASK);
+            for (Timer<V> timer = detach(0, slot); timer != null; timer = timer.next) {
+                timers.remove(timer.key);
+                expired.add(timer);
+            }
+        }
+        return expired;
+    }
+
+    private void cascade(int level, int slot) {
+        Timer<V> timer = detach(level, slot);
+        while (timer != null) {
+            Timer<V> next = timer.next;
+            // Called while processing the current tick, whose level 0 slot is emptied next
+            place(timer, currentTick);
+            timer = next;
+        }
+    }
+
+    private void place(Timer<V> timer, long earliestTick) {
+        long tick = Math.max(timer.deadlineTick, earliestTick);
+        // The level is that of the highest slot digit in which the deadline differs from the current tick
+        long difference = tick ^ currentTick;
+        int level = 0;
+        while (level < LEVELS && (difference >>> (SLOT_BITS * (level + 1))) != 0) {
+            level++;
+        }
+        int slot = level == OVERFLOW ? 0 : (int) ((tick >>> (SLOT_BITS * level)) & MASK);
+        timer.level = level;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = slots[level][slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[level][slot] = timer;
+    }
+
+    private void unlink(Timer<V> timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    private Timer<V> detach(int level, int slot) {
+        Timer<V> head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of rows changed by a set-based operation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AffectedCount {
+
+    private int affected;
+}
@@ -0,0 +1,39 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single item of a bulk request.
+ *
+ * <p>{@code index} is the position of the item in the request. {@code id} is set for items that were written,
+ * and {@code error} for items that were rejected.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+
+    public enum Status { CREATED, UPDATED, FAILED }
+
+    private int index;
+
+    private Long id;
+
+    private Status status;
+
+    private String error;
+
+    public static BulkItemResult created(int index, Long id) {
+        return new BulkItemResult(index, id, Status.CREATED, null);
+    }
+
+    public static BulkItemResult updated(int index, Long id) {
+        return new BulkItemResult(index, id, Status.UPDATED, null);
+    }
+
+    public static BulkItemResult failed(int index, Long id, String error) {
+        return new BulkItemResult(index, id, Status.FAILED, error);
+    }
+}
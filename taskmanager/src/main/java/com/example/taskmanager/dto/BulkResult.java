@@ -0,0 +1,27 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Summary of a bulk request, with one {@link BulkItemResult} per submitted item, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResult {
+
+    private int succeeded;
+
+    private int failed;
+
+    private List<BulkItemResult> items;
+
+    public static BulkResult of(List<BulkItemResult> items) {
+        int failed = (int) items.stream().filter(item -> item.getStatus() == BulkItemResult.Status.FAILED).count();
+        return new BulkResult(items.size() - failed, failed, items);
+    }
+}
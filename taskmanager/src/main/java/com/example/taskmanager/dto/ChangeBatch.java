@@ -0,0 +1,22 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.entity.ChangeRecord;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes read from the change feed. {@code last} is the sequence number to resume from: the last change in the
+ * batch or, for an empty batch, the newest change published so far.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeBatch {
+
+    private List<ChangeRecord> changes;
+
+    private long last;
+}
@@ -0,0 +1,25 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A single page of a keyset-paginated listing.
+ *
+ * <p>{@code next} is an opaque cursor to pass back to fetch the following page,
+ * or {@code null} when there are no more results.</p>
+ *
+ * @param <T> the type of the items in the page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+
+    private String next;
+}
@@ -0,0 +1,51 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a task import, updated after every committed chunk.
+ *
+ * <p>{@code failures} holds the first rejected rows only, {@code failed} counts all of them. The {@code index} of a
+ * failure is the position of the row in the upload, not counting the CSV header.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private String id;
+
+    private Status status;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private long read;
+
+    private long created;
+
+    private long failed;
+
+    private List<BulkItemResult> failures = new ArrayList<>();
+
+    /**
+     * Why the import stopped before the end of the upload, null unless it failed.
+     */
+    private String error;
+
+    /**
+     * Returns a copy that later progress of this job does not change.
+     */
+    public ImportJob copy() {
+        return new ImportJob(id, status, startedAt, finishedAt, read, created, failed, List.copyOf(failures), error);
+    }
+}
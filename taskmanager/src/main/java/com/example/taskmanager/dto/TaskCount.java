@@ -0,0 +1,20 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of tasks with one status assigned to one user, as returned by a {@code GROUP BY} over the tasks table.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskCount {
+
+    private String status;
+
+    private Long assigneeId;
+
+    private long count;
+}
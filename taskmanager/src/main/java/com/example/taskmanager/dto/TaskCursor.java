@@ -0,0 +1,55 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last task returned in a page: the timestamp the listing is ordered by, {@code createdAt} for the task
+ * listings and {@code updatedAt} for the tasks of a user, and the ID that breaks ties.
+ *
+ * <p>Clients only ever see the encoded form, so the ordering key can change without breaking the API.</p>
+ */
+@Data
+@AllArgsConstructor
+public class TaskCursor {
+
+    private LocalDateTime timestamp;
+
+    private Long id;
+
+    /**
+     * Encodes this cursor as an opaque, URL-safe string.
+     *
+     * @return the encoded cursor.
+     */
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor.
+     * @return the decoded cursor.
+     * @throws InvalidCursorException If the cursor is malformed.
+     */
+    public static TaskCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            return new TaskCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.event.TaskSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+/**
+ * The due date of an open task together with the time zones it is interpreted in, read from the tasks table
+ * without loading the task.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskDue {
+
+    private Long id;
+
+    private LocalDateTime dueAt;
+
+    private TimeZone timezone;
+
+    private TimeZone assigneeTimezone;
+
+    private Long assigneeId;
+
+    /**
+     * The due date as an instant.
+     */
+    public Instant due() {
+        return TaskSnapshot.resolveDue(dueAt, timezone, assigneeTimezone);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional criteria for selecting tasks. Criteria that are set are combined with AND, unset criteria match every task.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskFilter {
+
+    private String status;
+
+    private Long assigneeId;
+
+    private LocalDateTime createdFrom;
+
+    private LocalDateTime updatedSince;
+
+    private LocalDateTime updatedBefore;
+
+    public static TaskFilter none() {
+        return new TaskFilter();
+    }
+
+    /**
+     * Returns true if at least one criterion is set.
+     */
+    public boolean hasCriteria() {
+        return status != null || assigneeId != null || createdFrom != null || updatedSince != null || updatedBefore != null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Task counts per status, overall and per assignee.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskStats {
+
+    private long total;
+
+    private Map<String, Long> byStatus;
+
+    private Map<Long, Map<String, Long>> byAssignee;
+
+    /**
+     * When the counters were last reconciled against the database. Null until the first reconciliation.
+     */
+    private Instant reconciledAt;
+}
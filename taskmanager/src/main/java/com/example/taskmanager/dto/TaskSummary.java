@@ -0,0 +1,31 @@
+package com.example.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight, read-only view of a task for list screens.
+ *
+ * <p>Carries only the assignee's ID rather than the full {@link com.example.taskmanager.entity.User},
+ * so it is read from the {@code tasks} table alone and serializes to a fraction of the size of a task.</p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSummary {
+
+    private Long id;
+
+    private String title;
+
+    private String status;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private Long assignedToId;
+}
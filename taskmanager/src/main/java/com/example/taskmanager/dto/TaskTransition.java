@@ -0,0 +1,25 @@
+package com.example.taskmanager.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Moves every task in one status, optionally of one assignee, to another status.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskTransition {
+
+    @NotBlank(message = "From status is mandatory")
+    private String from;
+
+    @NotBlank(message = "To status is mandatory")
+    @Pattern(regexp = "Pending|In Progress|Completed", message = "Status must be 'Pending', 'In Progress', or 'Completed'")
+    private String to;
+
+    private Long assignee;
+}
@@ -0,0 +1,67 @@
+package com.example.taskmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+/**
+ * A completed task moved out of the {@code tasks} table by the {@link com.example.taskmanager.archive.TaskArchiver},
+ * keeping its ID and version. Archived tasks are read-only.
+ *
+ * <p>The assignee is kept as a plain ID without a foreign key, so archived tasks never keep a user from being
+ * deleted.</p>
+ */
+@Data
+@Entity
+@Table(name = "tasks_archive")
+public class ArchivedTask {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private String title;
+
+    private String description;
+
+    private String status;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @Column(name = "user_id")
+    private Long assigneeId;
+
+    private TimeZone timezone;
+
+    private LocalDateTime dueAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Returns this archived task as a detached {@link Task}.
+     *
+     * @param assignedTo the assignee, or null if the user no longer exists.
+     */
+    public Task toTask(User assignedTo) {
+        Task task = new Task();
+        task.setId(id);
+        task.setVersion(version);
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setStatus(status);
+        task.setCreatedAt(createdAt);
+        task.setUpdatedAt(updatedAt);
+        task.setAssignedTo(assignedTo);
+        task.setTimezone(timezone);
+        task.setDueAt(dueAt);
+        return task;
+    }
+}
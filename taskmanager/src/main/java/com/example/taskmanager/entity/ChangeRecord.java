@@ -0,0 +1,59 @@
+package com.example.taskmanager.entity;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the transactional outbox behind the change feed, written in the same transaction as the change it
+ * describes. Sequence numbers increase in the order the changes were made, though not necessarily without gaps. They
+ * are taken one at a time by the inserts, which the outbox batches just before the transaction commits, so the only
+ * gaps are those of transactions committing or rolled back, and a change whose transaction commits after the feed has
+ * moved past its number is given a new one by the relay.
+ */
+@Data
+@Entity
+@Table(name = "change_outbox", indexes = {
+        @Index(name = "idx_change_outbox_occurred_at", columnList = "occurred_at")
+})
+public class ChangeRecord {
+
+    public static final String TASK = "task";
+
+    public static final String USER = "user";
+
+    /**
+     * Type of a set-based change to many tasks, which carries no entity ID. Clients reload the affected listing.
+     */
+    public static final String BULK = "BULK";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_outbox_seq")
+    @SequenceGenerator(name = "change_outbox_seq", sequenceName = "change_outbox_seq", allocationSize = 1)
+    private Long seq;
+
+    @Column(nullable = false, updatable = false)
+    private String entity;
+
+    @Column(updatable = false)
+    private Long entityId;
+
+    @Column(nullable = false, updatable = false)
+    private String type;
+
+    @Column(updatable = false)
+    private Long version;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    /**
+     * The state after the change as JSON, null for deletions and for changes whose new state was not read. For the
+     * {@code REMINDER} and {@code OVERDUE} notices of a task's deadline, the notice with its due date.
+     */
+    @JsonRawValue
+    @Column(length = 4000, updatable = false)
+    private String data;
+}
@@ -0,0 +1,48 @@
+package com.example.taskmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The persisted response to a request that carried an {@code Idempotency-Key}, so a retry is answered with the original
+ * response after a restart or by another instance. A record without a status is a claim on a request in progress.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+public class IdempotencyRecord {
+
+    /**
+     * The request path and the client supplied key.
+     */
+    @Id
+    @Column(length = 512)
+    private String id;
+
+    /**
+     * SHA-256 of the query string and body of the original request, in hex.
+     */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * The response status, null while the original request is in progress.
+     */
+    private Integer status;
+
+    private String contentType;
+
+    private String location;
+
+    private String etag;
+
+    @Column(length = 16_777_216)
+    private byte[] body;
+}
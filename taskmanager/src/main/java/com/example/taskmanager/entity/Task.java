@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -12,13 +13,25 @@ import java.util.TimeZone;
 
 @Data
 @Entity
-@Table(name = "tasks")
+@DynamicUpdate
+@Table(name = "tasks", indexes = {
+        @Index(name = "idx_tasks_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_tasks_status_user_created", columnList = "status, user_id, created_at"),
+        @Index(name = "idx_tasks_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_tasks_user_status_updated", columnList = "user_id, status, updated_at, id"),
+        @Index(name = "idx_tasks_due_at", columnList = "due_at")
+})
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @NotBlank(message = "Title is mandatory")
     @Column(nullable = false)
     private String title;
@@ -41,4 +54,9 @@ public class Task {
 
 
     private TimeZone timezone;
+
+    /**
+     * Wall-clock due date in the task's time zone or, for tasks without one, in the time zone of the assignee.
+     */
+    private LocalDateTime dueAt;
 }
@@ -0,0 +1,70 @@
+package com.example.taskmanager.event;
+
+import com.example.taskmanager.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by the task service for every task it creates, updates or deletes.
+ *
+ * <p>The event is published inside the transaction that made the change. Listeners that maintain derived state
+ * should use {@code @TransactionalEventListener(phase = AFTER_COMMIT)} so rolled back changes are never applied.</p>
+ */
+@Data
+@AllArgsConstructor
+public class TaskChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private Type type;
+
+    private Long taskId;
+
+    /**
+     * State before the change. Null for {@link Type#CREATED}, and for updates made with {@link #changed} or
+     * {@link #rewritten}.
+     */
+    private TaskSnapshot previous;
+
+    /**
+     * State after the change. Null for {@link Type#DELETED}, and for updates that did not read the new state.
+     */
+    private TaskSnapshot current;
+
+    /**
+     * Whether an update made without reading the task may have changed its status or assignee.
+     */
+    private boolean rewrite;
+
+    public TaskChangedEvent(Type type, Long taskId, TaskSnapshot previous, TaskSnapshot current) {
+        this(type, taskId, previous, current, false);
+    }
+
+    public static TaskChangedEvent created(Task task) {
+        return new TaskChangedEvent(Type.CREATED, task.getId(), null, TaskSnapshot.of(task));
+    }
+
+    public static TaskChangedEvent updated(TaskSnapshot previous, Task task) {
+        return new TaskChangedEvent(Type.UPDATED, task.getId(), previous, TaskSnapshot.of(task));
+    }
+
+    /**
+     * An update made without reading the task, so neither the previous nor the new state is known. Such updates never
+     * change the status or the assignee.
+     */
+    public static TaskChangedEvent changed(Long taskId) {
+        return new TaskChangedEvent(Type.UPDATED, taskId, null, null);
+    }
+
+    /**
+     * A full rewrite of a task made without reading it, so neither the previous nor the new state is known, and its
+     * status and assignee may have changed.
+     */
+    public static TaskChangedEvent rewritten(Long taskId) {
+        return new TaskChangedEvent(Type.UPDATED, taskId, null, null, true);
+    }
+
+    public static TaskChangedEvent deleted(TaskSnapshot previous) {
+        return new TaskChangedEvent(Type.DELETED, previous.getId(), previous, null);
+    }
+}
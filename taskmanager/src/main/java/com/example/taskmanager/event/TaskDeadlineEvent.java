@@ -0,0 +1,27 @@
+package com.example.taskmanager.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Published when an open task is about to become due, and again when it becomes overdue.
+ *
+ * <p>The event is published from the deadline scheduler thread, outside any transaction. The change outbox records
+ * it, so it reaches change feed clients.</p>
+ */
+@Data
+@AllArgsConstructor
+public class TaskDeadlineEvent {
+
+    public enum Type { REMINDER, OVERDUE }
+
+    private Type type;
+
+    private Long taskId;
+
+    private Long assigneeId;
+
+    private Instant due;
+}
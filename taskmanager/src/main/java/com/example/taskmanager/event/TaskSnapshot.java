@@ -0,0 +1,60 @@
+package com.example.taskmanager.event;
+
+import com.example.taskmanager.entity.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+/**
+ * Immutable copy of the state of a task at one point in time, detached from the persistence context.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskSnapshot {
+
+    private Long id;
+
+    private Long version;
+
+    private String title;
+
+    private String description;
+
+    private String status;
+
+    private Long assigneeId;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    /**
+     * The due date as an instant, null for tasks without one.
+     */
+    private Instant due;
+
+    public static TaskSnapshot of(Task task) {
+        TimeZone assigneeZone = task.getDueAt() != null && task.getTimezone() == null && task.getAssignedTo() != null
+                ? task.getAssignedTo().getTimezone() : null;
+        return new TaskSnapshot(task.getId(), task.getVersion(), task.getTitle(), task.getDescription(), task.getStatus(),
+                task.getAssignedTo() != null ? task.getAssignedTo().getId() : null,
+                task.getCreatedAt(), task.getUpdatedAt(), resolveDue(task.getDueAt(), task.getTimezone(), assigneeZone));
+    }
+
+    /**
+     * Resolves a wall-clock due date in the task's time zone, else the assignee's, else UTC.
+     */
+    public static Instant resolveDue(LocalDateTime dueAt, TimeZone taskZone, TimeZone assigneeZone) {
+        if (dueAt == null) {
+            return null;
+        }
+        TimeZone zone = taskZone != null ? taskZone : assigneeZone;
+        return dueAt.atZone(zone != null ? zone.toZoneId() : ZoneOffset.UTC).toInstant();
+    }
+}
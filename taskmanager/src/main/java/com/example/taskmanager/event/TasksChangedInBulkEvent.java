@@ -0,0 +1,24 @@
+package com.example.taskmanager.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by the task service for a set-based statement that changed many tasks at once.
+ * Unlike {@link TaskChangedEvent} it does not say which tasks changed.
+ */
+@Data
+@AllArgsConstructor
+public class TasksChangedInBulkEvent {
+
+    private int affected;
+
+    /**
+     * The user all the changed tasks were assigned to, for a statement that reassigned them. Null otherwise.
+     */
+    private Long assigneeId;
+
+    public TasksChangedInBulkEvent(int affected) {
+        this(affected, null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.taskmanager.event;
+
+import com.example.taskmanager.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by the user service for every user it creates, updates or deletes, inside the transaction that made the
+ * change.
+ */
+@Data
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private Type type;
+
+    private Long userId;
+
+    private Long version;
+
+    /**
+     * State after the change. Null for {@link Type#DELETED}, and for updates that did not read the new state.
+     */
+    private User current;
+
+    public static UserChangedEvent created(User user) {
+        return new UserChangedEvent(Type.CREATED, user.getId(), user.getVersion(), user);
+    }
+
+    public static UserChangedEvent updated(User user) {
+        return new UserChangedEvent(Type.UPDATED, user.getId(), user.getVersion(), user);
+    }
+
+    /**
+     * An update made without reading the user.
+     */
+    public static UserChangedEvent changed(Long userId) {
+        return new UserChangedEvent(Type.UPDATED, userId, null, null);
+    }
+
+    public static UserChangedEvent deleted(User user) {
+        return new UserChangedEvent(Type.DELETED, user.getId(), user.getVersion(), null);
+    }
+}
@@ -1,20 +1,30 @@
 package com.example.taskmanager.exception;
 
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
+
 /**
  * GlobalExceptionHandler handles exceptions that occur throughout the application.
  * It provides centralized exception handling across all {@code @RequestMapping} methods in {@code @RestController} classes.
  *
  * <p>This class is annotated with {@code @RestControllerAdvice} to allow it to intercept exceptions and return custom responses.</p>
+ *
+ * <p>Every handled exception is counted in the {@value #ERRORS_METRIC} metric, tagged with the exception type and
+ * the response status.</p>
  */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    static final String ERRORS_METRIC = "taskmanager.errors";
+
     /**
      * Handles {@link TaskNotFoundException} thrown when a task is not found.
      *
@@ -23,7 +33,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(TaskNotFoundException.class)
     public ResponseEntity<String> handleTaskNotFoundException(TaskNotFoundException ex) {
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+        return respond(ex, ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     /**
@@ -34,7 +44,143 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<String> handleUserNotFoundException(UserNotFoundException ex) {
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+        return respond(ex, ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles {@link ImportJobNotFoundException} thrown when an import job is not found.
+     *
+     * @param ex the exception thrown when an import job is unknown or has expired.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#NOT_FOUND} status code.
+     */
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<String> handleImportJobNotFoundException(ImportJobNotFoundException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Handles {@link InvalidCursorException} thrown when a pagination cursor cannot be decoded.
+     *
+     * @param ex the exception thrown when a cursor is malformed.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#BAD_REQUEST} status code.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursorException(InvalidCursorException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidFilterException} thrown when a set-based operation is requested without any criteria.
+     *
+     * @param ex the exception thrown when a filter is missing or invalid.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#BAD_REQUEST} status code.
+     */
+    @ExceptionHandler(InvalidFilterException.class)
+    public ResponseEntity<String> handleInvalidFilterException(InvalidFilterException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidReassignmentException} thrown when a user's tasks cannot be moved to the requested user.
+     *
+     * @param ex the exception thrown when the reassignment target is missing or invalid.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#BAD_REQUEST} status code.
+     */
+    @ExceptionHandler(InvalidReassignmentException.class)
+    public ResponseEntity<String> handleInvalidReassignmentException(InvalidReassignmentException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidImportException} thrown when an uploaded import cannot be read.
+     *
+     * @param ex the exception thrown when the upload is malformed.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#BAD_REQUEST} status code.
+     */
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<String> handleInvalidImportException(InvalidImportException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link ChangeFeedExpiredException} thrown when a client resumes the change feed from a position that is
+     * no longer retained.
+     *
+     * @param ex the exception thrown when the requested changes have been purged.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#GONE} status code.
+     */
+    @ExceptionHandler(ChangeFeedExpiredException.class)
+    public ResponseEntity<String> handleChangeFeedExpiredException(ChangeFeedExpiredException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.GONE);
+    }
+
+    /**
+     * Handles {@link InvalidPatchException} thrown when a merge patch sets a field that cannot be patched or to an invalid value.
+     *
+     * @param ex the exception thrown when a patch is invalid.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#BAD_REQUEST} status code.
+     */
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<String> handleInvalidPatchException(InvalidPatchException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link PreconditionFailedException} thrown when a conditional update does not match the current version.
+     *
+     * @param ex the exception thrown when an {@code If-Match} precondition fails.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#PRECONDITION_FAILED} status code.
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Handles {@link UserHasTasksException} thrown when a user who still has tasks is deleted.
+     *
+     * @param ex the exception thrown when the tasks of the user would be left without an assignee.
+     * @return a {@link ResponseEntity} containing the exception message and a {@link HttpStatus#CONFLICT} status code.
+     */
+    @ExceptionHandler(UserHasTasksException.class)
+    public ResponseEntity<String> handleUserHasTasksException(UserHasTasksException ex) {
+        return respond(ex, ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles {@link ObjectOptimisticLockingFailureException} thrown when an entity was modified concurrently.
+     *
+     * @param ex the exception thrown when a versioned update loses a race with another writer.
+     * @return a {@link ResponseEntity} containing a message and a {@link HttpStatus#CONFLICT} status code.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex) {
+        return respond(ex, "Resource was modified concurrently, please retry", HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles {@link ServiceOverloadedException} thrown when a call is shed because the service is at its concurrency
+     * limit.
+     *
+     * @param ex the exception thrown when a call is rejected by the concurrency limiter.
+     * @return a {@link ResponseEntity} containing the exception message, a {@code Retry-After} header and a
+     * {@link HttpStatus#SERVICE_UNAVAILABLE} status code.
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<String> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return respond(ex, ex.getMessage(), retryAfter(ex.getRetryAfter()), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles {@link RateLimitExceededException} thrown when a client has used up its rate limit.
+     *
+     * @param ex the exception thrown when a request is rejected by the rate limiter.
+     * @return a {@link ResponseEntity} containing the exception message, a {@code Retry-After} header and a
+     * {@link HttpStatus#TOO_MANY_REQUESTS} status code.
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<String> handleRateLimitExceededException(RateLimitExceededException ex) {
+        return respond(ex, ex.getMessage(), retryAfter(ex.getRetryAfter()), HttpStatus.TOO_MANY_REQUESTS);
     }
 
     /**
@@ -45,6 +191,25 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> handleValidationException(MethodArgumentNotValidException ex) {
-        return new ResponseEntity<>(ex.getBindingResult().getFieldError().getDefaultMessage(), HttpStatus.BAD_REQUEST);
+        return respond(ex, ex.getBindingResult().getFieldError().getDefaultMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Returns a {@code Retry-After} header of the given delay, rounded up to whole seconds.
+     */
+    private static HttpHeaders retryAfter(Duration delay) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (delay.toMillis() + 999) / 1000)));
+        return headers;
+    }
+
+    private static ResponseEntity<String> respond(Exception ex, String body, HttpStatus status) {
+        return respond(ex, body, new HttpHeaders(), status);
+    }
+
+    private static ResponseEntity<String> respond(Exception ex, String body, HttpHeaders headers, HttpStatus status) {
+        Metrics.counter(ERRORS_METRIC, "exception", ex.getClass().getSimpleName(), "status", String.valueOf(status.value()))
+                .increment();
+        return new ResponseEntity<>(body, headers, status);
     }
 }
@@ -0,0 +1,7 @@
+package com.example.taskmanager.exception;
+
+public class InvalidFilterException extends RuntimeException {
+    public InvalidFilterException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.taskmanager.exception;
+
+public class InvalidPatchException extends RuntimeException {
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.taskmanager.exception;
+
+public class InvalidReassignmentException extends RuntimeException {
+    public InvalidReassignmentException(String message) {
+        super(message);
+    }
+}
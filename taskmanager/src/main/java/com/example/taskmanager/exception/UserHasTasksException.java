@@ -0,0 +1,7 @@
+package com.example.taskmanager.exception;
+
+public class UserHasTasksException extends RuntimeException {
+    public UserHasTasksException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.taskmanager.idempotency;
+
+import com.example.taskmanager.entity.IdempotencyRecord;
+import com.example.taskmanager.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes the creating endpoints safe to retry: a {@code POST} that carries an {@value #IDEMPOTENCY_KEY} header is
+ * executed once, and every later request with the same key and path gets the original response back, marked with
+ * {@value #REPLAYED}.
+ *
+ * <p>Responses are kept in a Caffeine cache for {@code taskmanager.idempotency.ttl}. A request that arrives while the
+ * first one with its key is still running waits for it and shares its response, so only one of them reaches the
+ * database. Reusing a key for a different request, told apart by a fingerprint of its query string and body, is
+ * rejected with {@link HttpStatus#UNPROCESSABLE_ENTITY}.</p>
+ *
+ * <p>The cache is bounded by the total size of the kept bodies, {@code taskmanager.idempotency.maximum-weight}. A body
+ * over {@code taskmanager.idempotency.maximum-body-size}, such as the result of a large bulk request, is not kept in
+ * memory: retries are answered from the {@code idempotency_keys} table if it is used, otherwise with the original
+ * status and headers but no body, so the request still runs only once.</p>
+ *
+ * <p>With {@code taskmanager.idempotency.persistent} the key is also claimed in the {@code idempotency_keys} table
+ * before the request runs, and the response is stored there, so retries are recognised across restarts and instances.
+ * A request whose key is claimed by a request still running on another instance is answered with
+ * {@link HttpStatus#CONFLICT}.</p>
+ *
+ * <p>Only successful responses are kept. After an error the key is released, and a retry runs the request again.</p>
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    public static final String REPLAYED = "Idempotent-Replayed";
+
+    static final String REPLAYS_METRIC = "taskmanager.idempotency.replays";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final Set<String> PATHS = Set.of("/api/tasks", "/api/tasks/bulk", "/api/users");
+
+    /**
+     * A response kept for replay.
+     */
+    private record StoredResponse(int status, String contentType, String location, String etag, byte[] body) {
+    }
+
+    /**
+     * The execution of the first request with a key. Completes with its response, or with null if it was not kept.
+     */
+    private record Execution(String fingerprint, CompletableFuture<StoredResponse> response) {
+    }
+
+    private Cache<String, Execution> executions;
+
+    Clock clock = Clock.systemUTC();
+
+    @Value("${taskmanager.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${taskmanager.idempotency.maximum-weight:64MB}")
+    private DataSize maximumWeight;
+
+    @Value("${taskmanager.idempotency.maximum-body-size:1MB}")
+    private DataSize maximumBodySize;
+
+    @Value("${taskmanager.idempotency.wait-timeout:PT30S}")
+    private Duration waitTimeout;
+
+    @Value("${taskmanager.idempotency.persistent:false}")
+    private boolean persistent;
+
+    @Value("${taskmanager.idempotency.claim-timeout:PT5M}")
+    private Duration claimTimeout;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @PostConstruct
+    void initialize() {
+        executions = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight.toBytes())
+                .weigher(IdempotencyFilter::weigh)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"POST".equals(request.getMethod()) || !PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (key == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        CachedBodyRequest cached = new CachedBodyRequest(request);
+        String id = request.getRequestURI() + " " + key;
+        String fingerprint = fingerprint(request.getQueryString(), cached.body());
+
+        while (true) {
+            Execution mine = new Execution(fingerprint, new CompletableFuture<>());
+            Execution existing = executions.asMap().putIfAbsent(id, mine);
+            if (existing == null) {
+                execute(id, mine, cached, response, chain);
+                return;
+            }
+            if (!existing.fingerprint().equals(fingerprint)) {
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY, IDEMPOTENCY_KEY + " was used for a different request");
+                return;
+            }
+            StoredResponse stored;
+            try {
+                stored = existing.response().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException ex) {
+                reject(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY + " is in progress");
+                return;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(ex);
+            }
+            if (stored != null) {
+                replay(stored, response);
+                return;
+            }
+            // The first request failed and released the key, run this one instead
+        }
+    }
+
+    /**
+     * Runs the first request with a key and keeps its response if it succeeded.
+     */
+    private void execute(String id, Execution execution, CachedBodyRequest request, HttpServletResponse response,
+                         FilterChain chain) throws ServletException, IOException {
+        StoredResponse stored = null;
+        boolean claimed = false;
+        try {
+            if (persistent) {
+                IdempotencyRecord existing = claim(id, execution.fingerprint());
+                if (existing != null) {
+                    if (!existing.getFingerprint().equals(execution.fingerprint())) {
+                        reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                                IDEMPOTENCY_KEY + " was used for a different request");
+                    } else if (existing.getStatus() == null) {
+                        reject(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY + " is in progress");
+                    } else {
+                        stored = new StoredResponse(existing.getStatus(), existing.getContentType(),
+                                existing.getLocation(), existing.getEtag(), existing.getBody());
+                        replay(stored, response);
+                    }
+                    return;
+                }
+                claimed = true;
+            }
+
+            ContentCachingResponseWrapper caching = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, caching);
+            if (caching.getStatus() / 100 == 2) {
+                stored = new StoredResponse(caching.getStatus(), caching.getContentType(),
+                        caching.getHeader(HttpHeaders.LOCATION), caching.getHeader(HttpHeaders.ETAG),
+                        caching.getContentAsByteArray());
+                if (claimed) {
+                    complete(id, execution.fingerprint(), stored);
+                    claimed = false;
+                }
+            }
+            caching.copyBodyToResponse();
+        } finally {
+            if (stored == null) {
+                executions.asMap().remove(id, execution);
+            } else {
+                keep(id, execution, stored);
+            }
+            if (claimed) {
+                idempotencyRecordRepository.deleteById(id);
+            }
+            execution.response().complete(stored);
+        }
+    }
+
+    /**
+     * Replaces a running execution with its response, which the cache then weighs by its body. A body over the maximum
+     * is left to the database if the key was stored there, otherwise it is dropped.
+     */
+    private void keep(String id, Execution execution, StoredResponse stored) {
+        StoredResponse kept = stored;
+        if (stored.body() != null && stored.body().length > maximumBodySize.toBytes()) {
+            if (persistent) {
+                executions.asMap().remove(id, execution);
+                return;
+            }
+            kept = new StoredResponse(stored.status(), stored.contentType(), stored.location(), stored.etag(), null);
+        }
+        executions.asMap().replace(id, execution,
+                new Execution(execution.fingerprint(), CompletableFuture.completedFuture(kept)));
+    }
+
+    /**
+     * The weight of a cache entry in bytes, roughly: its key and the body of its response once there is one.
+     */
+    private static int weigh(String id, Execution execution) {
+        StoredResponse stored = execution.response().getNow(null);
+        return id.length() + (stored != null && stored.body() != null ? stored.body().length : 0);
+    }
+
+    /**
+     * Claims a key in the database.
+     *
+     * @return null if the key was claimed, otherwise the record of the request that holds it.
+     */
+    private IdempotencyRecord claim(String id, String fingerprint) {
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setId(id);
+        claim.setFingerprint(fingerprint);
+        claim.setCreatedAt(now());
+        try {
+            idempotencyRecordRepository.insert(claim);
+            return null;
+        } catch (DataIntegrityViolationException ex) {
+            // Held by an earlier request, unless that one has expired or was abandoned
+        }
+        LocalDateTime now = now();
+        if (idempotencyRecordRepository.deleteStale(id, now.minus(claimTimeout), now.minus(ttl)) > 0) {
+            try {
+                idempotencyRecordRepository.insert(claim);
+                return null;
+            } catch (DataIntegrityViolationException ex) {
+                // Another request claimed it in between
+            }
+        }
+        // A record released since the insert failed is reported as in progress, the client retries
+        return idempotencyRecordRepository.findById(id).orElse(claim);
+    }
+
+    private void complete(String id, String fingerprint, StoredResponse stored) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint(fingerprint);
+        record.setCreatedAt(now());
+        record.setStatus(stored.status());
+        record.setContentType(stored.contentType());
+        record.setLocation(stored.location());
+        record.setEtag(stored.etag());
+        record.setBody(stored.body());
+        idempotencyRecordRepository.save(record);
+    }
+
+    /**
+     * Removes persisted keys past their TTL.
+     */
+    @Scheduled(fixedDelayString = "${taskmanager.idempotency.purge-interval:PT1H}")
+    public void purge() {
+        if (!persistent) {
+            return;
+        }
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(now().minus(ttl));
+        if (purged > 0) {
+            log.debug("Purged {} idempotency keys", purged);
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        Metrics.counter(REPLAYS_METRIC).increment();
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        if (stored.etag() != null) {
+            response.setHeader(HttpHeaders.ETAG, stored.etag());
+        }
+        response.setHeader(REPLAYED, "true");
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+
+    private static String fingerprint(String queryString, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (queryString != null) {
+                digest.update(queryString.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
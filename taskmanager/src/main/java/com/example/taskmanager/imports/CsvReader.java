@@ -0,0 +1,88 @@
+package com.example.taskmanager.imports;
+
+import com.example.taskmanager.exception.InvalidImportException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time, as described in RFC 4180: fields are separated by commas, records by CRLF or LF,
+ * and a field in double quotes may contain commas, line breaks and doubled double quotes.
+ *
+ * <p>Only the current record is held in memory. A record longer than the given limit is rejected, so a missing closing
+ * quote cannot make the reader buffer the rest of the upload.</p>
+ */
+class CsvReader {
+
+    private final BufferedReader in;
+
+    private final int maxRecordLength;
+
+    private int records;
+
+    CsvReader(Reader in, int maxRecordLength) {
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, a single empty field for a blank line, or null at the end of the input.
+     * @throws InvalidImportException If a record is malformed or too long.
+     */
+    List<String> read() throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        records++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int length = 0;
+        while (true) {
+            if (++length > maxRecordLength) {
+                throw new InvalidImportException("Record " + records + " is longer than " + maxRecordLength + " characters");
+            }
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new InvalidImportException("Record " + records + " has an unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = in.read();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && !quoted && field.isEmpty()) {
+                quoted = true;
+                inQuotes = true;
+            } else if (c == '"' || (quoted && c != ',' && c != '\r' && c != '\n' && c != -1)) {
+                throw new InvalidImportException("Record " + records + " has a stray quote");
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
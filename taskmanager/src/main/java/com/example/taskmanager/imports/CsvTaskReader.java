@@ -0,0 +1,130 @@
+package com.example.taskmanager.imports;
+
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import com.example.taskmanager.exception.InvalidImportException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Reads tasks from CSV. The first record names the columns, in any order; {@code title} and {@code assigneeId} are
+ * required. Empty fields are read as null and blank lines are skipped.
+ */
+class CsvTaskReader implements TaskImportReader {
+
+    private static final Set<String> COLUMNS = Set.of("title", "description", "status", "assigneeId", "dueAt", "timezone");
+
+    private static final Set<String> REQUIRED_COLUMNS = Set.of("title", "assigneeId");
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final InputStreamReader source;
+
+    private final CsvReader csv;
+
+    private List<String> header;
+
+    private int index;
+
+    CsvTaskReader(InputStream in) {
+        this.source = new InputStreamReader(in, StandardCharsets.UTF_8);
+        this.csv = new CsvReader(source, MAX_ROW_LENGTH);
+    }
+
+    @Override
+    public Row next() throws IOException {
+        if (header == null) {
+            header = readHeader();
+        }
+        List<String> fields;
+        do {
+            fields = csv.read();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+
+        int row = index++;
+        if (fields.size() != header.size()) {
+            return Row.failed(row, "Expected " + header.size() + " fields but found " + fields.size());
+        }
+        Task task = new Task();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i).isEmpty() ? null : fields.get(i);
+            if (value == null) {
+                continue;
+            }
+            switch (header.get(i)) {
+                case "title" -> task.setTitle(value);
+                case "description" -> task.setDescription(value);
+                case "status" -> task.setStatus(value);
+                case "assigneeId" -> {
+                    User assignee = new User();
+                    try {
+                        assignee.setId(Long.valueOf(value.trim()));
+                    } catch (NumberFormatException ex) {
+                        return Row.failed(row, "assigneeId must be a user ID");
+                    }
+                    task.setAssignedTo(assignee);
+                }
+                case "dueAt" -> {
+                    try {
+                        task.setDueAt(LocalDateTime.parse(value.trim()));
+                    } catch (DateTimeParseException ex) {
+                        return Row.failed(row, "dueAt must be a local date-time such as 2024-06-30T17:00");
+                    }
+                }
+                case "timezone" -> {
+                    try {
+                        task.setTimezone(TimeZone.getTimeZone(ZoneId.of(value.trim())));
+                    } catch (DateTimeException ex) {
+                        return Row.failed(row, "Unknown timezone: " + value);
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected column: " + header.get(i));
+            }
+        }
+        return Row.of(row, task);
+    }
+
+    private List<String> readHeader() throws IOException {
+        List<String> names = csv.read();
+        if (names == null) {
+            throw new InvalidImportException("CSV header row is missing");
+        }
+        List<String> columns = new ArrayList<>();
+        for (String name : names) {
+            String column = name.isEmpty() || name.charAt(0) != BYTE_ORDER_MARK ? name.trim() : name.substring(1).trim();
+            if (!COLUMNS.contains(column)) {
+                throw new InvalidImportException("Unknown CSV column: " + column);
+            }
+            columns.add(column);
+        }
+        if (new HashSet<>(columns).size() != columns.size()) {
+            throw new InvalidImportException("CSV header names a column twice");
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.contains(required)) {
+                throw new InvalidImportException("CSV column is missing: " + required);
+            }
+        }
+        return columns;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.taskmanager.imports;
+
+import com.example.taskmanager.dto.ImportJob;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the progress of the imports of this instance for {@code taskmanager.import.retention} after they were last
+ * updated, at most {@code taskmanager.import.maximum-jobs} of them.
+ *
+ * <p>The importing thread publishes a copy of its job after every chunk, so readers never see a job halfway through
+ * an update.</p>
+ */
+@Component
+public class ImportJobs {
+
+    Clock clock = Clock.systemUTC();
+
+    @Value("${taskmanager.import.retention:PT24H}")
+    private Duration retention;
+
+    @Value("${taskmanager.import.maximum-jobs:1000}")
+    private long maximumJobs;
+
+    private Cache<String, ImportJob> jobs;
+
+    @PostConstruct
+    void initialize() {
+        jobs = Caffeine.newBuilder()
+                .maximumSize(maximumJobs)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * Registers a new running job.
+     *
+     * @return the job, for the importing thread to update and {@link #publish}.
+     */
+    public ImportJob start() {
+        ImportJob job = new ImportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setStartedAt(now());
+        publish(job);
+        return job;
+    }
+
+    /**
+     * Makes the current progress of a job visible.
+     */
+    public void publish(ImportJob job) {
+        if (job.getStatus() != ImportJob.Status.RUNNING && job.getFinishedAt() == null) {
+            job.setFinishedAt(now());
+        }
+        jobs.put(job.getId(), job.copy());
+    }
+
+    public Optional<ImportJob> get(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id));
+    }
+
+    /**
+     * Returns the known jobs, most recently started first.
+     */
+    public List<ImportJob> list() {
+        return jobs.asMap().values().stream()
+                .sorted(Comparator.comparing(ImportJob::getStartedAt).reversed())
+                .toList();
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.taskmanager.imports;
+
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.exception.InvalidImportException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads tasks from a JSON array with a streaming parser, one element at a time. An element that does not map to a
+ * task fails that row only; malformed JSON ends the import.
+ */
+class JsonTaskReader implements TaskImportReader {
+
+    private final ObjectMapper objectMapper;
+
+    private final JsonParser parser;
+
+    private boolean started;
+
+    private int index;
+
+    JsonTaskReader(InputStream in, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(in);
+    }
+
+    @Override
+    public Row next() throws IOException {
+        try {
+            if (!started) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new InvalidImportException("JSON import must be an array of tasks");
+                }
+                started = true;
+            }
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token == null) {
+                throw new InvalidImportException("JSON import ends before the end of the array");
+            }
+            int row = index++;
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return Row.failed(row, "Task must be a JSON object");
+            }
+            // Parse the element fully first, so a mapping error does not leave the parser inside it
+            ObjectNode element = parser.readValueAsTree();
+            try {
+                return Row.of(row, objectMapper.treeToValue(element, Task.class));
+            } catch (JsonProcessingException ex) {
+                return Row.failed(row, ex.getOriginalMessage());
+            }
+        } catch (StreamReadException ex) {
+            throw new InvalidImportException("Malformed JSON: " + ex.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
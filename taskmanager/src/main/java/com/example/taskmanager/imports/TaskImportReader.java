@@ -0,0 +1,60 @@
+package com.example.taskmanager.imports;
+
+import com.example.taskmanager.entity.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the tasks of an upload one row at a time, so an import never holds more than the row being parsed.
+ *
+ * <p>A row that cannot be turned into a task is returned with an error and the import goes on with the next one. An
+ * upload that cannot be read any further, such as malformed JSON, raises an
+ * {@link com.example.taskmanager.exception.InvalidImportException}.</p>
+ */
+public interface TaskImportReader extends Closeable {
+
+    /**
+     * The longest CSV record accepted, in characters.
+     */
+    int MAX_ROW_LENGTH = 1 << 20;
+
+    /**
+     * A row of the upload. {@code index} is its position in the upload, not counting the CSV header. Exactly one of
+     * {@code task} and {@code error} is set.
+     */
+    record Row(int index, Task task, String error) {
+
+        static Row of(int index, Task task) {
+            return new Row(index, task, null);
+        }
+
+        static Row failed(int index, String error) {
+            return new Row(index, null, error);
+        }
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return the next row, or null at the end of the upload.
+     */
+    Row next() throws IOException;
+
+    /**
+     * Reads UTF-8 CSV with a header row naming its columns, out of {@code title}, {@code description}, {@code status},
+     * {@code assigneeId}, {@code dueAt} and {@code timezone}.
+     */
+    static TaskImportReader csv(InputStream in) {
+        return new CsvTaskReader(in);
+    }
+
+    /**
+     * Reads a JSON array of tasks, in the format accepted by {@code POST /api/tasks}.
+     */
+    static TaskImportReader json(InputStream in, ObjectMapper objectMapper) throws IOException {
+        return new JsonTaskReader(in, objectMapper);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.taskmanager.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that adapts to the latency of the calls it admits, after the gradient algorithm of Netflix's
+ * concurrency-limits library.
+ *
+ * <p>Two exponential averages of the latency are kept: a long-term one that stands for the latency of the service when
+ * it is not queueing, and a short-term one over the last few calls. While the short-term latency stays within
+ * {@value #TOLERANCE} times the long-term one, a saturated limit grows by about its square root. Once calls queue in
+ * the service or the database and the short-term latency climbs, the limit is scaled down by the ratio of the two, at
+ * most halving it per sample. Calls dropped for lack of a connection or a timeout cut it by {@value #BACKOFF}, as in
+ * AIMD.</p>
+ *
+ * <p>Admission is lock-free, only the update after each call synchronizes.</p>
+ */
+final class AdaptiveLimit {
+
+    private static final double TOLERANCE = 1.5;
+
+    private static final double BACKOFF = 0.9;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final int LONG_WINDOW = 600;
+
+    private static final int SHORT_WINDOW = 10;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private double estimate;
+
+    private double longRtt;
+
+    private double shortRtt;
+
+    private boolean sampled;
+
+    AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimate;
+    }
+
+    /**
+     * Admits a call if fewer than the limit are in flight.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted call and adjusts the limit to its latency.
+     *
+     * @param rttNanos the time the call took.
+     * @param dropped  true if the call failed because the service or the database was overloaded.
+     */
+    void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        onSample(rttNanos, current, dropped);
+    }
+
+    /**
+     * Ends an admitted call whose duration says nothing about the load, such as a streamed export.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            update(estimate * BACKOFF);
+            return;
+        }
+        double rtt = rttNanos;
+        if (!sampled) {
+            sampled = true;
+            longRtt = rtt;
+            shortRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) * 2 / (SHORT_WINDOW + 1);
+        longRtt += (rtt - longRtt) * 2 / (LONG_WINDOW + 1);
+        // After a long overload the long-term average has drifted up, let it recover faster once latency drops again
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        // A limit that is not being used says nothing about the capacity of the service
+        if (inFlight < estimate / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        update(estimate * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private void update(double newEstimate) {
+        estimate = Math.max(minLimit, Math.min(maxLimit, newEstimate));
+        limit = (int) estimate;
+    }
+}
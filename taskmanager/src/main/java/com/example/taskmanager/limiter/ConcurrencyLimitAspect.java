@@ -0,0 +1,155 @@
+package com.example.taskmanager.limiter;
+
+import com.example.taskmanager.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Sheds load in front of the task and user services instead of letting requests queue on the connection pool.
+ *
+ * <p>Calls are admitted against an {@link AdaptiveLimit}, one for reads and one for writes, so slow writes cannot
+ * starve reads of capacity or the other way round. Reads are the methods whose names start with {@code get} or
+ * {@code search}. A call over its limit fails at once with a {@link ServiceOverloadedException}, answered with
+ * {@code 503 Service Unavailable} and a {@code Retry-After} of {@code taskmanager.limiter.retry-after}.</p>
+ *
+ * <p>A streamed export or import holds its permit for as long as the client takes to read or send the body, and a bulk
+ * upsert or a reassignment of a user's open tasks runs one transaction per chunk for as long as there are chunks.
+ * The duration of these jobs says how much work they were given, not how loaded the database is, and a few of them
+ * would hold every permit of an adaptive limit at its minimum. They are admitted against a fixed limit of their own,
+ * {@code taskmanager.limiter.jobs.limit}, and never sampled, so they can neither starve ordinary calls nor shrink
+ * their limits.</p>
+ *
+ * <p>A permit covers the whole call, including the calls it makes to the other service: those run under the caller's
+ * permit instead of taking a second one, which could be refused half way through the caller's work.</p>
+ *
+ * <p>The advice runs outside the transaction, so a rejected call never takes a connection, and the measured latency
+ * includes the wait for one. The current limits, the calls in flight and the rejections are published as
+ * {@value #LIMIT_METRIC}, {@value #IN_FLIGHT_METRIC} and {@value #REJECTED_METRIC}, tagged with the kind of call.</p>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConcurrencyLimitAspect {
+
+    static final String LIMIT_METRIC = "taskmanager.limiter.limit";
+
+    static final String IN_FLIGHT_METRIC = "taskmanager.limiter.in.flight";
+
+    static final String REJECTED_METRIC = "taskmanager.limiter.rejected";
+
+    private static final String READ = "read";
+
+    private static final String WRITE = "write";
+
+    private static final String JOB = "job";
+
+    private static final Set<String> LONG_WRITES =
+            Set.of("importTasks", "bulkUpsertTasks", "reassignOpenTasks", "deactivateUser");
+
+    /**
+     * Set while the current thread holds a permit.
+     */
+    private static final ThreadLocal<Boolean> HOLDING = new ThreadLocal<>();
+
+    @Value("${taskmanager.limiter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${taskmanager.limiter.read.initial-limit:20}")
+    private int readInitialLimit;
+
+    @Value("${taskmanager.limiter.read.min-limit:4}")
+    private int readMinLimit;
+
+    @Value("${taskmanager.limiter.read.max-limit:200}")
+    private int readMaxLimit;
+
+    @Value("${taskmanager.limiter.write.initial-limit:10}")
+    private int writeInitialLimit;
+
+    @Value("${taskmanager.limiter.write.min-limit:2}")
+    private int writeMinLimit;
+
+    @Value("${taskmanager.limiter.write.max-limit:100}")
+    private int writeMaxLimit;
+
+    @Value("${taskmanager.limiter.jobs.limit:2}")
+    private int jobsLimit;
+
+    @Value("${taskmanager.limiter.retry-after:PT1S}")
+    private Duration retryAfter;
+
+    private AdaptiveLimit reads;
+
+    private AdaptiveLimit writes;
+
+    private AdaptiveLimit jobs;
+
+    @PostConstruct
+    void initialize() {
+        reads = register(READ, new AdaptiveLimit(readInitialLimit, readMinLimit, readMaxLimit));
+        writes = register(WRITE, new AdaptiveLimit(writeInitialLimit, writeMinLimit, writeMaxLimit));
+        // Never sampled, so it stays at its initial limit
+        jobs = register(JOB, new AdaptiveLimit(jobsLimit, jobsLimit, jobsLimit));
+    }
+
+    private static AdaptiveLimit register(String kind, AdaptiveLimit limit) {
+        Metrics.gauge(LIMIT_METRIC, Tags.of("kind", kind), limit, AdaptiveLimit::limit);
+        Metrics.gauge(IN_FLIGHT_METRIC, Tags.of("kind", kind), limit, AdaptiveLimit::inFlight);
+        return limit;
+    }
+
+    @Around("execution(* com.example.taskmanager.service.TaskService.*(..))"
+            + " || execution(* com.example.taskmanager.service.UserService.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled || HOLDING.get() != null) {
+            return joinPoint.proceed();
+        }
+        String method = joinPoint.getSignature().getName();
+        boolean job = isLongByDesign(method);
+        boolean read = method.startsWith("get") || method.startsWith("search");
+        AdaptiveLimit limit = job ? jobs : read ? reads : writes;
+        if (!limit.tryAcquire()) {
+            Metrics.counter(REJECTED_METRIC, "kind", job ? JOB : read ? READ : WRITE).increment();
+            throw new ServiceOverloadedException("The service is overloaded, please retry later", retryAfter);
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = false;
+        HOLDING.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } catch (QueryTimeoutException | CannotAcquireLockException | DataAccessResourceFailureException
+                 | TransientDataAccessResourceException | CannotCreateTransactionException ex) {
+            // Timeouts and missing connections mean overload. Optimistic lock conflicts on a contended row don't
+            dropped = true;
+            throw ex;
+        } finally {
+            HOLDING.remove();
+            if (job) {
+                limit.release();
+            } else {
+                limit.release(System.nanoTime() - start, dropped);
+            }
+        }
+    }
+
+    private static boolean isLongByDesign(String method) {
+        return method.startsWith("export") || LONG_WRITES.contains(method);
+    }
+}
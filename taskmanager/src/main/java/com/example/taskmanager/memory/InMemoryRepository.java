@@ -0,0 +1,73 @@
+package com.example.taskmanager.memory;
+
+import org.springframework.data.repository.ListCrudRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of {@link ListCrudRepository} that the in-memory repositories share, built on the few operations each of
+ * them implements against the {@link MemoryStore}.
+ *
+ * <p>Entities returned are copies, so changing one has no effect until it is saved, like a detached entity. Writes are
+ * applied at once, there is nothing to flush.</p>
+ */
+abstract class InMemoryRepository<T> implements ListCrudRepository<T, Long> {
+
+    /**
+     * Returns the ID of an entity, null if it was never saved.
+     */
+    abstract Long idOf(T entity);
+
+    @Override
+    public <S extends T> S save(S entity) {
+        return saveAll(List.of(entity)).get(0);
+    }
+
+    public void flush() {
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        List<T> entities = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(entities::add);
+        }
+        return entities;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        deleteAllById(List.of(id));
+    }
+
+    @Override
+    public void delete(T entity) {
+        Long id = idOf(entity);
+        if (id != null) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        List<Long> ids = new ArrayList<>();
+        for (T entity : entities) {
+            Long id = idOf(entity);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAll() {
+        deleteAll(findAll());
+    }
+}
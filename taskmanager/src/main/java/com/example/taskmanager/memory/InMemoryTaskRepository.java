@@ -0,0 +1,379 @@
+package com.example.taskmanager.memory;
+
+import com.example.taskmanager.dto.TaskCount;
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskDue;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import com.example.taskmanager.memory.MemoryStore.TaskKey;
+import com.example.taskmanager.repository.TaskRepository;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link TaskRepository} on the {@link MemoryStore}, replacing the JPA repository under the {@code memory} profile.
+ *
+ * <p>Filtered pages are read from the index of the most selective criterion set, the assignee, then the status, in
+ * {@code (createdAt, id)} order from the cursor on, like the queries on {@code idx_tasks_status_user_created} and
+ * {@code idx_tasks_created_at_id}. Saving sets the creation and update timestamps and the version as Hibernate does.</p>
+ */
+@Repository
+@Primary
+@Profile("memory")
+public class InMemoryTaskRepository extends InMemoryRepository<Task> implements TaskRepository {
+
+    @Autowired
+    private MemoryStore store;
+
+    @Override
+    Long idOf(Task task) {
+        return task.getId();
+    }
+
+    private Task toTask(TaskRow row) {
+        UserRow assignee = row.assigneeId() != null ? store.user(row.assigneeId()) : null;
+        return row.toTask(assignee != null ? assignee.toUser() : null);
+    }
+
+    @Override
+    public Optional<Task> findById(Long id) {
+        return Optional.ofNullable(store.task(id)).map(this::toTask);
+    }
+
+    @Override
+    public Optional<Task> findWithAssignedToById(Long id) {
+        return findById(id);
+    }
+
+    @Override
+    public List<Task> findWithAssignedToByIdIn(Collection<Long> ids) {
+        return findAllById(ids);
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return Optional.ofNullable(store.task(id)).map(TaskRow::version);
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return store.tasks().stream().map(this::toTask).toList();
+    }
+
+    @Override
+    public boolean existsByAssignedToId(Long userId) {
+        return store.tasks().stream().anyMatch(row -> userId.equals(row.assigneeId()));
+    }
+
+    @Override
+    public long count() {
+        return store.tasks().size();
+    }
+
+    @Override
+    public Stream<Task> streamAll() {
+        return store.tasks().stream().map(this::toTask);
+    }
+
+    /**
+     * Inserts the tasks without a version and updates those with one, failing all of them if one has been updated or
+     * deleted since it was loaded, or if an assignee does not exist.
+     */
+    @Override
+    public <S extends Task> List<S> saveAll(Iterable<S> tasks) {
+        List<S> list = new ArrayList<>();
+        tasks.forEach(list::add);
+        List<TaskRow> rows = store.write(batch -> {
+            LocalDateTime now = store.now();
+            List<TaskRow> written = new ArrayList<>();
+            for (S task : list) {
+                long id;
+                long version;
+                LocalDateTime createdAt;
+                if (task.getVersion() == null) {
+                    id = store.nextTaskId();
+                    version = 0;
+                    createdAt = now;
+                } else {
+                    TaskRow current = task.getId() != null ? batch.task(task.getId()) : null;
+                    if (current == null || current.version() != task.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Task.class, task.getId());
+                    }
+                    id = current.id();
+                    version = current.version() + 1;
+                    createdAt = current.createdAt();
+                }
+                TaskRow row = new TaskRow(id, version, task.getTitle(), task.getDescription(), task.getStatus(),
+                        createdAt, now, task.getAssignedTo() != null ? task.getAssignedTo().getId() : null,
+                        task.getTimezone() != null ? (TimeZone) task.getTimezone().clone() : null, task.getDueAt());
+                batch.put(row);
+                written.add(row);
+            }
+            return written;
+        });
+        for (int i = 0; i < list.size(); i++) {
+            Task task = list.get(i);
+            TaskRow row = rows.get(i);
+            task.setId(row.id());
+            task.setVersion(row.version());
+            task.setCreatedAt(row.createdAt());
+            task.setUpdatedAt(row.updatedAt());
+        }
+        return list;
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        store.write(batch -> {
+            for (Long id : ids) {
+                if (batch.task(id) != null) {
+                    batch.deleteTask(id);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int updateIfVersion(Long id, long version, String title, String description, String status,
+                               LocalDateTime dueAt, TimeZone timezone, LocalDateTime updatedAt) {
+        return store.write(batch -> {
+            TaskRow current = batch.task(id);
+            if (current == null || current.version() != version) {
+                return 0;
+            }
+            batch.put(new TaskRow(id, version + 1, title, description, status, current.createdAt(), updatedAt,
+                    current.assigneeId(), timezone, dueAt));
+            return 1;
+        });
+    }
+
+    @Override
+    public int updateIfVersion(Long id, long version, String title, String description, String status,
+                               LocalDateTime dueAt, TimeZone timezone, User assignedTo, LocalDateTime updatedAt) {
+        return store.write(batch -> {
+            TaskRow current = batch.task(id);
+            if (current == null || current.version() != version) {
+                return 0;
+            }
+            batch.put(new TaskRow(id, version + 1, title, description, status, current.createdAt(), updatedAt,
+                    assignedTo != null ? assignedTo.getId() : null, timezone, dueAt));
+            return 1;
+        });
+    }
+
+    @Override
+    public int updateFields(Long id, Long version, Map<String, Object> values) {
+        return store.write(batch -> {
+            TaskRow current = batch.task(id);
+            if (current == null || version != null && current.version() != version) {
+                return 0;
+            }
+            User assignee = new User();
+            assignee.setId(current.assigneeId());
+            Task task = current.toTask(assignee);
+            new BeanWrapperImpl(task).setPropertyValues(values);
+            task.setVersion(current.version() + 1);
+            batch.put(TaskRow.of(task));
+            return 1;
+        });
+    }
+
+    @Override
+    public List<Task> findPage(TaskFilter filter, TaskCursor after, int limit) {
+        return matching(filter, after)
+                .limit(limit)
+                .map(this::toTask)
+                .toList();
+    }
+
+    @Override
+    public List<TaskSummary> findAssignedSummaries(Long userId, String status, TaskCursor before, int limit) {
+        NavigableSet<TaskKey> index = store.tasksByAssigneeStatusUpdated(userId, status).descendingSet();
+        TaskKey start = before != null ? new TaskKey(before.getTimestamp(), before.getId()) : null;
+        if (start != null) {
+            index = index.tailSet(start, false);
+        }
+        return index.stream()
+                .map(key -> store.task(key.id()))
+                .filter(row -> row != null && userId.equals(row.assigneeId()) && Objects.equals(status, row.status()))
+                .filter(row -> start == null || new TaskKey(row.updatedAt(), row.id()).compareTo(start) < 0)
+                .limit(limit)
+                .map(this::summary)
+                .toList();
+    }
+
+    @Override
+    public int deleteMatching(TaskFilter filter) {
+        return store.write(batch -> {
+            List<TaskRow> rows = matching(filter, null).toList();
+            rows.forEach(row -> batch.deleteTask(row.id()));
+            return rows.size();
+        });
+    }
+
+    @Override
+    public int updateStatusMatching(TaskFilter filter, String status, LocalDateTime updatedAt) {
+        return store.write(batch -> {
+            List<TaskRow> rows = matching(filter, null).toList();
+            rows.forEach(row -> batch.put(new TaskRow(row.id(), row.version() + 1, row.title(), row.description(),
+                    status, row.createdAt(), updatedAt, row.assigneeId(), row.timezone(), row.dueAt())));
+            return rows.size();
+        });
+    }
+
+    @Override
+    public int reassignOpen(Long fromUserId, User assignee, int limit, LocalDateTime updatedAt) {
+        return store.write(batch -> {
+            List<TaskRow> rows = store.tasksByAssignee(fromUserId).stream()
+                    .map(key -> batch.task(key.id()))
+                    .filter(row -> row != null && fromUserId.equals(row.assigneeId()) && !"Completed".equals(row.status()))
+                    .limit(limit)
+                    .toList();
+            rows.forEach(row -> batch.put(new TaskRow(row.id(), row.version() + 1, row.title(), row.description(),
+                    row.status(), row.createdAt(), updatedAt, assignee.getId(), row.timezone(), row.dueAt())));
+            return rows.size();
+        });
+    }
+
+    /**
+     * Returns the tasks matching the filter after the cursor in {@code (createdAt, id)} order, lazily.
+     */
+    private Stream<TaskRow> matching(TaskFilter filter, TaskCursor after) {
+        NavigableSet<TaskKey> index;
+        if (filter.getAssigneeId() != null) {
+            index = store.tasksByAssignee(filter.getAssigneeId());
+        } else if (filter.getStatus() != null) {
+            index = store.tasksByStatus(filter.getStatus());
+        } else {
+            index = store.tasksByCreated();
+        }
+        TaskKey start = after != null ? new TaskKey(after.getTimestamp(), after.getId()) : null;
+        if (start != null) {
+            index = index.tailSet(start, false);
+        }
+        // The index may be a step behind the rows, so the position is checked again on the row
+        return index.stream()
+                .map(key -> store.task(key.id()))
+                .filter(Objects::nonNull)
+                .filter(row -> start == null || new TaskKey(row.createdAt(), row.id()).compareTo(start) > 0)
+                .filter(row -> matches(row, filter));
+    }
+
+    private static boolean matches(TaskRow row, TaskFilter filter) {
+        if (filter.getStatus() != null && !filter.getStatus().equals(row.status())) {
+            return false;
+        }
+        if (filter.getAssigneeId() != null && !filter.getAssigneeId().equals(row.assigneeId())) {
+            return false;
+        }
+        if (filter.getCreatedFrom() != null && (row.createdAt() == null || row.createdAt().isBefore(filter.getCreatedFrom()))) {
+            return false;
+        }
+        if (filter.getUpdatedSince() != null && (row.updatedAt() == null || row.updatedAt().isBefore(filter.getUpdatedSince()))) {
+            return false;
+        }
+        return filter.getUpdatedBefore() == null || row.updatedAt() != null && row.updatedAt().isBefore(filter.getUpdatedBefore());
+    }
+
+    @Override
+    public List<TaskSummary> findFirstSummaryPage(Pageable pageable) {
+        return summaries(store.tasksByCreated(), pageable);
+    }
+
+    @Override
+    public List<TaskSummary> findSummaryPageAfter(LocalDateTime createdAt, Long id, Pageable pageable) {
+        return summaries(store.tasksByCreated().tailSet(new TaskKey(createdAt, id), false), pageable);
+    }
+
+    private List<TaskSummary> summaries(NavigableSet<TaskKey> keys, Pageable pageable) {
+        Stream<TaskSummary> summaries = keys.stream()
+                .map(key -> store.task(key.id()))
+                .filter(Objects::nonNull)
+                .map(this::summary);
+        if (pageable.isPaged()) {
+            summaries = summaries.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return summaries.toList();
+    }
+
+    private TaskSummary summary(TaskRow row) {
+        return new TaskSummary(row.id(), row.title(), row.status(), row.createdAt(), row.updatedAt(), row.assigneeId());
+    }
+
+    @Override
+    public List<TaskCount> countByStatusAndAssignee() {
+        record Group(String status, Long assigneeId) {
+        }
+        return store.tasks().stream()
+                .collect(Collectors.groupingBy(row -> new Group(row.status(), row.assigneeId()), Collectors.counting()))
+                .entrySet().stream()
+                .map(entry -> new TaskCount(entry.getKey().status(), entry.getKey().assigneeId(), entry.getValue()))
+                .toList();
+    }
+
+    @Override
+    public List<TaskDue> findDueBetween(LocalDateTime from, LocalDateTime to) {
+        return store.tasksByDue().subSet(new TaskKey(from, Long.MIN_VALUE), true, new TaskKey(to, Long.MIN_VALUE), false)
+                .stream()
+                .map(key -> store.task(key.id()))
+                .filter(row -> row != null && row.dueAt() != null && !row.dueAt().isBefore(from) && row.dueAt().isBefore(to))
+                .map(this::due)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<TaskDue> findDueOfAssigneeBetween(Long assigneeId, LocalDateTime from, LocalDateTime to) {
+        return store.tasksByAssignee(assigneeId).stream()
+                .map(key -> store.task(key.id()))
+                .filter(row -> row != null && assigneeId.equals(row.assigneeId()) && row.dueAt() != null
+                        && !row.dueAt().isBefore(from) && row.dueAt().isBefore(to))
+                .map(this::due)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<TaskDue> findDueByIdIn(Collection<Long> ids) {
+        return ids.stream()
+                .map(store::task)
+                .filter(row -> row != null && row.dueAt() != null)
+                .map(this::due)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Returns the due date of an open task, or null if it is completed or its assignee is gone.
+     */
+    private TaskDue due(TaskRow row) {
+        if ("Completed".equals(row.status()) || row.assigneeId() == null) {
+            return null;
+        }
+        UserRow assignee = store.user(row.assigneeId());
+        if (assignee == null) {
+            return null;
+        }
+        return new TaskDue(row.id(), row.dueAt(), row.timezone(), assignee.timezone(), assignee.id());
+    }
+}
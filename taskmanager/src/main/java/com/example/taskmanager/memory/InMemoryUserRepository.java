@@ -0,0 +1,131 @@
+package com.example.taskmanager.memory;
+
+import com.example.taskmanager.entity.User;
+import com.example.taskmanager.repository.UserRepository;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+
+/**
+ * {@link UserRepository} on the {@link MemoryStore}, replacing the JPA repository under the {@code memory} profile.
+ */
+@Repository
+@Primary
+@Profile("memory")
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+
+    @Autowired
+    private MemoryStore store;
+
+    @Override
+    Long idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(store.user(id)).map(UserRow::toUser);
+    }
+
+    @Override
+    public Optional<User> findForUpdateById(Long id) {
+        return findById(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return store.users().stream().map(UserRow::toUser).toList();
+    }
+
+    @Override
+    public long count() {
+        return store.users().size();
+    }
+
+    /**
+     * Inserts the users without a version and updates those with one, failing all of them if one has been updated or
+     * deleted since it was loaded.
+     */
+    @Override
+    public <S extends User> List<S> saveAll(Iterable<S> users) {
+        List<S> list = new ArrayList<>();
+        users.forEach(list::add);
+        List<UserRow> rows = store.write(batch -> {
+            List<UserRow> written = new ArrayList<>();
+            for (S user : list) {
+                long id;
+                long version;
+                if (user.getVersion() == null) {
+                    id = store.nextUserId();
+                    version = 0;
+                } else {
+                    UserRow current = user.getId() != null ? batch.user(user.getId()) : null;
+                    if (current == null || current.version() != user.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(User.class, user.getId());
+                    }
+                    id = current.id();
+                    version = current.version() + 1;
+                }
+                UserRow row = new UserRow(id, version, user.getFirstName(), user.getLastName(),
+                        user.getTimezone() != null ? (TimeZone) user.getTimezone().clone() : null, user.getIsActive());
+                batch.put(row);
+                written.add(row);
+            }
+            return written;
+        });
+        for (int i = 0; i < list.size(); i++) {
+            list.get(i).setId(rows.get(i).id());
+            list.get(i).setVersion(rows.get(i).version());
+        }
+        return list;
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        store.write(batch -> {
+            for (Long id : ids) {
+                if (batch.user(id) != null) {
+                    batch.deleteUser(id);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int updateIfVersion(Long id, long version, String firstName, String lastName, TimeZone timezone,
+                               Boolean isActive) {
+        return store.write(batch -> {
+            UserRow current = batch.user(id);
+            if (current == null || current.version() != version) {
+                return 0;
+            }
+            batch.put(new UserRow(id, version + 1, firstName, lastName, timezone, isActive));
+            return 1;
+        });
+    }
+
+    @Override
+    public int updateFields(Long id, Long version, Map<String, Object> values) {
+        return store.write(batch -> {
+            UserRow current = batch.user(id);
+            if (current == null || version != null && current.version() != version) {
+                return 0;
+            }
+            User user = current.toUser();
+            new BeanWrapperImpl(user).setPropertyValues(values);
+            user.setVersion(current.version() + 1);
+            batch.put(UserRow.of(user));
+            return 1;
+        });
+    }
+}
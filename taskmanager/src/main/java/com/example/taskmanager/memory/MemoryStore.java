@@ -0,0 +1,541 @@
+package com.example.taskmanager.memory;
+
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * An embedded storage engine for tasks and users, the alternative to Postgres behind the {@code memory} profile.
+ *
+ * <p>Rows are held in concurrent skip lists by ID, next to secondary indexes on {@code (createdAt, id)}, on status and
+ * on assignee, both ordered by {@code (createdAt, id)} like {@code idx_tasks_status_user_created}, on assignee and
+ * status ordered by {@code (updatedAt, id)} like {@code idx_tasks_user_status_updated}, and on due date.
+ * Reads take no lock: rows are immutable and replaced whole, and an index entry is only a hint, the row it points to
+ * is checked again. Writes are serialized by a single lock, appended to a {@link WriteAheadLog} and only then applied,
+ * so the log order is the order in which they became visible.</p>
+ *
+ * <p>Every {@code taskmanager.memory.snapshot-interval} the tables are written to a snapshot file, after which the log
+ * segments it covers are deleted. At startup the latest snapshot is loaded and the log written after it is replayed,
+ * up to the last complete batch. A batch of mutations, such as a bulk chunk, is one log record and is recovered
+ * entirely or not at all.</p>
+ *
+ * <p>The foreign key and {@code NOT NULL} constraint on a task's assignee are enforced as the database would, with a
+ * {@link DataIntegrityViolationException}.</p>
+ */
+@Component
+@Profile("memory")
+public class MemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryStore.class);
+
+    static final String SNAPSHOT_METRIC = "taskmanager.memory.snapshot";
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private static final int SNAPSHOT_MAGIC = 0x544d5331;
+
+    private static final String NO_STATUS = "";
+
+    /**
+     * A position in an index: a timestamp, the creation or due date, and the ID of the task.
+     */
+    record TaskKey(LocalDateTime at, long id) implements Comparable<TaskKey> {
+
+        private static final Comparator<TaskKey> ORDER = Comparator
+                .comparing(TaskKey::at, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingLong(TaskKey::id);
+
+        @Override
+        public int compareTo(TaskKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private final ConcurrentSkipListMap<Long, TaskRow> tasks = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentSkipListMap<Long, UserRow> users = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentSkipListSet<TaskKey> tasksByCreated = new ConcurrentSkipListSet<>();
+
+    private final Map<String, ConcurrentSkipListSet<TaskKey>> tasksByStatus = new ConcurrentHashMap<>();
+
+    private final Map<Long, ConcurrentSkipListSet<TaskKey>> tasksByAssignee = new ConcurrentHashMap<>();
+
+    private final Map<AssigneeStatus, ConcurrentSkipListSet<TaskKey>> tasksByAssigneeStatusUpdated = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<TaskKey> tasksByDue = new ConcurrentSkipListSet<>();
+
+    private record AssigneeStatus(long assigneeId, String status) {
+    }
+
+    private final AtomicLong taskSequence = new AtomicLong();
+
+    private final AtomicLong userSequence = new AtomicLong();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private WriteAheadLog wal;
+
+    private volatile long snapshotLsn;
+
+    Clock clock = Clock.systemUTC();
+
+    @Value("${taskmanager.memory.directory:./data/taskmanager}")
+    private String directory;
+
+    @Value("${taskmanager.memory.wal-segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${taskmanager.memory.sync-writes:false}")
+    private boolean syncWrites;
+
+    /**
+     * Loads the latest snapshot, replays the log written after it and opens a new log segment.
+     */
+    @PostConstruct
+    void open() throws IOException {
+        long start = System.nanoTime();
+        Path path = Path.of(directory);
+        Files.createDirectories(path);
+        List<Path> snapshots = files(path, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX + ".tmp");
+        for (Path abandoned : snapshots) {
+            Files.delete(abandoned);
+        }
+        snapshots = files(path, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            readSnapshot(snapshots.get(snapshots.size() - 1));
+        }
+        long lastLsn = WriteAheadLog.replay(path, snapshotLsn, payload -> {
+            try {
+                readBatch(payload).forEach(this::apply);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        wal = new WriteAheadLog(path, segmentSize.toBytes(), syncWrites, lastLsn + 1);
+        log.info("Recovered {} tasks and {} users from {} up to log record {} in {} ms", tasks.size(), users.size(),
+                path.toAbsolutePath(), lastLsn, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        writeLock.lock();
+        try {
+            wal.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    long nextTaskId() {
+        return taskSequence.incrementAndGet();
+    }
+
+    long nextUserId() {
+        return userSequence.incrementAndGet();
+    }
+
+    TaskRow task(long id) {
+        return tasks.get(id);
+    }
+
+    UserRow user(long id) {
+        return users.get(id);
+    }
+
+    /**
+     * Returns the tasks in ID order, a live view.
+     */
+    Collection<TaskRow> tasks() {
+        return tasks.values();
+    }
+
+    /**
+     * Returns the users in ID order, a live view.
+     */
+    Collection<UserRow> users() {
+        return users.values();
+    }
+
+    NavigableSet<TaskKey> tasksByCreated() {
+        return tasksByCreated;
+    }
+
+    NavigableSet<TaskKey> tasksByStatus(String status) {
+        NavigableSet<TaskKey> index = tasksByStatus.get(status != null ? status : NO_STATUS);
+        return index != null ? index : Collections.emptyNavigableSet();
+    }
+
+    NavigableSet<TaskKey> tasksByAssignee(long userId) {
+        NavigableSet<TaskKey> index = tasksByAssignee.get(userId);
+        return index != null ? index : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * Returns the tasks of an assignee with a status, or without one if it is null, ordered by {@code (updatedAt, id)}.
+     */
+    NavigableSet<TaskKey> tasksByAssigneeStatusUpdated(long userId, String status) {
+        NavigableSet<TaskKey> index = tasksByAssigneeStatusUpdated.get(new AssigneeStatus(userId, status != null ? status : NO_STATUS));
+        return index != null ? index : Collections.emptyNavigableSet();
+    }
+
+    NavigableSet<TaskKey> tasksByDue() {
+        return tasksByDue;
+    }
+
+    /**
+     * The mutations of one write, checked against the current rows and those written earlier in the same batch.
+     */
+    final class Batch {
+
+        private final List<Mutation> mutations = new ArrayList<>();
+
+        private final Map<Long, TaskRow> tasks = new HashMap<>();
+
+        private final Map<Long, UserRow> users = new HashMap<>();
+
+        TaskRow task(long id) {
+            return tasks.containsKey(id) ? tasks.get(id) : MemoryStore.this.tasks.get(id);
+        }
+
+        UserRow user(long id) {
+            return users.containsKey(id) ? users.get(id) : MemoryStore.this.users.get(id);
+        }
+
+        void put(TaskRow row) {
+            if (row.assigneeId() == null) {
+                throw new DataIntegrityViolationException("NULL not allowed for column user_id of task " + row.id());
+            }
+            if (user(row.assigneeId()) == null) {
+                throw new DataIntegrityViolationException(
+                        "Task " + row.id() + " references user " + row.assigneeId() + ", which does not exist");
+            }
+            tasks.put(row.id(), row);
+            mutations.add(new Mutation.PutTask(row));
+        }
+
+        void deleteTask(long id) {
+            tasks.put(id, null);
+            mutations.add(new Mutation.DeleteTask(id));
+        }
+
+        void put(UserRow row) {
+            users.put(row.id(), row);
+            mutations.add(new Mutation.PutUser(row));
+        }
+
+        void deleteUser(long id) {
+            boolean referenced = tasksByAssignee(id).stream()
+                    .map(key -> task(key.id()))
+                    .anyMatch(row -> row != null && row.assigneeId() == id)
+                    || tasks.values().stream().anyMatch(row -> row != null && row.assigneeId() == id);
+            if (referenced) {
+                throw new DataIntegrityViolationException("User " + id + " is still referenced by tasks");
+            }
+            users.put(id, null);
+            mutations.add(new Mutation.DeleteUser(id));
+        }
+    }
+
+    /**
+     * Runs a write under the write lock. The mutations it adds to the batch are logged and applied together once it
+     * returns, nothing is if it throws.
+     *
+     * @throws DataAccessResourceFailureException if the batch could not be logged.
+     */
+    <T> T write(Function<Batch, T> changes) {
+        writeLock.lock();
+        try {
+            Batch batch = new Batch();
+            T result = changes.apply(batch);
+            if (!batch.mutations.isEmpty()) {
+                wal.append(writeBatch(batch.mutations));
+                batch.mutations.forEach(this::apply);
+            }
+            return result;
+        } catch (IOException ex) {
+            throw new DataAccessResourceFailureException("Could not write to the write-ahead log", ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void apply(Mutation mutation) {
+        switch (mutation) {
+            case Mutation.PutTask put -> {
+                TaskRow row = put.row();
+                taskSequence.accumulateAndGet(row.id(), Math::max);
+                // Index the new row before it replaces the old one, so a concurrent reader never misses it
+                index(row);
+                TaskRow old = tasks.put(row.id(), row);
+                if (old != null) {
+                    unindex(old, row);
+                }
+            }
+            case Mutation.DeleteTask delete -> {
+                taskSequence.accumulateAndGet(delete.id(), Math::max);
+                TaskRow old = tasks.remove(delete.id());
+                if (old != null) {
+                    unindex(old, null);
+                }
+            }
+            case Mutation.PutUser put -> {
+                userSequence.accumulateAndGet(put.row().id(), Math::max);
+                users.put(put.row().id(), put.row());
+            }
+            case Mutation.DeleteUser delete -> {
+                userSequence.accumulateAndGet(delete.id(), Math::max);
+                users.remove(delete.id());
+                tasksByAssignee.remove(delete.id());
+                tasksByAssigneeStatusUpdated.keySet().removeIf(key -> key.assigneeId() == delete.id());
+            }
+        }
+    }
+
+    private void index(TaskRow row) {
+        TaskKey created = new TaskKey(row.createdAt(), row.id());
+        tasksByCreated.add(created);
+        tasksByStatus.computeIfAbsent(statusKey(row), status -> new ConcurrentSkipListSet<>()).add(created);
+        if (row.assigneeId() != null) {
+            tasksByAssignee.computeIfAbsent(row.assigneeId(), userId -> new ConcurrentSkipListSet<>()).add(created);
+            tasksByAssigneeStatusUpdated.computeIfAbsent(new AssigneeStatus(row.assigneeId(), statusKey(row)),
+                    key -> new ConcurrentSkipListSet<>()).add(new TaskKey(row.updatedAt(), row.id()));
+        }
+        if (row.dueAt() != null) {
+            tasksByDue.add(new TaskKey(row.dueAt(), row.id()));
+        }
+    }
+
+    /**
+     * Removes the index entries of an old row that the row replacing it, if any, does not share.
+     */
+    private void unindex(TaskRow old, TaskRow row) {
+        TaskKey created = new TaskKey(old.createdAt(), old.id());
+        boolean sameCreated = row != null && created.equals(new TaskKey(row.createdAt(), row.id()));
+        if (!sameCreated) {
+            tasksByCreated.remove(created);
+        }
+        if (!sameCreated || !statusKey(old).equals(statusKey(row))) {
+            tasksByStatus(old.status()).remove(created);
+        }
+        if (old.assigneeId() != null && (!sameCreated || !old.assigneeId().equals(row.assigneeId()))) {
+            tasksByAssignee(old.assigneeId()).remove(created);
+        }
+        if (old.assigneeId() != null && (row == null || !old.assigneeId().equals(row.assigneeId())
+                || !statusKey(old).equals(statusKey(row)) || !Objects.equals(old.updatedAt(), row.updatedAt()))) {
+            tasksByAssigneeStatusUpdated(old.assigneeId(), old.status()).remove(new TaskKey(old.updatedAt(), old.id()));
+        }
+        if (old.dueAt() != null && (row == null || !old.dueAt().equals(row.dueAt()))) {
+            tasksByDue.remove(new TaskKey(old.dueAt(), old.id()));
+        }
+    }
+
+    private static String statusKey(TaskRow row) {
+        return row.status() != null ? row.status() : NO_STATUS;
+    }
+
+    private byte[] writeBatch(List<Mutation> mutations) throws IOException {
+        buffer.reset();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(mutations.size());
+        for (Mutation mutation : mutations) {
+            Mutation.write(mutation, out);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static List<Mutation> readBatch(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = in.readInt();
+        List<Mutation> mutations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            mutations.add(Mutation.read(in));
+        }
+        return mutations;
+    }
+
+    /**
+     * Forces the log to disk, so at most this interval of writes is lost if the machine crashes. Without
+     * {@code taskmanager.memory.sync-writes}, a crash of the process alone loses nothing.
+     */
+    @Scheduled(fixedDelayString = "${taskmanager.memory.sync-interval:PT1S}")
+    public void sync() {
+        if (wal != null) {
+            wal.force();
+        }
+    }
+
+    /**
+     * Writes the tables to a new snapshot and deletes the log segments and the snapshot it replaces.
+     *
+     * <p>The log is switched to a new segment and the rows are collected under the write lock, the snapshot is
+     * written outside of it. It goes to a temporary file that is renamed once complete and on disk, so a crash at any
+     * point leaves the previous snapshot and the log intact.</p>
+     */
+    @Scheduled(fixedDelayString = "${taskmanager.memory.snapshot-interval:PT10M}",
+            initialDelayString = "${taskmanager.memory.snapshot-interval:PT10M}")
+    public synchronized void snapshot() {
+        long start = System.nanoTime();
+        long lsn;
+        long taskIds;
+        long userIds;
+        List<TaskRow> taskRows;
+        List<UserRow> userRows;
+        writeLock.lock();
+        try {
+            lsn = wal.lastLsn();
+            if (lsn == snapshotLsn) {
+                return;
+            }
+            wal.rotate();
+            taskIds = taskSequence.get();
+            userIds = userSequence.get();
+            taskRows = new ArrayList<>(tasks.values());
+            userRows = new ArrayList<>(users.values());
+        } catch (IOException ex) {
+            throw new DataAccessResourceFailureException("Could not rotate the write-ahead log", ex);
+        } finally {
+            writeLock.unlock();
+        }
+
+        Path path = Path.of(directory);
+        try {
+            List<Path> previous = files(path, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            writeSnapshot(path, lsn, taskIds, userIds, taskRows, userRows);
+            snapshotLsn = lsn;
+            for (Path old : previous) {
+                Files.deleteIfExists(old);
+            }
+            WriteAheadLog.deleteUpTo(path, lsn);
+        } catch (IOException ex) {
+            throw new DataAccessResourceFailureException("Could not write a snapshot to " + path, ex);
+        }
+        Metrics.timer(SNAPSHOT_METRIC).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Wrote a snapshot of {} tasks and {} users up to log record {}", taskRows.size(), userRows.size(), lsn);
+    }
+
+    private static void writeSnapshot(Path directory, long lsn, long taskIds, long userIds, List<TaskRow> taskRows,
+                                      List<UserRow> userRows) throws IOException {
+        String name = SNAPSHOT_PREFIX + String.format("%020d", lsn) + SNAPSHOT_SUFFIX;
+        Path temporary = directory.resolve(name + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            BufferedOutputStream buffered = new BufferedOutputStream(file, 1 << 16);
+            CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lsn);
+            out.writeLong(taskIds);
+            out.writeLong(userIds);
+            out.writeInt(userRows.size());
+            out.writeInt(taskRows.size());
+            // Users first, so that replaying the tasks finds their assignees
+            for (UserRow row : userRows) {
+                Mutation.write(new Mutation.PutUser(row), out);
+            }
+            for (TaskRow row : taskRows) {
+                Mutation.write(new Mutation.PutTask(row), out);
+            }
+            new DataOutputStream(buffered).writeInt((int) checked.getChecksum().getValue());
+            buffered.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void readSnapshot(Path path) throws IOException {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(file, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException(path + " is not a snapshot");
+            }
+            long lsn = in.readLong();
+            long taskIds = in.readLong();
+            long userIds = in.readLong();
+            int userCount = in.readInt();
+            int taskCount = in.readInt();
+            for (int i = 0; i < userCount + taskCount; i++) {
+                apply(Mutation.read(in));
+            }
+            int checksum = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(file).readInt() != checksum) {
+                throw new IOException(path + " is corrupt");
+            }
+            snapshotLsn = lsn;
+            taskSequence.accumulateAndGet(taskIds, Math::max);
+            userSequence.accumulateAndGet(userIds, Math::max);
+        }
+    }
+
+    /**
+     * Returns the files with the given prefix and suffix, sorted by name.
+     */
+    private static List<Path> files(Path directory, String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+}
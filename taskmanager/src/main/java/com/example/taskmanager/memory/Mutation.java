@@ -0,0 +1,156 @@
+package com.example.taskmanager.memory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+/**
+ * A change to one row of the {@link MemoryStore}, and its binary form in the write-ahead log and the snapshots.
+ *
+ * <p>Each mutation starts with a type byte followed by its fields in declaration order. Strings are written as a
+ * length and UTF-8 bytes, with a length of -1 for null, date-times as epoch seconds and nanos in UTC, time zones by
+ * ID.</p>
+ */
+sealed interface Mutation {
+
+    byte PUT_TASK = 1;
+
+    byte DELETE_TASK = 2;
+
+    byte PUT_USER = 3;
+
+    byte DELETE_USER = 4;
+
+    record PutTask(TaskRow row) implements Mutation {
+    }
+
+    record DeleteTask(long id) implements Mutation {
+    }
+
+    record PutUser(UserRow row) implements Mutation {
+    }
+
+    record DeleteUser(long id) implements Mutation {
+    }
+
+    static void write(Mutation mutation, DataOutput out) throws IOException {
+        switch (mutation) {
+            case PutTask put -> {
+                out.writeByte(PUT_TASK);
+                writeTask(put.row(), out);
+            }
+            case DeleteTask delete -> {
+                out.writeByte(DELETE_TASK);
+                out.writeLong(delete.id());
+            }
+            case PutUser put -> {
+                out.writeByte(PUT_USER);
+                writeUser(put.row(), out);
+            }
+            case DeleteUser delete -> {
+                out.writeByte(DELETE_USER);
+                out.writeLong(delete.id());
+            }
+        }
+    }
+
+    static Mutation read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case PUT_TASK -> new PutTask(readTask(in));
+            case DELETE_TASK -> new DeleteTask(in.readLong());
+            case PUT_USER -> new PutUser(readUser(in));
+            case DELETE_USER -> new DeleteUser(in.readLong());
+            default -> throw new IOException("Unknown mutation type " + type);
+        };
+    }
+
+    private static void writeTask(TaskRow row, DataOutput out) throws IOException {
+        out.writeLong(row.id());
+        out.writeLong(row.version());
+        writeString(row.title(), out);
+        writeString(row.description(), out);
+        writeString(row.status(), out);
+        writeDateTime(row.createdAt(), out);
+        writeDateTime(row.updatedAt(), out);
+        out.writeLong(row.assigneeId() != null ? row.assigneeId() : -1);
+        writeString(row.timezone() != null ? row.timezone().getID() : null, out);
+        writeDateTime(row.dueAt(), out);
+    }
+
+    private static TaskRow readTask(DataInput in) throws IOException {
+        long id = in.readLong();
+        long version = in.readLong();
+        String title = readString(in);
+        String description = readString(in);
+        String status = readString(in);
+        LocalDateTime createdAt = readDateTime(in);
+        LocalDateTime updatedAt = readDateTime(in);
+        long assigneeId = in.readLong();
+        String timezone = readString(in);
+        LocalDateTime dueAt = readDateTime(in);
+        return new TaskRow(id, version, title, description, status, createdAt, updatedAt,
+                assigneeId >= 0 ? assigneeId : null, timezone != null ? TimeZone.getTimeZone(timezone) : null, dueAt);
+    }
+
+    private static void writeUser(UserRow row, DataOutput out) throws IOException {
+        out.writeLong(row.id());
+        out.writeLong(row.version());
+        writeString(row.firstName(), out);
+        writeString(row.lastName(), out);
+        writeString(row.timezone() != null ? row.timezone().getID() : null, out);
+        out.writeByte(row.isActive() == null ? -1 : row.isActive() ? 1 : 0);
+    }
+
+    private static UserRow readUser(DataInput in) throws IOException {
+        long id = in.readLong();
+        long version = in.readLong();
+        String firstName = readString(in);
+        String lastName = readString(in);
+        String timezone = readString(in);
+        byte isActive = in.readByte();
+        return new UserRow(id, version, firstName, lastName, timezone != null ? TimeZone.getTimeZone(timezone) : null,
+                isActive < 0 ? null : isActive == 1);
+    }
+
+    private static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDateTime(LocalDateTime value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.getNano());
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    private static LocalDateTime readDateTime(DataInput in) throws IOException {
+        int nanos = in.readInt();
+        if (nanos < 0) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.taskmanager.memory;
+
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+/**
+ * The stored state of a {@link Task}. Immutable, so readers can use a row without locking while writers replace it.
+ * The assignee is kept by ID, as in the {@code user_id} column, and resolved when the row is turned into an entity.
+ */
+record TaskRow(long id, long version, String title, String description, String status, LocalDateTime createdAt,
+               LocalDateTime updatedAt, Long assigneeId, TimeZone timezone, LocalDateTime dueAt) {
+
+    static TaskRow of(Task task) {
+        return new TaskRow(task.getId(), task.getVersion(), task.getTitle(), task.getDescription(), task.getStatus(),
+                task.getCreatedAt(), task.getUpdatedAt(), task.getAssignedTo() != null ? task.getAssignedTo().getId() : null,
+                task.getTimezone() != null ? (TimeZone) task.getTimezone().clone() : null, task.getDueAt());
+    }
+
+    /**
+     * Returns a new entity with the state of this row, which the caller is free to modify.
+     *
+     * @param assignee the assignee, or null if the task has none.
+     */
+    Task toTask(User assignee) {
+        Task task = new Task();
+        task.setId(id);
+        task.setVersion(version);
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setStatus(status);
+        task.setCreatedAt(createdAt);
+        task.setUpdatedAt(updatedAt);
+        task.setAssignedTo(assignee);
+        task.setTimezone(timezone != null ? (TimeZone) timezone.clone() : null);
+        task.setDueAt(dueAt);
+        return task;
+    }
+}
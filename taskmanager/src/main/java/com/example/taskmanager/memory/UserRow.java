@@ -0,0 +1,30 @@
+package com.example.taskmanager.memory;
+
+import com.example.taskmanager.entity.User;
+
+import java.util.TimeZone;
+
+/**
+ * The stored state of a {@link User}. Immutable, so readers can use a row without locking while writers replace it.
+ */
+record UserRow(long id, long version, String firstName, String lastName, TimeZone timezone, Boolean isActive) {
+
+    static UserRow of(User user) {
+        return new UserRow(user.getId(), user.getVersion(), user.getFirstName(), user.getLastName(),
+                user.getTimezone() != null ? (TimeZone) user.getTimezone().clone() : null, user.getIsActive());
+    }
+
+    /**
+     * Returns a new entity with the state of this row, which the caller is free to modify.
+     */
+    User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setVersion(version);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setTimezone(timezone != null ? (TimeZone) timezone.clone() : null);
+        user.setIsActive(isActive);
+        return user;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.taskmanager.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of records in memory-mapped segment files, the durable half of the {@link MemoryStore}.
+ *
+ * <p>Every record gets the next log sequence number, LSN, and is framed as {@code [length][crc32][lsn][payload]}. The
+ * length is written last, so a record torn by a crash reads as a zero length and ends the log, and the checksum catches
+ * one torn by the operating system. A segment is named after the LSN of its first record, and a new one is started when
+ * the current one is full or {@link #rotate()} is called, so the segments made redundant by a snapshot can be deleted
+ * whole.</p>
+ *
+ * <p>Appended records are in the page cache as soon as {@link #append} returns and survive a crash of the process. They
+ * survive a crash of the machine once {@link #force()} has run, after every append with {@code syncWrites}.</p>
+ *
+ * <p>Not thread-safe apart from {@link #force()}, the store appends under its write lock.</p>
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final String PREFIX = "wal-";
+
+    private static final String SUFFIX = ".log";
+
+    private static final int HEADER = 16;
+
+    /**
+     * A segment file and the LSN of its first record.
+     */
+    private record Segment(long firstLsn, Path path) {
+    }
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final boolean syncWrites;
+
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+
+    private volatile MappedByteBuffer segment;
+
+    private long nextLsn;
+
+    /**
+     * Opens a new segment for the records from {@code nextLsn} on. Existing segments are left for {@link #replay}.
+     */
+    WriteAheadLog(Path directory, long segmentSize, boolean syncWrites, long nextLsn) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        this.nextLsn = nextLsn;
+        openSegment(segmentSize);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return the LSN of the record.
+     */
+    long append(byte[] payload) throws IOException {
+        int length = HEADER + payload.length;
+        if (segment.remaining() < length) {
+            segment.force();
+            openSegment(Math.max(segmentSize, length));
+        }
+        int position = segment.position();
+        long lsn = nextLsn;
+        crc.reset();
+        crc.update(payload);
+        segment.put(position + HEADER, payload);
+        segment.putLong(position + 8, lsn);
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.putInt(position, payload.length);
+        segment.position(position + length);
+        if (syncWrites) {
+            segment.force(position, length);
+        }
+        nextLsn++;
+        return lsn;
+    }
+
+    /**
+     * Returns the LSN of the last record appended, or that the log was opened after.
+     */
+    long lastLsn() {
+        return nextLsn - 1;
+    }
+
+    /**
+     * Forces the appended records to disk. May be called concurrently with {@link #append}.
+     */
+    void force() {
+        segment.force();
+    }
+
+    /**
+     * Starts a new segment, so that the segments holding the records up to {@link #lastLsn()} can later be deleted
+     * with {@link #deleteUpTo}.
+     */
+    void rotate() throws IOException {
+        segment.force();
+        openSegment(segmentSize);
+    }
+
+    /**
+     * Deletes the segments in a directory that only hold records up to the given LSN. The last segment, which may
+     * still be appended to, is always kept.
+     */
+    static void deleteUpTo(Path directory, long lsn) throws IOException {
+        List<Segment> segments = segments(directory);
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (segments.get(i + 1).firstLsn() <= lsn + 1) {
+                Files.deleteIfExists(segments.get(i).path());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment.force();
+        channel.close();
+    }
+
+    private void openSegment(long size) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        Path path = directory.resolve(PREFIX + String.format("%020d", nextLsn) + SUFFIX);
+        // A segment of this name can only hold a record torn by a crash, which recovery has discarded
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Reads the records after the given LSN from the segments in a directory, in order, up to the end of the log or
+     * the first torn record.
+     *
+     * @param afterLsn the LSN up to which the records are already reflected in a snapshot.
+     * @param records  receives the payload of each record.
+     * @return the LSN of the last record read, {@code afterLsn} if there were none.
+     * @throws IOException if a record after {@code afterLsn} is missing.
+     */
+    static long replay(Path directory, long afterLsn, Consumer<byte[]> records) throws IOException {
+        long lastLsn = afterLsn;
+        CRC32 crc = new CRC32();
+        for (Segment segment : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= HEADER) {
+                    int position = buffer.position();
+                    int length = buffer.getInt(position);
+                    if (length <= 0 || length > buffer.remaining() - HEADER) {
+                        break;
+                    }
+                    long lsn = buffer.getLong(position + 8);
+                    byte[] payload = new byte[length];
+                    buffer.get(position + HEADER, payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                        break;
+                    }
+                    buffer.position(position + HEADER + length);
+                    if (lsn <= lastLsn) {
+                        continue;
+                    }
+                    if (lsn != lastLsn + 1) {
+                        throw new IOException("Write-ahead log is missing the records " + (lastLsn + 1) + " to " + (lsn - 1));
+                    }
+                    records.accept(payload);
+                    lastLsn = lsn;
+                }
+            }
+        }
+        return lastLsn;
+    }
+
+    private static List<Segment> segments(Path directory) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    long firstLsn = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    segments.add(new Segment(firstLsn, path));
+                }
+            });
+        }
+        segments.sort(Comparator.comparingLong(Segment::firstLsn));
+        return segments;
+    }
+}
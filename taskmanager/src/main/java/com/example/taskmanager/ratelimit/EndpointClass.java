@@ -0,0 +1,27 @@
+package com.example.taskmanager.ratelimit;
+
+/**
+ * The cost classes of the API endpoints, each with its own rate limit per client.
+ */
+public enum EndpointClass {
+
+    /**
+     * Listings and exports, which read many rows.
+     */
+    LIST,
+
+    /**
+     * Full-text searches.
+     */
+    SEARCH,
+
+    /**
+     * Reads of a single resource.
+     */
+    READ,
+
+    /**
+     * Creates, updates and deletes.
+     */
+    WRITE
+}
@@ -0,0 +1,134 @@
+package com.example.taskmanager.ratelimit;
+
+import com.example.taskmanager.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limits every client of the API with a {@link TokenBucket} per {@link EndpointClass}, so a client that floods
+ * the expensive listings is stopped without affecting other clients or its own single-resource reads.
+ *
+ * <p>Clients that send one of the API keys in {@code taskmanager.ratelimit.api-keys} as their {@value #API_KEY} header
+ * are told apart by that key. All other requests, including those with an unknown key, are limited by their IP
+ * address, so a client cannot escape its limit, or fill the table of buckets, by making up a new key for every
+ * request. Every response carries {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset}
+ * headers. A request without a token is rejected with a {@link RateLimitExceededException}, answered with
+ * {@code 429 Too Many Requests} and a {@code Retry-After}, and counted in {@value #REJECTED_METRIC}.</p>
+ *
+ * <p>A streamed response, such as the export or the change feed, is dispatched again once its body is ready. The
+ * request was charged on its first dispatch, so the second one passes without taking a token.</p>
+ *
+ * <p>The limits are set per endpoint class with {@code taskmanager.ratelimit.<class>.capacity}, the burst a client
+ * may make at once, and {@code taskmanager.ratelimit.<class>.rate}, the sustained requests per second.</p>
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String API_KEY = "X-API-Key";
+
+    static final String LIMIT = "RateLimit-Limit";
+
+    static final String REMAINING = "RateLimit-Remaining";
+
+    static final String RESET = "RateLimit-Reset";
+
+    static final String REJECTED_METRIC = "taskmanager.ratelimit.rejected";
+
+    private final Map<EndpointClass, RateLimiter> limiters = new EnumMap<>(EndpointClass.class);
+
+    LongSupplier nanoTime = System::nanoTime;
+
+    @Value("${taskmanager.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${taskmanager.ratelimit.api-keys:}")
+    private Set<String> apiKeys = Set.of();
+
+    @Value("${taskmanager.ratelimit.maximum-clients:100000}")
+    private long maximumClients;
+
+    @Value("${taskmanager.ratelimit.list.capacity:10}")
+    private long listCapacity;
+
+    @Value("${taskmanager.ratelimit.list.rate:2}")
+    private double listRate;
+
+    @Value("${taskmanager.ratelimit.search.capacity:20}")
+    private long searchCapacity;
+
+    @Value("${taskmanager.ratelimit.search.rate:5}")
+    private double searchRate;
+
+    @Value("${taskmanager.ratelimit.read.capacity:100}")
+    private long readCapacity;
+
+    @Value("${taskmanager.ratelimit.read.rate:50}")
+    private double readRate;
+
+    @Value("${taskmanager.ratelimit.write.capacity:50}")
+    private long writeCapacity;
+
+    @Value("${taskmanager.ratelimit.write.rate:20}")
+    private double writeRate;
+
+    @PostConstruct
+    void initialize() {
+        limiters.put(EndpointClass.LIST, new RateLimiter(listCapacity, listRate, maximumClients, nanoTime));
+        limiters.put(EndpointClass.SEARCH, new RateLimiter(searchCapacity, searchRate, maximumClients, nanoTime));
+        limiters.put(EndpointClass.READ, new RateLimiter(readCapacity, readRate, maximumClients, nanoTime));
+        limiters.put(EndpointClass.WRITE, new RateLimiter(writeCapacity, writeRate, maximumClients, nanoTime));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC
+                || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        EndpointClass endpointClass = endpointClass(request, method);
+        String apiKey = request.getHeader(API_KEY);
+        String client = apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : request.getRemoteAddr();
+
+        TokenBucket bucket = limiters.get(endpointClass).bucket(client);
+        long now = nanoTime.getAsLong();
+        boolean acquired = bucket.tryAcquire(now);
+        response.setHeader(LIMIT, String.valueOf(bucket.capacity()));
+        response.setHeader(REMAINING, String.valueOf(bucket.remaining(now)));
+        response.setHeader(RESET, String.valueOf(seconds(bucket.nanosUntilFull(now))));
+        if (!acquired) {
+            Metrics.counter(REJECTED_METRIC, "class", endpointClass.name()).increment();
+            throw new RateLimitExceededException("Rate limit exceeded, please retry later",
+                    Duration.ofSeconds(seconds(bucket.nanosUntilAvailable(now))));
+        }
+        return true;
+    }
+
+    private static EndpointClass endpointClass(HttpServletRequest request, HandlerMethod method) {
+        RateLimited rateLimited = method.getMethodAnnotation(RateLimited.class);
+        if (rateLimited != null) {
+            return rateLimited.value();
+        }
+        return "GET".equals(request.getMethod()) ? EndpointClass.READ : EndpointClass.WRITE;
+    }
+
+    /**
+     * Rounds up to whole seconds, as the headers carry.
+     */
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
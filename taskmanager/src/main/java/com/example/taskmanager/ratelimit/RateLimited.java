@@ -0,0 +1,17 @@
+package com.example.taskmanager.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a handler method in an {@link EndpointClass}. Handlers without it are {@link EndpointClass#READ} for
+ * {@code GET} requests and {@link EndpointClass#WRITE} otherwise.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    EndpointClass value();
+}
@@ -0,0 +1,53 @@
+package com.example.taskmanager.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * The token buckets of one {@link EndpointClass}, one per client, in a bounded Caffeine cache.
+ *
+ * <p>A bucket that has not been used for as long as it takes to refill is full, and so indistinguishable from a new
+ * one. Entries therefore expire after that long without access, and only the clients active within it are held.
+ * Beyond {@code maximumClients}, the least valuable buckets are evicted, which at worst hands their clients a fresh
+ * burst.</p>
+ */
+public class RateLimiter {
+
+    private final long capacity;
+
+    private final double ratePerSecond;
+
+    private final LongSupplier nanoTime;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimiter(long capacity, double ratePerSecond, long maximumClients, LongSupplier nanoTime) {
+        this.capacity = capacity;
+        this.ratePerSecond = ratePerSecond;
+        this.nanoTime = nanoTime;
+        TokenBucket prototype = new TokenBucket(capacity, ratePerSecond, 0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(Duration.ofNanos(prototype.refillNanos()))
+                .build();
+    }
+
+    /**
+     * Returns the bucket of a client, creating a full one if it has none.
+     */
+    public TokenBucket bucket(String client) {
+        TokenBucket bucket = buckets.getIfPresent(client);
+        if (bucket == null) {
+            bucket = buckets.get(client, key -> new TokenBucket(capacity, ratePerSecond, nanoTime.getAsLong()));
+        }
+        return bucket;
+    }
+
+    long clients() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.taskmanager.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, kept as the single theoretical arrival time of the generic cell rate algorithm.
+ *
+ * <p>Each admitted request pushes the theoretical arrival time one emission interval ({@code 1 / rate}) into the
+ * future, starting from now if it lies in the past. A request is admitted while that time stays within
+ * {@code capacity} intervals of now. This is equivalent to a bucket of {@code capacity} tokens refilled at
+ * {@code rate} tokens per second, but needs no refill timer and is updated with one compare-and-set.</p>
+ */
+public final class TokenBucket {
+
+    private final long capacity;
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final AtomicLong arrival;
+
+    /**
+     * @param capacity      the number of requests that may be made at once.
+     * @param ratePerSecond the sustained number of requests per second.
+     * @param nowNanos      the current {@link System#nanoTime()}.
+     */
+    public TokenBucket(long capacity, double ratePerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = capacity * intervalNanos;
+        this.arrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if one is available.
+     */
+    public boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of tokens left.
+     */
+    public long remaining(long nowNanos) {
+        return (burstNanos - backlog(nowNanos)) / intervalNanos;
+    }
+
+    /**
+     * Returns the time until the bucket is full again.
+     */
+    public long nanosUntilFull(long nowNanos) {
+        return backlog(nowNanos);
+    }
+
+    /**
+     * Returns the time until the next token is available, 0 if one is available now.
+     */
+    public long nanosUntilAvailable(long nowNanos) {
+        return Math.max(0, backlog(nowNanos) + intervalNanos - burstNanos);
+    }
+
+    /**
+     * Returns the time it takes an empty bucket to fill up.
+     */
+    public long refillNanos() {
+        return burstNanos;
+    }
+
+    private long backlog(long nowNanos) {
+        return Math.max(0, arrival.get() - nowNanos);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.entity.ArchivedTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for {@link ArchivedTask} entities, and for the queries that find the tasks to move into the archive.
+ */
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long>, ArchivedTaskRepositoryCustom {
+
+    String ARCHIVABLE = "SELECT new com.example.taskmanager.dto.TaskCursor(t.updatedAt, t.id) FROM Task t "
+            + "WHERE t.status = 'Completed' AND t.updatedAt < :completedBefore ";
+
+    /**
+     * Returns only the version of an archived task, without loading it.
+     */
+    @Query("SELECT a.version FROM ArchivedTask a WHERE a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Returns the positions of the first tasks completed before the cutoff in {@code (updatedAt, id)} order, using the
+     * index on {@code updated_at}.
+     */
+    @Query(ARCHIVABLE + "ORDER BY t.updatedAt ASC, t.id ASC")
+    List<TaskCursor> findFirstArchivable(@Param("completedBefore") LocalDateTime completedBefore, Pageable pageable);
+
+    /**
+     * Returns the positions of the tasks completed before the cutoff strictly after the given {@code (updatedAt, id)}
+     * position.
+     */
+    @Query(ARCHIVABLE
+            + "AND (t.updatedAt > :updatedAt OR (t.updatedAt = :updatedAt AND t.id > :id)) "
+            + "ORDER BY t.updatedAt ASC, t.id ASC")
+    List<TaskCursor> findArchivableAfter(@Param("completedBefore") LocalDateTime completedBefore,
+                                         @Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id,
+                                         Pageable pageable);
+}
@@ -0,0 +1,23 @@
+package com.example.taskmanager.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Archive statements that move rows between tables rather than being declared with {@code @Query}.
+ */
+public interface ArchivedTaskRepositoryCustom {
+
+    /**
+     * Moves the given tasks to {@code tasks_archive} with one {@code INSERT ... SELECT} and one {@code DELETE}, leaving
+     * out those that are no longer completed or were updated since the cutoff. Must run inside a transaction.
+     *
+     * @param ids             the IDs of the tasks to move.
+     * @param completedBefore the time the tasks must have been last updated before.
+     * @param archivedAt      the archive timestamp to record.
+     * @return the number of moved tasks.
+     * @throws org.springframework.dao.OptimisticLockingFailureException If a task changed between the two statements,
+     *                                                                   the transaction must then be rolled back.
+     */
+    int archiveCompleted(Collection<Long> ids, LocalDateTime completedBefore, LocalDateTime archivedAt);
+}
@@ -0,0 +1,44 @@
+package com.example.taskmanager.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * JPA implementation of {@link ArchivedTaskRepositoryCustom}, picked up by Spring Data as a fragment of
+ * {@link ArchivedTaskRepository}.
+ */
+public class ArchivedTaskRepositoryImpl implements ArchivedTaskRepositoryCustom {
+
+    private static final String ARCHIVABLE_BY_ID = "FROM Task t WHERE t.id IN :ids AND t.status = 'Completed' "
+            + "AND t.updatedAt < :completedBefore";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int archiveCompleted(Collection<Long> ids, LocalDateTime completedBefore, LocalDateTime archivedAt) {
+        entityManager.flush();
+        int archived = entityManager.createQuery("INSERT INTO ArchivedTask (id, version, title, description, status, "
+                        + "createdAt, updatedAt, assigneeId, timezone, dueAt, archivedAt) "
+                        + "SELECT t.id, t.version, t.title, t.description, t.status, t.createdAt, t.updatedAt, "
+                        + "t.assignedTo.id, t.timezone, t.dueAt, :archivedAt " + ARCHIVABLE_BY_ID)
+                .setParameter("ids", ids)
+                .setParameter("completedBefore", completedBefore)
+                .setParameter("archivedAt", archivedAt)
+                .executeUpdate();
+        // The same predicate again: a task updated in between is copied but no longer deleted
+        int deleted = entityManager.createQuery("DELETE " + ARCHIVABLE_BY_ID)
+                .setParameter("ids", ids)
+                .setParameter("completedBefore", completedBefore)
+                .executeUpdate();
+        entityManager.clear();
+        if (archived != deleted) {
+            throw new OptimisticLockingFailureException("Archived " + archived + " tasks but deleted " + deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.ChangeRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChangeRecordRepository extends JpaRepository<ChangeRecord, Long>, ChangeRecordRepositoryCustom {
+
+    /**
+     * Returns the changes after the given sequence number, oldest first, read from the primary key index.
+     */
+    @Query("SELECT c FROM ChangeRecord c WHERE c.seq > :after ORDER BY c.seq ASC")
+    List<ChangeRecord> findAfter(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Returns the changes in {@code (after, upTo]}, oldest first.
+     */
+    @Query("SELECT c FROM ChangeRecord c WHERE c.seq > :after AND c.seq <= :upTo ORDER BY c.seq ASC")
+    List<ChangeRecord> findBetween(@Param("after") long after, @Param("upTo") long upTo, Pageable pageable);
+
+    /**
+     * Returns the changes with the given sequence numbers, oldest first.
+     */
+    @Query("SELECT c FROM ChangeRecord c WHERE c.seq IN :seqs ORDER BY c.seq ASC")
+    List<ChangeRecord> findBySeqIn(@Param("seqs") Collection<Long> seqs);
+
+    @Query("SELECT MAX(c.seq) FROM ChangeRecord c")
+    Optional<Long> findMaxSeq();
+
+    @Query("SELECT MIN(c.seq) FROM ChangeRecord c")
+    Optional<Long> findMinSeq();
+
+    @Query("SELECT MAX(c.seq) FROM ChangeRecord c WHERE c.occurredAt < :before")
+    Optional<Long> findMaxSeqBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Deletes every change up to and including the given sequence number in a single statement.
+     *
+     * @return the number of deleted changes.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ChangeRecord c WHERE c.seq <= :upTo")
+    int deleteUpTo(@Param("upTo") long upTo);
+}
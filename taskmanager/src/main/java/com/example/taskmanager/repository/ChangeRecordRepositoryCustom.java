@@ -0,0 +1,20 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.ChangeRecord;
+
+import java.util.List;
+
+/**
+ * Outbox statements that need more control than {@code save} gives.
+ */
+public interface ChangeRecordRepositoryCustom {
+
+    /**
+     * Inserts changes in one JDBC batch, in the order given. Their sequence numbers are taken by the inserts
+     * themselves, so the batch costs one round trip however many changes it holds, and the changes are not updated
+     * with their numbers.
+     *
+     * @param changes the changes to insert.
+     */
+    void insertAll(List<ChangeRecord> changes);
+}
@@ -0,0 +1,51 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.ChangeRecord;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link ChangeRecordRepositoryCustom}, picked up by Spring Data as a fragment of
+ * {@link ChangeRecordRepository}.
+ */
+public class ChangeRecordRepositoryImpl implements ChangeRecordRepositoryCustom {
+
+    private static final String SEQUENCE = "change_outbox_seq";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertAll(List<ChangeRecord> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        // nextval('change_outbox_seq') on PostgreSQL, next value for change_outbox_seq on H2
+        String nextSeq = session.getFactory().getJdbcServices().getDialect().getSequenceSupport()
+                .getSelectSequenceNextValString(SEQUENCE);
+        String sql = "INSERT INTO change_outbox (seq, entity, entity_id, type, version, occurred_at, data) "
+                + "VALUES (" + nextSeq + ", ?, ?, ?, ?, ?, ?)";
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (ChangeRecord change : changes) {
+                    statement.setString(1, change.getEntity());
+                    statement.setObject(2, change.getEntityId(), Types.BIGINT);
+                    statement.setString(3, change.getType());
+                    statement.setObject(4, change.getVersion(), Types.BIGINT);
+                    statement.setObject(5, change.getOccurredAt());
+                    statement.setString(6, change.getData());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
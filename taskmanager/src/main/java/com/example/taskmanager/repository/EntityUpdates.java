@@ -0,0 +1,50 @@
+package com.example.taskmanager.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Map;
+
+/**
+ * Set-based statements shared by the custom repository fragments.
+ */
+final class EntityUpdates {
+
+    private EntityUpdates() {
+    }
+
+    /**
+     * Updates the given attributes of one versioned entity in a single statement and increments its version.
+     *
+     * @param version the version the entity must be at, or null to update it unconditionally.
+     * @return the number of updated rows, 0 if the entity does not exist or has moved past the version.
+     */
+    static <T> int updateFields(EntityManager entityManager, Class<T> type, Long id, Long version, Map<String, Object> values) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+        values.forEach(update::set);
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), cb.literal(1L)));
+        Predicate predicate = cb.equal(root.get("id"), id);
+        if (version != null) {
+            predicate = cb.and(predicate, cb.equal(root.get("version"), version));
+        }
+        update.where(predicate);
+        return execute(entityManager, entityManager.createQuery(update));
+    }
+
+    /**
+     * Executes a bulk statement after flushing pending changes, then clears the persistence context
+     * since the managed entities may no longer match the database.
+     */
+    static int execute(EntityManager entityManager, Query statement) {
+        entityManager.flush();
+        int affected = statement.executeUpdate();
+        entityManager.clear();
+        return affected;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+
+    /**
+     * Deletes the record of a key if it has expired, or if it is a claim older than {@code claimedBefore} whose request
+     * never completed, for example because the instance that made it went down.
+     *
+     * @return 1 if the record was deleted, 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND (r.createdAt < :expiredBefore"
+            + " OR (r.status IS NULL AND r.createdAt < :claimedBefore))")
+    int deleteStale(@Param("id") String id, @Param("claimedBefore") LocalDateTime claimedBefore,
+                    @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    /**
+     * Deletes every record created before the given time in a single statement.
+     *
+     * @return the number of deleted records.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,18 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.IdempotencyRecord;
+
+/**
+ * Idempotency key statements that need more control than {@code save} gives.
+ */
+public interface IdempotencyRecordRepositoryCustom {
+
+    /**
+     * Inserts a new record in its own transaction. Unlike {@code save}, which merges a record with an assigned ID,
+     * this never overwrites an existing record, so it can be used to claim a key.
+     *
+     * @param record the record to insert.
+     * @throws org.springframework.dao.DataIntegrityViolationException if a record with the same ID exists.
+     */
+    void insert(IdempotencyRecord record);
+}
@@ -0,0 +1,24 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.IdempotencyRecord;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * JPA implementation of {@link IdempotencyRecordRepositoryCustom}, picked up by Spring Data as a fragment of
+ * {@link IdempotencyRecordRepository}.
+ */
+public class IdempotencyRecordRepositoryImpl implements IdempotencyRecordRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insert(IdempotencyRecord record) {
+        entityManager.persist(record);
+        entityManager.flush();
+    }
+}
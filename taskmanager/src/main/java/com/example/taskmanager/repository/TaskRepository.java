@@ -1,8 +1,148 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.dto.TaskCount;
+import com.example.taskmanager.dto.TaskDue;
+import com.example.taskmanager.dto.TaskSummary;
 import com.example.taskmanager.entity.Task;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.example.taskmanager.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
 
-public interface TaskRepository extends JpaRepository<Task, Long> {
-}
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.stream.Stream;
+
+/**
+ * Repository for {@link Task} entities.
+ *
+ * <p>Only the CRUD operations and the queries below are part of the contract, so that the in-memory repository can
+ * implement all of it. Filtered reads go through {@link #findPage} rather than specifications or examples.</p>
+ */
+public interface TaskRepository extends ListCrudRepository<Task, Long>, TaskRepositoryCustom {
+
+    int STREAM_FETCH_SIZE = 500;
+
+    String DUE = "SELECT new com.example.taskmanager.dto.TaskDue(t.id, t.dueAt, t.timezone, u.timezone, u.id) "
+            + "FROM Task t JOIN t.assignedTo u WHERE (t.status IS NULL OR t.status <> 'Completed') ";
+
+    String SUMMARY = "SELECT new com.example.taskmanager.dto.TaskSummary(t.id, t.title, t.status, t.createdAt, t.updatedAt, t.assignedTo.id) FROM Task t ";
+
+    /**
+     * Writes the pending changes of the persistence context to the database.
+     */
+    void flush();
+
+    /**
+     * Loads a task together with its assignee in a single query.
+     */
+    @EntityGraph(attributePaths = "assignedTo")
+    Optional<Task> findWithAssignedToById(Long id);
+
+    /**
+     * Loads the given tasks together with their assignee in one query. IDs that do not exist are ignored.
+     */
+    @EntityGraph(attributePaths = "assignedTo")
+    List<Task> findWithAssignedToByIdIn(Collection<Long> ids);
+
+    /**
+     * Whether any task is assigned to the user, without loading one.
+     */
+    boolean existsByAssignedToId(Long userId);
+
+    /**
+     * Returns only the version of a task, without loading the entity.
+     */
+    @Query("SELECT t.version FROM Task t WHERE t.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 
+    /**
+     * Updates a task in a single statement if, and only if, it is still at the given version, keeping its assignee.
+     *
+     * @return the number of updated rows, 0 if the task does not exist or has moved past the version.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.title = :title, t.description = :description, t.status = :status, "
+            + "t.dueAt = :dueAt, t.timezone = :timezone, t.updatedAt = :updatedAt, t.version = t.version + 1 "
+            + "WHERE t.id = :id AND t.version = :version")
+    int updateIfVersion(@Param("id") Long id, @Param("version") long version, @Param("title") String title,
+                        @Param("description") String description, @Param("status") String status,
+                        @Param("dueAt") LocalDateTime dueAt, @Param("timezone") TimeZone timezone,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Updates a task and its assignee in a single statement if, and only if, it is still at the given version.
+     *
+     * @return the number of updated rows, 0 if the task does not exist or has moved past the version.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.title = :title, t.description = :description, t.status = :status, "
+            + "t.dueAt = :dueAt, t.timezone = :timezone, t.assignedTo = :assignedTo, t.updatedAt = :updatedAt, "
+            + "t.version = t.version + 1 "
+            + "WHERE t.id = :id AND t.version = :version")
+    int updateIfVersion(@Param("id") Long id, @Param("version") long version, @Param("title") String title,
+                        @Param("description") String description, @Param("status") String status,
+                        @Param("dueAt") LocalDateTime dueAt, @Param("timezone") TimeZone timezone,
+                        @Param("assignedTo") User assignedTo, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Returns the first task summaries in {@code (createdAt, id)} order, read from the {@code tasks} table alone.
+     */
+    @Query(SUMMARY + "ORDER BY t.createdAt ASC, t.id ASC")
+    List<TaskSummary> findFirstSummaryPage(Pageable pageable);
+
+    /**
+     * Returns the task summaries strictly after the given {@code (createdAt, id)} position, read from the {@code tasks} table alone.
+     */
+    @Query(SUMMARY
+            + "WHERE t.createdAt > :createdAt OR (t.createdAt = :createdAt AND t.id > :id) "
+            + "ORDER BY t.createdAt ASC, t.id ASC")
+    List<TaskSummary> findSummaryPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Counts the tasks per status and assignee in a single pass over the table.
+     */
+    @Query("SELECT new com.example.taskmanager.dto.TaskCount(t.status, t.assignedTo.id, COUNT(t)) FROM Task t "
+            + "GROUP BY t.status, t.assignedTo.id")
+    List<TaskCount> countByStatusAndAssignee();
+
+    /**
+     * Returns the due dates of the open tasks whose wall-clock due date lies in {@code [from, to)}, using the index on
+     * {@code due_at}.
+     */
+    @Query(DUE + "AND t.dueAt >= :from AND t.dueAt < :to")
+    List<TaskDue> findDueBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Returns the due dates of the open tasks of one assignee with {@code from <= dueAt < to}.
+     */
+    @Query(DUE + "AND u.id = :assigneeId AND t.dueAt >= :from AND t.dueAt < :to")
+    List<TaskDue> findDueOfAssigneeBetween(@Param("assigneeId") Long assigneeId, @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
+    /**
+     * Returns the due dates of the given tasks. Tasks that do not exist, are completed or have no due date are left out.
+     */
+    @Query(DUE + "AND t.dueAt IS NOT NULL AND t.id IN :ids")
+    List<TaskDue> findDueByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams every task in ID order through a server-side cursor, fetching {@value #STREAM_FETCH_SIZE} rows per round trip.
+     * Must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Task t LEFT JOIN FETCH t.assignedTo ORDER BY t.id ASC")
+    Stream<Task> streamAll();
+}
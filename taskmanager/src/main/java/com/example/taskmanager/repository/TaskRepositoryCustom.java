@@ -0,0 +1,81 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task queries that are built dynamically rather than declared with {@code @Query}.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Returns the tasks matching the filter in {@code (createdAt, id)} order, with their assignee fetched in the same query.
+     *
+     * @param filter the criteria the tasks must match.
+     * @param after  the keyset position to seek past, or null to start from the first task.
+     * @param limit  the maximum number of tasks to return.
+     */
+    List<Task> findPage(TaskFilter filter, TaskCursor after, int limit);
+
+    /**
+     * Returns the summaries of the tasks assigned to a user with one status, most recently updated first, seeking
+     * {@code idx_tasks_user_status_updated} and reading the {@code tasks} table alone.
+     *
+     * @param userId the ID of the assignee.
+     * @param status the status, or null for the tasks without one.
+     * @param before the keyset position on {@code (updatedAt, id)} to seek past, or null to start from the most recent.
+     * @param limit  the maximum number of summaries to return.
+     */
+    List<TaskSummary> findAssignedSummaries(Long userId, String status, TaskCursor before, int limit);
+
+    /**
+     * Deletes every task matching the filter with a single {@code DELETE} statement.
+     *
+     * @param filter the criteria the tasks must match.
+     * @return the number of deleted tasks.
+     */
+    int deleteMatching(TaskFilter filter);
+
+    /**
+     * Sets the status of every task matching the filter with a single {@code UPDATE} statement.
+     * The version of each task is incremented, so concurrent versioned updates of those tasks fail rather than
+     * overwrite the new status.
+     *
+     * @param filter    the criteria the tasks must match.
+     * @param status    the new status.
+     * @param updatedAt the new update timestamp.
+     * @return the number of updated tasks.
+     */
+    int updateStatusMatching(TaskFilter filter, String status, LocalDateTime updatedAt);
+
+    /**
+     * Moves up to {@code limit} of the open tasks of one user to another with a single {@code UPDATE}, finding them
+     * through {@code idx_tasks_user_status_updated}. The version of every moved task is incremented, completed tasks
+     * keep their assignee.
+     *
+     * @param fromUserId the ID of the current assignee.
+     * @param assignee   the new assignee.
+     * @param limit      the maximum number of tasks to move.
+     * @param updatedAt  the new update timestamp.
+     * @return the number of moved tasks, fewer than the limit once the user has no open tasks left.
+     */
+    int reassignOpen(Long fromUserId, User assignee, int limit, LocalDateTime updatedAt);
+
+    /**
+     * Updates the given attributes of one task with a single {@code UPDATE} that writes only those columns,
+     * without loading the task. The version of the task is incremented.
+     *
+     * @param id      the ID of the task.
+     * @param version the version the task must be at, or null to update it unconditionally.
+     * @param values  the new values, keyed by attribute name.
+     * @return the number of updated tasks, 0 if the task does not exist or has moved past the version.
+     */
+    int updateFields(Long id, Long version, Map<String, Object> values);
+}
@@ -0,0 +1,120 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPA implementation of {@link TaskRepositoryCustom}, picked up by Spring Data as a fragment of {@link TaskRepository}.
+ */
+public class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Task> findPage(TaskFilter filter, TaskCursor after, int limit) {
+        Specification<Task> spec = TaskSpecifications.matching(filter);
+        if (after != null) {
+            spec = spec.and(TaskSpecifications.after(after));
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Task> query = cb.createQuery(Task.class);
+        Root<Task> root = query.from(Task.class);
+        root.fetch("assignedTo", JoinType.LEFT);
+        query.select(root).orderBy(cb.asc(root.get("createdAt")), cb.asc(root.get("id")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<TaskSummary> findAssignedSummaries(Long userId, String status, TaskCursor before, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskSummary> query = cb.createQuery(TaskSummary.class);
+        Root<Task> root = query.from(Task.class);
+        // The assignee's ID is the foreign key column, reading it does not join the users table
+        query.select(cb.construct(TaskSummary.class, root.get("id"), root.get("title"), root.get("status"),
+                root.get("createdAt"), root.get("updatedAt"), root.get("assignedTo").get("id")));
+
+        Predicate predicate = cb.and(
+                cb.equal(root.get("assignedTo").get("id"), userId),
+                status != null ? cb.equal(root.get("status"), status) : cb.isNull(root.get("status")));
+        if (before != null) {
+            predicate = cb.and(predicate, cb.or(
+                    cb.lessThan(root.get("updatedAt"), before.getTimestamp()),
+                    cb.and(cb.equal(root.get("updatedAt"), before.getTimestamp()), cb.lessThan(root.get("id"), before.getId()))));
+        }
+        query.where(predicate).orderBy(cb.desc(root.get("updatedAt")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public int deleteMatching(TaskFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Task> delete = cb.createCriteriaDelete(Task.class);
+        Root<Task> root = delete.from(Task.class);
+        Predicate predicate = TaskSpecifications.matching(filter).toPredicate(root, null, cb);
+        if (predicate != null) {
+            delete.where(predicate);
+        }
+        return EntityUpdates.execute(entityManager, entityManager.createQuery(delete));
+    }
+
+    @Override
+    public int updateStatusMatching(TaskFilter filter, String status, LocalDateTime updatedAt) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> root = update.from(Task.class);
+        update.set(root.<String>get("status"), status)
+                .set(root.<LocalDateTime>get("updatedAt"), updatedAt)
+                .set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), cb.literal(1L)));
+        Predicate predicate = TaskSpecifications.matching(filter).toPredicate(root, null, cb);
+        if (predicate != null) {
+            update.where(predicate);
+        }
+        return EntityUpdates.execute(entityManager, entityManager.createQuery(update));
+    }
+
+    @Override
+    public int reassignOpen(Long fromUserId, User assignee, int limit, LocalDateTime updatedAt) {
+        return EntityUpdates.execute(entityManager, entityManager.createQuery("UPDATE Task t "
+                        + "SET t.assignedTo = :assignee, t.updatedAt = :updatedAt, t.version = t.version + 1 "
+                        + "WHERE t.id IN (SELECT o.id FROM Task o WHERE o.assignedTo.id = :fromUserId "
+                        + "AND (o.status IS NULL OR o.status <> 'Completed') ORDER BY o.id LIMIT :limit)")
+                .setParameter("assignee", assignee)
+                .setParameter("updatedAt", updatedAt)
+                .setParameter("fromUserId", fromUserId)
+                .setParameter("limit", limit));
+    }
+
+    @Override
+    public int updateFields(Long id, Long version, Map<String, Object> values) {
+        return EntityUpdates.updateFields(entityManager, Task.class, id, version, values);
+    }
+}
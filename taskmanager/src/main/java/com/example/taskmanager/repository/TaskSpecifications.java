@@ -0,0 +1,76 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.entity.Task;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Composable {@link Specification}s over {@link Task}.
+ *
+ * <p>The equality criteria map onto the leading columns of an index declared on {@link Task}: {@code status}, alone
+ * or with {@code assignedTo}, onto {@code idx_tasks_status_user_created}, which continues with {@code createdAt}, and
+ * {@code assignedTo} alone onto {@code idx_tasks_user_status_updated}, which seeks on an {@code updatedAt} range once
+ * {@code status} is given as well. Without equality criteria, {@code updatedAt} seeks on {@code idx_tasks_updated_at},
+ * and {@code createdAt} and the keyset position on {@code idx_tasks_created_at_id}. A range on {@code updatedAt} next
+ * to {@code status} alone is filtered, not sought.</p>
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    public static Specification<Task> hasStatus(String status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Task> assignedTo(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("assignedTo").get("id"), userId);
+    }
+
+    public static Specification<Task> createdFrom(LocalDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+    }
+
+    public static Specification<Task> updatedSince(LocalDateTime since) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("updatedAt"), since);
+    }
+
+    public static Specification<Task> updatedBefore(LocalDateTime before) {
+        return (root, query, cb) -> cb.lessThan(root.get("updatedAt"), before);
+    }
+
+    /**
+     * Matches the tasks strictly after the given {@code (createdAt, id)} keyset position.
+     */
+    public static Specification<Task> after(TaskCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("createdAt"), cursor.getTimestamp()),
+                cb.and(cb.equal(root.get("createdAt"), cursor.getTimestamp()), cb.greaterThan(root.get("id"), cursor.getId())));
+    }
+
+    /**
+     * Combines the criteria set on the filter, or matches every task if none are set.
+     */
+    public static Specification<Task> matching(TaskFilter filter) {
+        Specification<Task> spec = Specification.where(null);
+        if (filter.getStatus() != null) {
+            spec = spec.and(hasStatus(filter.getStatus()));
+        }
+        if (filter.getAssigneeId() != null) {
+            spec = spec.and(assignedTo(filter.getAssigneeId()));
+        }
+        if (filter.getCreatedFrom() != null) {
+            spec = spec.and(createdFrom(filter.getCreatedFrom()));
+        }
+        if (filter.getUpdatedSince() != null) {
+            spec = spec.and(updatedSince(filter.getUpdatedSince()));
+        }
+        if (filter.getUpdatedBefore() != null) {
+            spec = spec.and(updatedBefore(filter.getUpdatedBefore()));
+        }
+        return spec;
+    }
+}
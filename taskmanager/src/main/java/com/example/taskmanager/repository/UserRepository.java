@@ -1,8 +1,86 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.config.CacheConfig;
 import com.example.taskmanager.entity.User;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-   // User findById(Long id); // Method to find user by id
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+
+/**
+ * Repository for {@link User} entities.
+ *
+ * <p>{@link #findById} is served from the {@link CacheConfig#USERS} cache, and every write through this repository
+ * evicts the affected entries. Cached users are shared between requests and must not be modified; load the user
+ * with {@link #findForUpdateById} instead when it is going to be changed.</p>
+ */
+public interface UserRepository extends ListCrudRepository<User, Long>, UserRepositoryCustom {
+
+    /**
+     * Writes the pending changes of the persistence context to the database.
+     */
+    void flush();
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USERS, unless = "#result == null")
+    Optional<User> findById(Long id);
+
+    /**
+     * Loads a user from the database, bypassing the cache.
+     */
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findForUpdateById(@Param("id") Long id);
+
+    /**
+     * Updates a user in a single statement if, and only if, it is still at the given version.
+     *
+     * @return the number of updated rows, 0 if the user does not exist or has moved past the version.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0")
+    @Query("UPDATE User u SET u.firstName = :firstName, u.lastName = :lastName, u.timezone = :timezone, "
+            + "u.isActive = :isActive, u.version = u.version + 1 "
+            + "WHERE u.id = :id AND u.version = :version")
+    int updateIfVersion(@Param("id") Long id, @Param("version") long version, @Param("firstName") String firstName,
+                        @Param("lastName") String lastName, @Param("timezone") TimeZone timezone,
+                        @Param("isActive") Boolean isActive);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0")
+    int updateFields(Long id, Long version, Map<String, Object> values);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#result.id")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0.id")
+    void delete(User user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#p0")
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAll(Iterable<? extends User> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
 }
@@ -0,0 +1,20 @@
+package com.example.taskmanager.repository;
+
+import java.util.Map;
+
+/**
+ * User statements that are built dynamically rather than declared with {@code @Query}.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Updates the given attributes of one user with a single {@code UPDATE} that writes only those columns,
+     * without loading the user. The version of the user is incremented.
+     *
+     * @param id      the ID of the user.
+     * @param version the version the user must be at, or null to update it unconditionally.
+     * @param values  the new values, keyed by attribute name.
+     * @return the number of updated users, 0 if the user does not exist or has moved past the version.
+     */
+    int updateFields(Long id, Long version, Map<String, Object> values);
+}
@@ -0,0 +1,21 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Map;
+
+/**
+ * JPA implementation of {@link UserRepositoryCustom}, picked up by Spring Data as a fragment of {@link UserRepository}.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateFields(Long id, Long version, Map<String, Object> values) {
+        return EntityUpdates.updateFields(entityManager, User.class, id, version, values);
+    }
+}
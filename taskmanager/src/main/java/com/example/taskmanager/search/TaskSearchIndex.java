@@ -0,0 +1,281 @@
+package com.example.taskmanager.search;
+
+import com.example.taskmanager.datasource.ReplicaRoutingDataSource;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over the title and description of every task, ranked with BM25.
+ *
+ * <p>The index is built from the database once the application is ready, on a background thread, and is then kept
+ * up to date from {@link TaskChangedEvent}s after their transaction commits. Each document remembers the version it
+ * was indexed at, so a row read by the bootstrap never overwrites a newer change that was applied meanwhile.</p>
+ *
+ * <p>The index only returns task IDs; callers load the tasks themselves and skip IDs that no longer exist,
+ * so a task deleted by a set-based statement that bypassed the events can never be returned.</p>
+ */
+@Component
+public class TaskSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskSearchIndex.class);
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    /**
+     * Term frequencies of one indexed task.
+     */
+    private record IndexedDocument(long version, int length, Map<String, Integer> termFrequencies) {
+    }
+
+    private record ScoredDocument(long id, double score) {
+    }
+
+    private final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+
+    private final Map<Long, IndexedDocument> documents = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalLength = new AtomicLong();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-search-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean ready;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${taskmanager.search.bootstrap:true}")
+    private boolean bootstrapOnStartup;
+
+    /**
+     * Adds a task to the index, or replaces its previous entry.
+     * Ignored if the index already holds a newer version of the task.
+     */
+    public void index(TaskSnapshot task) {
+        long version = task.getVersion() != null ? task.getVersion() : -1;
+        documents.compute(task.getId(), (id, existing) -> {
+            if (existing != null && existing.version() > version) {
+                return existing;
+            }
+            if (existing != null) {
+                unpost(id, existing);
+            }
+            IndexedDocument document = analyze(version, task);
+            post(id, document);
+            return document;
+        });
+    }
+
+    /**
+     * Removes a task from the index.
+     */
+    public void remove(Long id) {
+        documents.computeIfPresent(id, (key, existing) -> {
+            unpost(key, existing);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the IDs of the tasks containing every term of the query, best match first.
+     *
+     * <p>Candidates are taken from the shortest postings list and probed against the others, so the cost of a query
+     * is bounded by its rarest term rather than by the number of indexed tasks.</p>
+     *
+     * @param query the words to search for.
+     * @param limit the maximum number of IDs to return.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(query)));
+        if (terms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        List<Map<Long, Integer>> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Map<Long, Integer> list = postings.get(term);
+            if (list == null || list.isEmpty()) {
+                return List.of();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Map::size));
+
+        int documentCount = Math.max(documents.size(), 1);
+        double averageLength = Math.max((double) totalLength.get() / documentCount, 1);
+        double[] idf = new double[lists.size()];
+        for (int i = 0; i < lists.size(); i++) {
+            int df = lists.get(i).size();
+            idf[i] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+        }
+
+        PriorityQueue<ScoredDocument> top = new PriorityQueue<>(Comparator.comparingDouble(ScoredDocument::score));
+        candidates:
+        for (Map.Entry<Long, Integer> candidate : lists.get(0).entrySet()) {
+            IndexedDocument document = documents.get(candidate.getKey());
+            if (document == null) {
+                continue;
+            }
+            double norm = K1 * (1 - B + B * document.length() / averageLength);
+            double score = 0;
+            for (int i = 0; i < lists.size(); i++) {
+                Integer tf = i == 0 ? candidate.getValue() : lists.get(i).get(candidate.getKey());
+                if (tf == null) {
+                    continue candidates;
+                }
+                score += idf[i] * tf * (K1 + 1) / (tf + norm);
+            }
+            if (top.size() < limit) {
+                top.add(new ScoredDocument(candidate.getKey(), score));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.add(new ScoredDocument(candidate.getKey(), score));
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().id());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    /**
+     * Returns the number of indexed tasks.
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Returns true once the initial build from the database has completed.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.getType() == TaskChangedEvent.Type.DELETED) {
+            remove(event.getTaskId());
+        } else if (event.getCurrent() != null) {
+            index(event.getCurrent());
+        } else {
+            // Updated without reading the task, re-read it off the request thread. From the primary, a lagging replica
+            // would return the old task or none at all
+            refresher.execute(() -> ReplicaRoutingDataSource.onPrimary(() -> taskRepository.findById(event.getTaskId()))
+                    .ifPresentOrElse(task -> index(TaskSnapshot.of(task)), () -> remove(event.getTaskId())));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        if (!bootstrapOnStartup) {
+            ready = true;
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "task-search-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Indexes every task in the database, streaming them so memory use does not depend on the table size.
+     */
+    void rebuild() {
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<Task> tasks = taskRepository.streamAll()) {
+                int count = 0;
+                for (Task task : (Iterable<Task>) tasks::iterator) {
+                    index(TaskSnapshot.of(task));
+                    if (++count % TaskRepository.STREAM_FETCH_SIZE == 0) {
+                        entityManager.clear();
+                    }
+                }
+            }
+        });
+        ready = true;
+        log.info("Search index built with {} tasks in {} ms", documents.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private IndexedDocument analyze(long version, TaskSnapshot task) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String text : new String[]{task.getTitle(), task.getDescription()}) {
+            for (String term : Tokenizer.tokenize(text)) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+        }
+        return new IndexedDocument(version, length, frequencies);
+    }
+
+    private void post(Long id, IndexedDocument document) {
+        document.termFrequencies().forEach((term, tf) -> postings.compute(term, (key, list) -> {
+            Map<Long, Integer> target = list != null ? list : new ConcurrentHashMap<>();
+            target.put(id, tf);
+            return target;
+        }));
+        totalLength.addAndGet(document.length());
+    }
+
+    private void unpost(Long id, IndexedDocument document) {
+        for (String term : document.termFrequencies().keySet()) {
+            postings.computeIfPresent(term, (key, list) -> {
+                list.remove(id);
+                return list.isEmpty() ? null : list;
+            });
+        }
+        totalLength.addAndGet(-document.length());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.ChangeBatch;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface ChangeService {
+
+    ChangeBatch getChanges(Long since, int limit);
+
+    SseEmitter streamChanges(Long since);
+}
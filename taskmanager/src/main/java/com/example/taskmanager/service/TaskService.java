@@ -1,20 +1,66 @@
 package com.example.taskmanager.service;
 
+import com.example.taskmanager.dto.BulkResult;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.ImportJob;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.dto.TaskTransition;
 import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.imports.TaskImportReader;
 
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.function.Consumer;
 
 public interface TaskService {
 
     Task createTask(Task task, TimeZone timezone);
 
+    BulkResult bulkUpsertTasks(List<Task> tasks, TimeZone timezone);
+
+    ImportJob importTasks(TaskImportReader reader, Consumer<ImportJob> onStart);
+
+    ImportJob getImportJob(String id);
+
+    List<ImportJob> getImportJobs();
+
     List<Task> getAllTasks();
 
+    CursorPage<Task> getTasksPage(TaskFilter filter, String cursor, int limit);
+
+    CursorPage<TaskSummary> getTaskSummariesPage(String cursor, int limit);
+
+    CursorPage<TaskSummary> getUserTaskSummariesPage(Long userId, String status, String cursor, int limit);
+
+    void exportTasks(Consumer<Task> action);
+
+    List<Task> searchTasks(String query, int limit);
+
+    TaskStats getTaskStats();
+
     Task getTaskById(Long id);
 
+    Long getTaskVersion(Long id);
+
     Task updateTask(Long id, Task taskDetails, TimeZone timezone);
 
+    Task updateTaskIfVersion(Long id, Task taskDetails, TimeZone timezone, long version);
+
+    Task patchTask(Long id, Map<String, Object> patch, Long version);
+
+    void patchTaskWithoutLoading(Long id, Map<String, Object> patch, Long version);
+
     void deleteTask(Long id);
+
+    int deleteTasks(TaskFilter filter);
+
+    int transitionTasks(TaskTransition transition);
+
+    int reassignOpenTasks(Long fromUserId, Long toUserId);
+
+    boolean hasTasks(Long userId);
 }
 
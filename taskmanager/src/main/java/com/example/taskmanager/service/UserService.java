@@ -2,6 +2,7 @@ package com.example.taskmanager.service;
 
 import com.example.taskmanager.entity.User;
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
 
@@ -13,6 +14,14 @@ public interface UserService {
 
     User updateUser(Long id, User userDetails);
 
+    User updateUserIfVersion(Long id, User userDetails, long version);
+
+    User patchUser(Long id, Map<String, Object> patch, Long version);
+
+    void patchUserWithoutLoading(Long id, Map<String, Object> patch, Long version);
+
     void deleteUser(Long id);
+
+    int deactivateUser(Long id, Long reassignTo);
 }
 
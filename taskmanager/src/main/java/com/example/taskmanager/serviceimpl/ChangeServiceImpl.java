@@ -0,0 +1,52 @@
+package com.example.taskmanager.serviceimpl;
+
+import com.example.taskmanager.changes.ChangeFeed;
+import com.example.taskmanager.dto.ChangeBatch;
+import com.example.taskmanager.exception.ChangeFeedExpiredException;
+import com.example.taskmanager.service.ChangeService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@Service
+@Timed("taskmanager.service")
+public class ChangeServiceImpl implements ChangeService {
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    /**
+     * Retrieves the changes made after the given position of the change feed, oldest first.
+     * Recent changes are served from memory, without a query.
+     *
+     * @param since The sequence number of the last change the client has seen. If null, only the current position is
+     *              returned, for a client that is about to load its initial state.
+     * @param limit The maximum number of changes to return.
+     * @return The changes and the sequence number to pass as {@code since} next time.
+     * @throws ChangeFeedExpiredException If changes after the given position are no longer retained.
+     */
+    @Override
+    public ChangeBatch getChanges(Long since, int limit) {
+        if (since == null) {
+            return new ChangeBatch(List.of(), changeFeed.lastSeq());
+        }
+        return changeFeed.changesAfter(since, Math.min(Math.max(limit, 1), MAX_BATCH_SIZE));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of the changes made after the given position of the change feed.
+     *
+     * @param since The sequence number of the last change the client has seen. If null, only new changes are sent.
+     * @return The event stream.
+     * @throws ChangeFeedExpiredException If changes after the given position are no longer retained.
+     */
+    @Override
+    public SseEmitter streamChanges(Long since) {
+        return changeFeed.subscribe(since != null ? since : changeFeed.lastSeq());
+    }
+}
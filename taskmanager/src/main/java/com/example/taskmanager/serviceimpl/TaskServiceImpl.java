@@ -1,31 +1,133 @@
 package com.example.taskmanager.serviceimpl;
 
+import com.example.taskmanager.datasource.ReplicaRoutingDataSource;
+import com.example.taskmanager.dto.BulkItemResult;
+import com.example.taskmanager.dto.BulkResult;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.ImportJob;
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.dto.TaskTransition;
 import com.example.taskmanager.entity.Task;
 import com.example.taskmanager.entity.User;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.event.TasksChangedInBulkEvent;
+import com.example.taskmanager.exception.ImportJobNotFoundException;
+import com.example.taskmanager.exception.InvalidCursorException;
+import com.example.taskmanager.exception.InvalidFilterException;
+import com.example.taskmanager.exception.InvalidImportException;
+import com.example.taskmanager.exception.InvalidPatchException;
+import com.example.taskmanager.exception.PreconditionFailedException;
 import com.example.taskmanager.exception.TaskNotFoundException;
 import com.example.taskmanager.exception.UserNotFoundException;
+import com.example.taskmanager.imports.ImportJobs;
+import com.example.taskmanager.imports.TaskImportReader;
+import com.example.taskmanager.repository.ArchivedTaskRepository;
 import com.example.taskmanager.repository.TaskRepository;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.search.TaskSearchIndex;
 import com.example.taskmanager.service.TaskService;
+import com.example.taskmanager.stats.TaskStatistics;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
+@Timed("taskmanager.service")
 @Transactional // Maintain data integrity and consistency, especially when dealing with multiple operations that interact with the database.
 public class TaskServiceImpl implements TaskService {
 
+    static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * The number of failed rows an import job lists; the rest are only counted.
+     */
+    static final int MAX_IMPORT_FAILURES = 100;
+
+    /**
+     * Every value the status of a task can have, per the pattern on {@link Task#getStatus()}, and null.
+     */
+    private static final List<String> STATUSES = Arrays.asList("Pending", "In Progress", "Completed", null);
+
+    private static final Comparator<TaskSummary> MOST_RECENTLY_UPDATED = Comparator
+            .comparing(TaskSummary::getUpdatedAt)
+            .thenComparing(TaskSummary::getId)
+            .reversed();
+
     @Autowired
     private TaskRepository taskRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired
+    private TaskStatistics taskStatistics;
+
+    @Autowired
+    private ImportJobs importJobs;
+
+    @Value("${taskmanager.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
     /**
      * Creates a new task with the specified details and timezone.
      *
@@ -50,8 +152,120 @@ public class TaskServiceImpl implements TaskService {
             task.setAssignedTo(assignedUser);
         }
 
-        // Save task
-        return taskRepository.save(task);
+        // Save task, flushing so the event carries the timestamps Hibernate writes on insert
+        Task saved = taskRepository.save(task);
+        taskRepository.flush();
+        eventPublisher.publishEvent(TaskChangedEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * Creates or updates many tasks at once. Items with an ID update the existing task, items without one are created.
+     *
+     * <p>Items are written in chunks of {@code taskmanager.bulk.chunk-size}, each chunk in its own transaction. The
+     * assignees and existing tasks of a chunk are resolved with one {@code IN} query each, and new tasks take their IDs
+     * from a pooled sequence so the inserts go out as JDBC batches. If a chunk fails to commit, its items are retried
+     * one at a time so that only the offending items are reported as failed.</p>
+     *
+     * @param tasks    The tasks to create or update.
+     * @param timezone The timezone of the request. Timestamps are always stored in UTC.
+     * @return The outcome of every item, in request order.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkResult bulkUpsertTasks(List<Task> tasks, TimeZone timezone) {
+        int chunkSize = Math.max(bulkChunkSize, 1);
+        List<BulkItemResult> results = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        for (int start = 0; start < tasks.size(); start += chunkSize) {
+            List<Integer> chunk = new ArrayList<>();
+            for (int index = start; index < Math.min(start + chunkSize, tasks.size()); index++) {
+                String error = validateBulkItem(tasks.get(index));
+                if (error != null) {
+                    results.set(index, BulkItemResult.failed(index, tasks.get(index).getId(), error));
+                } else {
+                    chunk.add(index);
+                }
+            }
+            writeBulkChunk(tasks, chunk, results);
+        }
+        return BulkResult.of(results);
+    }
+
+    /**
+     * Creates the tasks of an upload while it is being read, in chunks of {@code taskmanager.bulk.chunk-size}.
+     *
+     * <p>Each chunk is validated and written like a chunk of {@link #bulkUpsertTasks}, with the assignees of the chunk
+     * resolved in one query, and committed before the next chunk is read. Memory use is bounded by the chunk size
+     * however large the upload is, and a client sending faster than the rows are committed is slowed down by the
+     * connection's flow control. Rows always create tasks, any ID they carry is ignored.</p>
+     *
+     * <p>The progress is published to an {@link ImportJob} after every chunk. If the upload turns out to be unreadable
+     * part way, the chunks committed so far are kept and the job is returned marked failed, with the reason as its
+     * error.</p>
+     *
+     * @param reader  The rows of the upload. It is closed when the import ends.
+     * @param onStart Called with the job once it is registered, before the first row is read.
+     * @return The finished or failed import job.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportJob importTasks(TaskImportReader reader, Consumer<ImportJob> onStart) {
+        int chunkSize = Math.max(bulkChunkSize, 1);
+        ImportJob job = importJobs.start();
+        onStart.accept(job);
+        try (reader) {
+            List<TaskImportReader.Row> chunk = new ArrayList<>(chunkSize);
+            for (TaskImportReader.Row row = reader.next(); row != null; row = reader.next()) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, job);
+                    chunk.clear();
+                }
+            }
+            importChunk(chunk, job);
+        } catch (InvalidImportException ex) {
+            return fail(job, ex.getMessage());
+        } catch (IOException ex) {
+            return fail(job, "Upload could not be read: " + ex.getMessage());
+        } catch (RuntimeException ex) {
+            fail(job, ex.getMessage());
+            throw ex;
+        }
+        job.setStatus(ImportJob.Status.COMPLETED);
+        importJobs.publish(job);
+        return job;
+    }
+
+    private ImportJob fail(ImportJob job, String error) {
+        job.setStatus(ImportJob.Status.FAILED);
+        job.setError(error);
+        importJobs.publish(job);
+        return job;
+    }
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @param id The ID of the import job.
+     * @return The import job as of its last committed chunk.
+     * @throws ImportJobNotFoundException If there is no such job, or it finished too long ago.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ImportJob getImportJob(String id) {
+        return importJobs.get(id)
+                .orElseThrow(() -> new ImportJobNotFoundException("Import job not found with id: " + id));
+    }
+
+    /**
+     * Retrieves the recent imports, most recently started first.
+     *
+     * @return The import jobs as of their last committed chunk.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ImportJob> getImportJobs() {
+        return importJobs.list();
     }
 
     /**
@@ -60,31 +274,219 @@ public class TaskServiceImpl implements TaskService {
      * @return A list of all tasks.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Task> getAllTasks() {
         return taskRepository.findAll();
     }
 
     /**
-     * Retrieves a task by its ID.
+     * Retrieves one page of the tasks matching a filter, ordered by creation time, using keyset pagination.
+     *
+     * <p>Each page is a single bounded query seeking past the cursor on {@code (createdAt, id)}, so the cost of a page
+     * does not grow with the size of the table, and tasks inserted while a client is paging never shift later pages.
+     * The filter criteria are backed by the indexes declared on {@link Task}.</p>
+     *
+     * @param filter The criteria the tasks must match.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param limit  The maximum number of tasks to return, clamped to between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return The page of tasks, with the cursor of the next page if there is one.
+     * @throws InvalidCursorException If the cursor is malformed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Task> getTasksPage(TaskFilter filter, String cursor, int limit) {
+        int pageSize = pageSize(limit);
+        TaskCursor after = cursor == null || cursor.isEmpty() ? null : TaskCursor.decode(cursor);
+
+        // Fetch one extra row to find out whether another page follows without a count query
+        List<Task> tasks = taskRepository.findPage(filter, after, pageSize + 1);
+        return toCursorPage(tasks, pageSize, task -> new TaskCursor(task.getCreatedAt(), task.getId()));
+    }
+
+    /**
+     * Retrieves one page of task summaries ordered by creation time, using keyset pagination.
+     *
+     * <p>Summaries are projected straight from the {@code tasks} table, without loading the assignees.</p>
+     *
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param limit  The maximum number of summaries to return, clamped to between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return The page of task summaries, with the cursor of the next page if there is one.
+     * @throws InvalidCursorException If the cursor is malformed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TaskSummary> getTaskSummariesPage(String cursor, int limit) {
+        int pageSize = pageSize(limit);
+        PageRequest window = pageWindow(pageSize);
+
+        List<TaskSummary> summaries;
+        if (cursor == null || cursor.isEmpty()) {
+            summaries = taskRepository.findFirstSummaryPage(window);
+        } else {
+            TaskCursor after = TaskCursor.decode(cursor);
+            summaries = taskRepository.findSummaryPageAfter(after.getTimestamp(), after.getId(), window);
+        }
+        return toCursorPage(summaries, pageSize, summary -> new TaskCursor(summary.getCreatedAt(), summary.getId()));
+    }
+
+    /**
+     * Retrieves one page of the summaries of the tasks assigned to a user, most recently updated first, using keyset
+     * pagination.
+     *
+     * <p>Each status is read with one seek on {@code idx_tasks_user_status_updated}. Without a status, one seek per
+     * possible status is merged, so a page costs a few bounded index scans however many tasks the user has, where a
+     * single query would have to sort all of them.</p>
+     *
+     * @param userId The ID of the assignee.
+     * @param status Only return tasks with this status, or null for all of them.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param limit  The maximum number of summaries to return, clamped to between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return The page of task summaries, with the cursor of the next page if there is one.
+     * @throws UserNotFoundException  If the user does not exist.
+     * @throws InvalidCursorException If the cursor is malformed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TaskSummary> getUserTaskSummariesPage(Long userId, String status, String cursor, int limit) {
+        // Not through the user cache, this transaction may read from a lagging replica
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User not found with id: " + userId);
+        }
+        int pageSize = pageSize(limit);
+        TaskCursor before = cursor == null || cursor.isEmpty() ? null : TaskCursor.decode(cursor);
+
+        // Fetch one extra row to find out whether another page follows without a count query
+        List<TaskSummary> summaries;
+        if (status != null) {
+            summaries = taskRepository.findAssignedSummaries(userId, status, before, pageSize + 1);
+        } else {
+            summaries = STATUSES.stream()
+                    .flatMap(each -> taskRepository.findAssignedSummaries(userId, each, before, pageSize + 1).stream())
+                    .sorted(MOST_RECENTLY_UPDATED)
+                    .limit(pageSize + 1)
+                    .toList();
+        }
+        return toCursorPage(summaries, pageSize, summary -> new TaskCursor(summary.getUpdatedAt(), summary.getId()));
+    }
+
+    /**
+     * Passes every task, in ID order, to the given action without loading them all into memory.
+     *
+     * <p>Rows are read through a server-side cursor and the persistence context is cleared after every fetch,
+     * so heap use stays constant however many tasks there are.</p>
+     *
+     * @param action The action to apply to each task. Tasks are detached once the action returns.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTasks(Consumer<Task> action) {
+        try (Stream<Task> tasks = taskRepository.streamAll()) {
+            int count = 0;
+            for (Task task : (Iterable<Task>) tasks::iterator) {
+                action.accept(task);
+                if (++count % TaskRepository.STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves a task by its ID, falling through to the archive if it is not in the tasks table.
      *
      * @param id The ID of the task to retrieve.
      * @return The task with the specified ID.
      * @throws TaskNotFoundException If no task is found with the given ID.
-     * @throws UserNotFoundException If the user assigned to the task is not found.
      */
     @Override
+    @Transactional(readOnly = true)
     public Task getTaskById(Long id) {
-        Task task = taskRepository.findById(id)
+        return taskRepository.findWithAssignedToById(id)
+                .or(() -> findArchivedTask(id))
                 .orElseThrow(() -> new TaskNotFoundException("Task not found with id: " + id));
+    }
 
-        // Optionally, ensure assignedTo is fully loaded if needed
-        if (task.getAssignedTo() != null) {
-            User assignedUser = userRepository.findById(task.getAssignedTo().getId())
-                    .orElseThrow(() -> new UserNotFoundException("User not found with id: " + task.getAssignedTo().getId()));
-            task.setAssignedTo(assignedUser);
+    private Optional<Task> findArchivedTask(Long id) {
+        // Archived tasks keep only the ID of their assignee, who may have been deleted since. The assignee is read
+        // past the user cache, which a lagging replica could otherwise fill with a stale user
+        return archivedTaskRepository.findById(id).map(archived -> archived.toTask(archived.getAssigneeId() != null
+                ? userRepository.findForUpdateById(archived.getAssigneeId()).orElse(null) : null));
+    }
+
+    /**
+     * Retrieves the current version of a task without loading it, falling through to the archive.
+     *
+     * @param id The ID of the task.
+     * @return The version of the task.
+     * @throws TaskNotFoundException If no task is found with the given ID.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Long getTaskVersion(Long id) {
+        return taskRepository.findVersionById(id)
+                .or(() -> archivedTaskRepository.findVersionById(id))
+                .orElseThrow(() -> new TaskNotFoundException("Task not found with id: " + id));
+    }
+
+    /**
+     * Loads a task that can be changed, archived tasks are read-only.
+     */
+    private Task findTask(Long id) {
+        // The assignee is fetched in the same query, the foreign key guarantees it exists
+        return taskRepository.findWithAssignedToById(id)
+                .orElseThrow(() -> new TaskNotFoundException("Task not found with id: " + id));
+    }
+
+    private Long findTaskVersion(Long id) {
+        return taskRepository.findVersionById(id)
+                .orElseThrow(() -> new TaskNotFoundException("Task not found with id: " + id));
+    }
+
+    /**
+     * Searches the title and description of all tasks, best match first.
+     *
+     * <p>Matching and ranking come from the in-memory search index, the tasks are then loaded in one query from the
+     * primary. Tasks removed since they were indexed are skipped and dropped from the index.</p>
+     *
+     * @param query The words to search for. Every word must match.
+     * @param limit The maximum number of tasks to return, clamped to between 1 and {@value #MAX_PAGE_SIZE}.
+     * @return The matching tasks.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Task> searchTasks(String query, int limit) {
+        List<Long> ids = taskSearchIndex.search(query, pageSize(limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // A lagging replica may not have a task the index already holds yet, which would drop it from the index for
+        // good. This is the first statement of the transaction, so the whole transaction runs on the primary
+        Map<Long, Task> tasks = ReplicaRoutingDataSource.onPrimary(() -> taskRepository.findWithAssignedToByIdIn(ids))
+                .stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+        List<Task> found = new ArrayList<>(tasks.size());
+        for (Long id : ids) {
+            Task task = tasks.get(id);
+            if (task != null) {
+                found.add(task);
+            } else {
+                // Deleted by a set-based statement, which does not say which tasks it removed
+                taskSearchIndex.remove(id);
+            }
         }
+        return found;
+    }
 
-        return task;
+    /**
+     * Returns the number of tasks per status, overall and per assignee.
+     * The counts are kept in memory and do not query the database.
+     *
+     * @return The task counts.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TaskStats getTaskStats() {
+        return taskStatistics.snapshot();
     }
 
     /**
@@ -99,7 +501,8 @@ public class TaskServiceImpl implements TaskService {
      */
     @Override
     public Task updateTask(Long id, Task taskDetails, TimeZone timezone) {
-        Task task = getTaskById(id);
+        Task task = findTask(id);
+        TaskSnapshot previous = TaskSnapshot.of(task);
 
         ZoneId zoneId = timezone != null ? timezone.toZoneId() : ZoneId.systemDefault();
 
@@ -107,17 +510,134 @@ public class TaskServiceImpl implements TaskService {
         task.setTitle(taskDetails.getTitle());
         task.setDescription(taskDetails.getDescription());
         task.setStatus(taskDetails.getStatus());
+        task.setDueAt(taskDetails.getDueAt());
+        task.setTimezone(taskDetails.getTimezone());
         task.setUpdatedAt(ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime());
 
-        // Handle assignedTo user if provided
-        if (taskDetails.getAssignedTo() != null) {
+        // Handle assignedTo user if provided, the current assignee is already loaded
+        if (taskDetails.getAssignedTo() != null && !isAssignedTo(task, taskDetails.getAssignedTo().getId())) {
             User assignedUser = userRepository.findById(taskDetails.getAssignedTo().getId())
                     .orElseThrow(() -> new UserNotFoundException("User not found with id: " + taskDetails.getAssignedTo().getId()));
             task.setAssignedTo(assignedUser);
         }
 
-        // Save updated task
-        return taskRepository.save(task);
+        // Save updated task, flushing so the published state carries the new version
+        Task saved = taskRepository.save(task);
+        entityManager.flush();
+        eventPublisher.publishEvent(TaskChangedEvent.updated(previous, saved));
+        return saved;
+    }
+
+    /**
+     * Updates an existing task only if it is still at the given version.
+     *
+     * <p>The task is written with a single {@code UPDATE ... WHERE version = ?}, so a concurrent change can never be
+     * overwritten, and the task is not read before or after it: only when no row was updated is its version read, to
+     * tell a stale version from a missing task. The change event therefore carries neither the previous nor the new
+     * state, which listeners look up or reconcile themselves. The response is built from the request with the next
+     * version, so it has no creation time, and no assignee unless the request names one.</p>
+     *
+     * @param id          The ID of the task to update.
+     * @param taskDetails The new task details.
+     * @param timezone    The timezone of the request. Timestamps are always stored in UTC.
+     * @param version     The version the client last saw.
+     * @return The updated task.
+     * @throws TaskNotFoundException       If no task is found with the given ID.
+     * @throws UserNotFoundException       If the user assigned to the task is not found.
+     * @throws PreconditionFailedException If the task has been modified since the given version.
+     */
+    @Override
+    public Task updateTaskIfVersion(Long id, Task taskDetails, TimeZone timezone, long version) {
+        LocalDateTime nowUtc = ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime();
+
+        int updated;
+        User assignee = null;
+        if (taskDetails.getAssignedTo() != null) {
+            assignee = userRepository.findById(taskDetails.getAssignedTo().getId())
+                    .orElseThrow(() -> new UserNotFoundException("User not found with id: " + taskDetails.getAssignedTo().getId()));
+            updated = taskRepository.updateIfVersion(id, version, taskDetails.getTitle(), taskDetails.getDescription(),
+                    taskDetails.getStatus(), taskDetails.getDueAt(), taskDetails.getTimezone(), assignee, nowUtc);
+        } else {
+            updated = taskRepository.updateIfVersion(id, version, taskDetails.getTitle(), taskDetails.getDescription(),
+                    taskDetails.getStatus(), taskDetails.getDueAt(), taskDetails.getTimezone(), nowUtc);
+        }
+
+        if (updated == 0) {
+            Long current = findTaskVersion(id);
+            throw new PreconditionFailedException("Task " + id + " is at version " + current + ", not " + version);
+        }
+        Task updatedTask = new Task();
+        updatedTask.setId(id);
+        updatedTask.setVersion(version + 1);
+        updatedTask.setTitle(taskDetails.getTitle());
+        updatedTask.setDescription(taskDetails.getDescription());
+        updatedTask.setStatus(taskDetails.getStatus());
+        updatedTask.setDueAt(taskDetails.getDueAt());
+        updatedTask.setTimezone(taskDetails.getTimezone());
+        updatedTask.setAssignedTo(assignee);
+        updatedTask.setUpdatedAt(nowUtc);
+        eventPublisher.publishEvent(TaskChangedEvent.rewritten(id));
+        return updatedTask;
+    }
+
+    /**
+     * Applies a JSON Merge Patch to a task and returns the updated task.
+     *
+     * <p>Only the fields present in the patch are changed. Tasks use dynamic updates, so the {@code UPDATE} only
+     * writes the columns whose value actually changed.</p>
+     *
+     * @param id      The ID of the task to patch.
+     * @param patch   The merge patch: fields to set, a null value clears the field.
+     * @param version The version the client last saw, or null to patch unconditionally.
+     * @return The updated task.
+     * @throws TaskNotFoundException       If no task is found with the given ID.
+     * @throws UserNotFoundException       If the patch assigns the task to a user that does not exist.
+     * @throws InvalidPatchException       If the patch sets a field that cannot be patched or to an invalid value.
+     * @throws PreconditionFailedException If the task has been modified since the given version.
+     */
+    @Override
+    public Task patchTask(Long id, Map<String, Object> patch, Long version) {
+        Map<String, Object> values = taskPatchValues(patch);
+        Task task = findTask(id);
+        if (version != null && !version.equals(task.getVersion())) {
+            throw new PreconditionFailedException("Task " + id + " is at version " + task.getVersion() + ", not " + version);
+        }
+        TaskSnapshot previous = TaskSnapshot.of(task);
+        PropertyAccessorFactory.forBeanPropertyAccess(task).setPropertyValues(values);
+
+        Task saved = taskRepository.save(task);
+        entityManager.flush();
+        eventPublisher.publishEvent(TaskChangedEvent.updated(previous, saved));
+        return saved;
+    }
+
+    /**
+     * Applies a JSON Merge Patch to a task without loading it, for clients that do not need the updated task back.
+     * The patch is a single {@code UPDATE} of the patched columns.
+     *
+     * <p>A patch of the status or the assignee changes the task counts, which need the previous state. Such a patch is
+     * applied like {@link #patchTask}, loading the task first.</p>
+     *
+     * @param id      The ID of the task to patch.
+     * @param patch   The merge patch: fields to set, a null value clears the field.
+     * @param version The version the client last saw, or null to patch unconditionally.
+     * @throws TaskNotFoundException       If no task is found with the given ID.
+     * @throws UserNotFoundException       If the patch assigns the task to a user that does not exist.
+     * @throws InvalidPatchException       If the patch sets a field that cannot be patched or to an invalid value.
+     * @throws PreconditionFailedException If the task has been modified since the given version.
+     */
+    @Override
+    public void patchTaskWithoutLoading(Long id, Map<String, Object> patch, Long version) {
+        if (patch.containsKey("status") || patch.containsKey("assignedTo")) {
+            patchTask(id, patch, version);
+            return;
+        }
+        int updated = taskRepository.updateFields(id, version, taskPatchValues(patch));
+        if (updated == 0) {
+            Long current = findTaskVersion(id);
+            throw new PreconditionFailedException("Task " + id + " is at version " + current + ", not " + version);
+        }
+        eventPublisher.publishEvent(TaskChangedEvent.changed(id));
     }
 
     /**
@@ -128,7 +648,299 @@ public class TaskServiceImpl implements TaskService {
      */
     @Override
     public void deleteTask(Long id) {
-        Task task = getTaskById(id);
+        Task task = findTask(id);
+        TaskSnapshot previous = TaskSnapshot.of(task);
         taskRepository.delete(task);
+        eventPublisher.publishEvent(TaskChangedEvent.deleted(previous));
+    }
+
+    /**
+     * Deletes every task matching the filter with a single set-based {@code DELETE}.
+     *
+     * <p>No task is loaded. The statement locks the rows it deletes, and a concurrent versioned update of one of
+     * them fails with a conflict instead of resurrecting it.</p>
+     *
+     * @param filter The criteria the tasks must match. At least one must be set.
+     * @return The number of deleted tasks.
+     * @throws InvalidFilterException If no criteria are set.
+     */
+    @Override
+    public int deleteTasks(TaskFilter filter) {
+        if (!filter.hasCriteria()) {
+            throw new InvalidFilterException("At least one filter is required to delete tasks");
+        }
+        int deleted = taskRepository.deleteMatching(filter);
+        eventPublisher.publishEvent(new TasksChangedInBulkEvent(deleted));
+        return deleted;
+    }
+
+    /**
+     * Moves every task in one status, optionally of one assignee, to another status with a single set-based
+     * {@code UPDATE}. The version of every moved task is incremented.
+     *
+     * @param transition The status to move from and to, and the optional assignee.
+     * @return The number of moved tasks.
+     */
+    @Override
+    public int transitionTasks(TaskTransition transition) {
+        TaskFilter filter = new TaskFilter(transition.getFrom(), transition.getAssignee(), null, null, null);
+        LocalDateTime nowUtc = ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime();
+        int updated = taskRepository.updateStatusMatching(filter, transition.getTo(), nowUtc);
+        eventPublisher.publishEvent(new TasksChangedInBulkEvent(updated));
+        return updated;
+    }
+
+    /**
+     * Moves every open task of one user to another. Completed tasks keep their assignee.
+     *
+     * <p>The tasks are moved in chunks of {@code taskmanager.bulk.chunk-size}, each one set-based {@code UPDATE} in its
+     * own transaction, so a user with very many tasks never holds all their rows locked at once. The version of every
+     * moved task is incremented. A failure leaves the chunks already committed moved, and repeating the call moves the
+     * rest.</p>
+     *
+     * @param fromUserId The ID of the user whose open tasks to move.
+     * @param toUserId   The ID of the user to move them to.
+     * @return The number of moved tasks.
+     * @throws UserNotFoundException If the user to move the tasks to is not found.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reassignOpenTasks(Long fromUserId, Long toUserId) {
+        User assignee = userRepository.findById(toUserId)
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + toUserId));
+        if (toUserId.equals(fromUserId)) {
+            return 0;
+        }
+        int chunkSize = Math.max(bulkChunkSize, 1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int total = 0;
+        int moved;
+        do {
+            LocalDateTime nowUtc = ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime();
+            moved = transaction.execute(status -> {
+                int reassigned = taskRepository.reassignOpen(fromUserId, assignee, chunkSize, nowUtc);
+                eventPublisher.publishEvent(new TasksChangedInBulkEvent(reassigned, toUserId));
+                return reassigned;
+            });
+            total += moved;
+        } while (moved == chunkSize);
+        return total;
+    }
+
+    /**
+     * Tells whether any task is assigned to a user. Archived tasks keep their assignee as a plain ID and do not count.
+     *
+     * @param userId The ID of the user.
+     * @return Whether the user has tasks.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public boolean hasTasks(Long userId) {
+        return taskRepository.existsByAssignedToId(userId);
+    }
+
+    /**
+     * Converts a merge patch into the task attribute values to set, validating each of them.
+     */
+    private Map<String, Object> taskPatchValues(Map<String, Object> patch) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        patch.forEach((field, value) -> {
+            switch (field) {
+                case "title", "description", "status" -> {
+                    if (value != null && !(value instanceof String)) {
+                        throw new InvalidPatchException(field + " must be a string");
+                    }
+                    for (ConstraintViolation<Task> violation : validator.validateValue(Task.class, field, value)) {
+                        throw new InvalidPatchException(violation.getMessage());
+                    }
+                    values.put(field, value);
+                }
+                case "timezone" -> {
+                    if (value != null && !(value instanceof String)) {
+                        throw new InvalidPatchException("timezone must be a time zone ID");
+                    }
+                    try {
+                        // TimeZone.getTimeZone falls back to GMT for IDs it does not know, ZoneId.of rejects them
+                        values.put(field, value != null ? TimeZone.getTimeZone(ZoneId.of((String) value)) : null);
+                    } catch (DateTimeException e) {
+                        throw new InvalidPatchException("Unknown timezone: " + value);
+                    }
+                }
+                case "dueAt" -> {
+                    try {
+                        values.put(field, value != null ? LocalDateTime.parse(value.toString()) : null);
+                    } catch (DateTimeParseException e) {
+                        throw new InvalidPatchException("dueAt must be a local date-time such as 2024-06-30T17:00");
+                    }
+                }
+                case "assignedTo" -> {
+                    if (!(value instanceof Map<?, ?> assignee) || !(assignee.get("id") instanceof Number userId)) {
+                        throw new InvalidPatchException("assignedTo must be an object with the id of a user");
+                    }
+                    values.put(field, userRepository.findById(userId.longValue())
+                            .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId)));
+                }
+                default -> throw new InvalidPatchException("Field cannot be patched: " + field);
+            }
+        });
+        values.put("updatedAt", ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime());
+        return values;
+    }
+
+    private String validateBulkItem(Task task) {
+        if (task == null) {
+            return "Task is mandatory";
+        }
+        for (ConstraintViolation<Task> violation : validator.validate(task)) {
+            return violation.getMessage();
+        }
+        if (task.getAssignedTo() == null || task.getAssignedTo().getId() == null) {
+            return "Assigned user is mandatory";
+        }
+        return null;
+    }
+
+    private void writeBulkChunk(List<Task> tasks, List<Integer> indexes, List<BulkItemResult> results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            List<BulkItemResult> written = transaction.execute(status -> writeBulkItems(tasks, indexes));
+            written.forEach(result -> results.set(result.getIndex(), result));
+        } catch (DataAccessException | TransactionException ex) {
+            if (indexes.size() > 1) {
+                // Isolate the item(s) that broke the chunk
+                indexes.forEach(index -> writeBulkChunk(tasks, List.of(index), results));
+            } else {
+                int index = indexes.get(0);
+                String message = ex instanceof DataAccessException dae ? dae.getMostSpecificCause().getMessage() : ex.getMessage();
+                results.set(index, BulkItemResult.failed(index, tasks.get(index).getId(), message));
+            }
+        }
+    }
+
+    private void importChunk(List<TaskImportReader.Row> rows, ImportJob job) {
+        List<Task> tasks = new ArrayList<>();
+        List<Integer> rowIndexes = new ArrayList<>();
+        for (TaskImportReader.Row row : rows) {
+            String error = row.error() != null ? row.error() : validateBulkItem(row.task());
+            if (error != null) {
+                addImportFailure(job, BulkItemResult.failed(row.index(), null, error));
+            } else {
+                row.task().setId(null);
+                tasks.add(row.task());
+                rowIndexes.add(row.index());
+            }
+        }
+        List<BulkItemResult> results = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+        writeBulkChunk(tasks, IntStream.range(0, tasks.size()).boxed().toList(), results);
+        for (BulkItemResult result : results) {
+            // Report the position in the upload rather than in the chunk
+            result.setIndex(rowIndexes.get(result.getIndex()));
+            if (result.getStatus() == BulkItemResult.Status.FAILED) {
+                addImportFailure(job, result);
+            } else {
+                job.setCreated(job.getCreated() + 1);
+            }
+        }
+        job.setRead(job.getRead() + rows.size());
+        importJobs.publish(job);
+    }
+
+    private static void addImportFailure(ImportJob job, BulkItemResult failure) {
+        job.setFailed(job.getFailed() + 1);
+        if (job.getFailures().size() < MAX_IMPORT_FAILURES) {
+            job.getFailures().add(failure);
+        }
+    }
+
+    private List<BulkItemResult> writeBulkItems(List<Task> tasks, List<Integer> indexes) {
+        Set<Long> assigneeIds = indexes.stream()
+                .map(index -> tasks.get(index).getAssignedTo().getId())
+                .collect(Collectors.toSet());
+        Map<Long, User> assignees = userRepository.findAllById(assigneeIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        Set<Long> taskIds = indexes.stream()
+                .map(index -> tasks.get(index).getId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Task> existing = taskIds.isEmpty() ? Map.of() : taskRepository.findAllById(taskIds).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        LocalDateTime nowUtc = ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime();
+        List<BulkItemResult> results = new ArrayList<>();
+        List<Integer> writtenIndexes = new ArrayList<>();
+        List<Task> toSave = new ArrayList<>();
+        List<TaskSnapshot> previous = new ArrayList<>();
+        for (int index : indexes) {
+            Task details = tasks.get(index);
+            User assignedUser = assignees.get(details.getAssignedTo().getId());
+            if (assignedUser == null) {
+                results.add(BulkItemResult.failed(index, details.getId(), "User not found with id: " + details.getAssignedTo().getId()));
+                continue;
+            }
+
+            Task task;
+            if (details.getId() == null) {
+                // Never persist the request object itself, so a retried chunk starts from clean state
+                task = new Task();
+                task.setCreatedAt(nowUtc);
+                previous.add(null);
+            } else {
+                task = existing.get(details.getId());
+                if (task == null) {
+                    results.add(BulkItemResult.failed(index, details.getId(), "Task not found with id: " + details.getId()));
+                    continue;
+                }
+                previous.add(TaskSnapshot.of(task));
+            }
+            task.setTitle(details.getTitle());
+            task.setDescription(details.getDescription());
+            task.setStatus(details.getStatus());
+            task.setDueAt(details.getDueAt());
+            task.setTimezone(details.getTimezone());
+            task.setUpdatedAt(nowUtc);
+            task.setAssignedTo(assignedUser);
+            toSave.add(task);
+            writtenIndexes.add(index);
+        }
+
+        List<Task> saved = taskRepository.saveAll(toSave);
+        taskRepository.flush();
+        for (int i = 0; i < saved.size(); i++) {
+            int index = writtenIndexes.get(i);
+            if (previous.get(i) == null) {
+                results.add(BulkItemResult.created(index, saved.get(i).getId()));
+                eventPublisher.publishEvent(TaskChangedEvent.created(saved.get(i)));
+            } else {
+                results.add(BulkItemResult.updated(index, saved.get(i).getId()));
+                eventPublisher.publishEvent(TaskChangedEvent.updated(previous.get(i), saved.get(i)));
+            }
+        }
+        return results;
+    }
+
+    private static boolean isAssignedTo(Task task, Long userId) {
+        return task.getAssignedTo() != null && Objects.equals(task.getAssignedTo().getId(), userId);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    private static PageRequest pageWindow(int pageSize) {
+        // Fetch one extra row to find out whether another page follows without a count query
+        return PageRequest.ofSize(pageSize + 1);
+    }
+
+    private static <T> CursorPage<T> toCursorPage(List<T> rows, int pageSize, Function<T, TaskCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, pageSize);
+        return new CursorPage<>(page, cursorOf.apply(page.get(pageSize - 1)).encode());
     }
 }
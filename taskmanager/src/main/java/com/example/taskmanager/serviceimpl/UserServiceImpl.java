@@ -1,20 +1,56 @@
 package com.example.taskmanager.serviceimpl;
 
+import com.example.taskmanager.datasource.ReplicaRoutingDataSource;
 import com.example.taskmanager.entity.User;
+import com.example.taskmanager.event.UserChangedEvent;
+import com.example.taskmanager.exception.InvalidPatchException;
+import com.example.taskmanager.exception.InvalidReassignmentException;
+import com.example.taskmanager.exception.PreconditionFailedException;
+import com.example.taskmanager.exception.UserHasTasksException;
 import com.example.taskmanager.exception.UserNotFoundException;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.service.TaskService;
 import com.example.taskmanager.service.UserService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
 
 @Service
+@Timed("taskmanager.service")
 public class UserServiceImpl implements UserService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * The user that takes over the open tasks of deactivated users when no other user is given, if any.
+     */
+    @Value("${taskmanager.users.pool-user-id:#{null}}")
+    private Long poolUserId;
+
     /**
      * Creates a new user and saves it to the database.
      *
@@ -22,8 +58,11 @@ public class UserServiceImpl implements UserService {
      * @return The saved user entity.
      */
     @Override
+    @Transactional
     public User createUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.created(saved));
+        return saved;
     }
 
     /**
@@ -32,12 +71,14 @@ public class UserServiceImpl implements UserService {
      * @return A list of all users.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
     /**
-     * Retrieves a user by its ID.
+     * Retrieves a user by its ID. Users are served from the user cache when possible,
+     * so the returned entity is shared and must not be modified.
      *
      * @param id The ID of the user to retrieve.
      * @return The user entity with the given ID.
@@ -45,7 +86,8 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public User getUserById(Long id) {
-        return userRepository.findById(id)
+        // Cache misses are filled from the primary, a lagging replica could put back a user an update just evicted
+        return ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(id))
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
     }
 
@@ -58,8 +100,11 @@ public class UserServiceImpl implements UserService {
      * @throws UserNotFoundException If no user is found with the given ID.
      */
     @Override
+    @Transactional
     public User updateUser(Long id, User userDetails) {
-        User user = getUserById(id);
+        // Never modify the shared cached instance, the cache entry is evicted once the update commits
+        User user = userRepository.findForUpdateById(id)
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
 
         // Update user details
         user.setFirstName(userDetails.getFirstName());
@@ -67,19 +112,191 @@ public class UserServiceImpl implements UserService {
         user.setTimezone(userDetails.getTimezone());
         user.setIsActive(userDetails.getIsActive());
 
-        // Save and return the updated user
-        return userRepository.save(user);
+        // Save and return the updated user, flushing so the published state carries the new version
+        User saved = userRepository.save(user);
+        userRepository.flush();
+        eventPublisher.publishEvent(UserChangedEvent.updated(saved));
+        return saved;
+    }
+
+    /**
+     * Updates an existing user only if it is still at the given version, with a single
+     * {@code UPDATE ... WHERE version = ?}. The cached user is evicted once the update commits.
+     * The user is only read if the update fails, to report why; otherwise the response is built from
+     * the request with the next version.
+     *
+     * @param id The ID of the user to update.
+     * @param userDetails The new user details.
+     * @param version The version the client last saw.
+     * @return The updated user entity.
+     * @throws UserNotFoundException If no user is found with the given ID.
+     * @throws PreconditionFailedException If the user has been modified since the given version.
+     */
+    @Override
+    @Transactional
+    public User updateUserIfVersion(Long id, User userDetails, long version) {
+        int updated = userRepository.updateIfVersion(id, version, userDetails.getFirstName(), userDetails.getLastName(),
+                userDetails.getTimezone(), userDetails.getIsActive());
+
+        if (updated == 0) {
+            User current = userRepository.findForUpdateById(id)
+                    .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+            throw new PreconditionFailedException("User " + id + " is at version " + current.getVersion() + ", not " + version);
+        }
+        User user = new User();
+        user.setId(id);
+        user.setVersion(version + 1);
+        user.setFirstName(userDetails.getFirstName());
+        user.setLastName(userDetails.getLastName());
+        user.setTimezone(userDetails.getTimezone());
+        user.setIsActive(userDetails.getIsActive());
+        eventPublisher.publishEvent(UserChangedEvent.updated(user));
+        return user;
+    }
+
+    /**
+     * Applies a JSON Merge Patch to a user and returns the updated user.
+     * Users use dynamic updates, so the {@code UPDATE} only writes the columns whose value actually changed.
+     *
+     * @param id The ID of the user to patch.
+     * @param patch The merge patch: fields to set, a null value clears the field.
+     * @param version The version the client last saw, or null to patch unconditionally.
+     * @return The updated user entity.
+     * @throws UserNotFoundException If no user is found with the given ID.
+     * @throws InvalidPatchException If the patch sets a field that cannot be patched or to an invalid value.
+     * @throws PreconditionFailedException If the user has been modified since the given version.
+     */
+    @Override
+    @Transactional
+    public User patchUser(Long id, Map<String, Object> patch, Long version) {
+        Map<String, Object> values = userPatchValues(patch);
+        // Never modify the shared cached instance, the cache entry is evicted once the update commits
+        User user = userRepository.findForUpdateById(id)
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+        if (version != null && !version.equals(user.getVersion())) {
+            throw new PreconditionFailedException("User " + id + " is at version " + user.getVersion() + ", not " + version);
+        }
+        PropertyAccessorFactory.forBeanPropertyAccess(user).setPropertyValues(values);
+        User saved = userRepository.save(user);
+        userRepository.flush();
+        eventPublisher.publishEvent(UserChangedEvent.updated(saved));
+        return saved;
     }
 
     /**
-     * Deletes a user by its ID.
+     * Applies a JSON Merge Patch to a user without loading it, with a single {@code UPDATE} of the patched columns.
+     * The cached user is evicted once the update commits.
+     *
+     * @param id The ID of the user to patch.
+     * @param patch The merge patch: fields to set, a null value clears the field.
+     * @param version The version the client last saw, or null to patch unconditionally.
+     * @throws UserNotFoundException If no user is found with the given ID.
+     * @throws InvalidPatchException If the patch sets a field that cannot be patched or to an invalid value.
+     * @throws PreconditionFailedException If the user has been modified since the given version.
+     */
+    @Override
+    @Transactional
+    public void patchUserWithoutLoading(Long id, Map<String, Object> patch, Long version) {
+        if (userRepository.updateFields(id, version, userPatchValues(patch)) == 0) {
+            User user = userRepository.findForUpdateById(id)
+                    .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
+            throw new PreconditionFailedException("User " + id + " is at version " + user.getVersion() + ", not " + version);
+        }
+        eventPublisher.publishEvent(UserChangedEvent.changed(id));
+    }
+
+    /**
+     * Deletes a user by its ID. Tasks always have an assignee, so a user who still has tasks cannot be deleted; such a
+     * user is offboarded with {@link #deactivateUser} instead, which keeps them and hands their open tasks over.
      *
      * @param id The ID of the user to delete.
      * @throws UserNotFoundException If no user is found with the given ID.
+     * @throws UserHasTasksException If tasks are still assigned to the user.
      */
     @Override
+    @Transactional
     public void deleteUser(Long id) {
         User user = getUserById(id);
+        if (taskService.hasTasks(id)) {
+            throw new UserHasTasksException("User " + id + " still has tasks, deactivate the user instead");
+        }
         userRepository.delete(user);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(user));
+    }
+
+    /**
+     * Offboards a user: deactivates them and moves their open tasks to another user. The user and their completed
+     * tasks are kept.
+     *
+     * <p>The user is deactivated first, in its own transaction. The tasks are then moved in chunks with one set-based
+     * {@code UPDATE} each, see {@link TaskService#reassignOpenTasks}, under the concurrency limiter permit of this
+     * call. A failure part way leaves the user deactivated and the chunks already committed moved; retrying the call
+     * is the way to recover, it deactivates the user again, which changes nothing, and moves the tasks that are
+     * left.</p>
+     *
+     * @param id The ID of the user to deactivate.
+     * @param reassignTo The ID of the user to move the open tasks to, or null for the pool user
+     *                   {@code taskmanager.users.pool-user-id}.
+     * @return The number of moved tasks.
+     * @throws UserNotFoundException If either user is not found.
+     * @throws InvalidReassignmentException If there is no user to move the tasks to, or that user is the one being
+     *                                      deactivated or is inactive.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int deactivateUser(Long id, Long reassignTo) {
+        Long target = reassignTo != null ? reassignTo : poolUserId;
+        if (target == null) {
+            throw new InvalidReassignmentException("A user to reassign the open tasks to is required");
+        }
+        if (target.equals(id)) {
+            throw new InvalidReassignmentException("Tasks cannot be reassigned to the user being deactivated");
+        }
+        if (Boolean.FALSE.equals(getUserById(target).getIsActive())) {
+            throw new InvalidReassignmentException("Tasks cannot be reassigned to inactive user " + target);
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (userRepository.updateFields(id, null, Map.of("isActive", false)) == 0) {
+                throw new UserNotFoundException("User not found with id: " + id);
+            }
+            eventPublisher.publishEvent(UserChangedEvent.changed(id));
+        });
+        return taskService.reassignOpenTasks(id, target);
+    }
+
+    /**
+     * Converts a merge patch into the user attribute values to set, validating each of them.
+     */
+    private static Map<String, Object> userPatchValues(Map<String, Object> patch) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        patch.forEach((field, value) -> {
+            switch (field) {
+                case "firstName", "lastName" -> {
+                    if (!(value instanceof String name) || name.isBlank()) {
+                        throw new InvalidPatchException(field + " must be a non-blank string");
+                    }
+                    values.put(field, name);
+                }
+                case "timezone" -> {
+                    if (!(value instanceof String timezone)) {
+                        throw new InvalidPatchException("timezone must be a time zone ID");
+                    }
+                    try {
+                        values.put(field, TimeZone.getTimeZone(ZoneId.of(timezone)));
+                    } catch (DateTimeException e) {
+                        throw new InvalidPatchException("Unknown timezone: " + timezone);
+                    }
+                }
+                case "isActive" -> {
+                    if (value != null && !(value instanceof Boolean)) {
+                        throw new InvalidPatchException("isActive must be a boolean");
+                    }
+                    values.put(field, value);
+                }
+                default -> throw new InvalidPatchException("Field cannot be patched: " + field);
+            }
+        });
+        return values;
     }
 }
@@ -0,0 +1,184 @@
+package com.example.taskmanager.stats;
+
+import com.example.taskmanager.datasource.ReplicaRoutingDataSource;
+import com.example.taskmanager.dto.TaskCount;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.event.TasksChangedInBulkEvent;
+import com.example.taskmanager.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Task counts per status and per assignee, kept in memory so reading them never touches the tasks table.
+ *
+ * <p>The counters are seeded with one {@code GROUP BY} when the application is ready and then adjusted by the
+ * {@link TaskChangedEvent}s of committed transactions. They are {@link LongAdder}s, so concurrent writers to the
+ * same status do not contend on a single memory location.</p>
+ *
+ * <p>Changes whose previous state is unknown, and set-based changes to many tasks at once, are corrected
+ * by reconciling against the database: immediately after such a change, and otherwise every
+ * {@code taskmanager.stats.reconcile-interval}. A change committed while a reconciliation is running may be counted
+ * incorrectly until the next one.</p>
+ */
+@Component
+public class TaskStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskStatistics.class);
+
+    /**
+     * Key used for tasks without a status, the map does not accept null keys.
+     */
+    static final String NO_STATUS = "None";
+
+    /**
+     * One generation of counters. Reconciliation replaces the whole generation rather than resetting it in place.
+     */
+    private static final class Counters {
+
+        private final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+
+        private final Map<Long, Map<String, LongAdder>> byAssignee = new ConcurrentHashMap<>();
+
+        private void add(String status, Long assigneeId, long delta) {
+            String key = status != null ? status : NO_STATUS;
+            byStatus.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            if (assigneeId != null) {
+                byAssignee.computeIfAbsent(assigneeId, k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            }
+        }
+    }
+
+    private volatile Counters counters = new Counters();
+
+    private volatile Instant reconciledAt;
+
+    private volatile boolean dirty;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    /**
+     * Applies the change of a committed transaction to the counters.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTaskChanged(TaskChangedEvent event) {
+        TaskSnapshot previous = event.getPrevious();
+        TaskSnapshot current = event.getCurrent();
+        if (event.getType() == TaskChangedEvent.Type.UPDATED && previous == null) {
+            if (current != null || event.isRewrite()) {
+                // The old or new status and assignee were never read, let the next reconciliation work it out
+                dirty = true;
+            }
+            // Updates made without reading the task leave the status and assignee alone
+            return;
+        }
+        Counters target = counters;
+        if (previous != null) {
+            target.add(previous.getStatus(), previous.getAssigneeId(), -1);
+        }
+        if (current != null) {
+            target.add(current.getStatus(), current.getAssigneeId(), 1);
+        }
+    }
+
+    /**
+     * Requests a reconciliation, for changes made without publishing a {@link TaskChangedEvent}.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTasksChangedInBulk(TasksChangedInBulkEvent event) {
+        if (event.getAffected() > 0) {
+            markDirty();
+        }
+    }
+
+    /**
+     * Returns the current counts. Statuses and assignees with no tasks are left out.
+     */
+    public TaskStats snapshot() {
+        Counters current = counters;
+        Map<String, Long> byStatus = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<String, LongAdder> entry : current.byStatus.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count != 0) {
+                byStatus.put(entry.getKey(), count);
+                total += count;
+            }
+        }
+        Map<Long, Map<String, Long>> byAssignee = new TreeMap<>();
+        current.byAssignee.forEach((assigneeId, statuses) -> statuses.forEach((status, adder) -> {
+            long count = adder.sum();
+            if (count != 0) {
+                byAssignee.computeIfAbsent(assigneeId, k -> new TreeMap<>()).put(status, count);
+            }
+        }));
+        return new TaskStats(total, byStatus, byAssignee, reconciledAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /**
+     * Replaces the counters with a fresh count from the primary, a lagging replica would undo the changes counted since.
+     */
+    @Scheduled(fixedDelayString = "${taskmanager.stats.reconcile-interval:PT5M}",
+            initialDelayString = "${taskmanager.stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        dirty = false;
+        Counters fresh = new Counters();
+        for (TaskCount count : ReplicaRoutingDataSource.onPrimary(taskRepository::countByStatusAndAssignee)) {
+            fresh.add(count.getStatus(), count.getAssigneeId(), count.getCount());
+        }
+        Counters stale = counters;
+        counters = fresh;
+        reconciledAt = Instant.now();
+        if (log.isDebugEnabled()) {
+            log.debug("Task statistics reconciled, drift was {}", drift(stale, fresh));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${taskmanager.stats.dirty-check-interval:PT10S}")
+    public void reconcileIfDirty() {
+        if (dirty) {
+            reconcile();
+        }
+    }
+
+    private static long drift(Counters stale, Counters fresh) {
+        Set<String> statuses = new HashSet<>(stale.byStatus.keySet());
+        statuses.addAll(fresh.byStatus.keySet());
+        long drift = 0;
+        for (String status : statuses) {
+            drift += Math.abs(sum(fresh.byStatus.get(status)) - sum(stale.byStatus.get(status)));
+        }
+        return drift;
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder != null ? adder.sum() : 0;
+    }
+}
@@ -0,0 +1,2 @@
+-- The stored response of an idempotent request, H2's binary columns hold at most 1 MB
+alter table idempotency_keys add column if not exists body blob;
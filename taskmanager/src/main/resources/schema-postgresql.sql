@@ -0,0 +1,7 @@
+-- The stored response of an idempotent request, which can be larger than any varbinary
+alter table idempotency_keys add column if not exists body bytea;
+
+-- Tables whose IDs were once IDENTITY columns hold IDs the sequences have not handed out yet. A pooled sequence
+-- hands out the block ending at its value, so it is moved to the largest ID whenever it has not passed it
+select setval('tasks_seq', max(id)) from tasks having max(id) >= (select last_value from tasks_seq);
+select setval('users_seq', max(id)) from users having max(id) >= (select last_value from users_seq);
@@ -0,0 +1,93 @@
+-- Schema of the JPA entities, applied on every start before Hibernate validates the mappings against it.
+-- Every statement is idempotent and runs on both PostgreSQL and the embedded H2 database of the memory profile,
+-- the columns whose type differs between them are added by schema-postgresql.sql and schema-h2.sql.
+
+-- IDs are allocated in blocks of the entities' allocationSize
+create sequence if not exists tasks_seq start with 1 increment by 50;
+create sequence if not exists users_seq start with 1 increment by 50;
+-- One sequence value per record, so the feed can tell a gap from a record still in flight
+create sequence if not exists change_outbox_seq start with 1 increment by 1;
+alter sequence change_outbox_seq increment by 1;
+
+create table if not exists users (
+    id         bigint       not null,
+    version    bigint       default 0 not null,
+    first_name varchar(255) not null,
+    last_name  varchar(255) not null,
+    timezone   varchar(255) not null,
+    is_active  boolean,
+    primary key (id)
+);
+
+create table if not exists tasks (
+    id          bigint       not null,
+    version     bigint       default 0 not null,
+    title       varchar(255) not null,
+    description varchar(255),
+    status      varchar(255),
+    created_at  timestamp(6),
+    updated_at  timestamp(6),
+    user_id     bigint       not null,
+    timezone    varchar(255),
+    due_at      timestamp(6),
+    primary key (id),
+    constraint fk_tasks_user foreign key (user_id) references users
+);
+
+-- Tables created by ddl-auto=update before the schema was managed here lack the columns added since
+alter table users add column if not exists version bigint default 0 not null;
+alter table tasks add column if not exists version bigint default 0 not null;
+alter table tasks add column if not exists due_at timestamp(6);
+
+-- Keyset pages in creation order
+create index if not exists idx_tasks_created_at_id on tasks (created_at, id);
+-- Filtered pages by status and assignee
+create index if not exists idx_tasks_status_user_created on tasks (status, user_id, created_at);
+-- The archiver's walk over completed tasks
+create index if not exists idx_tasks_updated_at on tasks (updated_at);
+-- A user's tasks by status, most recently updated first
+create index if not exists idx_tasks_user_status_updated on tasks (user_id, status, updated_at, id);
+-- The deadline scheduler's window
+create index if not exists idx_tasks_due_at on tasks (due_at);
+
+-- Completed tasks moved out of tasks, the assignee is kept as a plain ID
+create table if not exists tasks_archive (
+    id          bigint       not null,
+    version     bigint       not null,
+    title       varchar(255) not null,
+    description varchar(255),
+    status      varchar(255),
+    created_at  timestamp(6),
+    updated_at  timestamp(6),
+    user_id     bigint,
+    timezone    varchar(255),
+    due_at      timestamp(6),
+    archived_at timestamp(6) not null,
+    primary key (id)
+);
+
+create table if not exists change_outbox (
+    seq         bigint        not null,
+    entity      varchar(255)  not null,
+    entity_id   bigint,
+    version     bigint,
+    type        varchar(255)  not null,
+    occurred_at timestamp(6)  not null,
+    data        varchar(4000),
+    primary key (seq)
+);
+
+create index if not exists idx_change_outbox_occurred_at on change_outbox (occurred_at);
+
+create table if not exists idempotency_keys (
+    id           varchar(512) not null,
+    fingerprint  varchar(64)  not null,
+    created_at   timestamp(6) not null,
+    status       integer,
+    content_type varchar(255),
+    etag         varchar(255),
+    location     varchar(255),
+    primary key (id)
+);
+
+create index if not exists idx_idempotency_keys_created_at on idempotency_keys (created_at);
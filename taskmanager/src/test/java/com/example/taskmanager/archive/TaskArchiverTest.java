@@ -0,0 +1,155 @@
+package com.example.taskmanager.archive;
+
+import com.example.taskmanager.entity.ArchivedTask;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import com.example.taskmanager.imports.ImportJobs;
+import com.example.taskmanager.repository.ArchivedTaskRepository;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.search.TaskSearchIndex;
+import com.example.taskmanager.serviceimpl.TaskServiceImpl;
+import com.example.taskmanager.stats.TaskStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Archives tasks in an embedded database, in batches of two.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2"
+})
+@Import({TaskArchiver.class, TaskServiceImpl.class, ImportJobs.class, TaskSearchIndex.class, TaskStatistics.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+public class TaskArchiverTest {
+
+    private static final Instant NOW = Instant.parse("2024-09-01T12:00:00Z");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private TaskArchiver taskArchiver;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        taskArchiver.clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        ReflectionTestUtils.setField(taskArchiver, "completedFor", Duration.ofDays(90));
+        ReflectionTestUtils.setField(taskArchiver, "batchSize", 2);
+        ReflectionTestUtils.setField(taskArchiver, "pause", Duration.ZERO);
+
+        user = new User();
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setTimezone(TimeZone.getTimeZone("UTC"));
+        user.setIsActive(true);
+        entityManager.persist(user);
+    }
+
+    private Task createTask(String title, String status, LocalDateTime updatedAt) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setStatus(status);
+        task.setAssignedTo(user);
+        entityManager.persistAndFlush(task);
+        // Timestamps are set by Hibernate on insert, move them back
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Task t SET t.updatedAt = :updatedAt WHERE t.id = :id")
+                .setParameter("updatedAt", updatedAt)
+                .setParameter("id", task.getId())
+                .executeUpdate();
+        return task;
+    }
+
+    @Test
+    public void testArchivesTasksCompletedBeforeTheCutoff() {
+        List<Task> old = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            old.add(createTask("Old " + i, "Completed", LocalDateTime.of(2024, 1, 1 + i, 9, 0)));
+        }
+        Task recent = createTask("Recent", "Completed", LocalDateTime.of(2024, 8, 1, 9, 0));
+        Task open = createTask("Open", "Pending", LocalDateTime.of(2024, 1, 1, 9, 0));
+        entityManager.clear();
+
+        assertEquals(5, taskArchiver.archive());
+
+        assertEquals(List.of(recent.getId(), open.getId()), taskRepository.findAll().stream().map(Task::getId).sorted().toList());
+        assertEquals(5, archivedTaskRepository.count());
+        ArchivedTask archived = archivedTaskRepository.findById(old.get(0).getId()).orElseThrow();
+        assertEquals(LocalDateTime.of(2024, 9, 1, 12, 0), archived.getArchivedAt());
+        assertEquals(user.getId(), archived.getAssigneeId());
+
+        // Reads fall through to the archive
+        Task found = taskService.getTaskById(old.get(0).getId());
+        assertEquals("Old 0", found.getTitle());
+        assertEquals("Completed", found.getStatus());
+        assertEquals(old.get(0).getVersion(), found.getVersion());
+        assertEquals(user.getId(), found.getAssignedTo().getId());
+        assertEquals(old.get(0).getVersion(), taskService.getTaskVersion(old.get(0).getId()));
+
+        assertEquals(0, taskArchiver.archive());
+    }
+
+    @Test
+    public void testScheduledRunDoesNotHoldTheSchedulerThread() throws InterruptedException {
+        ArchivedTaskRepository repository = mock(ArchivedTaskRepository.class);
+        TaskArchiver archiver = new TaskArchiver();
+        ReflectionTestUtils.setField(archiver, "enabled", true);
+        ReflectionTestUtils.setField(archiver, "completedFor", Duration.ofDays(90));
+        ReflectionTestUtils.setField(archiver, "batchSize", 2);
+        ReflectionTestUtils.setField(archiver, "pause", Duration.ZERO);
+        ReflectionTestUtils.setField(archiver, "archivedTaskRepository", repository);
+        ReflectionTestUtils.setField(archiver, "transactionManager", mock(PlatformTransactionManager.class));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(repository.findFirstArchivable(any(), any())).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            release.await();
+            return List.of();
+        });
+
+        archiver.run();
+        // Due again while the first run is still going
+        archiver.run();
+        release.countDown();
+
+        verify(repository, timeout(5000)).findFirstArchivable(any(), any());
+        archiver.shutdown();
+        assertEquals("task-archiver", thread.get());
+        verify(repository, times(1)).findFirstArchivable(any(), any());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.taskmanager.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline and fails if any benchmark regressed by more than
+ * the given percentage. Throughput scores regress when they drop, time scores when they rise.
+ *
+ * <p>Usage: {@code BaselineComparison <baseline.json> <results.json> <threshold-percent>}. To record a new
+ * baseline, copy {@code target/jmh-result.json} over the baseline file.</p>
+ */
+public final class BaselineComparison {
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File baselineFile = new File(args[0]);
+        File resultsFile = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        if (!baselineFile.exists()) {
+            System.out.println("No benchmark baseline at " + baselineFile + ", skipping comparison");
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(objectMapper.readTree(baselineFile));
+        Map<String, JsonNode> results = index(objectMapper.readTree(resultsFile));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> result : results.entrySet()) {
+            JsonNode before = baseline.get(result.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %s%n", result.getKey());
+                continue;
+            }
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = result.getValue().path("primaryMetric").path("score").asDouble();
+            boolean higherIsBetter = "thrpt".equals(result.getValue().path("mode").asText());
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            double regression = higherIsBetter ? -change : change;
+            boolean regressed = regression > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n", regressed ? "REGRESSED" : "OK",
+                    result.getKey(), oldScore, newScore,
+                    result.getValue().path("primaryMetric").path("scoreUnit").asText(), change);
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> index(JsonNode runs) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode run : runs) {
+            String key = run.path("benchmark").asText() + " " + run.path("mode").asText() + " " + run.path("params");
+            byKey.put(key, run);
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.TaskManagerApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Starts the application without a web server for the benchmarks, against an embedded H2 database
+ * unless a profile swaps the repositories out.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... profiles) {
+        String directory;
+        try {
+            // A fresh directory for the memory profile, so a run does not recover the data of the previous one
+            directory = Files.createTempDirectory("taskmanager-benchmark").toString();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new SpringApplicationBuilder(TaskManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profiles)
+                // Passed as arguments, which take precedence over application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.sql.init.platform=h2",
+                        "--spring.jpa.show-sql=false",
+                        "--taskmanager.search.bootstrap=false",
+                        "--taskmanager.memory.directory=" + directory,
+                        "--logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.taskmanager.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the platform and virtual-thread execution modes under the same burst of blocking requests.
+ *
+ * <p>Each request holds one of {@code poolSize} connections for {@code dbMillis} and then waits {@code ioMillis}
+ * on other I/O without a connection, like a request that calls Postgres and then streams its response. The platform
+ * mode runs requests on a pool of {@code platformThreads}, Tomcat's default maximum; the virtual mode starts one
+ * virtual thread per request. The request rate and p99 latency are reported as secondary results.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"2000"})
+    public int requests;
+
+    @Param({"200"})
+    public int platformThreads;
+
+    @Param({"20"})
+    public int poolSize;
+
+    @Param({"1"})
+    public int dbMillis;
+
+    @Param({"50"})
+    public int ioMillis;
+
+    private ExecutorService executor;
+
+    private Semaphore connections;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class RequestThroughput {
+
+        public long requests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requests = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RequestLatency {
+
+        private long p99Nanos;
+
+        private long bursts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            p99Nanos = 0;
+            bursts = 0;
+        }
+
+        /**
+         * Mean of the p99 request latency of every burst in the iteration, in milliseconds.
+         */
+        public double p99Millis() {
+            return bursts == 0 ? 0 : p99Nanos / (double) bursts / 1_000_000;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "virtual".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(platformThreads);
+        connections = new Semaphore(poolSize, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long burst(RequestThroughput throughput, RequestLatency latency) throws Exception {
+        long submitted = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        Future<Long>[] futures = new Future[requests];
+        for (int i = 0; i < requests; i++) {
+            futures[i] = executor.submit(() -> {
+                connections.acquire();
+                try {
+                    Thread.sleep(dbMillis);
+                } finally {
+                    connections.release();
+                }
+                Thread.sleep(ioMillis);
+                return System.nanoTime() - submitted;
+            });
+        }
+        long[] latencies = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            latencies[i] = futures[i].get();
+        }
+        Arrays.sort(latencies);
+        throughput.requests += requests;
+        latency.p99Nanos += latencies[(int) Math.ceil(requests * 0.99) - 1];
+        latency.bursts++;
+        return latencies[requests - 1];
+    }
+}
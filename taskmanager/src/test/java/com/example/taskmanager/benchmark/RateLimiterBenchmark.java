@@ -0,0 +1,59 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.ratelimit.RateLimiter;
+import com.example.taskmanager.ratelimit.TokenBucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rate limiter's cost on the request path: looking up a client's bucket and taking a token. Runs with several
+ * threads, both on a single hot client, where every thread contends for the same compare-and-set, and spread over
+ * many clients. The buckets are large enough that tokens are never exhausted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "100000"})
+    public int clients;
+
+    private RateLimiter rateLimiter;
+
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rateLimiter = new RateLimiter(Long.MAX_VALUE / 1_000_000_000L, 1_000_000_000, clients * 2L, System::nanoTime);
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "client-" + i;
+            rateLimiter.bucket(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean acquire() {
+        String key = keys[clients == 1 ? 0 : ThreadLocalRandom.current().nextInt(clients)];
+        TokenBucket bucket = rateLimiter.bucket(key);
+        return bucket.tryAcquire(System.nanoTime());
+    }
+}
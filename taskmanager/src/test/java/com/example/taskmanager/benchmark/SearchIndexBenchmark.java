@@ -0,0 +1,80 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.search.TaskSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the task search index. Titles and descriptions are drawn from a Zipf-like vocabulary,
+ * so the common terms have long postings lists as they would in real data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SearchIndexBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+
+    @Param({"100000", "1000000"})
+    public int tasks;
+
+    private TaskSearchIndex index;
+
+    private String[] words;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = "w" + Integer.toString(i, 36);
+        }
+        Random random = new Random(42);
+        index = new TaskSearchIndex();
+        for (long id = 1; id <= tasks; id++) {
+            index.index(new TaskSnapshot(id, 0L, text(random, 6), text(random, 20), "Pending", 1L, null, null, null));
+        }
+    }
+
+    @Benchmark
+    public List<Long> commonTerm() {
+        return index.search(words[0], 20);
+    }
+
+    @Benchmark
+    public List<Long> commonAndRareTerm() {
+        return index.search(words[1] + " " + words[5_000], 20);
+    }
+
+    @Benchmark
+    public List<Long> threeTerms() {
+        return index.search(words[2] + " " + words[40] + " " + words[300], 20);
+    }
+
+    private String text(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            // Approximately Zipf: low ranks are drawn far more often than high ones
+            int rank = (int) Math.floor(Math.pow(VOCABULARY, random.nextDouble())) - 1;
+            text.append(words[rank]).append(' ');
+        }
+        return text.toString();
+    }
+}
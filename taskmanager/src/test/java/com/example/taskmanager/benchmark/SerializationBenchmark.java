@@ -0,0 +1,99 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of tasks with their nested assignee, configured like the application's object mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectWriter taskWriter;
+
+    private ObjectWriter pageWriter;
+
+    private ObjectReader taskReader;
+
+    private Task task;
+
+    private CursorPage<Task> page;
+
+    private byte[] taskJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        taskWriter = objectMapper.writerFor(Task.class);
+        pageWriter = objectMapper.writerFor(CursorPage.class);
+        taskReader = objectMapper.readerFor(Task.class);
+
+        User user = new User();
+        user.setId(7L);
+        user.setVersion(3L);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setTimezone(TimeZone.getTimeZone("America/New_York"));
+        user.setIsActive(true);
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Task t = new Task();
+            t.setId((long) i);
+            t.setVersion(1L);
+            t.setTitle("Complete project documentation " + i);
+            t.setDescription("Finish the documentation for the task management project");
+            t.setStatus("In Progress");
+            t.setCreatedAt(LocalDateTime.of(2024, 8, 1, 10, 0));
+            t.setUpdatedAt(LocalDateTime.of(2024, 8, 2, 10, 0));
+            t.setTimezone(TimeZone.getTimeZone("Europe/Berlin"));
+            t.setAssignedTo(user);
+            tasks.add(t);
+        }
+        task = tasks.get(0);
+        page = new CursorPage<>(tasks, "MTcyMjUwNjQwMDAwMDo0OQ");
+        taskJson = taskWriter.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public byte[] serializeTask() throws IOException {
+        return taskWriter.writeValueAsBytes(task);
+    }
+
+    @Benchmark
+    public byte[] serializePageOf50() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Task deserializeTask() throws IOException {
+        return taskReader.readValue(taskJson);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import com.example.taskmanager.service.TaskService;
+import com.example.taskmanager.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-level hot paths through the full Spring stack: transactions, validation, events and the repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    private static final int TASKS = 10_000;
+
+    /**
+     * Which repositories back the service. {@code h2} is the JPA repositories on an embedded database, {@code memory}
+     * the in-memory repositories on the write-ahead log.
+     */
+    @Param({"h2", "memory"})
+    public String repositories;
+
+    private ConfigurableApplicationContext context;
+
+    private TaskService taskService;
+
+    private Long[] taskIds;
+
+    private Long userId;
+
+    private TimeZone timezone;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(profileOf(repositories));
+        taskService = context.getBean(TaskService.class);
+
+        User user = new User();
+        user.setFirstName("Bench");
+        user.setLastName("Mark");
+        user.setTimezone(TimeZone.getTimeZone("UTC"));
+        user.setIsActive(true);
+        userId = context.getBean(UserService.class).createUser(user).getId();
+        timezone = TimeZone.getTimeZone("Europe/Berlin");
+
+        taskIds = new Long[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            taskIds[i] = taskService.createTask(newTask("Task " + i), timezone).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Task createTask() {
+        return taskService.createTask(newTask("Benchmark task"), timezone);
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return taskService.getTaskById(randomTaskId());
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        return taskService.updateTask(randomTaskId(), newTask("Updated task"), timezone);
+    }
+
+    private Long randomTaskId() {
+        return taskIds[ThreadLocalRandom.current().nextInt(taskIds.length)];
+    }
+
+    private Task newTask(String title) {
+        User assignee = new User();
+        assignee.setId(userId);
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDescription("Created by the service benchmark");
+        task.setStatus("Pending");
+        task.setAssignedTo(assignee);
+        return task;
+    }
+
+    private static String[] profileOf(String repositories) {
+        return "h2".equals(repositories) ? new String[0] : new String[]{repositories};
+    }
+}
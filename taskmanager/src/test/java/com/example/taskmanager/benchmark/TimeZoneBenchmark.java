@@ -0,0 +1,57 @@
+package com.example.taskmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time zone handling done on every request: resolving the {@code timezone} parameter and taking the UTC time.
+ * Runs with several threads because {@link TimeZone#getTimeZone(String)} is synchronized.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TimeZoneBenchmark {
+
+    @Param({"UTC", "Europe/Berlin"})
+    public String timezone;
+
+    @Benchmark
+    public TimeZone timeZoneFromParameter() {
+        return TimeZone.getTimeZone(timezone);
+    }
+
+    @Benchmark
+    public ZoneId zoneIdFromParameter() {
+        return ZoneId.of(timezone);
+    }
+
+    @Benchmark
+    public LocalDateTime nowUtcViaZoneId() {
+        return ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime();
+    }
+
+    @Benchmark
+    public LocalDateTime nowUtcViaOffset() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
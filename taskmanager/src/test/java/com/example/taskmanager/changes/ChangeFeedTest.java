@@ -0,0 +1,200 @@
+package com.example.taskmanager.changes;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.example.taskmanager.dto.ChangeBatch;
+import com.example.taskmanager.entity.ChangeRecord;
+import com.example.taskmanager.exception.ChangeFeedExpiredException;
+import com.example.taskmanager.repository.ChangeRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+public class ChangeFeedTest {
+
+    private static final Instant NOW = Instant.parse("2024-09-01T12:00:00Z");
+
+    @Mock
+    private ChangeRecordRepository changeRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ChangeFeed changeFeed;
+
+    /**
+     * The committed rows of the outbox.
+     */
+    private final TreeMap<Long, ChangeRecord> outbox = new TreeMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(changeFeed, "bufferSize", 4);
+        ReflectionTestUtils.setField(changeFeed, "gapTimeout", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(changeFeed, "pollInterval", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(changeFeed, "gapLookback", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(changeFeed, "retention", Duration.ofDays(7));
+        changeFeed.clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        when(changeRecordRepository.findMaxSeq()).thenReturn(Optional.of(10L));
+        when(changeRecordRepository.findMinSeq()).thenReturn(Optional.of(1L));
+        when(changeRecordRepository.findAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> rows(
+                invocation.getArgument(0), Long.MAX_VALUE, invocation.getArgument(1)));
+        when(changeRecordRepository.findBetween(anyLong(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> rows(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+        when(changeRecordRepository.findBySeqIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> seqs = invocation.getArgument(0);
+            return seqs.stream().sorted().map(outbox::get).filter(change -> change != null).toList();
+        });
+        doAnswer(invocation -> outbox.remove(invocation.<Long>getArgument(0))).when(changeRecordRepository).deleteById(anyLong());
+        // The sequence hands out the next number after every one taken so far
+        when(changeRecordRepository.save(any(ChangeRecord.class))).thenAnswer(invocation -> {
+            ChangeRecord change = invocation.getArgument(0);
+            change.setSeq(outbox.lastKey() + 1);
+            outbox.put(change.getSeq(), change);
+            return change;
+        });
+        for (long seq = 1; seq <= 10; seq++) {
+            commit(seq);
+        }
+        changeFeed.initialize();
+    }
+
+    private List<ChangeRecord> rows(long after, long upTo, Pageable pageable) {
+        return new ArrayList<>(outbox.subMap(after, false, upTo, true).values()).stream()
+                .limit(pageable.getPageSize()).toList();
+    }
+
+    private void commit(long seq) {
+        commit(seq, seq * 100);
+    }
+
+    private void commit(long seq, long entityId) {
+        ChangeRecord change = new ChangeRecord();
+        change.setSeq(seq);
+        change.setEntity(ChangeRecord.TASK);
+        change.setEntityId(entityId);
+        change.setType("UPDATED");
+        outbox.put(seq, change);
+    }
+
+    private static List<Long> seqs(ChangeBatch batch) {
+        return batch.getChanges().stream().map(ChangeRecord::getSeq).toList();
+    }
+
+    @Test
+    public void testNewChangesAreServedFromTheRing() {
+        commit(11);
+        commit(12);
+        changeFeed.poll();
+        clearInvocations(changeRecordRepository);
+
+        ChangeBatch batch = changeFeed.changesAfter(10, 100);
+
+        assertEquals(List.of(11L, 12L), seqs(batch));
+        assertEquals(12, batch.getLast());
+        assertEquals(List.of(12L), seqs(changeFeed.changesAfter(11, 100)));
+        assertEquals(List.of(11L), seqs(changeFeed.changesAfter(10, 1)));
+        assertEquals(List.of(), seqs(changeFeed.changesAfter(12, 100)));
+        verifyNoInteractions(changeRecordRepository);
+    }
+
+    @Test
+    public void testChangesOlderThanTheRingAreReadFromTheOutbox() {
+        for (long seq = 11; seq <= 16; seq++) {
+            commit(seq);
+        }
+        changeFeed.poll();
+        clearInvocations(changeRecordRepository);
+
+        // The ring holds four changes, 13 to 16, and serves those after the oldest
+        assertEquals(List.of(14L, 15L, 16L), seqs(changeFeed.changesAfter(13, 100)));
+        verifyNoInteractions(changeRecordRepository);
+
+        assertEquals(List.of(13L, 14L), seqs(changeFeed.changesAfter(12, 2)));
+        assertEquals(List.of(6L, 7L, 8L), seqs(changeFeed.changesAfter(5, 3)));
+        verify(changeRecordRepository).findBetween(eq(12L), eq(16L), any(Pageable.class));
+        verify(changeRecordRepository).findBetween(eq(5L), eq(16L), any(Pageable.class));
+    }
+
+    @Test
+    public void testGapIsWaitedForThenSkipped() {
+        commit(11);
+        commit(13);
+        changeFeed.poll();
+        assertEquals(11, changeFeed.lastSeq());
+
+        // The transaction that took 12 commits within the timeout
+        commit(12);
+        changeFeed.poll();
+        assertEquals(13, changeFeed.lastSeq());
+
+        // 14 rolled back and never shows up
+        commit(15);
+        changeFeed.poll();
+        assertEquals(13, changeFeed.lastSeq());
+        changeFeed.clock = Clock.fixed(NOW.plusSeconds(2), ZoneOffset.UTC);
+        changeFeed.poll();
+        assertEquals(15, changeFeed.lastSeq());
+        assertEquals(List.of(11L, 12L, 13L, 15L), seqs(changeFeed.changesAfter(10, 100)));
+    }
+
+    @Test
+    public void testChangeCommittedAfterTheGapTimeoutIsPublishedAtTheEnd() {
+        commit(11);
+        commit(13);
+        changeFeed.poll();
+        changeFeed.clock = Clock.fixed(NOW.plusSeconds(2), ZoneOffset.UTC);
+        changeFeed.poll();
+        assertEquals(13, changeFeed.lastSeq());
+        long readerPosition = changeFeed.lastSeq();
+
+        // The transaction that took 12 commits long after the relay moved past it, followed by another one
+        commit(12, 1200);
+        commit(14);
+        changeFeed.clock = Clock.fixed(NOW.plusSeconds(5), ZoneOffset.UTC);
+        changeFeed.poll();
+
+        List<ChangeRecord> changes = changeFeed.changesAfter(readerPosition, 100).getChanges();
+        assertEquals(List.of(14L, 15L), changes.stream().map(ChangeRecord::getSeq).toList());
+        assertEquals(1200L, changes.get(1).getEntityId());
+        assertFalse(outbox.containsKey(12L));
+        assertEquals(15, changeFeed.lastSeq());
+
+        // It is only moved once
+        changeFeed.clock = Clock.fixed(NOW.plusSeconds(10), ZoneOffset.UTC);
+        changeFeed.poll();
+        assertEquals(15, changeFeed.lastSeq());
+        verify(changeRecordRepository, times(1)).save(any(ChangeRecord.class));
+    }
+
+    @Test
+    public void testPurgedPositionIsGone() {
+        when(changeRecordRepository.findMaxSeqBefore(any())).thenReturn(Optional.of(5L));
+        when(changeRecordRepository.deleteUpTo(5L)).thenReturn(5);
+
+        changeFeed.purge();
+
+        assertThrows(ChangeFeedExpiredException.class, () -> changeFeed.changesAfter(4, 100));
+        assertEquals(List.of(6L), seqs(changeFeed.changesAfter(5, 1)));
+        verify(changeRecordRepository).deleteUpTo(5L);
+    }
+}
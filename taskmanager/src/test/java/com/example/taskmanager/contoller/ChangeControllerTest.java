@@ -0,0 +1,88 @@
+package com.example.taskmanager.contoller;
+
+import com.example.taskmanager.controller.ChangeController;
+import com.example.taskmanager.dto.ChangeBatch;
+import com.example.taskmanager.entity.ChangeRecord;
+import com.example.taskmanager.exception.ChangeFeedExpiredException;
+import com.example.taskmanager.exception.GlobalExceptionHandler;
+import com.example.taskmanager.service.ChangeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class ChangeControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ChangeService changeService;
+
+    @InjectMocks
+    private ChangeController changeController;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(changeController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    public void testGetChanges() throws Exception {
+        ChangeRecord change = new ChangeRecord();
+        change.setSeq(42L);
+        change.setEntity(ChangeRecord.TASK);
+        change.setEntityId(7L);
+        change.setType("UPDATED");
+        change.setData("{\"id\":7,\"status\":\"Completed\"}");
+
+        when(changeService.getChanges(41L, 100)).thenReturn(new ChangeBatch(List.of(change), 42L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/changes").param("since", "41"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.last").value(42))
+                .andExpect(jsonPath("$.changes[0].entityId").value(7))
+                .andExpect(jsonPath("$.changes[0].data.status").value("Completed"));
+    }
+
+    @Test
+    public void testGetExpiredChanges() throws Exception {
+        when(changeService.getChanges(1L, 100)).thenThrow(new ChangeFeedExpiredException("Changes after 1 are no longer retained"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/changes").param("since", "1"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    public void testStreamResumesFromLastEventId() throws Exception {
+        when(changeService.streamChanges(17L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/changes/stream")
+                        .param("since", "3")
+                        .header("Last-Event-ID", "17"))
+                .andExpect(request().asyncStarted());
+
+        verify(changeService).streamChanges(17L);
+    }
+
+    @Test
+    public void testStreamRejectsInvalidLastEventId() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/changes/stream")
+                        .header("Last-Event-ID", "abc"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(changeService);
+    }
+}
@@ -1,26 +1,46 @@
 package com.example.taskmanager.contoller;
 
 import com.example.taskmanager.controller.TaskController;
+import com.example.taskmanager.dto.BulkItemResult;
+import com.example.taskmanager.dto.BulkResult;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.ImportJob;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.dto.TaskTransition;
 import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.imports.TaskImportReader;
 import com.example.taskmanager.exception.TaskNotFoundException;
 import com.example.taskmanager.service.TaskService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 public class TaskControllerTest {
@@ -30,6 +50,9 @@ public class TaskControllerTest {
     @Mock
     private TaskService taskService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private TaskController taskController;
 
@@ -73,6 +96,78 @@ public class TaskControllerTest {
     }
 
 
+    @Test
+    public void testBulkUpsertTasks() throws Exception {
+        Task task1 = new Task();
+        task1.setTitle("Task 1");
+        Task task2 = new Task();
+        task2.setTitle("");
+
+        BulkResult result = BulkResult.of(Arrays.asList(
+                BulkItemResult.created(0, 10L),
+                BulkItemResult.failed(1, null, "Title is mandatory")));
+        when(taskService.bulkUpsertTasks(anyList(), isNull())).thenReturn(result);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/tasks/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(Arrays.asList(task1, task2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(10L))
+                .andExpect(jsonPath("$.items[1].error").value("Title is mandatory"));
+    }
+
+    @Test
+    public void testImportTasksFromCsv() throws Exception {
+        ImportJob job = new ImportJob();
+        job.setId("job-1");
+        job.setStatus(ImportJob.Status.COMPLETED);
+        job.setRead(2);
+        job.setCreated(1);
+        job.setFailed(1);
+        job.getFailures().add(BulkItemResult.failed(1, null, "Title is mandatory"));
+        List<String> titles = new ArrayList<>();
+        List<String> sentBeforeReading = new ArrayList<>();
+        when(taskService.importTasks(any(TaskImportReader.class), any())).thenAnswer(invocation -> {
+            TaskImportReader reader = invocation.getArgument(0);
+            Consumer<ImportJob> onStart = invocation.getArgument(1);
+            onStart.accept(job);
+            HttpServletResponse response = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getResponse();
+            sentBeforeReading.add(response.isCommitted() + " " + response.getStatus() + " " + response.getHeader("Location"));
+            for (TaskImportReader.Row row = reader.next(); row != null; row = reader.next()) {
+                titles.add(row.task().getTitle());
+            }
+            return job;
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/tasks/imports")
+                        .contentType("text/csv")
+                        .content("title,assigneeId\nFirst,2\n,2\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/tasks/imports/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failures[0].index").value(1));
+
+        assertEquals(Arrays.asList("First", null), titles);
+        assertEquals(List.of("true 202 /api/tasks/imports/job-1"), sentBeforeReading);
+    }
+
+    @Test
+    public void testGetImportJob() throws Exception {
+        ImportJob job = new ImportJob();
+        job.setId("job-1");
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setRead(500);
+        when(taskService.getImportJob("job-1")).thenReturn(job);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/imports/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.read").value(500));
+    }
+
     @Test
     public void testCreateTaskWithInvalidData() throws Exception {
         Task task = new Task();
@@ -96,13 +191,127 @@ public class TaskControllerTest {
 
         List<Task> tasks = Arrays.asList(task1, task2);
 
-        when(taskService.getAllTasks()).thenReturn(tasks);
+        when(taskService.getTasksPage(TaskFilter.none(), null, 50)).thenReturn(new CursorPage<>(tasks, "next-cursor"));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("Task 1"))
-                .andExpect(jsonPath("$[1].title").value("Task 2"));
+                .andExpect(jsonPath("$.items[0].title").value("Task 1"))
+                .andExpect(jsonPath("$.items[1].title").value("Task 2"))
+                .andExpect(jsonPath("$.next").value("next-cursor"));
+    }
+
+    @Test
+    public void testGetAllTasksWithCursorAndLimit() throws Exception {
+        Task task = new Task();
+        task.setId(3L);
+        task.setTitle("Task 3");
+
+        when(taskService.getTasksPage(TaskFilter.none(), "abc", 1)).thenReturn(new CursorPage<>(List.of(task), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("cursor", "abc")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Task 3"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    public void testGetAllTasksWithFilters() throws Exception {
+        Task task = new Task();
+        task.setId(3L);
+        task.setTitle("Task 3");
+
+        TaskFilter filter = new TaskFilter("Pending", 2L, LocalDateTime.of(2024, 8, 1, 0, 0), LocalDateTime.of(2024, 8, 2, 12, 30), null);
+        when(taskService.getTasksPage(filter, null, 50)).thenReturn(new CursorPage<>(List.of(task), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("status", "Pending")
+                        .param("assignee", "2")
+                        .param("createdFrom", "2024-08-01T00:00:00")
+                        .param("updatedSince", "2024-08-02T12:30:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Task 3"));
+    }
+
+    @Test
+    public void testGetTaskSummaries() throws Exception {
+        TaskSummary summary = new TaskSummary(1L, "Task 1", "Pending", null, null, 2L);
+
+        when(taskService.getTaskSummariesPage(null, 50)).thenReturn(new CursorPage<>(List.of(summary), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/summaries")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Task 1"))
+                .andExpect(jsonPath("$.items[0].assignedToId").value(2L))
+                .andExpect(jsonPath("$.items[0].assignedTo").doesNotExist());
+    }
+
+    @Test
+    public void testGetTaskStats() throws Exception {
+        TaskStats stats = new TaskStats(3, Map.of("Pending", 2L, "Completed", 1L), Map.of(2L, Map.of("Pending", 2L)), null);
+
+        when(taskService.getTaskStats()).thenReturn(stats);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.byStatus.Pending").value(2))
+                .andExpect(jsonPath("$.byAssignee.2.Pending").value(2));
+    }
+
+    @Test
+    public void testSearchTasks() throws Exception {
+        Task task = new Task();
+        task.setId(4L);
+        task.setTitle("Write release notes");
+
+        when(taskService.searchTasks("release notes", 20)).thenReturn(List.of(task));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/search")
+                        .param("q", "release notes")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4L))
+                .andExpect(jsonPath("$[0].title").value("Write release notes"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportTasksAsNdjson() throws Exception {
+        Task task1 = new Task();
+        task1.setId(1L);
+        task1.setTitle("Task 1");
+
+        Task task2 = new Task();
+        task2.setId(2L);
+        task2.setTitle("Task 2");
+
+        doAnswer(invocation -> {
+            Consumer<Task> action = invocation.getArgument(0);
+            action.accept(task1);
+            action.accept(task2);
+            return null;
+        }).when(taskService).exportTasks(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Task 1", objectMapper.readTree(lines[0]).get("title").asText());
+        assertEquals("Task 2", objectMapper.readTree(lines[1]).get("title").asText());
     }
 
     @Test
@@ -121,6 +330,70 @@ public class TaskControllerTest {
     }
 
 
+    @Test
+    public void testGetTaskByIdReturnsETag() throws Exception {
+        Task task = new Task();
+        task.setId(1L);
+        task.setVersion(3L);
+        task.setTitle("Sample Task");
+
+        when(taskService.getTaskById(1L)).thenReturn(task);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    public void testGetTaskByIdNotModified() throws Exception {
+        when(taskService.getTaskVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/1")
+                        .header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(taskService, never()).getTaskById(anyLong());
+    }
+
+    @Test
+    public void testGetTaskByIdModifiedSinceETag() throws Exception {
+        Task task = new Task();
+        task.setId(1L);
+        task.setVersion(4L);
+        task.setTitle("Sample Task");
+
+        when(taskService.getTaskVersion(1L)).thenReturn(4L);
+        when(taskService.getTaskById(1L)).thenReturn(task);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/1")
+                        .header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.title").value("Sample Task"));
+    }
+
+    @Test
+    public void testUpdateTaskWithIfMatch() throws Exception {
+        Task updatedTask = new Task();
+        updatedTask.setTitle("New Title");
+        updatedTask.setVersion(4L);
+
+        when(taskService.updateTaskIfVersion(eq(1L), any(Task.class), isNull(), eq(3L))).thenReturn(updatedTask);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/tasks/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updatedTask)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.title").value("New Title"));
+
+        verify(taskService, never()).updateTask(anyLong(), any(Task.class), any());
+    }
+
     @Test
     public void testUpdateTaskWithValidDataAndTimezone() throws Exception {
         Task updatedTask = new Task();
@@ -169,5 +442,70 @@ public class TaskControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    public void testDeleteTasksByFilter() throws Exception {
+        TaskFilter filter = new TaskFilter("Completed", 2L, null, null, LocalDateTime.of(2024, 8, 1, 0, 0));
+        when(taskService.deleteTasks(filter)).thenReturn(12);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/tasks")
+                        .param("status", "Completed")
+                        .param("assignee", "2")
+                        .param("before", "2024-08-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(12));
+    }
+
+    @Test
+    public void testTransitionTasks() throws Exception {
+        when(taskService.transitionTasks(new TaskTransition("In Progress", "Completed", 2L))).thenReturn(3);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/tasks/transition")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"from\":\"In Progress\",\"to\":\"Completed\",\"assignee\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+    }
+
+    @Test
+    public void testTransitionTasksRejectsInvalidStatus() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/tasks/transition")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"from\":\"In Progress\",\"to\":\"Done\"}"))
+                .andExpect(status().isBadRequest());
 
+        verify(taskService, never()).transitionTasks(any());
+    }
+
+    @Test
+    public void testPatchTask() throws Exception {
+        Task patchedTask = new Task();
+        patchedTask.setId(1L);
+        patchedTask.setTitle("Task 1");
+        patchedTask.setStatus("Completed");
+        patchedTask.setVersion(5L);
+
+        when(taskService.patchTask(1L, Map.of("status", "Completed"), 4L)).thenReturn(patchedTask);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/tasks/1")
+                        .header("If-Match", "\"4\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":\"Completed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""))
+                .andExpect(jsonPath("$.status").value("Completed"));
+    }
+
+    @Test
+    public void testPatchTaskReturnMinimal() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/tasks/1")
+                        .header("Prefer", "return=minimal")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":\"Completed\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(content().string(""));
+
+        verify(taskService).patchTaskWithoutLoading(1L, Map.of("status", "Completed"), null);
+        verify(taskService, never()).patchTask(anyLong(), any(), any());
+    }
 }
@@ -1,7 +1,10 @@
 package com.example.taskmanager.contoller;
 
 import com.example.taskmanager.controller.UserController;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.TaskSummary;
 import com.example.taskmanager.entity.User;
+import com.example.taskmanager.service.TaskService;
 import com.example.taskmanager.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,8 +17,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,6 +32,9 @@ public class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private TaskService taskService;
+
     @InjectMocks
     private UserController userController;
 
@@ -52,6 +60,33 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.lastName").value("Doe"));
     }
 
+    @Test
+    public void testDeactivateUser_ReturnsReassignedCount() throws Exception {
+        when(userService.deactivateUser(1L, 2L)).thenReturn(42);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/users/1/deactivate")
+                        .param("reassignTo", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(42));
+    }
+
+    @Test
+    public void testGetUserTasks_Success() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 8, 1, 10, 0);
+        TaskSummary summary = new TaskSummary(7L, "Write report", "Pending", updatedAt, updatedAt, 1L);
+        when(taskService.getUserTaskSummariesPage(1L, "Pending", null, 20))
+                .thenReturn(new CursorPage<>(List.of(summary), "next-cursor"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/1/tasks")
+                        .param("status", "Pending")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(7))
+                .andExpect(jsonPath("$.items[0].assignedToId").value(1))
+                .andExpect(jsonPath("$.items[0].assignedTo").doesNotExist())
+                .andExpect(jsonPath("$.next").value("next-cursor"));
+    }
+
     @Test
     public void testGetAllUsers_Success() throws Exception {
         User user1 = new User();
@@ -90,6 +125,41 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.lastName").value("Doe"));
     }
 
+    @Test
+    public void testGetUserById_NotModified() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setVersion(2L);
+
+        when(userService.getUserById(1L)).thenReturn(user);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/users/1")
+                        .header("If-None-Match", "\"2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testUpdateUser_WithIfMatch() throws Exception {
+        User updatedUser = new User();
+        updatedUser.setFirstName("Johnny");
+        updatedUser.setLastName("Doe");
+        updatedUser.setVersion(3L);
+
+        when(userService.updateUserIfVersion(eq(1L), any(User.class), eq(2L))).thenReturn(updatedUser);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/users/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(updatedUser)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.firstName").value("Johnny"));
+
+        verify(userService, never()).updateUser(anyLong(), any(User.class));
+    }
+
     @Test
     public void testUpdateUser_Success() throws Exception {
         User updatedUser = new User();
@@ -114,5 +184,35 @@ public class UserControllerTest {
                 .andExpect(status().isNoContent());
     }
 
-}
+    @Test
+    public void testPatchUser_ReturnsPatchedUser() throws Exception {
+        User patchedUser = new User();
+        patchedUser.setFirstName("John");
+        patchedUser.setLastName("Smith");
+        patchedUser.setVersion(4L);
+
+        when(userService.patchUser(1L, Map.of("lastName", "Smith"), null)).thenReturn(patchedUser);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/users/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"lastName\":\"Smith\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.lastName").value("Smith"));
+    }
 
+    @Test
+    public void testPatchUser_ReturnMinimalSkipsLoading() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/users/1")
+                        .header("If-Match", "\"2\"")
+                        .header("Prefer", "return=minimal")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"isActive\":false}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().string("Preference-Applied", "return=minimal"));
+
+        verify(userService).patchUserWithoutLoading(1L, Map.of("isActive", false), 2L);
+        verify(userService, never()).patchUser(anyLong(), any(), any());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.taskmanager.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes between two embedded databases standing in for the primary and a replica. Each holds one row naming it, and
+ * the replica reports the lag stored in its {@code replica_lag} table.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWrite;
+
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        new JdbcTemplate(replica).execute("INSERT INTO replica_lag VALUES (0)");
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), Duration.ofSeconds(1),
+                "SELECT seconds FROM replica_lag");
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + "-" + UUID.randomUUID())
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE node (name VARCHAR(20))");
+        new JdbcTemplate(database).update("INSERT INTO node VALUES (?)", name);
+        return database;
+    }
+
+    private String node(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    public void testReadOnlyTransactionsGoToTheReplica() {
+        routingDataSource.checkReplicas();
+
+        assertEquals("replica", node(readOnly));
+        assertEquals("primary", node(readWrite));
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    public void testReplicaIsNotUsedUntilCheckedOrWhileItLags() {
+        assertEquals("primary", node(readOnly));
+
+        routingDataSource.checkReplicas();
+        assertEquals("replica", node(readOnly));
+
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = 5");
+        routingDataSource.checkReplicas();
+        assertEquals(5.0, routingDataSource.replicas().get(0).lagSeconds());
+        assertEquals("primary", node(readOnly));
+
+        new JdbcTemplate(replica).execute("DROP TABLE replica_lag");
+        routingDataSource.checkReplicas();
+        assertTrue(Double.isNaN(routingDataSource.replicas().get(0).lagSeconds()));
+        assertEquals("primary", node(readOnly));
+    }
+
+    @Test
+    public void testRequestReadsItsOwnWrites() {
+        routingDataSource.checkReplicas();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertEquals("replica", node(readOnly));
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = 'primary'"));
+        assertEquals("primary", node(readOnly));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("replica", node(readOnly));
+    }
+
+    @Test
+    public void testPinnedReadsGoToThePrimary() {
+        routingDataSource.checkReplicas();
+
+        assertEquals("primary", ReplicaRoutingDataSource.onPrimary(() -> node(readOnly)));
+        assertEquals("replica", node(readOnly));
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.taskmanager.deadline;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.example.taskmanager.changes.ChangeFeed;
+import com.example.taskmanager.changes.ChangeOutbox;
+import com.example.taskmanager.dto.TaskDue;
+import com.example.taskmanager.entity.ChangeRecord;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskDeadlineEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.event.TasksChangedInBulkEvent;
+import com.example.taskmanager.event.UserChangedEvent;
+import com.example.taskmanager.repository.ChangeRecordRepository;
+import com.example.taskmanager.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.TimeZone;
+
+public class TaskDeadlineSchedulerTest {
+
+    private static final Instant START = Instant.parse("2024-09-01T12:00:00Z");
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private TaskDeadlineScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(scheduler, "tick", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(scheduler, "window", Duration.ofHours(12));
+        ReflectionTestUtils.setField(scheduler, "reminderLead", Duration.ofHours(1));
+        scheduler.clock = Clock.fixed(START, ZoneOffset.UTC);
+    }
+
+    private static TaskDue due(long id, Instant due) {
+        return new TaskDue(id, LocalDateTime.ofInstant(due, ZoneOffset.UTC), null, TimeZone.getTimeZone("UTC"), 7L);
+    }
+
+    private static TaskSnapshot snapshot(long id, String status, Instant due) {
+        return new TaskSnapshot(id, 0L, "Task " + id, null, status, 7L, null, null, due);
+    }
+
+    private void advanceTo(Instant now) {
+        scheduler.clock = Clock.fixed(now, ZoneOffset.UTC);
+        scheduler.tick();
+    }
+
+    private List<TaskDeadlineEvent> published() {
+        ArgumentCaptor<TaskDeadlineEvent> events = ArgumentCaptor.forClass(TaskDeadlineEvent.class);
+        verify(eventPublisher, atLeast(0)).publishEvent(events.capture());
+        return events.getAllValues();
+    }
+
+    @Test
+    public void testLoadedDeadlineRemindsThenFiresOverdue() {
+        Instant dueAt = START.plus(Duration.ofHours(3));
+        when(taskRepository.findDueBetween(any(), any())).thenReturn(List.of(
+                due(1L, dueAt), due(2L, START.plus(Duration.ofHours(13)))));
+        when(taskRepository.findDueByIdIn(anyCollection())).thenReturn(List.of(due(1L, dueAt)));
+        scheduler.start();
+
+        assertEquals(1, scheduler.scheduled());
+        advanceTo(dueAt.minus(Duration.ofHours(1)).minusSeconds(1));
+        assertEquals(List.of(), published());
+
+        advanceTo(dueAt.minus(Duration.ofHours(1)));
+        assertEquals(List.of(new TaskDeadlineEvent(TaskDeadlineEvent.Type.REMINDER, 1L, 7L, dueAt)), published());
+
+        advanceTo(dueAt);
+        assertEquals(new TaskDeadlineEvent(TaskDeadlineEvent.Type.OVERDUE, 1L, 7L, dueAt), published().get(1));
+        assertEquals(0, scheduler.scheduled());
+    }
+
+    @Test
+    public void testChangesScheduleAndCancelWithoutQueries() {
+        when(taskRepository.findDueBetween(any(), any())).thenReturn(List.of());
+        scheduler.start();
+        Instant dueAt = START.plus(Duration.ofMinutes(30));
+
+        scheduler.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 1L, null, snapshot(1L, "Pending", dueAt)));
+        scheduler.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 2L, null, snapshot(2L, "Pending", dueAt)));
+        scheduler.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 3L, null,
+                snapshot(3L, "Pending", START.plus(Duration.ofDays(2)))));
+        assertEquals(2, scheduler.scheduled());
+
+        scheduler.onTaskChanged(TaskChangedEvent.updated(snapshot(1L, "Pending", dueAt), taskCompleted()));
+        scheduler.onTaskChanged(TaskChangedEvent.deleted(snapshot(2L, "Pending", dueAt)));
+
+        assertEquals(0, scheduler.scheduled());
+        verify(taskRepository, never()).findDueByIdIn(anyCollection());
+    }
+
+    @Test
+    public void testDueDateChangedBehindTheSchedulersBackIsRescheduled() {
+        Instant dueAt = START.plus(Duration.ofMinutes(30));
+        Instant movedTo = dueAt.plus(Duration.ofMinutes(10));
+        when(taskRepository.findDueBetween(any(), any())).thenReturn(List.of(due(1L, dueAt)));
+        when(taskRepository.findDueByIdIn(anyCollection())).thenReturn(List.of(due(1L, movedTo)));
+        scheduler.start();
+
+        advanceTo(dueAt);
+        assertEquals(List.of(), published());
+        assertEquals(1, scheduler.scheduled());
+
+        advanceTo(movedTo);
+        assertEquals(List.of(new TaskDeadlineEvent(TaskDeadlineEvent.Type.OVERDUE, 1L, 7L, movedTo)), published());
+    }
+
+    @Test
+    public void testPatchWithoutStateIsLookedUpOnNextTick() {
+        Instant dueAt = START.plus(Duration.ofHours(2));
+        when(taskRepository.findDueBetween(any(), any())).thenReturn(List.of());
+        when(taskRepository.findDueByIdIn(List.of(1L))).thenReturn(List.of(due(1L, dueAt)));
+        scheduler.start();
+
+        scheduler.onTaskChanged(TaskChangedEvent.changed(1L));
+        assertEquals(0, scheduler.scheduled());
+
+        advanceTo(START.plusSeconds(1));
+        assertEquals(1, scheduler.scheduled());
+    }
+
+    @Test
+    public void testAssigneeTimeZoneChangeMovesLoadedDeadlineEarlier() {
+        LocalDateTime dueAt = LocalDateTime.ofInstant(START.plus(Duration.ofHours(5)), ZoneOffset.UTC);
+        TimeZone berlin = TimeZone.getTimeZone("Europe/Berlin");
+        when(taskRepository.findDueBetween(any(), any())).thenReturn(List.of(
+                new TaskDue(1L, dueAt, null, TimeZone.getTimeZone("UTC"), 7L)));
+        scheduler.start();
+
+        // Berlin is two hours ahead in September, so the wall-clock due date now comes two hours earlier
+        TaskDue moved = new TaskDue(1L, dueAt, null, berlin, 7L);
+        when(taskRepository.findDueOfAssigneeBetween(eq(7L), any(), any())).thenReturn(List.of(moved));
+        when(taskRepository.findDueByIdIn(anyCollection())).thenReturn(List.of(moved));
+        scheduler.onUserChanged(UserChangedEvent.changed(7L));
+
+        advanceTo(START.plusSeconds(1));
+        advanceTo(START.plus(Duration.ofHours(2)));
+        assertEquals(List.of(new TaskDeadlineEvent(TaskDeadlineEvent.Type.REMINDER, 1L, 7L, moved.due())), published());
+    }
+
+    @Test
+    public void testReassignedTasksAreRescheduledForTheirNewAssignee() {
+        Instant dueAt = START.plus(Duration.ofHours(5));
+        Instant earlier = START.plus(Duration.ofMinutes(30));
+        when(taskRepository.findDueBetween(any(), any())).thenReturn(List.of(due(1L, dueAt)));
+        scheduler.start();
+
+        when(taskRepository.findDueOfAssigneeBetween(eq(7L), any(), any())).thenReturn(List.of(due(1L, earlier)));
+        when(taskRepository.findDueByIdIn(anyCollection())).thenReturn(List.of(due(1L, earlier)));
+        scheduler.onTasksChangedInBulk(new TasksChangedInBulkEvent(1, 7L));
+
+        advanceTo(START.plusSeconds(1));
+        advanceTo(earlier);
+        assertEquals(List.of(new TaskDeadlineEvent(TaskDeadlineEvent.Type.OVERDUE, 1L, 7L, earlier)), published());
+    }
+
+    @Test
+    public void testOverdueTaskReachesTheChangeOutbox() {
+        Instant dueAt = START.plus(Duration.ofMinutes(30));
+        when(taskRepository.findDueBetween(any(), any())).thenReturn(List.of(due(1L, dueAt)));
+        when(taskRepository.findDueByIdIn(anyCollection())).thenReturn(List.of(due(1L, dueAt)));
+        ChangeRecordRepository changeRecordRepository = mock(ChangeRecordRepository.class);
+        ChangeFeed changeFeed = mock(ChangeFeed.class);
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getBeanFactory().registerSingleton("changeRecordRepository", changeRecordRepository);
+            context.getBeanFactory().registerSingleton("changeFeed", changeFeed);
+            context.getBeanFactory().registerSingleton("objectMapper", new ObjectMapper().findAndRegisterModules());
+            context.register(ChangeOutbox.class);
+            context.refresh();
+            ReflectionTestUtils.setField(scheduler, "eventPublisher", context);
+            scheduler.start();
+
+            advanceTo(dueAt.plusSeconds(1));
+        }
+
+        ArgumentCaptor<List<ChangeRecord>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(changeRecordRepository).insertAll(inserted.capture());
+        ChangeRecord change = inserted.getValue().get(0);
+        assertEquals(ChangeRecord.TASK, change.getEntity());
+        assertEquals(1L, change.getEntityId());
+        assertEquals("OVERDUE", change.getType());
+        assertTrue(change.getData().contains("\"assigneeId\":7"));
+        verify(changeFeed).wakeUp();
+    }
+
+    private static Task taskCompleted() {
+        Task task = new Task();
+        task.setId(1L);
+        task.setStatus("Completed");
+        task.setDueAt(LocalDateTime.ofInstant(START.plus(Duration.ofMinutes(30)), ZoneOffset.UTC));
+        return task;
+    }
+}
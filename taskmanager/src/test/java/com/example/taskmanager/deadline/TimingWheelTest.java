@@ -0,0 +1,96 @@
+package com.example.taskmanager.deadline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    private static List<Long> keys(List<TimingWheel.Timer<String>> timers) {
+        return timers.stream().map(TimingWheel.Timer::key).toList();
+    }
+
+    @Test
+    public void testTimersExpireAtTheirTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule(1L, 3_000, "a");
+        wheel.schedule(2L, 1_500, "b");
+
+        assertEquals(List.of(), keys(wheel.advance(1_999)));
+        assertEquals(List.of(2L), keys(wheel.advance(2_000)));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(1L), keys(wheel.advance(3_000)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelAndReplace() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.schedule(1L, 5_000, "a");
+        wheel.schedule(2L, 5_000, "b");
+        assertTrue(wheel.cancel(1L));
+        assertFalse(wheel.cancel(1L));
+        wheel.schedule(2L, 9_000, "c");
+        assertFalse(wheel.scheduleIfAbsent(2L, 1_000, "d"));
+
+        assertEquals(List.of(), keys(wheel.advance(8_000)));
+        List<TimingWheel.Timer<String>> expired = wheel.advance(9_000);
+        assertEquals(List.of(2L), keys(expired));
+        assertEquals("c", expired.get(0).value());
+    }
+
+    @Test
+    public void testPastDeadlineExpiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 10_000);
+        wheel.schedule(1L, 2_000, "a");
+
+        assertEquals(List.of(1L), keys(wheel.advance(11_000)));
+    }
+
+    @Test
+    public void testTimersCascadeThroughEveryLevelAndOverflow() {
+        long start = 123_456_789L * TICK;
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, start);
+        long span = 1L << (TimingWheel.SLOT_BITS * TimingWheel.LEVELS);
+        long[] delays = {1, 63, 64, 65, 4_095, 4_096, 262_143, 262_144, span - 1, span, span * 3 + 7};
+        for (int i = 0; i < delays.length; i++) {
+            wheel.schedule(i, start + delays[i] * TICK, "t" + i);
+        }
+
+        for (int i = 0; i < delays.length; i++) {
+            long due = start + delays[i] * TICK;
+            assertEquals(List.of(), keys(wheel.advance(due - TICK)), "before " + delays[i]);
+            assertEquals(List.of((long) i), keys(wheel.advance(due)), "at " + delays[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRandomTimersExpireInOrder() {
+        Random random = new Random(42);
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        long[] deadlines = new long[10_000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = (1 + random.nextInt(500_000)) * TICK;
+            wheel.schedule(i, deadlines[i], null);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 500_000 * TICK; now += 7_777 * TICK) {
+            for (TimingWheel.Timer<String> timer : wheel.advance(now)) {
+                long deadline = deadlines[(int) timer.key()];
+                assertTrue(deadline <= now && deadline > now - 7_777 * TICK, "timer fired outside its step");
+                fired.add(timer.key());
+            }
+        }
+        fired.addAll(keys(wheel.advance(500_000 * TICK)));
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(0, wheel.size());
+    }
+}
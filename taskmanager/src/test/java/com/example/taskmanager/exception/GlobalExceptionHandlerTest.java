@@ -1,14 +1,20 @@
 package com.example.taskmanager.exception;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -49,6 +55,57 @@ public class GlobalExceptionHandlerTest {
         assertThat(response.getBody()).isEqualTo("User not found");
     }
 
+    @Test
+    public void testHandleUserHasTasksException() {
+        // Given
+        UserHasTasksException ex = new UserHasTasksException("User 1 still has tasks");
+
+        // When
+        ResponseEntity<String> response = globalExceptionHandler.handleUserHasTasksException(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isEqualTo("User 1 still has tasks");
+    }
+
+    @Test
+    public void testHandleInvalidCursorException() {
+        // Given
+        InvalidCursorException ex = new InvalidCursorException("Invalid cursor: abc");
+
+        // When
+        ResponseEntity<String> response = globalExceptionHandler.handleInvalidCursorException(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isEqualTo("Invalid cursor: abc");
+    }
+
+    @Test
+    public void testHandlePreconditionFailedException() {
+        // Given
+        PreconditionFailedException ex = new PreconditionFailedException("Task 1 is at version 4, not 3");
+
+        // When
+        ResponseEntity<String> response = globalExceptionHandler.handlePreconditionFailedException(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(response.getBody()).isEqualTo("Task 1 is at version 4, not 3");
+    }
+
+    @Test
+    public void testHandleOptimisticLockingFailureException() {
+        // Given
+        ObjectOptimisticLockingFailureException ex = new ObjectOptimisticLockingFailureException("Task", 1L);
+
+        // When
+        ResponseEntity<String> response = globalExceptionHandler.handleOptimisticLockingFailureException(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     public void testHandleValidationException() {
         // Given
@@ -64,4 +121,52 @@ public class GlobalExceptionHandlerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         assertThat(response.getBody()).isEqualTo("Invalid field value");
     }
+
+    @Test
+    public void testHandledExceptionsAreCounted() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            // When
+            globalExceptionHandler.handleTaskNotFoundException(new TaskNotFoundException("Task not found"));
+            globalExceptionHandler.handleTaskNotFoundException(new TaskNotFoundException("Task not found"));
+
+            // Then
+            assertThat(registry.get(GlobalExceptionHandler.ERRORS_METRIC)
+                    .tag("exception", "TaskNotFoundException")
+                    .tag("status", "404")
+                    .counter().count()).isEqualTo(2.0);
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    public void testHandleServiceOverloadedException() {
+        // Given
+        ServiceOverloadedException ex = new ServiceOverloadedException("Overloaded", Duration.ofMillis(1500));
+
+        // When
+        ResponseEntity<String> response = globalExceptionHandler.handleServiceOverloadedException(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody()).isEqualTo("Overloaded");
+    }
+
+    @Test
+    public void testHandleRateLimitExceededException() {
+        // Given
+        RateLimitExceededException ex = new RateLimitExceededException("Rate limit exceeded", Duration.ofSeconds(3));
+
+        // When
+        ResponseEntity<String> response = globalExceptionHandler.handleRateLimitExceededException(ex);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(response.getBody()).isEqualTo("Rate limit exceeded");
+    }
 }
@@ -0,0 +1,271 @@
+package com.example.taskmanager.idempotency;
+
+import com.example.taskmanager.controller.TaskController;
+import com.example.taskmanager.entity.IdempotencyRecord;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.exception.GlobalExceptionHandler;
+import com.example.taskmanager.exception.UserNotFoundException;
+import com.example.taskmanager.repository.IdempotencyRecordRepository;
+import com.example.taskmanager.service.TaskService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class IdempotencyFilterTest {
+
+    private static final String BODY = "{\"title\":\"Write report\",\"status\":\"Pending\"}";
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private TaskService taskService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private TaskController taskController;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @InjectMocks
+    private IdempotencyFilter idempotencyFilter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(idempotencyFilter, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(idempotencyFilter, "maximumWeight", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(idempotencyFilter, "maximumBodySize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(idempotencyFilter, "waitTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(idempotencyFilter, "claimTimeout", Duration.ofMinutes(5));
+        idempotencyFilter.initialize();
+        mockMvc = MockMvcBuilders.standaloneSetup(taskController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(idempotencyFilter)
+                .build();
+    }
+
+    private static Task created(long id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle("Write report");
+        return task;
+    }
+
+    private ResultActions create(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/tasks")
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    @Test
+    public void testRepeatedKeyReplaysTheOriginalResponse() throws Exception {
+        when(taskService.createTask(any(Task.class), any())).thenReturn(created(1L), created(2L));
+
+        create("k1", BODY).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED));
+        create("k1", BODY).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(header().string(IdempotencyFilter.REPLAYED, "true"));
+        create("k2", BODY).andExpect(jsonPath("$.id").value(2));
+
+        verify(taskService, times(2)).createTask(any(Task.class), any());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    public void testKeyReusedForADifferentRequestIsRejected() throws Exception {
+        when(taskService.createTask(any(Task.class), any())).thenReturn(created(1L));
+
+        create("k1", BODY).andExpect(status().isCreated());
+        create("k1", "{\"title\":\"Something else\"}").andExpect(status().isUnprocessableEntity());
+
+        verify(taskService, times(1)).createTask(any(Task.class), any());
+    }
+
+    @Test
+    public void testConcurrentRequestsWithTheSameKeyAreCoalesced() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskService.createTask(any(Task.class), any())).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return created(1L);
+        });
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> perform("k1"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> perform("k1"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(taskService, times(1)).createTask(any(Task.class), any());
+    }
+
+    private String perform(String key) {
+        try {
+            return create(key, BODY).andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void testFailedRequestReleasesTheKey() throws Exception {
+        when(taskService.createTask(any(Task.class), any()))
+                .thenThrow(new UserNotFoundException("User not found with ID: 9"))
+                .thenReturn(created(1L));
+
+        create("k1", BODY).andExpect(status().isNotFound());
+        create("k1", BODY).andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED));
+
+        verify(taskService, times(2)).createTask(any(Task.class), any());
+    }
+
+    @Test
+    public void testResponseOverTheBodySizeIsReplayedWithoutItsBody() throws Exception {
+        ReflectionTestUtils.setField(idempotencyFilter, "maximumBodySize", DataSize.ofBytes(10));
+        idempotencyFilter.initialize();
+        when(taskService.createTask(any(Task.class), any())).thenReturn(created(1L), created(2L));
+
+        create("k1", BODY).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1));
+        create("k1", BODY).andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED, "true"))
+                .andExpect(content().string(""));
+
+        verify(taskService, times(1)).createTask(any(Task.class), any());
+    }
+
+    @Test
+    public void testPersistedResponseOverTheBodySizeIsReplayedFromTheTable() throws Exception {
+        ReflectionTestUtils.setField(idempotencyFilter, "maximumBodySize", DataSize.ofBytes(10));
+        ReflectionTestUtils.setField(idempotencyFilter, "persistent", true);
+        idempotencyFilter.initialize();
+        when(taskService.createTask(any(Task.class), any())).thenReturn(created(1L));
+
+        create("k1", BODY).andExpect(status().isCreated());
+
+        // Not in memory any more, the retry claims the key again and finds the stored response
+        ArgumentCaptor<IdempotencyRecord> stored = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).save(stored.capture());
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(idempotencyRecordRepository)
+                .insert(any(IdempotencyRecord.class));
+        when(idempotencyRecordRepository.findById("/api/tasks k1")).thenReturn(Optional.of(stored.getValue()));
+
+        create("k1", BODY).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(header().string(IdempotencyFilter.REPLAYED, "true"));
+
+        verify(idempotencyRecordRepository, times(2)).insert(any(IdempotencyRecord.class));
+        verify(taskService, times(1)).createTask(any(Task.class), any());
+    }
+
+    @Test
+    public void testPersistedResponseIsReplayedAfterARestart() throws Exception {
+        ReflectionTestUtils.setField(idempotencyFilter, "persistent", true);
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId("/api/tasks k1");
+        record.setCreatedAt(LocalDateTime.now());
+        record.setStatus(201);
+        record.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        record.setBody("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(idempotencyRecordRepository)
+                .insert(any(IdempotencyRecord.class));
+        when(idempotencyRecordRepository.findById("/api/tasks k1")).thenAnswer(invocation -> {
+            // The fingerprint of the same request, as stored by the instance that ran it
+            record.setFingerprint(((IdempotencyRecord) mockingDetails(idempotencyRecordRepository).getInvocations()
+                    .iterator().next().getArgument(0)).getFingerprint());
+            return Optional.of(record);
+        });
+
+        create("k1", BODY).andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(header().string(IdempotencyFilter.REPLAYED, "true"));
+
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    public void testPersistentKeyIsClaimedThenCompleted() throws Exception {
+        ReflectionTestUtils.setField(idempotencyFilter, "persistent", true);
+        when(taskService.createTask(any(Task.class), any())).thenReturn(created(1L));
+
+        create("k1", BODY).andExpect(status().isCreated());
+
+        verify(idempotencyRecordRepository).insert(argThat(record -> record.getStatus() == null));
+        verify(idempotencyRecordRepository).save(argThat(record -> record.getStatus() == 201
+                && new String(record.getBody(), StandardCharsets.UTF_8).contains("\"id\":1")));
+    }
+
+    @Test
+    public void testCachedBodyCanBeReadWithAListener() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/tasks");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        ServletInputStream in = new CachedBodyRequest(request).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        StringBuilder calls = new StringBuilder();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                calls.append("available ");
+                byte[] buffer = new byte[8];
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(buffer, 0, in.read(buffer));
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.append("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+
+        assertEquals("available done", calls.toString());
+        assertEquals(BODY, read.toString(StandardCharsets.UTF_8));
+    }
+}
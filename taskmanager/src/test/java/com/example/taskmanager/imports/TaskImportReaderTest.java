@@ -0,0 +1,113 @@
+package com.example.taskmanager.imports;
+
+import com.example.taskmanager.exception.InvalidImportException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private static InputStream upload(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<TaskImportReader.Row> readAll(TaskImportReader reader) throws IOException {
+        List<TaskImportReader.Row> rows = new ArrayList<>();
+        try (reader) {
+            for (TaskImportReader.Row row = reader.next(); row != null; row = reader.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testCsvReadsQuotedFieldsAndSkipsBlankLines() throws IOException {
+        String csv = "\uFEFFassigneeId,title,description,dueAt,timezone\r\n"
+                + "2,Plan release,\"Covers \"\"beta\"\", then GA\",2024-06-30T17:00,Europe/Berlin\r\n"
+                + "\r\n"
+                + "3,\"Write notes\",\"Line one\nLine two\",,\n";
+
+        List<TaskImportReader.Row> rows = readAll(TaskImportReader.csv(upload(csv)));
+
+        assertEquals(2, rows.size());
+        assertEquals(0, rows.get(0).index());
+        assertEquals("Plan release", rows.get(0).task().getTitle());
+        assertEquals("Covers \"beta\", then GA", rows.get(0).task().getDescription());
+        assertEquals(2L, rows.get(0).task().getAssignedTo().getId());
+        assertEquals(LocalDateTime.of(2024, 6, 30, 17, 0), rows.get(0).task().getDueAt());
+        assertEquals(TimeZone.getTimeZone("Europe/Berlin"), rows.get(0).task().getTimezone());
+        assertEquals(1, rows.get(1).index());
+        assertEquals("Line one\nLine two", rows.get(1).task().getDescription());
+        assertNull(rows.get(1).task().getDueAt());
+        assertNull(rows.get(1).task().getStatus());
+    }
+
+    @Test
+    public void testCsvReportsBadRowsAndGoesOn() throws IOException {
+        String csv = "title,assigneeId,dueAt\n"
+                + "Too,few\n"
+                + "Bad assignee,me,\n"
+                + "Bad date,2,tomorrow\n"
+                + "Good,2,\n";
+
+        List<TaskImportReader.Row> rows = readAll(TaskImportReader.csv(upload(csv)));
+
+        assertEquals(4, rows.size());
+        assertEquals("Expected 3 fields but found 2", rows.get(0).error());
+        assertEquals("assigneeId must be a user ID", rows.get(1).error());
+        assertEquals("dueAt must be a local date-time such as 2024-06-30T17:00", rows.get(2).error());
+        assertNull(rows.get(3).error());
+        assertEquals("Good", rows.get(3).task().getTitle());
+    }
+
+    @Test
+    public void testCsvRejectsUnreadableUploads() {
+        assertThrows(InvalidImportException.class, () -> readAll(TaskImportReader.csv(upload(""))));
+        assertThrows(InvalidImportException.class, () -> readAll(TaskImportReader.csv(upload("title,owner\n"))));
+        assertThrows(InvalidImportException.class, () -> readAll(TaskImportReader.csv(upload("title,description\n"))));
+        assertThrows(InvalidImportException.class,
+                () -> readAll(TaskImportReader.csv(upload("title,assigneeId\n\"Unterminated,2\n"))));
+    }
+
+    @Test
+    public void testJsonReadsElementsOneAtATime() throws IOException {
+        String json = "[{\"title\":\"Plan release\",\"status\":\"Pending\",\"assignedTo\":{\"id\":2}},"
+                + "{\"title\":\"Bad date\",\"dueAt\":\"tomorrow\"},"
+                + "42,"
+                + "{\"title\":\"Write notes\",\"assignedTo\":{\"id\":3}}]";
+
+        List<TaskImportReader.Row> rows = readAll(TaskImportReader.json(upload(json), objectMapper));
+
+        assertEquals(4, rows.size());
+        assertEquals("Plan release", rows.get(0).task().getTitle());
+        assertEquals(2L, rows.get(0).task().getAssignedTo().getId());
+        assertNotNull(rows.get(1).error());
+        assertEquals("Task must be a JSON object", rows.get(2).error());
+        assertEquals(3, rows.get(3).index());
+        assertEquals("Write notes", rows.get(3).task().getTitle());
+    }
+
+    @Test
+    public void testJsonRejectsMalformedUploads() throws IOException {
+        assertThrows(InvalidImportException.class,
+                () -> readAll(TaskImportReader.json(upload("{\"title\":\"Not an array\"}"), objectMapper)));
+
+        TaskImportReader reader = TaskImportReader.json(upload("[{\"title\":\"Kept\"}, {\"title\":"), objectMapper);
+        assertEquals("Kept", reader.next().task().getTitle());
+        assertThrows(InvalidImportException.class, reader::next);
+        reader.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.taskmanager.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private static void saturate(AdaptiveLimit limit, int samples, long rttNanos) {
+        for (int i = 0; i < samples; i++) {
+            limit.onSample(rttNanos, limit.limit(), false);
+        }
+    }
+
+    @Test
+    public void testAdmitsUpToTheLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.inFlight());
+
+        limit.release();
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    public void testSaturatedLimitGrowsWhileLatencyHolds() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100);
+
+        saturate(limit, 200, 10 * MILLIS);
+
+        assertEquals(100, limit.limit());
+    }
+
+    @Test
+    public void testUnusedLimitDoesNotGrow() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MILLIS, 2, false);
+        }
+
+        assertEquals(10, limit.limit());
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyClimbs() {
+        AdaptiveLimit limit = new AdaptiveLimit(50, 1, 100);
+        saturate(limit, 100, 10 * MILLIS);
+        int before = limit.limit();
+
+        saturate(limit, 20, 100 * MILLIS);
+
+        assertTrue(limit.limit() < before / 2, "limit " + limit.limit() + " before " + before);
+    }
+
+    @Test
+    public void testDroppedCallsBackOffToTheMinimum() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, 5, 100);
+
+        limit.onSample(10 * MILLIS, 20, true);
+        assertEquals(18, limit.limit());
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MILLIS, 20, true);
+        }
+        assertEquals(5, limit.limit());
+    }
+}
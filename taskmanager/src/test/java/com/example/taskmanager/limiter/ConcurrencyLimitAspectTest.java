@@ -0,0 +1,156 @@
+package com.example.taskmanager.limiter;
+
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.exception.ServiceOverloadedException;
+import com.example.taskmanager.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ConcurrencyLimitAspectTest {
+
+    private TaskService taskService;
+
+    private TaskService limited;
+
+    private ConcurrencyLimitAspect aspect;
+
+    @BeforeEach
+    public void setUp() {
+        aspect = new ConcurrencyLimitAspect();
+        ReflectionTestUtils.setField(aspect, "enabled", true);
+        ReflectionTestUtils.setField(aspect, "readInitialLimit", 1);
+        ReflectionTestUtils.setField(aspect, "readMinLimit", 1);
+        ReflectionTestUtils.setField(aspect, "readMaxLimit", 1);
+        ReflectionTestUtils.setField(aspect, "writeInitialLimit", 1);
+        ReflectionTestUtils.setField(aspect, "writeMinLimit", 1);
+        ReflectionTestUtils.setField(aspect, "writeMaxLimit", 1);
+        ReflectionTestUtils.setField(aspect, "jobsLimit", 1);
+        ReflectionTestUtils.setField(aspect, "retryAfter", Duration.ofSeconds(2));
+        aspect.initialize();
+
+        taskService = mock(TaskService.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(taskService);
+        factory.addAspect(aspect);
+        limited = factory.getProxy();
+    }
+
+    @Test
+    public void testCallsOverTheLimitAreShedWhileOtherKindsPass() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskService.getTaskById(1L)).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return new Task();
+        });
+        CompletableFuture<Task> first = CompletableFuture.supplyAsync(() -> limited.getTaskById(1L));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class, () -> limited.getTaskById(2L));
+        assertEquals(Duration.ofSeconds(2), ex.getRetryAfter());
+        limited.deleteTask(3L);
+
+        release.countDown();
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        limited.getTaskById(4L);
+        verify(taskService, never()).getTaskById(2L);
+        verify(taskService).deleteTask(3L);
+    }
+
+    @Test
+    public void testFailedCallsReleaseTheirPermit() {
+        when(taskService.createTask(any(), any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> limited.createTask(new Task(), null));
+        assertThrows(QueryTimeoutException.class, () -> limited.createTask(new Task(), null));
+
+        verify(taskService, times(2)).createTask(any(), any());
+    }
+
+    @Test
+    public void testLongJobsTakeTheirOwnPermitsAndAreNotSampled() {
+        AdaptiveLimit writes = mock(AdaptiveLimit.class);
+        when(writes.tryAcquire()).thenReturn(true);
+        ReflectionTestUtils.setField(aspect, "writes", writes);
+        AdaptiveLimit jobs = mock(AdaptiveLimit.class);
+        when(jobs.tryAcquire()).thenReturn(true);
+        ReflectionTestUtils.setField(aspect, "jobs", jobs);
+
+        limited.importTasks(null, null);
+        limited.bulkUpsertTasks(List.of(), null);
+        limited.reassignOpenTasks(1L, 2L);
+        limited.exportTasks(null);
+        limited.deleteTask(1L);
+
+        verify(jobs, times(4)).release();
+        verify(jobs, never()).release(anyLong(), anyBoolean());
+        verify(writes, times(1)).tryAcquire();
+        verify(writes, times(1)).release(anyLong(), eq(false));
+    }
+
+    @Test
+    public void testRunningJobsDoNotHoldWritePermits() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskService.bulkUpsertTasks(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        });
+        CompletableFuture<Void> job = CompletableFuture.runAsync(() -> limited.bulkUpsertTasks(List.of(), null));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The job limit is full, the write limit is not
+        assertThrows(ServiceOverloadedException.class, () -> limited.reassignOpenTasks(1L, 2L));
+        limited.deleteTask(3L);
+
+        release.countDown();
+        job.get(5, TimeUnit.SECONDS);
+        limited.reassignOpenTasks(1L, 2L);
+        verify(taskService).deleteTask(3L);
+        verify(taskService, times(1)).reassignOpenTasks(1L, 2L);
+    }
+
+    @Test
+    public void testNestedServiceCallsShareTheCallersPermit() {
+        doAnswer(invocation -> {
+            limited.deleteTask(2L);
+            return null;
+        }).when(taskService).deleteTask(1L);
+
+        limited.deleteTask(1L);
+        limited.deleteTask(3L);
+
+        verify(taskService).deleteTask(2L);
+        verify(taskService).deleteTask(3L);
+    }
+
+    @Test
+    public void testOptimisticLockConflictsDoNotShrinkTheLimit() {
+        AdaptiveLimit writes = mock(AdaptiveLimit.class);
+        when(writes.tryAcquire()).thenReturn(true);
+        ReflectionTestUtils.setField(aspect, "writes", writes);
+        doThrow(new OptimisticLockingFailureException("stale")).when(taskService).deleteTask(1L);
+        doThrow(new QueryTimeoutException("timeout")).when(taskService).deleteTask(2L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> limited.deleteTask(1L));
+        verify(writes).release(anyLong(), eq(false));
+
+        assertThrows(QueryTimeoutException.class, () -> limited.deleteTask(2L));
+        verify(writes).release(anyLong(), eq(true));
+    }
+}
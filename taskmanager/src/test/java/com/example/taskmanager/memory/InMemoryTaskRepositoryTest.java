@@ -0,0 +1,190 @@
+package com.example.taskmanager.memory;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskDue;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryTaskRepositoryTest {
+
+    @TempDir
+    private Path directory;
+
+    private MemoryStore store;
+
+    private InMemoryTaskRepository taskRepository;
+
+    private InMemoryUserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        store = new MemoryStore();
+        ReflectionTestUtils.setField(store, "directory", directory.toString());
+        ReflectionTestUtils.setField(store, "segmentSize", DataSize.ofKilobytes(64));
+        store.open();
+        taskRepository = new InMemoryTaskRepository();
+        ReflectionTestUtils.setField(taskRepository, "store", store);
+        userRepository = new InMemoryUserRepository();
+        ReflectionTestUtils.setField(userRepository, "store", store);
+
+        user = new User();
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setTimezone(TimeZone.getTimeZone("UTC"));
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    private Task newTask(String title, String status) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setStatus(status);
+        task.setAssignedTo(user);
+        return task;
+    }
+
+    @Test
+    public void testSaveChecksVersionsForTheWholeBatch() {
+        Task task = taskRepository.save(newTask("Write report", "Pending"));
+        Task stale = taskRepository.findById(task.getId()).orElseThrow();
+        task.setStatus("In Progress");
+        taskRepository.save(task);
+
+        stale.setStatus("Completed");
+        List<Task> batch = List.of(newTask("Review report", "Pending"), stale);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> taskRepository.saveAll(batch));
+
+        assertEquals(1, taskRepository.count());
+        Task current = taskRepository.findById(task.getId()).orElseThrow();
+        assertEquals("In Progress", current.getStatus());
+        assertEquals(1L, current.getVersion());
+        assertEquals(0, taskRepository.updateIfVersion(task.getId(), 0, "Write report", null, "Completed", null, null, LocalDateTime.now()));
+        assertEquals(1, taskRepository.updateFields(task.getId(), 1L, Map.of("status", "Completed")));
+        assertEquals("Completed", taskRepository.findById(task.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testAssigneeIsAForeignKey() {
+        Task orphan = newTask("Orphan", "Pending");
+        User missing = new User();
+        missing.setId(999L);
+        orphan.setAssignedTo(missing);
+        assertThrows(DataIntegrityViolationException.class, () -> taskRepository.save(orphan));
+        assertNull(orphan.getId());
+
+        taskRepository.save(newTask("Assigned", "Pending"));
+        assertThrows(DataIntegrityViolationException.class, () -> userRepository.delete(user));
+        assertTrue(userRepository.findById(user.getId()).isPresent());
+    }
+
+    @Test
+    public void testFindPageSeeksTheIndexInCreationOrder() {
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 10; i++) {
+            store.clock = Clock.fixed(start.plusSeconds(i), ZoneOffset.UTC);
+            taskRepository.save(newTask("Task " + i, i % 2 == 0 ? "Pending" : "Completed"));
+        }
+
+        TaskFilter pending = new TaskFilter("Pending", user.getId(), null, null, null);
+        List<Task> first = taskRepository.findPage(pending, null, 2);
+        assertEquals(List.of("Task 0", "Task 2"), first.stream().map(Task::getTitle).toList());
+        Task last = first.get(1);
+        List<Task> next = taskRepository.findPage(pending, new TaskCursor(last.getCreatedAt(), last.getId()), 10);
+        assertEquals(List.of("Task 4", "Task 6", "Task 8"), next.stream().map(Task::getTitle).toList());
+
+        assertEquals(5, taskRepository.updateStatusMatching(pending, "In Progress", LocalDateTime.now()));
+        assertTrue(taskRepository.findPage(pending, null, 10).isEmpty());
+        assertEquals(5, taskRepository.findPage(new TaskFilter("In Progress", null, null, null, null), null, 10).size());
+    }
+
+    @Test
+    public void testFindDueBetweenLeavesOutCompletedTasks() {
+        LocalDateTime due = LocalDateTime.of(2024, 6, 1, 9, 0);
+        Task open = newTask("Open", "Pending");
+        open.setDueAt(due);
+        open = taskRepository.save(open);
+        Task completed = newTask("Completed", "Completed");
+        completed.setDueAt(due);
+        taskRepository.save(completed);
+        Task later = newTask("Later", "Pending");
+        later.setDueAt(due.plusDays(1));
+        taskRepository.save(later);
+
+        List<TaskDue> dues = taskRepository.findDueBetween(due, due.plusHours(1));
+
+        assertEquals(1, dues.size());
+        assertEquals(open.getId(), dues.get(0).getId());
+        assertEquals(user.getId(), dues.get(0).getAssigneeId());
+    }
+
+    @Test
+    public void testFindAssignedSummariesSeeksMostRecentlyUpdatedFirst() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 6; i++) {
+            Task task = taskRepository.save(newTask("Task " + i, "Pending"));
+            taskRepository.updateIfVersion(task.getId(), 0, task.getTitle(), null, i == 5 ? "Completed" : "Pending",
+                    null, null, start.plusHours(i));
+        }
+
+        List<TaskSummary> first = taskRepository.findAssignedSummaries(user.getId(), "Pending", null, 2);
+        assertEquals(List.of("Task 4", "Task 3"), first.stream().map(TaskSummary::getTitle).toList());
+        TaskSummary last = first.get(1);
+        List<TaskSummary> next = taskRepository.findAssignedSummaries(user.getId(), "Pending",
+                new TaskCursor(last.getUpdatedAt(), last.getId()), 10);
+        assertEquals(List.of("Task 2", "Task 1", "Task 0"), next.stream().map(TaskSummary::getTitle).toList());
+        assertEquals(List.of("Task 5"), taskRepository.findAssignedSummaries(user.getId(), "Completed", null, 10)
+                .stream().map(TaskSummary::getTitle).toList());
+        assertTrue(taskRepository.findAssignedSummaries(user.getId(), null, null, 10).isEmpty());
+    }
+
+    @Test
+    public void testReassignOpenLeavesCompletedTasks() {
+        User other = new User();
+        other.setFirstName("Jane");
+        other = userRepository.save(other);
+        Task completed = taskRepository.save(newTask("Completed", "Completed"));
+        for (int i = 0; i < 3; i++) {
+            taskRepository.save(newTask("Open " + i, i == 0 ? null : "Pending"));
+        }
+        LocalDateTime now = LocalDateTime.of(2024, 8, 2, 12, 0);
+
+        assertEquals(2, taskRepository.reassignOpen(user.getId(), other, 2, now));
+        assertEquals(1, taskRepository.reassignOpen(user.getId(), other, 2, now));
+        assertEquals(0, taskRepository.reassignOpen(user.getId(), other, 2, now));
+
+        assertEquals(user.getId(), taskRepository.findById(completed.getId()).orElseThrow().getAssignedTo().getId());
+        assertEquals(3, taskRepository.findPage(new TaskFilter(null, other.getId(), null, null, null), null, 10).size());
+        // The user can now be deleted without tripping the foreign key once the completed task is gone
+        taskRepository.delete(completed);
+        userRepository.delete(user);
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+    }
+}
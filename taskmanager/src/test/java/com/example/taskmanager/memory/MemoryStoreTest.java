@@ -0,0 +1,151 @@
+package com.example.taskmanager.memory;
+
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes through the in-memory repositories, then reopens the store on the same directory as a restart after a crash
+ * would, without closing it first.
+ */
+public class MemoryStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private MemoryStore store;
+
+    private InMemoryTaskRepository taskRepository;
+
+    private InMemoryUserRepository userRepository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        reopen();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    private void reopen() throws IOException {
+        store = new MemoryStore();
+        ReflectionTestUtils.setField(store, "directory", directory.toString());
+        ReflectionTestUtils.setField(store, "segmentSize", DataSize.ofKilobytes(64));
+        store.open();
+        taskRepository = new InMemoryTaskRepository();
+        ReflectionTestUtils.setField(taskRepository, "store", store);
+        userRepository = new InMemoryUserRepository();
+        ReflectionTestUtils.setField(userRepository, "store", store);
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setTimezone(TimeZone.getTimeZone("Europe/Berlin"));
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+
+    private Task createTask(User assignee, String title, String status) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setStatus(status);
+        task.setAssignedTo(assignee);
+        return taskRepository.save(task);
+    }
+
+    @Test
+    public void testWritesAreRecoveredFromTheLog() throws IOException {
+        User user = createUser();
+        Task first = createTask(user, "First", "Pending");
+        Task second = createTask(user, "Second", "Pending");
+        second.setStatus("Completed");
+        taskRepository.save(second);
+        taskRepository.delete(first);
+
+        reopen();
+
+        assertTrue(taskRepository.findById(first.getId()).isEmpty());
+        Task recovered = taskRepository.findById(second.getId()).orElseThrow();
+        assertEquals("Completed", recovered.getStatus());
+        assertEquals(1L, recovered.getVersion());
+        assertEquals(user, recovered.getAssignedTo());
+        assertEquals(List.of(recovered), taskRepository.findPage(new TaskFilter("Completed", user.getId(), null, null, null), null, 10));
+        // IDs are not reused, not even that of the deleted task
+        assertTrue(createTask(user, "Third", "Pending").getId() > second.getId());
+    }
+
+    @Test
+    public void testSnapshotReplacesTheLogItCovers() throws IOException {
+        User user = createUser();
+        for (int i = 0; i < 1000; i++) {
+            createTask(user, "Task " + i, "Pending");
+        }
+        store.snapshot();
+        Task afterSnapshot = createTask(user, "After the snapshot", "In Progress");
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).sorted().toList();
+            assertEquals(1, names.stream().filter(name -> name.startsWith("snapshot-")).count());
+            assertEquals(1, names.stream().filter(name -> name.startsWith("wal-")).count());
+        }
+
+        reopen();
+
+        assertEquals(1001, taskRepository.count());
+        assertEquals(List.of(afterSnapshot), taskRepository.findPage(new TaskFilter("In Progress", null, null, null, null), null, 10));
+        assertEquals(1000, taskRepository.findPage(new TaskFilter("Pending", user.getId(), null, null, null), null, 2000).size());
+    }
+
+    @Test
+    public void testTornRecordEndsTheLog() throws IOException {
+        User user = createUser();
+        Task kept = createTask(user, "Kept", "Pending");
+        Task torn = createTask(user, "Torn", "Pending");
+
+        // Corrupt the payload of the third record, the second task
+        try (Stream<Path> files = Files.list(directory);
+             FileChannel segment = FileChannel.open(files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+                     .findFirst().orElseThrow(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            long position = 0;
+            for (int i = 0; i < 2; i++) {
+                segment.read(length.clear(), position);
+                position += 16 + length.flip().getInt();
+            }
+            segment.write(ByteBuffer.wrap(new byte[]{42, 42, 42, 42}), position + 20);
+        }
+
+        reopen();
+
+        assertTrue(taskRepository.findById(kept.getId()).isPresent());
+        assertTrue(taskRepository.findById(torn.getId()).isEmpty());
+        Task next = createTask(user, "Next", "Pending");
+
+        reopen();
+
+        assertTrue(taskRepository.findById(next.getId()).isPresent());
+        assertEquals(2, taskRepository.count());
+    }
+}
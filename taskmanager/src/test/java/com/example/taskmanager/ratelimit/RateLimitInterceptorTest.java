@@ -0,0 +1,131 @@
+package com.example.taskmanager.ratelimit;
+
+import com.example.taskmanager.controller.TaskController;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.exception.GlobalExceptionHandler;
+import com.example.taskmanager.service.TaskService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class RateLimitInterceptorTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private TaskService taskService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private TaskController taskController;
+
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    private long now;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rateLimitInterceptor = new RateLimitInterceptor();
+        rateLimitInterceptor.nanoTime = () -> now;
+        ReflectionTestUtils.setField(rateLimitInterceptor, "enabled", true);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "apiKeys", Set.of("a", "b"));
+        ReflectionTestUtils.setField(rateLimitInterceptor, "maximumClients", 100L);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "listCapacity", 2L);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "listRate", 1.0);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "searchCapacity", 2L);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "searchRate", 1.0);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "readCapacity", 5L);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "readRate", 1.0);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "writeCapacity", 2L);
+        ReflectionTestUtils.setField(rateLimitInterceptor, "writeRate", 1.0);
+        rateLimitInterceptor.initialize();
+        mockMvc = MockMvcBuilders.standaloneSetup(taskController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addInterceptors(rateLimitInterceptor)
+                .build();
+        when(taskService.getTasksPage(any(), any(), anyInt())).thenReturn(new CursorPage<>(List.of(), null));
+        when(taskService.getTaskById(1L)).thenReturn(new Task());
+    }
+
+    @Test
+    public void testListingIsLimitedPerClientWithHeaders() throws Exception {
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "a"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitInterceptor.LIMIT, "2"))
+                .andExpect(header().string(RateLimitInterceptor.REMAINING, "1"))
+                .andExpect(header().string(RateLimitInterceptor.RESET, "1"));
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "a"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitInterceptor.REMAINING, "0"));
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "a"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(header().string(RateLimitInterceptor.REMAINING, "0"));
+
+        // Other clients and other classes of endpoint have buckets of their own
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "b")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks/1").header(RateLimitInterceptor.API_KEY, "a"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitInterceptor.LIMIT, "5"));
+
+        verify(taskService, times(3)).getTasksPage(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testTokensAreRefilledOverTime() throws Exception {
+        mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks")).andExpect(status().isTooManyRequests());
+
+        now += TimeUnit.SECONDS.toNanos(1);
+
+        mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testUnknownKeysAreLimitedByAddress() throws Exception {
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "made-up-1")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "made-up-2")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "made-up-3"))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/api/tasks")).andExpect(status().isTooManyRequests());
+
+        // A known key from the same address has its own bucket
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "a")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testStreamedExportTakesOneToken() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/tasks/export").header(RateLimitInterceptor.API_KEY, "a"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string(RateLimitInterceptor.REMAINING, "1"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/tasks").header(RateLimitInterceptor.API_KEY, "a"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitInterceptor.REMAINING, "0"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.taskmanager.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstUpToCapacityThenRefillAtRate() {
+        TokenBucket bucket = new TokenBucket(3, 2, 0);
+
+        assertEquals(3, bucket.remaining(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+        assertEquals(0, bucket.remaining(0));
+        assertEquals(SECOND / 2, bucket.nanosUntilAvailable(0));
+        assertEquals(3 * SECOND / 2, bucket.nanosUntilFull(0));
+
+        assertFalse(bucket.tryAcquire(SECOND / 2 - 1));
+        assertTrue(bucket.tryAcquire(SECOND / 2));
+        assertFalse(bucket.tryAcquire(SECOND / 2));
+    }
+
+    @Test
+    public void testIdleBucketRefillsOnlyToCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 10, 0);
+
+        assertTrue(bucket.tryAcquire(0));
+        assertEquals(2, bucket.remaining(60 * SECOND));
+        assertTrue(bucket.tryAcquire(60 * SECOND));
+        assertTrue(bucket.tryAcquire(60 * SECOND));
+        assertFalse(bucket.tryAcquire(60 * SECOND));
+        assertEquals(0, bucket.nanosUntilFull(61 * SECOND));
+    }
+
+    @Test
+    public void testConcurrentAcquiresNeverExceedTheCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000, 1, 0);
+        int[] acquired = new int[8];
+        Thread[] threads = new Thread[acquired.length];
+        for (int t = 0; t < threads.length; t++) {
+            int slot = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(0)) {
+                        acquired[slot]++;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        int total = 0;
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            total += acquired[t];
+        }
+
+        assertEquals(1000, total);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.changes.ChangeFeed;
+import com.example.taskmanager.changes.ChangeOutbox;
+import com.example.taskmanager.dto.ChangeBatch;
+import com.example.taskmanager.entity.ChangeRecord;
+import com.example.taskmanager.entity.User;
+import com.example.taskmanager.service.TaskService;
+import com.example.taskmanager.serviceimpl.UserServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the outbox and the change feed relay against an embedded database, with real commits.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2",
+        "taskmanager.changes.gap-timeout=PT0.1S"
+})
+@Import({UserServiceImpl.class, ChangeOutbox.class, ChangeFeed.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ChangeRecordRepositoryTest {
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @MockBean
+    private TaskService taskService;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ChangeRecordRepository changeRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private static User newUser(String firstName) {
+        User user = new User();
+        user.setFirstName(firstName);
+        user.setLastName("Doe");
+        user.setTimezone(TimeZone.getTimeZone("UTC"));
+        return user;
+    }
+
+    @Test
+    public void testCommittedChangeIsPublished() throws InterruptedException {
+        long since = changeFeed.lastSeq();
+
+        User user = userService.createUser(newUser("John"));
+
+        ChangeBatch batch = changeFeed.changesAfter(since, 10);
+        for (int attempt = 0; batch.getChanges().isEmpty() && attempt < 100; attempt++) {
+            Thread.sleep(50);
+            batch = changeFeed.changesAfter(since, 10);
+        }
+        assertEquals(1, batch.getChanges().size());
+        ChangeRecord change = batch.getChanges().get(0);
+        assertEquals(ChangeRecord.USER, change.getEntity());
+        assertEquals(user.getId(), change.getEntityId());
+        assertEquals("CREATED", change.getType());
+        assertTrue(change.getData().contains("\"firstName\":\"John\""));
+        assertEquals(change.getSeq(), batch.getLast());
+    }
+
+    @Test
+    public void testRolledBackChangeLeavesNoRecord() {
+        long before = changeRecordRepository.count();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.createUser(newUser("Jane"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, changeRecordRepository.count());
+    }
+
+    @Test
+    public void testChangesOfATransactionAreInsertedAtCommitInOrder() {
+        long since = changeRecordRepository.findMaxSeq().orElse(0L);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.createUser(newUser("Jane"));
+            userService.createUser(newUser("Joe"));
+            // Collected until the transaction commits
+            assertEquals(since, changeRecordRepository.findMaxSeq().orElse(0L));
+        });
+
+        List<ChangeRecord> changes = changeRecordRepository.findAfter(since, PageRequest.of(0, 10));
+        assertEquals(2, changes.size());
+        assertEquals(changes.get(0).getSeq() + 1, changes.get(1).getSeq());
+        assertTrue(changes.get(0).getData().contains("\"firstName\":\"Jane\""));
+        assertTrue(changes.get(1).getData().contains("\"firstName\":\"Joe\""));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.entity.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IdempotencyRecordRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 9, 1, 12, 0);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private static IdempotencyRecord claim(String id, LocalDateTime createdAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setFingerprint("f");
+        record.setCreatedAt(createdAt);
+        return record;
+    }
+
+    @Test
+    public void testInsertNeverOverwritesAClaim() {
+        idempotencyRecordRepository.insert(claim("/api/tasks k1", NOW));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> idempotencyRecordRepository.insert(claim("/api/tasks k1", NOW.plusSeconds(1))));
+        assertEquals(NOW, idempotencyRecordRepository.findById("/api/tasks k1").orElseThrow().getCreatedAt());
+    }
+
+    @Test
+    public void testOnlyAbandonedClaimsAndExpiredRecordsAreStale() {
+        idempotencyRecordRepository.insert(claim("/api/tasks k2", NOW.minusMinutes(10)));
+        IdempotencyRecord completed = claim("/api/tasks k3", NOW.minusMinutes(10));
+        completed.setStatus(201);
+        idempotencyRecordRepository.insert(completed);
+
+        LocalDateTime claimedBefore = NOW.minusMinutes(5);
+        LocalDateTime expiredBefore = NOW.minusHours(24);
+        assertEquals(0, idempotencyRecordRepository.deleteStale("/api/tasks k3", claimedBefore, expiredBefore));
+        assertEquals(1, idempotencyRecordRepository.deleteStale("/api/tasks k2", claimedBefore, expiredBefore));
+        assertEquals(1, idempotencyRecordRepository.deleteStale("/api/tasks k3", claimedBefore, NOW));
+        assertFalse(idempotencyRecordRepository.existsById("/api/tasks k2"));
+        assertFalse(idempotencyRecordRepository.existsById("/api/tasks k3"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskFilter;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Explains the SQL that Hibernate generates for every combination of {@link TaskFilter} criteria, against a table of a
+ * few thousand tasks whose column statistics are up to date, and checks which index each one seeks on.
+ *
+ * <p>The statistics are gathered with {@code ANALYZE}, which commits, so the tasks are written with real commits and
+ * deleted afterwards.</p>
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.taskmanager.repository.TaskFilterPlanTest$CapturedStatements"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TaskFilterPlanTest {
+
+    private static final int USERS = 40;
+
+    private static final int TASKS = 4000;
+
+    private static final String CREATED_AT_ID = "IDX_TASKS_CREATED_AT_ID";
+
+    private static final String STATUS_USER_CREATED = "IDX_TASKS_STATUS_USER_CREATED";
+
+    private static final String UPDATED_AT = "IDX_TASKS_UPDATED_AT";
+
+    private static final String USER_STATUS_UPDATED = "IDX_TASKS_USER_STATUS_UPDATED";
+
+    /**
+     * H2 backs the foreign key on {@code user_id} with an index of its own, PostgreSQL does not.
+     */
+    private static final String USER_FOREIGN_KEY = "FK_TASKS_USER_INDEX";
+
+    /**
+     * Collects the SQL of every statement Hibernate prepares.
+     */
+    public static class CapturedStatements implements StatementInspector {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        List<Object[]> users = new ArrayList<>();
+        for (long id = 1; id <= USERS; id++) {
+            users.add(new Object[]{id, "User " + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, first_name, last_name, timezone, is_active) "
+                + "VALUES (?, ?, 'Doe', 'UTC', TRUE)", users);
+
+        String[] statuses = {"Pending", "In Progress", "Completed"};
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> tasks = new ArrayList<>();
+        for (long id = 1; id <= TASKS; id++) {
+            // Updates are spread over the whole period independently of the creation order
+            tasks.add(new Object[]{id, "Task " + id, statuses[(int) (id % statuses.length)],
+                    Timestamp.valueOf(start.plusMinutes(id)), Timestamp.valueOf(start.plusMinutes(id * 7 % TASKS)),
+                    id % USERS + 1});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tasks (id, title, status, created_at, updated_at, user_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", tasks);
+        jdbcTemplate.execute("ANALYZE TABLE tasks");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM tasks");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    public void testEveryFilterCombinationSeeksOnItsIndex() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 2, 0, 0);
+        List<String> mismatches = new ArrayList<>();
+        for (int criteria = 0; criteria < 32; criteria++) {
+            TaskFilter filter = new TaskFilter(
+                    (criteria & 1) != 0 ? "Pending" : null,
+                    (criteria & 2) != 0 ? 1L : null,
+                    (criteria & 4) != 0 ? from : null,
+                    (criteria & 8) != 0 ? from : null,
+                    (criteria & 16) != 0 ? from.plusDays(1) : null);
+
+            String plan = plan(filter);
+            String index = seekIndex(plan);
+            Set<String> expected = expectedIndexes(filter);
+            if (expected.stream().noneMatch(index::startsWith)) {
+                mismatches.add(filter + " expected one of " + expected + " but got " + plan);
+            }
+        }
+        assertEquals(List.of(), mismatches);
+    }
+
+    /**
+     * The indexes a filter should seek on: the equality criteria come first, then a range on the column the index
+     * continues with. Where two indexes seek on as many columns, either will do.
+     */
+    private static Set<String> expectedIndexes(TaskFilter filter) {
+        boolean updated = filter.getUpdatedSince() != null || filter.getUpdatedBefore() != null;
+        boolean createdFrom = filter.getCreatedFrom() != null;
+        if (filter.getStatus() != null && filter.getAssigneeId() != null) {
+            if (createdFrom && updated) {
+                return Set.of(STATUS_USER_CREATED, USER_STATUS_UPDATED);
+            }
+            return Set.of(updated ? USER_STATUS_UPDATED : STATUS_USER_CREATED);
+        }
+        if (filter.getStatus() != null) {
+            return Set.of(STATUS_USER_CREATED);
+        }
+        if (filter.getAssigneeId() != null) {
+            return Set.of(USER_STATUS_UPDATED, USER_FOREIGN_KEY);
+        }
+        if (createdFrom && updated) {
+            return Set.of(CREATED_AT_ID, UPDATED_AT);
+        }
+        // A range on the update time alone seeks on its index, otherwise the pages are read along the keyset index
+        return Set.of(updated ? UPDATED_AT : CREATED_AT_ID);
+    }
+
+    /**
+     * Runs the page query for the filter, then explains the statement Hibernate issued for it.
+     */
+    private String plan(TaskFilter filter) {
+        CapturedStatements.SQL.clear();
+        taskRepository.findPage(filter, null, 10);
+        assertEquals(1, CapturedStatements.SQL.size(), CapturedStatements.SQL::toString);
+        return jdbcTemplate.queryForObject("EXPLAIN " + CapturedStatements.SQL.get(0), String.class);
+    }
+
+    /**
+     * The index the plan reads the tasks table with, the first table of the page query.
+     */
+    private static String seekIndex(String plan) {
+        int start = plan.indexOf("/* PUBLIC.") + "/* PUBLIC.".length();
+        int end = start;
+        while (end < plan.length() && (Character.isLetterOrDigit(plan.charAt(end)) || plan.charAt(end) == '_')) {
+            end++;
+        }
+        return plan.substring(start, end);
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.TaskCount;
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskDue;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.dto.TaskTransition;
+import com.example.taskmanager.entity.Task;
+import com.example.taskmanager.entity.User;
+import com.example.taskmanager.exception.PreconditionFailedException;
+import com.example.taskmanager.imports.ImportJobs;
+import com.example.taskmanager.search.TaskSearchIndex;
+import com.example.taskmanager.serviceimpl.TaskServiceImpl;
+import com.example.taskmanager.stats.TaskStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the repository queries against an embedded database and counts the SQL statements they issue.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({TaskServiceImpl.class, ImportJobs.class, TaskSearchIndex.class, TaskStatistics.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+public class TaskRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    private Statistics statistics;
+
+    private User user;
+
+    private Task task;
+
+    @BeforeEach
+    public void setUp() {
+        user = new User();
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setTimezone(TimeZone.getTimeZone("UTC"));
+        user.setIsActive(true);
+        entityManager.persist(user);
+
+        LocalDateTime createdAt = LocalDateTime.of(2024, 8, 1, 10, 0);
+        for (int i = 1; i <= 3; i++) {
+            Task t = new Task();
+            t.setTitle("Task " + i);
+            t.setStatus("Pending");
+            t.setAssignedTo(user);
+            t.setCreatedAt(createdAt);
+            t.setUpdatedAt(createdAt);
+            task = entityManager.persist(t);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testGetTaskByIdIssuesOneStatement() {
+        Task found = taskService.getTaskById(task.getId());
+
+        assertEquals("John", found.getAssignedTo().getFirstName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testTaskPageIssuesOneStatement() {
+        List<Task> page = taskRepository.findPage(TaskFilter.none(), null, 10);
+
+        assertEquals(3, page.size());
+        page.forEach(t -> assertEquals("John", t.getAssignedTo().getFirstName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindPageCombinesFiltersAndCursor() {
+        Task completed = new Task();
+        completed.setTitle("Completed task");
+        completed.setStatus("Completed");
+        completed.setAssignedTo(entityManager.find(User.class, user.getId()));
+        entityManager.persistAndFlush(completed);
+        // Timestamps are set by Hibernate on insert, move them past the other tasks
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Task t SET t.createdAt = :createdAt, t.updatedAt = :updatedAt WHERE t.id = :id")
+                .setParameter("createdAt", LocalDateTime.of(2100, 1, 1, 10, 0))
+                .setParameter("updatedAt", LocalDateTime.of(2100, 1, 2, 10, 0))
+                .setParameter("id", completed.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        List<Task> pending = taskRepository.findPage(new TaskFilter("Pending", user.getId(), null, null, null), null, 10);
+        List<Task> recent = taskRepository.findPage(new TaskFilter(null, null, LocalDateTime.of(2099, 1, 1, 0, 0), null, null), null, 10);
+        List<Task> updated = taskRepository.findPage(new TaskFilter(null, user.getId(), null, LocalDateTime.of(2100, 1, 2, 0, 0), null), null, 10);
+        List<Task> otherUser = taskRepository.findPage(new TaskFilter(null, user.getId() + 1, null, null, null), null, 10);
+        Task second = pending.get(1);
+        List<Task> afterSecond = taskRepository.findPage(new TaskFilter("Pending", null, null, null, null),
+                new TaskCursor(second.getCreatedAt(), second.getId()), 10);
+
+        assertEquals(3, pending.size());
+        assertEquals(List.of(completed.getId()), recent.stream().map(Task::getId).toList());
+        assertEquals(List.of(completed.getId()), updated.stream().map(Task::getId).toList());
+        assertTrue(otherUser.isEmpty());
+        assertEquals(List.of(task.getId()), afterSecond.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void testExistsByAssignedToId() {
+        User other = new User();
+        other.setFirstName("Jane");
+        other.setLastName("Doe");
+        other.setTimezone(TimeZone.getTimeZone("UTC"));
+        entityManager.persistAndFlush(other);
+
+        assertTrue(taskRepository.existsByAssignedToId(user.getId()));
+        assertFalse(taskRepository.existsByAssignedToId(other.getId()));
+    }
+
+    @Test
+    public void testCountByStatusAndAssignee() {
+        taskRepository.updateIfVersion(task.getId(), taskRepository.findVersionById(task.getId()).orElseThrow(),
+                task.getTitle(), null, "Completed", null, null, LocalDateTime.now());
+
+        List<TaskCount> counts = taskRepository.countByStatusAndAssignee();
+
+        assertEquals(2, counts.size());
+        assertTrue(counts.contains(new TaskCount("Pending", user.getId(), 2)));
+        assertTrue(counts.contains(new TaskCount("Completed", user.getId(), 1)));
+    }
+
+    @Test
+    public void testTransitionTasksIsOneStatementAndBumpsVersions() {
+        Long version = taskRepository.findVersionById(task.getId()).orElseThrow();
+        statistics.clear();
+
+        int updated = taskService.transitionTasks(new TaskTransition("Pending", "Completed", user.getId()));
+
+        assertEquals(3, updated);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        Task moved = taskRepository.findWithAssignedToById(task.getId()).orElseThrow();
+        assertEquals("Completed", moved.getStatus());
+        assertEquals(version + 1, moved.getVersion());
+    }
+
+    @Test
+    public void testDeleteTasksIsOneStatement() {
+        taskRepository.updateIfVersion(task.getId(), taskRepository.findVersionById(task.getId()).orElseThrow(),
+                task.getTitle(), null, "Completed", null, null, LocalDateTime.of(2024, 8, 1, 12, 0));
+        statistics.clear();
+
+        int deleted = taskService.deleteTasks(new TaskFilter("Completed", user.getId(), null, null, LocalDateTime.of(2024, 8, 2, 0, 0)));
+        int none = taskService.deleteTasks(new TaskFilter("Completed", null, null, null, LocalDateTime.of(2024, 8, 1, 0, 0)));
+
+        assertEquals(1, deleted);
+        assertEquals(0, none);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertTrue(taskRepository.findById(task.getId()).isEmpty());
+        assertEquals(2, taskRepository.count());
+    }
+
+    @Test
+    public void testReassignOpenMovesAChunkPerStatement() {
+        taskRepository.updateIfVersion(task.getId(), taskRepository.findVersionById(task.getId()).orElseThrow(),
+                task.getTitle(), null, "Completed", null, null, LocalDateTime.of(2024, 8, 1, 12, 0));
+        User other = new User();
+        other.setFirstName("Jane");
+        other.setLastName("Doe");
+        other.setTimezone(TimeZone.getTimeZone("UTC"));
+        entityManager.persistAndFlush(other);
+        LocalDateTime now = LocalDateTime.of(2024, 8, 2, 12, 0);
+        statistics.clear();
+
+        List<Integer> chunks = List.of(taskRepository.reassignOpen(user.getId(), other, 1, now),
+                taskRepository.reassignOpen(user.getId(), other, 1, now),
+                taskRepository.reassignOpen(user.getId(), other, 1, now));
+
+        assertEquals(List.of(1, 1, 0), chunks);
+        assertEquals(3, statistics.getPrepareStatementCount());
+        // Completed tasks keep their assignee
+        assertEquals(user.getId(), taskRepository.findWithAssignedToById(task.getId()).orElseThrow().getAssignedTo().getId());
+        List<Task> moved = taskRepository.findPage(new TaskFilter("Pending", other.getId(), null, null, null), null, 10);
+        assertEquals(2, moved.size());
+        assertTrue(moved.stream().allMatch(t -> t.getVersion() == 1L && now.equals(t.getUpdatedAt())));
+    }
+
+    @Test
+    public void testPatchWithoutLoadingIsOneStatement() {
+        Long version = taskRepository.findVersionById(task.getId()).orElseThrow();
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("title", "Renamed");
+        patch.put("description", null);
+        statistics.clear();
+
+        taskService.patchTaskWithoutLoading(task.getId(), patch, version);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        Task patched = taskRepository.findWithAssignedToById(task.getId()).orElseThrow();
+        assertEquals("Renamed", patched.getTitle());
+        assertEquals("Pending", patched.getStatus());
+        assertNull(patched.getDescription());
+        assertEquals(version + 1, patched.getVersion());
+        assertThrows(PreconditionFailedException.class,
+                () -> taskService.patchTaskWithoutLoading(task.getId(), Map.of("title", "Stale"), version));
+    }
+
+    @Test
+    public void testPatchWithoutLoadingReadsTheStatusItReplaces() {
+        entityManager.clear();
+        statistics.clear();
+
+        taskService.patchTaskWithoutLoading(task.getId(), Map.of("status", "In Progress"), null);
+
+        // The counts need the previous status, so the task is loaded once and updated once
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals("In Progress", taskRepository.findWithAssignedToById(task.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testPatchLoadsOnceAndUpdatesOnce() {
+        statistics.clear();
+
+        Task patched = taskService.patchTask(task.getId(), Map.of("status", "Completed"), null);
+
+        assertEquals("Completed", patched.getStatus());
+        assertEquals("Task 3", patched.getTitle());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testUpdateIfVersionOnlyMatchesCurrentVersion() {
+        Long version = taskRepository.findVersionById(task.getId()).orElseThrow();
+
+        int stale = taskRepository.updateIfVersion(task.getId(), version + 1, "Stale", null, "Pending", null, null, LocalDateTime.now());
+        int current = taskRepository.updateIfVersion(task.getId(), version, "Current", null, "Completed", null, null, LocalDateTime.now());
+
+        assertEquals(0, stale);
+        assertEquals(1, current);
+        Task updated = taskRepository.findWithAssignedToById(task.getId()).orElseThrow();
+        assertEquals("Current", updated.getTitle());
+        assertEquals(version + 1, updated.getVersion());
+        assertEquals(user.getId(), updated.getAssignedTo().getId());
+    }
+
+    @Test
+    public void testUpdateTaskIfVersionWritesDueDate() {
+        Long version = taskRepository.findVersionById(task.getId()).orElseThrow();
+        Task details = new Task();
+        details.setTitle("Due soon");
+        details.setStatus("Pending");
+        details.setDueAt(LocalDateTime.of(2024, 9, 1, 17, 0));
+        details.setTimezone(TimeZone.getTimeZone("Europe/Paris"));
+        statistics.clear();
+
+        Task updated = taskService.updateTaskIfVersion(task.getId(), details, null, version);
+
+        assertEquals(LocalDateTime.of(2024, 9, 1, 17, 0), updated.getDueAt());
+        assertEquals(version + 1, updated.getVersion());
+        // The conditional update is the only statement, the task is not read before or after it
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(Task.class.getName()).getLoadCount());
+        entityManager.clear();
+        Task stored = taskRepository.findWithAssignedToById(task.getId()).orElseThrow();
+        assertEquals(LocalDateTime.of(2024, 9, 1, 17, 0), stored.getDueAt());
+        assertEquals(TimeZone.getTimeZone("Europe/Paris"), stored.getTimezone());
+    }
+
+    @Test
+    public void testSummaryPageSeeksPastCursor() {
+        List<TaskSummary> first = taskRepository.findFirstSummaryPage(PageRequest.ofSize(2));
+        TaskSummary last = first.get(1);
+        List<TaskSummary> rest = taskRepository.findSummaryPageAfter(last.getCreatedAt(), last.getId(), PageRequest.ofSize(2));
+
+        assertEquals(2, first.size());
+        assertEquals(1, rest.size());
+        assertEquals(task.getId(), rest.get(0).getId());
+        assertEquals(user.getId(), rest.get(0).getAssignedToId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testUserTaskPagesMergeStatusesMostRecentFirst() {
+        Task completed = new Task();
+        completed.setTitle("Completed task");
+        completed.setStatus("Completed");
+        completed.setAssignedTo(entityManager.find(User.class, user.getId()));
+        entityManager.persist(completed);
+        Task withoutStatus = new Task();
+        withoutStatus.setTitle("Task without status");
+        withoutStatus.setAssignedTo(entityManager.find(User.class, user.getId()));
+        entityManager.persistAndFlush(withoutStatus);
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Task t SET t.updatedAt = :updatedAt WHERE t.id = :id")
+                .setParameter("updatedAt", LocalDateTime.of(2100, 1, 1, 10, 0))
+                .setParameter("id", completed.getId())
+                .executeUpdate();
+        entityManager.clear();
+        statistics.clear();
+
+        CursorPage<TaskSummary> first = taskService.getUserTaskSummariesPage(user.getId(), null, null, 3);
+        CursorPage<TaskSummary> second = taskService.getUserTaskSummariesPage(user.getId(), null, first.getNext(), 3);
+        CursorPage<TaskSummary> completedOnly = taskService.getUserTaskSummariesPage(user.getId(), "Completed", null, 3);
+
+        assertEquals(completed.getId(), first.getItems().get(0).getId());
+        assertEquals(3, first.getItems().size());
+        assertEquals(2, second.getItems().size());
+        assertNull(second.getNext());
+        List<TaskSummary> all = new ArrayList<>(first.getItems());
+        all.addAll(second.getItems());
+        assertEquals(5, all.stream().map(TaskSummary::getId).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).getUpdatedAt().isAfter(all.get(i - 1).getUpdatedAt()));
+        }
+        assertEquals(List.of(completed.getId()), completedOnly.getItems().stream().map(TaskSummary::getId).toList());
+        // An existence check of the user past the cache and one seek per status for each page, neither loads an entity
+        assertEquals(3 + 4 + 4 + 1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testFindDueResolvesTimeZonesAndSkipsCompletedTasks() {
+        LocalDateTime dueAt = LocalDateTime.of(2024, 9, 1, 17, 0);
+        Task inTaskZone = new Task();
+        inTaskZone.setTitle("Due in Tokyo");
+        inTaskZone.setStatus("Pending");
+        inTaskZone.setAssignedTo(user);
+        inTaskZone.setTimezone(TimeZone.getTimeZone("Asia/Tokyo"));
+        inTaskZone.setDueAt(dueAt);
+        entityManager.persist(inTaskZone);
+        Task inAssigneeZone = new Task();
+        inAssigneeZone.setTitle("Due in UTC");
+        inAssigneeZone.setStatus("In Progress");
+        inAssigneeZone.setAssignedTo(user);
+        inAssigneeZone.setDueAt(dueAt);
+        entityManager.persist(inAssigneeZone);
+        Task completed = new Task();
+        completed.setTitle("Done");
+        completed.setStatus("Completed");
+        completed.setAssignedTo(user);
+        completed.setDueAt(dueAt);
+        entityManager.persist(completed);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<TaskDue> window = taskRepository.findDueBetween(dueAt.minusHours(1), dueAt.plusHours(1));
+        Map<Long, Instant> due = new HashMap<>();
+        window.forEach(d -> due.put(d.getId(), d.due()));
+
+        assertEquals(Map.of(inTaskZone.getId(), Instant.parse("2024-09-01T08:00:00Z"),
+                inAssigneeZone.getId(), Instant.parse("2024-09-01T17:00:00Z")), due);
+        assertEquals(List.of(inAssigneeZone.getId()), taskRepository.findDueByIdIn(
+                List.of(inAssigneeZone.getId(), completed.getId(), task.getId())).stream().map(TaskDue::getId).toList());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.config.CacheConfig;
+import com.example.taskmanager.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the user cache in front of {@link UserRepository#findById} against an embedded database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.platform=h2",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "taskmanager.cache.users.spec=maximumSize=100,recordStats"
+})
+@Import(CacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository.deleteAll();
+
+        User newUser = new User();
+        newUser.setFirstName("John");
+        newUser.setLastName("Doe");
+        newUser.setTimezone(TimeZone.getTimeZone("UTC"));
+        user = userRepository.save(newUser);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testFindByIdIsServedFromCache() {
+        assertEquals("John", userRepository.findById(user.getId()).orElseThrow().getFirstName());
+        assertEquals("John", userRepository.findById(user.getId()).orElseThrow().getFirstName());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testMissingUserIsNotCached() {
+        assertTrue(userRepository.findById(-1L).isEmpty());
+
+        assertNull(cacheManager.getCache(CacheConfig.USERS).get(-1L));
+    }
+
+    @Test
+    public void testSaveEvictsOnlyAfterCommit() {
+        userRepository.findById(user.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User toUpdate = userRepository.findForUpdateById(user.getId()).orElseThrow();
+            toUpdate.setFirstName("Johnny");
+            userRepository.save(toUpdate);
+
+            // Still cached until the transaction commits
+            assertNotNull(cacheManager.getCache(CacheConfig.USERS).get(user.getId()));
+        });
+
+        assertNull(cacheManager.getCache(CacheConfig.USERS).get(user.getId()));
+        assertEquals("Johnny", userRepository.findById(user.getId()).orElseThrow().getFirstName());
+    }
+
+    @Test
+    public void testRolledBackSaveKeepsEntry() {
+        userRepository.findById(user.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User toUpdate = userRepository.findForUpdateById(user.getId()).orElseThrow();
+            toUpdate.setFirstName("Johnny");
+            userRepository.save(toUpdate);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("John", userRepository.findById(user.getId()).orElseThrow().getFirstName());
+    }
+
+    @Test
+    public void testUpdateFieldsWritesOneStatementAndEvicts() {
+        userRepository.findById(user.getId());
+        Long version = user.getVersion();
+        statistics.clear();
+
+        int updated = new TransactionTemplate(transactionManager).execute(status ->
+                userRepository.updateFields(user.getId(), version, Map.of("lastName", "Smith")));
+        int stale = new TransactionTemplate(transactionManager).execute(status ->
+                userRepository.updateFields(user.getId(), version, Map.of("lastName", "Jones")));
+
+        assertEquals(1, updated);
+        assertEquals(0, stale);
+        assertEquals(2, statistics.getPrepareStatementCount());
+        User patched = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals("John", patched.getFirstName());
+        assertEquals("Smith", patched.getLastName());
+        assertEquals(version + 1, patched.getVersion());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.taskmanager.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class TaskSearchIndexTest {
+
+    private TaskSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new TaskSearchIndex();
+    }
+
+    private static TaskSnapshot task(long id, long version, String title, String description) {
+        return new TaskSnapshot(id, version, title, description, "Pending", 1L, null, null, null);
+    }
+
+    @Test
+    public void testSearchRequiresEveryTerm() {
+        index.index(task(1L, 0L, "Write release notes", null));
+        index.index(task(2L, 0L, "Write documentation", "Covers the release process"));
+        index.index(task(3L, 0L, "Plan release", null));
+
+        assertEquals(List.of(), index.search("release budget", 10));
+        assertEquals(2, index.search("write release", 10).size());
+        assertTrue(index.search("WRITE, Release!", 10).containsAll(List.of(1L, 2L)));
+    }
+
+    @Test
+    public void testSearchRanksRarerAndDenserMatchesFirst() {
+        index.index(task(1L, 0L, "Database migration", "Migrate the database, then verify the database"));
+        index.index(task(2L, 0L, "Database backup", "Nightly backup job for the main cluster and replicas"));
+        index.index(task(3L, 0L, "Frontend", "Unrelated work"));
+
+        assertEquals(List.of(1L, 2L), index.search("database", 10));
+        assertEquals(List.of(1L), index.search("database", 1));
+    }
+
+    @Test
+    public void testReindexReplacesOldTerms() {
+        index.index(task(1L, 0L, "Old title", null));
+        index.index(task(1L, 1L, "New title", null));
+
+        assertEquals(List.of(), index.search("old", 10));
+        assertEquals(List.of(1L), index.search("new", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testStaleVersionIsIgnored() {
+        index.index(task(1L, 2L, "Current title", null));
+        index.index(task(1L, 1L, "Stale title", null));
+
+        assertEquals(List.of(1L), index.search("current", 10));
+        assertEquals(List.of(), index.search("stale", 10));
+    }
+
+    @Test
+    public void testDeletedEventRemovesTask() {
+        TaskSnapshot snapshot = task(1L, 0L, "Write release notes", null);
+        index.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 1L, null, snapshot));
+        index.onTaskChanged(TaskChangedEvent.deleted(snapshot));
+
+        assertEquals(List.of(), index.search("release", 10));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testBlankQueryMatchesNothing() {
+        index.index(task(1L, 0L, "Write release notes", null));
+
+        assertEquals(List.of(), index.search("  ", 10));
+        assertEquals(List.of(), index.search(null, 10));
+    }
+}
@@ -3,25 +3,71 @@ package com.example.taskmanager.serviceimpl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.example.taskmanager.datasource.ReplicaRoutingDataSource;
+import com.example.taskmanager.dto.BulkItemResult;
+import com.example.taskmanager.dto.BulkResult;
+import com.example.taskmanager.dto.CursorPage;
+import com.example.taskmanager.dto.ImportJob;
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskFilter;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskSummary;
+import com.example.taskmanager.dto.TaskTransition;
+import com.example.taskmanager.entity.ArchivedTask;
 import com.example.taskmanager.entity.Task;
 import com.example.taskmanager.entity.User;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TasksChangedInBulkEvent;
+import com.example.taskmanager.exception.InvalidCursorException;
+import com.example.taskmanager.exception.InvalidFilterException;
+import com.example.taskmanager.exception.InvalidPatchException;
+import com.example.taskmanager.exception.PreconditionFailedException;
 import com.example.taskmanager.exception.TaskNotFoundException;
 import com.example.taskmanager.exception.UserNotFoundException;
+import com.example.taskmanager.imports.ImportJobs;
+import com.example.taskmanager.imports.TaskImportReader;
+import com.example.taskmanager.repository.ArchivedTaskRepository;
 import com.example.taskmanager.repository.TaskRepository;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.search.TaskSearchIndex;
+import com.example.taskmanager.stats.TaskStatistics;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.stream.Stream;
 
 @Transactional
 public class TaskServiceImplTest {
@@ -32,12 +78,37 @@ public class TaskServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TaskSearchIndex taskSearchIndex;
+
+    @Mock
+    private TaskStatistics taskStatistics;
+
+    @Mock
+    private ImportJobs importJobs;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private TaskServiceImpl taskService;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(taskService, "bulkChunkSize", 2);
     }
 
     @Test
@@ -65,6 +136,14 @@ public class TaskServiceImplTest {
         assertEquals("John", createdTask.getAssignedTo().getFirstName());
         verify(userRepository, times(1)).findById(2L);
         verify(taskRepository, times(1)).save(task);
+
+        // The insert is flushed before the event is built, so it sees the stored timestamps
+        InOrder inOrder = inOrder(taskRepository, eventPublisher);
+        inOrder.verify(taskRepository).flush();
+        ArgumentCaptor<TaskChangedEvent> event = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        inOrder.verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(TaskChangedEvent.Type.CREATED, event.getValue().getType());
+        assertEquals("Complete project documentation", event.getValue().getCurrent().getTitle());
     }
 
     @Test
@@ -88,6 +167,189 @@ public class TaskServiceImplTest {
         verify(taskRepository, times(0)).save(any(Task.class));
     }
 
+    @Test
+    public void testBulkUpsertTasksCreatesUpdatesAndReportsFailures() {
+        User user = new User();
+        user.setId(2L);
+
+        Task newTask = new Task();
+        newTask.setTitle("New task");
+        newTask.setStatus("Pending");
+        newTask.setAssignedTo(user);
+
+        Task update = new Task();
+        update.setId(7L);
+        update.setTitle("Updated task");
+        update.setStatus("Completed");
+        update.setAssignedTo(user);
+
+        Task invalid = new Task();
+        invalid.setTitle("");
+        invalid.setAssignedTo(user);
+
+        User unknownUser = new User();
+        unknownUser.setId(9L);
+        Task unknownAssignee = new Task();
+        unknownAssignee.setTitle("Orphan");
+        unknownAssignee.setAssignedTo(unknownUser);
+
+        Task existing = new Task();
+        existing.setId(7L);
+        existing.setTitle("Old title");
+
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(taskRepository.findAllById(Set.of(7L))).thenReturn(List.of(existing));
+        when(taskRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Task> saved = new ArrayList<>();
+            for (Task task : (Iterable<Task>) invocation.getArgument(0)) {
+                if (task.getId() == null) {
+                    task.setId(100L);
+                }
+                saved.add(task);
+            }
+            return saved;
+        });
+
+        BulkResult result = taskService.bulkUpsertTasks(Arrays.asList(newTask, update, invalid, unknownAssignee), null);
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(BulkItemResult.Status.CREATED, result.getItems().get(0).getStatus());
+        assertEquals(100L, result.getItems().get(0).getId());
+        assertEquals(BulkItemResult.Status.UPDATED, result.getItems().get(1).getStatus());
+        assertEquals("Updated task", existing.getTitle());
+        assertEquals("Title is mandatory", result.getItems().get(2).getError());
+        assertEquals("User not found with id: 9", result.getItems().get(3).getError());
+        assertNull(newTask.getId());
+        // One transaction per chunk of two, the invalid item never reaches the database
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testBulkUpsertTasksUpdatesTimezone() {
+        User user = new User();
+        user.setId(2L);
+
+        Task update = new Task();
+        update.setId(7L);
+        update.setTitle("Updated task");
+        update.setDueAt(LocalDateTime.of(2024, 9, 1, 17, 0));
+        update.setTimezone(TimeZone.getTimeZone("Europe/Paris"));
+        update.setAssignedTo(user);
+
+        Task existing = new Task();
+        existing.setId(7L);
+        existing.setTitle("Old title");
+        existing.setTimezone(TimeZone.getTimeZone("America/New_York"));
+
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(taskRepository.findAllById(Set.of(7L))).thenReturn(List.of(existing));
+        when(taskRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkResult result = taskService.bulkUpsertTasks(List.of(update), null);
+
+        assertEquals(BulkItemResult.Status.UPDATED, result.getItems().get(0).getStatus());
+        assertEquals(TimeZone.getTimeZone("Europe/Paris"), existing.getTimezone());
+        ArgumentCaptor<TaskChangedEvent> event = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Instant.parse("2024-09-01T15:00:00Z"), event.getValue().getCurrent().getDue());
+    }
+
+    @Test
+    public void testBulkUpsertTasksIsolatesItemThatBreaksChunk() {
+        User user = new User();
+        user.setId(2L);
+
+        Task good = new Task();
+        good.setTitle("Good");
+        good.setAssignedTo(user);
+
+        Task bad = new Task();
+        bad.setTitle("Bad");
+        bad.setAssignedTo(user);
+
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(taskRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Task> saved = new ArrayList<>();
+            for (Task task : (Iterable<Task>) invocation.getArgument(0)) {
+                if ("Bad".equals(task.getTitle())) {
+                    throw new DataIntegrityViolationException("value too long");
+                }
+                task.setId(100L);
+                saved.add(task);
+            }
+            return saved;
+        });
+
+        BulkResult result = taskService.bulkUpsertTasks(Arrays.asList(good, bad), null);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(BulkItemResult.Status.CREATED, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemResult.Status.FAILED, result.getItems().get(1).getStatus());
+        assertEquals("value too long", result.getItems().get(1).getError());
+    }
+
+    private static TaskImportReader csv(String content) {
+        return TaskImportReader.csv(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testImportTasksCommitsChunksAndReportsRowFailures() {
+        User user = new User();
+        user.setId(2L);
+        ImportJob job = new ImportJob();
+        job.setStatus(ImportJob.Status.RUNNING);
+        when(importJobs.start()).thenReturn(job);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(taskRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ImportJob> started = new ArrayList<>();
+        ImportJob result = taskService.importTasks(csv("title,status,assigneeId\n"
+                + "First,Pending,2\n"
+                + ",Pending,2\n"
+                + "Second,Done,2\n"
+                + "Third,,2\n"
+                + "Orphan,,9\n"), started::add);
+
+        assertSame(job, result);
+        assertEquals(List.of(job), started);
+        assertEquals(ImportJob.Status.COMPLETED, result.getStatus());
+        assertEquals(5, result.getRead());
+        assertEquals(2, result.getCreated());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(1, 2, 4), result.getFailures().stream().map(BulkItemResult::getIndex).toList());
+        assertEquals("Title is mandatory", result.getFailures().get(0).getError());
+        assertEquals("Status must be 'Pending', 'In Progress', or 'Completed'", result.getFailures().get(1).getError());
+        assertEquals("User not found with id: 9", result.getFailures().get(2).getError());
+        // One transaction per chunk of two rows, and the progress is published after each of them
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(userRepository, never()).findById(any());
+        verify(importJobs, times(4)).publish(job);
+    }
+
+    @Test
+    public void testImportTasksKeepsCommittedChunksWhenTheUploadBreaks() {
+        User user = new User();
+        user.setId(2L);
+        ImportJob job = new ImportJob();
+        job.setStatus(ImportJob.Status.RUNNING);
+        when(importJobs.start()).thenReturn(job);
+        when(userRepository.findAllById(any())).thenReturn(List.of(user));
+        when(taskRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ImportJob result = taskService.importTasks(csv("title,assigneeId\n"
+                + "First,2\n"
+                + "Second,2\n"
+                + "\"Unterminated,2\n"), started -> { });
+
+        assertSame(job, result);
+        assertEquals(ImportJob.Status.FAILED, job.getStatus());
+        assertEquals(2, job.getCreated());
+        assertEquals("Record 4 has an unterminated quoted field", job.getError());
+        verify(taskRepository, times(1)).saveAll(any());
+    }
+
     @Test
     public void testGetTaskById() {
         Task task = new Task();
@@ -96,25 +358,25 @@ public class TaskServiceImplTest {
         task.setDescription("Finish the documentation for the task management project");
         task.setStatus("Pending");
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(task));
 
         Task foundTask = taskService.getTaskById(1L);
 
         assertNotNull(foundTask);
         assertEquals("Complete project documentation", foundTask.getTitle());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findWithAssignedToById(1L);
     }
 
     @Test
     public void testGetTaskByIdNotFound() {
-        when(taskRepository.findById(1L)).thenReturn(Optional.empty());
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(TaskNotFoundException.class, () -> {
             taskService.getTaskById(1L);
         });
 
         assertEquals("Task not found with id: 1", exception.getMessage());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findWithAssignedToById(1L);
     }
 
     @Test
@@ -130,40 +392,73 @@ public class TaskServiceImplTest {
         task.setStatus("Pending");
         task.setAssignedTo(assignedUser);
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(assignedUser));
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(task));
 
         Task foundTask = taskService.getTaskById(1L);
 
         assertNotNull(foundTask);
         assertEquals("Complete project documentation", foundTask.getTitle());
         assertEquals("John", foundTask.getAssignedTo().getFirstName());
-        verify(taskRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(2L);
+        verify(taskRepository, times(1)).findWithAssignedToById(1L);
+        // The assignee comes with the task, it is not selected again
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
-    public void testGetTaskByIdWithInvalidAssignedUser() {
+    public void testGetTaskByIdFallsThroughToArchive() {
         User assignedUser = new User();
         assignedUser.setId(2L);
+        ArchivedTask archived = new ArchivedTask();
+        archived.setId(1L);
+        archived.setVersion(3L);
+        archived.setTitle("Complete project documentation");
+        archived.setStatus("Completed");
+        archived.setAssigneeId(2L);
+
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.empty());
+        when(archivedTaskRepository.findById(1L)).thenReturn(Optional.of(archived));
+        when(archivedTaskRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+        when(userRepository.findForUpdateById(2L)).thenReturn(Optional.of(assignedUser));
 
-        Task task = new Task();
-        task.setId(1L);
-        task.setTitle("Complete project documentation");
-        task.setDescription("Finish the documentation for the task management project");
-        task.setStatus("Pending");
-        task.setAssignedTo(assignedUser);
+        Task foundTask = taskService.getTaskById(1L);
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
-        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        assertEquals("Complete project documentation", foundTask.getTitle());
+        assertEquals(3L, foundTask.getVersion());
+        assertEquals(assignedUser, foundTask.getAssignedTo());
+        assertEquals(3L, taskService.getTaskVersion(1L));
+        // Archived tasks are read-only
+        assertThrows(TaskNotFoundException.class, () -> taskService.deleteTask(1L));
+        assertThrows(TaskNotFoundException.class, () -> taskService.patchTask(1L, Map.of("title", "Changed"), null));
+        verify(taskRepository, never()).delete(any(Task.class));
+        verify(userRepository, never()).findById(any());
+        verifyNoInteractions(eventPublisher);
+    }
 
-        Exception exception = assertThrows(UserNotFoundException.class, () -> {
-            taskService.getTaskById(1L);
-        });
+    @Test
+    public void testUpdateTaskKeepsLoadedAssignee() {
+        User assignedUser = new User();
+        assignedUser.setId(2L);
+        assignedUser.setFirstName("John");
 
-        assertEquals("User not found with id: 2", exception.getMessage());
-        verify(taskRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(2L);
+        Task existingTask = new Task();
+        existingTask.setId(1L);
+        existingTask.setTitle("Old Title");
+        existingTask.setAssignedTo(assignedUser);
+
+        User sameUser = new User();
+        sameUser.setId(2L);
+        Task updatedTaskDetails = new Task();
+        updatedTaskDetails.setTitle("New Title");
+        updatedTaskDetails.setAssignedTo(sameUser);
+
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(existingTask));
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Task updatedTask = taskService.updateTask(1L, updatedTaskDetails, null);
+
+        assertEquals("New Title", updatedTask.getTitle());
+        assertSame(assignedUser, updatedTask.getAssignedTo());
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
@@ -188,6 +483,98 @@ public class TaskServiceImplTest {
         verify(taskRepository, times(1)).findAll();
     }
 
+    @Test
+    public void testGetTasksPageFirstPageWithNext() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 8, 1, 10, 0);
+        Task task1 = new Task();
+        task1.setId(1L);
+        task1.setCreatedAt(createdAt);
+        Task task2 = new Task();
+        task2.setId(2L);
+        task2.setCreatedAt(createdAt);
+        Task task3 = new Task();
+        task3.setId(3L);
+        task3.setCreatedAt(createdAt.plusSeconds(1));
+
+        when(taskRepository.findPage(TaskFilter.none(), null, 3)).thenReturn(Arrays.asList(task1, task2, task3));
+
+        CursorPage<Task> page = taskService.getTasksPage(TaskFilter.none(), null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(2L, page.getItems().get(1).getId());
+        TaskCursor next = TaskCursor.decode(page.getNext());
+        assertEquals(createdAt, next.getTimestamp());
+        assertEquals(2L, next.getId());
+        verify(taskRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetTasksPageAfterCursorLastPage() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 8, 1, 10, 0);
+        Task task = new Task();
+        task.setId(3L);
+        task.setCreatedAt(createdAt.plusSeconds(1));
+        String cursor = new TaskCursor(createdAt, 2L).encode();
+
+        TaskFilter filter = new TaskFilter("Pending", 2L, null, null, null);
+        when(taskRepository.findPage(filter, new TaskCursor(createdAt, 2L), 3)).thenReturn(List.of(task));
+
+        CursorPage<Task> page = taskService.getTasksPage(filter, cursor, 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void testGetTasksPageClampsLimit() {
+        when(taskRepository.findPage(any(), any(), anyInt())).thenReturn(List.of());
+
+        taskService.getTasksPage(TaskFilter.none(), null, 100000);
+
+        verify(taskRepository, times(1)).findPage(TaskFilter.none(), null, TaskServiceImpl.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void testGetTasksPageInvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> taskService.getTasksPage(TaskFilter.none(), "not-a-cursor", 10));
+    }
+
+    @Test
+    public void testGetTaskSummariesPage() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 8, 1, 10, 0);
+        TaskSummary summary1 = new TaskSummary(1L, "Task 1", "Pending", createdAt, createdAt, 2L);
+        TaskSummary summary2 = new TaskSummary(2L, "Task 2", "Pending", createdAt, createdAt, 2L);
+
+        when(taskRepository.findFirstSummaryPage(PageRequest.ofSize(2))).thenReturn(Arrays.asList(summary1, summary2));
+
+        CursorPage<TaskSummary> page = taskService.getTaskSummariesPage(null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(1L, TaskCursor.decode(page.getNext()).getId());
+        verify(taskRepository, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testExportTasksStreamsAndClearsPersistenceContext() {
+        List<Task> tasks = new ArrayList<>();
+        for (long i = 1; i <= TaskRepository.STREAM_FETCH_SIZE + 1; i++) {
+            Task task = new Task();
+            task.setId(i);
+            tasks.add(task);
+        }
+        Stream<Task> stream = spy(tasks.stream());
+        when(taskRepository.streamAll()).thenReturn(stream);
+
+        List<Long> exported = new ArrayList<>();
+        taskService.exportTasks(task -> exported.add(task.getId()));
+
+        assertEquals(TaskRepository.STREAM_FETCH_SIZE + 1, exported.size());
+        assertEquals(1L, exported.get(0));
+        verify(entityManager, times(1)).clear();
+        verify(stream, times(1)).close();
+        verify(taskRepository, never()).findAll();
+    }
+
     @Test
     public void testUpdateTask() {
         Task existingTask = new Task();
@@ -208,7 +595,7 @@ public class TaskServiceImplTest {
         mockUser.setId(2L);
         mockUser.setFirstName("John");
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(existingTask));
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(existingTask));
         when(userRepository.findById(2L)).thenReturn(Optional.of(mockUser));
         when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -219,9 +606,15 @@ public class TaskServiceImplTest {
         assertEquals("New Description", updatedTask.getDescription());
         assertEquals("Completed", updatedTask.getStatus());
         assertEquals("John", updatedTask.getAssignedTo().getFirstName());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findWithAssignedToById(1L);
         verify(userRepository, times(1)).findById(2L);
         verify(taskRepository, times(1)).save(existingTask);
+
+        ArgumentCaptor<TaskChangedEvent> event = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(TaskChangedEvent.Type.UPDATED, event.getValue().getType());
+        assertEquals("Old Title", event.getValue().getPrevious().getTitle());
+        assertEquals("New Title", event.getValue().getCurrent().getTitle());
     }
 
     @Test
@@ -240,7 +633,7 @@ public class TaskServiceImplTest {
         assignedUser.setId(2L);
         updatedTaskDetails.setAssignedTo(assignedUser);
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(existingTask));
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(existingTask));
         when(userRepository.findById(2L)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(UserNotFoundException.class, () -> {
@@ -248,35 +641,329 @@ public class TaskServiceImplTest {
         });
 
         assertEquals("User not found with id: 2", exception.getMessage());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findWithAssignedToById(1L);
         verify(userRepository, times(1)).findById(2L);
         verify(taskRepository, times(0)).save(any(Task.class));
     }
 
+    @Test
+    public void testUpdateTaskIfVersion() {
+        User assignedUser = new User();
+        assignedUser.setId(2L);
+        Task taskDetails = new Task();
+        taskDetails.setTitle("New Title");
+        taskDetails.setStatus("Completed");
+        taskDetails.setAssignedTo(assignedUser);
+
+        when(userRepository.findById(2L)).thenReturn(Optional.of(assignedUser));
+        when(taskRepository.updateIfVersion(eq(1L), eq(3L), eq("New Title"), isNull(), eq("Completed"), isNull(), isNull(), eq(assignedUser), any()))
+                .thenReturn(1);
+
+        Task updated = taskService.updateTaskIfVersion(1L, taskDetails, null, 3L);
+
+        // The response is built from the request, the task is never read
+        assertEquals(4L, updated.getVersion());
+        assertEquals("New Title", updated.getTitle());
+        assertEquals("Completed", updated.getStatus());
+        assertEquals(assignedUser, updated.getAssignedTo());
+        verify(taskRepository, never()).findWithAssignedToById(any());
+        verify(taskRepository, never()).findVersionById(any());
+        verify(taskRepository, never()).save(any(Task.class));
+        // Neither state is known, the listeners look the task up or reconcile
+        verify(eventPublisher).publishEvent(TaskChangedEvent.rewritten(1L));
+    }
+
+    @Test
+    public void testUpdateTaskIfVersionKeepsAssignee() {
+        Task taskDetails = new Task();
+        taskDetails.setTitle("New Title");
+        taskDetails.setDueAt(LocalDateTime.of(2024, 9, 1, 17, 0));
+        taskDetails.setTimezone(TimeZone.getTimeZone("Europe/Paris"));
+
+        when(taskRepository.updateIfVersion(eq(1L), eq(3L), eq("New Title"), isNull(), isNull(),
+                eq(LocalDateTime.of(2024, 9, 1, 17, 0)), eq(TimeZone.getTimeZone("Europe/Paris")), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        Task updated = taskService.updateTaskIfVersion(1L, taskDetails, null, 3L);
+
+        assertEquals(LocalDateTime.of(2024, 9, 1, 17, 0), updated.getDueAt());
+        assertNull(updated.getAssignedTo());
+        verify(userRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(TaskChangedEvent.rewritten(1L));
+    }
+
+    @Test
+    public void testUpdateTaskIfVersionWithStaleVersion() {
+        Task taskDetails = new Task();
+        taskDetails.setTitle("New Title");
+
+        when(taskRepository.updateIfVersion(eq(1L), eq(3L), any(), any(), any(), any(), any(), any(LocalDateTime.class))).thenReturn(0);
+        when(taskRepository.findVersionById(1L)).thenReturn(Optional.of(5L));
+
+        Exception exception = assertThrows(PreconditionFailedException.class,
+                () -> taskService.updateTaskIfVersion(1L, taskDetails, null, 3L));
+
+        assertEquals("Task 1 is at version 5, not 3", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testUpdateTaskIfVersionNotFound() {
+        Task taskDetails = new Task();
+        taskDetails.setTitle("New Title");
+
+        when(taskRepository.updateIfVersion(eq(1L), eq(3L), any(), any(), any(), any(), any(), any(LocalDateTime.class))).thenReturn(0);
+        when(taskRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(TaskNotFoundException.class, () -> taskService.updateTaskIfVersion(1L, taskDetails, null, 3L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testPatchTaskOnlyChangesPatchedFields() {
+        Task task = new Task();
+        task.setId(1L);
+        task.setVersion(4L);
+        task.setTitle("Old Title");
+        task.setDescription("Old Description");
+        task.setStatus("Pending");
+
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Task patched = taskService.patchTask(1L, Map.of("status", "Completed"), 4L);
+
+        assertEquals("Completed", patched.getStatus());
+        assertEquals("Old Title", patched.getTitle());
+        assertEquals("Old Description", patched.getDescription());
+        verify(eventPublisher).publishEvent(any(TaskChangedEvent.class));
+    }
+
+    @Test
+    public void testPatchTaskDueDateResolvesInAssigneeTimeZone() {
+        User assignee = new User();
+        assignee.setId(7L);
+        assignee.setTimezone(TimeZone.getTimeZone("Europe/Paris"));
+        Task task = new Task();
+        task.setId(1L);
+        task.setVersion(4L);
+        task.setTitle("Title");
+        task.setAssignedTo(assignee);
+
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Task patched = taskService.patchTask(1L, Map.of("dueAt", "2024-09-01T17:00"), null);
+
+        assertEquals(LocalDateTime.of(2024, 9, 1, 17, 0), patched.getDueAt());
+        ArgumentCaptor<TaskChangedEvent> event = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Instant.parse("2024-09-01T15:00:00Z"), event.getValue().getCurrent().getDue());
+        assertThrows(InvalidPatchException.class, () -> taskService.patchTask(1L, Map.of("dueAt", "tomorrow"), null));
+    }
+
+    @Test
+    public void testPatchTaskWithStaleVersion() {
+        Task task = new Task();
+        task.setId(1L);
+        task.setVersion(5L);
+
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(task));
+
+        assertThrows(PreconditionFailedException.class, () -> taskService.patchTask(1L, Map.of("status", "Completed"), 4L));
+        verify(taskRepository, never()).save(any(Task.class));
+    }
+
+    @Test
+    public void testPatchTaskRejectsInvalidValues() {
+        Map<String, Object> blankTitle = new HashMap<>();
+        blankTitle.put("title", null);
+
+        assertThrows(InvalidPatchException.class, () -> taskService.patchTask(1L, Map.of("status", "Done"), null));
+        assertThrows(InvalidPatchException.class, () -> taskService.patchTask(1L, blankTitle, null));
+        assertThrows(InvalidPatchException.class, () -> taskService.patchTask(1L, Map.of("id", 2), null));
+        assertThrows(InvalidPatchException.class, () -> taskService.patchTask(1L, Map.of("assignedTo", 2), null));
+        assertThrows(InvalidPatchException.class, () -> taskService.patchTask(1L, Map.of("timezone", "Mars/Olympus"), null));
+        assertThrows(InvalidPatchException.class,
+                () -> taskService.patchTaskWithoutLoading(1L, Map.of("timezone", "Mars/Olympus"), null));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    public void testPatchTaskWithoutLoadingWritesOnlyPatchedFields() {
+        when(taskRepository.updateFields(eq(1L), eq(4L), any())).thenReturn(1);
+
+        taskService.patchTaskWithoutLoading(1L, Map.of("title", "New Title"), 4L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> values = ArgumentCaptor.forClass(Map.class);
+        verify(taskRepository).updateFields(eq(1L), eq(4L), values.capture());
+        assertEquals(Set.of("title", "updatedAt"), values.getValue().keySet());
+        verify(taskRepository, never()).findWithAssignedToById(any());
+        verify(eventPublisher).publishEvent(TaskChangedEvent.changed(1L));
+    }
+
+    @Test
+    public void testPatchTaskWithoutLoadingReadsPreviousStatus() {
+        Task task = new Task();
+        task.setId(1L);
+        task.setVersion(4L);
+        task.setTitle("Title");
+        task.setStatus("Pending");
+
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        taskService.patchTaskWithoutLoading(1L, Map.of("status", "Completed"), 4L);
+
+        verify(taskRepository, never()).updateFields(any(), any(), any());
+        ArgumentCaptor<TaskChangedEvent> event = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("Pending", event.getValue().getPrevious().getStatus());
+        assertEquals("Completed", event.getValue().getCurrent().getStatus());
+    }
+
+    @Test
+    public void testPatchTaskWithoutLoadingNotFound() {
+        when(taskRepository.updateFields(eq(1L), isNull(), any())).thenReturn(0);
+        when(taskRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(TaskNotFoundException.class, () -> taskService.patchTaskWithoutLoading(1L, Map.of("title", "New Title"), null));
+    }
+
     @Test
     public void testDeleteTask() {
         Task task = new Task();
         task.setId(1L);
         task.setTitle("Complete project documentation");
 
-        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.of(task));
 
         taskService.deleteTask(1L);
 
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findWithAssignedToById(1L);
         verify(taskRepository, times(1)).delete(task);
+
+        ArgumentCaptor<TaskChangedEvent> event = ArgumentCaptor.forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(TaskChangedEvent.Type.DELETED, event.getValue().getType());
+        assertEquals(1L, event.getValue().getTaskId());
+        assertNull(event.getValue().getCurrent());
     }
 
     @Test
     public void testDeleteTaskNotFound() {
-        when(taskRepository.findById(1L)).thenReturn(Optional.empty());
+        when(taskRepository.findWithAssignedToById(1L)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(TaskNotFoundException.class, () -> {
             taskService.deleteTask(1L);
         });
 
         assertEquals("Task not found with id: 1", exception.getMessage());
-        verify(taskRepository, times(1)).findById(1L);
+        verify(taskRepository, times(1)).findWithAssignedToById(1L);
         verify(taskRepository, times(0)).delete(any(Task.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testSearchTasksKeepsRankingAndSkipsMissingTasks() {
+        Task first = new Task();
+        first.setId(7L);
+        Task second = new Task();
+        second.setId(3L);
+
+        when(taskSearchIndex.search("release notes", 20)).thenReturn(List.of(3L, 9L, 7L));
+        when(taskRepository.findWithAssignedToByIdIn(List.of(3L, 9L, 7L))).thenReturn(List.of(first, second));
+
+        List<Task> result = taskService.searchTasks("release notes", 20);
+
+        assertEquals(List.of(3L, 7L), result.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void testSearchTasksDoesNotDropTasksMissingOnALaggingReplica() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        DataSource replica = mock(DataSource.class);
+        Connection replicaConnection = mock(Connection.class, RETURNS_DEEP_STUBS);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.createStatement().executeQuery(anyString()).next()).thenReturn(true);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica),
+                Duration.ofSeconds(1), "SELECT 0");
+        routing.checkReplicas();
+
+        // Created a moment ago, the replica has not caught up with it
+        Task created = new Task();
+        created.setId(7L);
+        when(taskSearchIndex.search("release notes", 20)).thenReturn(List.of(7L));
+        when(taskRepository.findWithAssignedToByIdIn(List.of(7L))).thenAnswer(invocation ->
+                routing.getConnection() == primaryConnection ? List.of(created) : List.of());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertSame(replicaConnection, routing.getConnection());
+            List<Task> result = taskService.searchTasks("release notes", 20);
+
+            assertEquals(List.of(7L), result.stream().map(Task::getId).toList());
+            verify(taskSearchIndex, never()).remove(any());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    public void testSearchTasksWithoutMatchesSkipsQuery() {
+        when(taskSearchIndex.search("nothing", 500)).thenReturn(List.of());
+
+        assertTrue(taskService.searchTasks("nothing", 10_000).isEmpty());
+        verify(taskRepository, never()).findWithAssignedToByIdIn(any());
+    }
+
+    @Test
+    public void testGetTaskStatsReadsCounters() {
+        TaskStats stats = new TaskStats(3, Map.of("Pending", 3L), Map.of(2L, Map.of("Pending", 3L)), null);
+        when(taskStatistics.snapshot()).thenReturn(stats);
+
+        assertSame(stats, taskService.getTaskStats());
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    public void testDeleteTasksRunsOneSetBasedDelete() {
+        TaskFilter filter = new TaskFilter("Completed", 2L, null, null, null);
+        when(taskRepository.deleteMatching(filter)).thenReturn(5);
+
+        assertEquals(5, taskService.deleteTasks(filter));
+        verify(taskRepository, never()).findWithAssignedToById(any());
+        verify(eventPublisher).publishEvent(new TasksChangedInBulkEvent(5));
+    }
+
+    @Test
+    public void testDeleteTasksRequiresAFilter() {
+        assertThrows(InvalidFilterException.class, () -> taskService.deleteTasks(TaskFilter.none()));
+        verify(taskRepository, never()).deleteMatching(any());
+    }
+
+    @Test
+    public void testTransitionTasks() {
+        when(taskRepository.updateStatusMatching(eq(new TaskFilter("In Progress", 2L, null, null, null)), eq("Completed"), any()))
+                .thenReturn(3);
+
+        assertEquals(3, taskService.transitionTasks(new TaskTransition("In Progress", "Completed", 2L)));
+        verify(eventPublisher).publishEvent(new TasksChangedInBulkEvent(3));
+    }
+
+    @Test
+    public void testReassignOpenTasksMovesChunksUntilNoneAreLeft() {
+        User assignee = new User();
+        assignee.setId(2L);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(assignee));
+        when(taskRepository.reassignOpen(eq(1L), eq(assignee), eq(2), any())).thenReturn(2, 2, 1);
+
+        assertEquals(5, taskService.reassignOpenTasks(1L, 2L));
+        verify(taskRepository, times(3)).reassignOpen(eq(1L), eq(assignee), eq(2), any());
+        verify(eventPublisher, times(2)).publishEvent(new TasksChangedInBulkEvent(2, 2L));
+        verify(eventPublisher).publishEvent(new TasksChangedInBulkEvent(1, 2L));
     }
 }
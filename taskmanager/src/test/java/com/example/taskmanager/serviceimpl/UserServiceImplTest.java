@@ -4,16 +4,27 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.example.taskmanager.entity.User;
+import com.example.taskmanager.event.UserChangedEvent;
+import com.example.taskmanager.exception.InvalidPatchException;
+import com.example.taskmanager.exception.InvalidReassignmentException;
+import com.example.taskmanager.exception.PreconditionFailedException;
+import com.example.taskmanager.exception.UserHasTasksException;
 import com.example.taskmanager.exception.UserNotFoundException;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.service.TaskService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class UserServiceImplTest {
@@ -21,6 +32,15 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -114,7 +134,7 @@ public class UserServiceImplTest {
         User updatedUserDetails = new User();
         updatedUserDetails.setFirstName("Johnny");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+        when(userRepository.findForUpdateById(1L)).thenReturn(Optional.of(existingUser));
         when(userRepository.save(existingUser)).thenReturn(existingUser);
 
         // When
@@ -123,10 +143,61 @@ public class UserServiceImplTest {
         // Then
         assertNotNull(updatedUser);
         assertEquals("Johnny", updatedUser.getFirstName());
-        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).findForUpdateById(1L);
+        verify(userRepository, never()).findById(1L);
         verify(userRepository, times(1)).save(existingUser);
     }
 
+    @Test
+    public void testUpdateUserNotFound() {
+        // Given
+        when(userRepository.findForUpdateById(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        Exception exception = assertThrows(UserNotFoundException.class, () -> {
+            userService.updateUser(1L, new User());
+        });
+        assertEquals("User not found with id: 1", exception.getMessage());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    public void testUpdateUserIfVersion() {
+        // Given
+        User userDetails = new User();
+        userDetails.setFirstName("Johnny");
+
+        when(userRepository.updateIfVersion(eq(1L), eq(2L), eq("Johnny"), any(), any(), any())).thenReturn(1);
+
+        // When
+        User updatedUser = userService.updateUserIfVersion(1L, userDetails, 2L);
+
+        // Then
+        assertEquals(1L, updatedUser.getId());
+        assertEquals(3L, updatedUser.getVersion());
+        assertEquals("Johnny", updatedUser.getFirstName());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).findForUpdateById(any());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testUpdateUserIfVersionWithStaleVersion() {
+        // Given
+        User current = new User();
+        current.setId(1L);
+        current.setVersion(5L);
+
+        when(userRepository.updateIfVersion(eq(1L), eq(2L), any(), any(), any(), any())).thenReturn(0);
+        when(userRepository.findForUpdateById(1L)).thenReturn(Optional.of(current));
+
+        // When & Then
+        Exception exception = assertThrows(PreconditionFailedException.class, () -> {
+            userService.updateUserIfVersion(1L, new User(), 2L);
+        });
+        assertEquals("User 1 is at version 5, not 2", exception.getMessage());
+    }
+
     @Test
     public void testDeleteUser() {
         // Given
@@ -142,5 +213,109 @@ public class UserServiceImplTest {
         // Then
         verify(userRepository, times(1)).findById(1L);
         verify(userRepository, times(1)).delete(user);
+        verify(eventPublisher).publishEvent(UserChangedEvent.deleted(user));
+    }
+
+    @Test
+    public void testDeleteUserWithTasks() {
+        User user = new User();
+        user.setId(1L);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(taskService.hasTasks(1L)).thenReturn(true);
+
+        Exception exception = assertThrows(UserHasTasksException.class, () -> userService.deleteUser(1L));
+
+        assertEquals("User 1 still has tasks, deactivate the user instead", exception.getMessage());
+        verify(userRepository, never()).delete(any(User.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testWritesPublishUserChangedEvents() {
+        User user = new User();
+        user.setId(1L);
+        user.setVersion(0L);
+
+        when(userRepository.save(user)).thenReturn(user);
+        when(userRepository.updateFields(eq(1L), isNull(), any())).thenReturn(1);
+
+        userService.createUser(user);
+        userService.patchUserWithoutLoading(1L, Map.of("isActive", true), null);
+
+        verify(eventPublisher).publishEvent(UserChangedEvent.created(user));
+        verify(eventPublisher).publishEvent(UserChangedEvent.changed(1L));
+    }
+
+    @Test
+    public void testPatchUserOnlyChangesPatchedFields() {
+        User user = new User();
+        user.setId(1L);
+        user.setVersion(2L);
+        user.setFirstName("John");
+        user.setLastName("Doe");
+
+        when(userRepository.findForUpdateById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        User patched = userService.patchUser(1L, Map.of("lastName", "Smith"), null);
+
+        assertEquals("John", patched.getFirstName());
+        assertEquals("Smith", patched.getLastName());
+    }
+
+    @Test
+    public void testPatchUserRejectsInvalidValues() {
+        assertThrows(InvalidPatchException.class, () -> userService.patchUser(1L, Map.of("firstName", " "), null));
+        assertThrows(InvalidPatchException.class, () -> userService.patchUser(1L, Map.of("version", 3), null));
+        assertThrows(InvalidPatchException.class, () -> userService.patchUser(1L, Map.of("timezone", "Mars/Olympus"), null));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testPatchUserWithoutLoadingWithStaleVersion() {
+        User user = new User();
+        user.setId(1L);
+        user.setVersion(3L);
+
+        when(userRepository.updateFields(1L, 2L, Map.of("isActive", false))).thenReturn(0);
+        when(userRepository.findForUpdateById(1L)).thenReturn(Optional.of(user));
+
+        assertThrows(PreconditionFailedException.class, () -> userService.patchUserWithoutLoading(1L, Map.of("isActive", false), 2L));
+    }
+
+    @Test
+    public void testDeactivateUserReassignsOpenTasksToThePoolUser() {
+        ReflectionTestUtils.setField(userService, "poolUserId", 9L);
+        User pool = new User();
+        pool.setId(9L);
+        pool.setIsActive(true);
+        when(userRepository.findById(9L)).thenReturn(Optional.of(pool));
+        when(userRepository.updateFields(1L, null, Map.of("isActive", false))).thenReturn(1);
+        when(taskService.reassignOpenTasks(1L, 9L)).thenReturn(1200);
+
+        assertEquals(1200, userService.deactivateUser(1L, null));
+
+        // Deactivated first, so a repeated call picks up the tasks a failure left behind
+        InOrder order = inOrder(userRepository, taskService);
+        order.verify(userRepository).updateFields(1L, null, Map.of("isActive", false));
+        order.verify(taskService).reassignOpenTasks(1L, 9L);
+        verify(eventPublisher).publishEvent(UserChangedEvent.changed(1L));
+    }
+
+    @Test
+    public void testDeactivateUserRequiresAnotherActiveUser() {
+        User inactive = new User();
+        inactive.setId(2L);
+        inactive.setIsActive(false);
+        when(userRepository.findById(2L)).thenReturn(Optional.of(inactive));
+        when(userRepository.findById(3L)).thenReturn(Optional.empty());
+
+        assertThrows(InvalidReassignmentException.class, () -> userService.deactivateUser(1L, null));
+        assertThrows(InvalidReassignmentException.class, () -> userService.deactivateUser(1L, 1L));
+        assertThrows(InvalidReassignmentException.class, () -> userService.deactivateUser(1L, 2L));
+        assertThrows(UserNotFoundException.class, () -> userService.deactivateUser(1L, 3L));
+        verify(userRepository, never()).updateFields(any(), any(), any());
+        verifyNoInteractions(taskService);
     }
 }
@@ -0,0 +1,98 @@
+package com.example.taskmanager.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.example.taskmanager.dto.TaskCount;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.event.TaskChangedEvent;
+import com.example.taskmanager.event.TaskSnapshot;
+import com.example.taskmanager.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+public class TaskStatisticsTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @InjectMocks
+    private TaskStatistics taskStatistics;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(taskRepository.countByStatusAndAssignee()).thenReturn(List.of(
+                new TaskCount("Pending", 1L, 2),
+                new TaskCount("Completed", 1L, 1),
+                new TaskCount("Pending", 2L, 4)));
+        taskStatistics.seed();
+    }
+
+    private static TaskSnapshot snapshot(long id, String status, long assigneeId) {
+        return new TaskSnapshot(id, 0L, "Task " + id, null, status, assigneeId, null, null, null);
+    }
+
+    @Test
+    public void testSeedFromGroupBy() {
+        TaskStats stats = taskStatistics.snapshot();
+
+        assertEquals(7, stats.getTotal());
+        assertEquals(Map.of("Pending", 6L, "Completed", 1L), stats.getByStatus());
+        assertEquals(Map.of("Pending", 2L, "Completed", 1L), stats.getByAssignee().get(1L));
+        assertNotNull(stats.getReconciledAt());
+    }
+
+    @Test
+    public void testDeltasFollowStatusAndAssigneeChanges() {
+        taskStatistics.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.CREATED, 10L, null, snapshot(10L, "In Progress", 2L)));
+        taskStatistics.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, 11L,
+                snapshot(11L, "Pending", 1L), snapshot(11L, "Completed", 2L)));
+        taskStatistics.onTaskChanged(TaskChangedEvent.deleted(snapshot(12L, "Completed", 1L)));
+
+        TaskStats stats = taskStatistics.snapshot();
+
+        assertEquals(7, stats.getTotal());
+        assertEquals(Map.of("Pending", 5L, "Completed", 1L, "In Progress", 1L), stats.getByStatus());
+        assertEquals(Map.of("Pending", 1L), stats.getByAssignee().get(1L));
+        assertEquals(Map.of("Pending", 4L, "In Progress", 1L, "Completed", 1L), stats.getByAssignee().get(2L));
+    }
+
+    @Test
+    public void testUpdateWithUnknownPreviousStateReconciles() {
+        taskStatistics.onTaskChanged(new TaskChangedEvent(TaskChangedEvent.Type.UPDATED, 11L, null, snapshot(11L, "Completed", 1L)));
+        when(taskRepository.countByStatusAndAssignee()).thenReturn(List.of(new TaskCount("Completed", 1L, 3)));
+
+        assertEquals(7, taskStatistics.snapshot().getTotal());
+        taskStatistics.reconcileIfDirty();
+        assertEquals(Map.of("Completed", 3L), taskStatistics.snapshot().getByStatus());
+
+        taskStatistics.reconcileIfDirty();
+        verify(taskRepository, times(2)).countByStatusAndAssignee();
+    }
+
+    @Test
+    public void testRewriteWithoutReadingTheTaskReconciles() {
+        taskStatistics.onTaskChanged(TaskChangedEvent.rewritten(11L));
+
+        taskStatistics.reconcileIfDirty();
+
+        verify(taskRepository, times(2)).countByStatusAndAssignee();
+    }
+
+    @Test
+    public void testUpdateWithoutReadingTheTaskKeepsCounts() {
+        taskStatistics.onTaskChanged(TaskChangedEvent.changed(11L));
+
+        taskStatistics.reconcileIfDirty();
+
+        assertEquals(7, taskStatistics.snapshot().getTotal());
+        verify(taskRepository, times(1)).countByStatusAndAssignee();
+    }
+}